@@ -0,0 +1,699 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client;
+
+import com.msopentech.odatajclient.engine.client.http.AdaptiveConcurrencyLimiter;
+import com.msopentech.odatajclient.engine.client.http.HttpClientFactory;
+import com.msopentech.odatajclient.engine.client.http.HttpRequestCoalescer;
+import com.msopentech.odatajclient.engine.client.http.HttpUriRequestFactory;
+import com.msopentech.odatajclient.engine.client.http.NoOpRequestTimingListener;
+import com.msopentech.odatajclient.engine.client.http.RequestCompression;
+import com.msopentech.odatajclient.engine.client.http.RequestTimingListener;
+import com.msopentech.odatajclient.engine.communication.request.batch.BatchRequestFactory;
+import com.msopentech.odatajclient.engine.communication.request.cud.CUDRequestFactory;
+import com.msopentech.odatajclient.engine.communication.request.invoke.InvokeRequestFactory;
+import com.msopentech.odatajclient.engine.communication.request.retrieve.ODataResponseCache;
+import com.msopentech.odatajclient.engine.communication.request.retrieve.RetrieveRequestFactory;
+import com.msopentech.odatajclient.engine.communication.request.streamed.StreamedRequestFactory;
+import com.msopentech.odatajclient.engine.format.ODataFormat;
+import com.msopentech.odatajclient.engine.format.ODataMediaFormat;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import com.msopentech.odatajclient.engine.format.ODataValueFormat;
+import com.msopentech.odatajclient.engine.uri.ODataURIBuilder;
+import com.msopentech.odatajclient.engine.utils.Configuration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * OData client, holding an immutable configuration shared by all the requests it creates.
+ * <p>
+ * Several clients, e.g. talking to different services with different formats and settings, can be used
+ * concurrently in the same JVM without interfering. Get instances via <tt>ODataClient.Builder</tt>:
+ * <pre>
+ * final ODataClient client = new ODataClient.Builder().
+ *         setDefaultPubFormat(ODataPubFormat.ATOM).setKeyAsSegment(true).build();
+ * final ODataEntityRequest req = client.getRetrieveRequestFactory().getEntityRequest(uri);
+ * </pre>
+ *
+ * @see Configuration
+ */
+public final class ODataClient {
+
+    /**
+     * Client last built from the global configuration.
+     */
+    private static volatile Snapshot configured = null;
+
+    private final ODataPubFormat defaultPubFormat;
+
+    private final ODataFormat defaultFormat;
+
+    private final ODataValueFormat defaultValueFormat;
+
+    private final ODataMediaFormat defaultMediaFormat;
+
+    private final HttpClientFactory httpClientFactory;
+
+    private final HttpUriRequestFactory httpUriRequestFactory;
+
+    private final boolean useXHTTPMethod;
+
+    private final boolean keyAsSegment;
+
+    private final boolean gzipCompression;
+
+    private final RequestCompression requestCompression;
+
+    private final HttpRequestCoalescer requestCoalescer;
+
+    private final ODataResponseCache responseCache;
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private final RequestTimingListener requestTimingListener;
+
+    private final ExecutorService executor;
+
+    private final boolean lazyProperties;
+
+    private final int parallelReadThreshold;
+
+    private final int parallelReadParallelism;
+
+    private final int pagePrefetchDepth;
+
+    private final int entitySetHeapLimit;
+
+    private final RetrieveRequestFactory retrieveRequestFactory;
+
+    private final CUDRequestFactory cudRequestFactory;
+
+    private final InvokeRequestFactory invokeRequestFactory;
+
+    private final StreamedRequestFactory streamedRequestFactory;
+
+    private final BatchRequestFactory batchRequestFactory;
+
+    /**
+     * Gets a client with the current global configuration; the same instance is returned until the global
+     * configuration is changed.
+     * <br/>
+     * Please note that later changes to the global configuration do not affect the returned client.
+     *
+     * @return ODataClient instance.
+     * @see Configuration
+     */
+    public static ODataClient fromConfiguration() {
+        // read the version first: changes applied while building will cause a rebuild upon next invocation
+        final long version = Configuration.getVersion();
+
+        final Snapshot snapshot = configured;
+        if (snapshot != null && snapshot.version == version) {
+            return snapshot.client;
+        }
+
+        final ODataClient client = new Builder().build();
+        configured = new Snapshot(version, client);
+        return client;
+    }
+
+    private ODataClient(final Builder builder) {
+        this.defaultPubFormat = builder.defaultPubFormat;
+        this.defaultFormat = ODataFormat.fromPubFormat(builder.defaultPubFormat);
+        this.defaultValueFormat = builder.defaultValueFormat;
+        this.defaultMediaFormat = builder.defaultMediaFormat;
+        this.httpClientFactory = builder.httpClientFactory;
+        this.httpUriRequestFactory = builder.httpUriRequestFactory;
+        this.useXHTTPMethod = builder.useXHTTPMethod;
+        this.keyAsSegment = builder.keyAsSegment;
+        this.gzipCompression = builder.gzipCompression;
+        this.requestCompression = builder.requestCompression;
+        this.requestCoalescer = builder.requestCoalescer;
+        this.responseCache = builder.responseCache;
+        this.concurrencyLimiter = builder.concurrencyLimiter;
+        this.requestTimingListener = builder.requestTimingListener;
+        this.executor = builder.executor;
+        this.lazyProperties = builder.lazyProperties;
+        this.parallelReadThreshold = builder.parallelReadThreshold;
+        this.parallelReadParallelism = builder.parallelReadParallelism;
+        this.pagePrefetchDepth = builder.pagePrefetchDepth;
+        this.entitySetHeapLimit = builder.entitySetHeapLimit;
+
+        this.retrieveRequestFactory = new RetrieveRequestFactory(this);
+        this.cudRequestFactory = new CUDRequestFactory(this);
+        this.invokeRequestFactory = new InvokeRequestFactory(this);
+        this.streamedRequestFactory = new StreamedRequestFactory(this);
+        this.batchRequestFactory = new BatchRequestFactory(this);
+    }
+
+    /**
+     * Gets the OData format for AtomPub exchanges.
+     *
+     * @return OData format for AtomPub exchanges.
+     */
+    public ODataPubFormat getDefaultPubFormat() {
+        return defaultPubFormat;
+    }
+
+    /**
+     * Gets the OData format, as derived from the OData format for AtomPub exchanges.
+     *
+     * @return OData format.
+     * @see #getDefaultPubFormat()
+     */
+    public ODataFormat getDefaultFormat() {
+        return defaultFormat;
+    }
+
+    /**
+     * Gets the OData value format.
+     *
+     * @return OData value format.
+     */
+    public ODataValueFormat getDefaultValueFormat() {
+        return defaultValueFormat;
+    }
+
+    /**
+     * Gets the OData media format.
+     *
+     * @return OData media format.
+     */
+    public ODataMediaFormat getDefaultMediaFormat() {
+        return defaultMediaFormat;
+    }
+
+    /**
+     * Gets the HttpClient factory to be used for executing requests.
+     *
+     * @return HttpClient factory.
+     */
+    public HttpClientFactory getHttpClientFactory() {
+        return httpClientFactory;
+    }
+
+    /**
+     * Gets the HttpUriRequest factory for generating requests to be executed.
+     *
+     * @return HttpUriRequest factory.
+     */
+    public HttpUriRequestFactory getHttpUriRequestFactory() {
+        return httpUriRequestFactory;
+    }
+
+    /**
+     * Gets whether <tt>PUT</tt>, <tt>MERGE</tt>, <tt>PATCH</tt>, <tt>DELETE</tt> HTTP methods need to be translated to
+     * <tt>POST</tt> with additional <tt>X-HTTTP-Method</tt> header.
+     *
+     * @return whether <tt>X-HTTTP-Method</tt> header is to be used
+     */
+    public boolean isUseXHTTPMethod() {
+        return useXHTTPMethod;
+    }
+
+    /**
+     * Gets whether entity keys are to be represented as URI segments.
+     *
+     * @return whether key as segment convention is to be used.
+     */
+    public boolean isKeyAsSegment() {
+        return keyAsSegment;
+    }
+
+    /**
+     * Checks whether Gzip compression (e.g. support for <tt>Accept-Encoding: gzip</tt> and
+     * <tt>Content-Encoding: gzip</tt> HTTP headers) is enabled.
+     *
+     * @return whether HTTP Gzip compression is enabled
+     */
+    public boolean isGzipCompression() {
+        return gzipCompression;
+    }
+
+    /**
+     * Gets the compression policy for request payloads, if enabled.
+     *
+     * @return request compression policy; null if payloads are sent uncompressed.
+     */
+    public RequestCompression getRequestCompression() {
+        return requestCompression;
+    }
+
+    /**
+     * Gets the coalescer sharing identical in-flight <tt>GET</tt> requests, if enabled.
+     *
+     * @return request coalescer; null if coalescing is disabled.
+     */
+    public HttpRequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    /**
+     * Gets the client-side cache of retrieve responses, if enabled.
+     *
+     * @return response cache; null if caching is disabled.
+     */
+    public ODataResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Gets the limiter of in-flight requests per service root, if enabled.
+     *
+     * @return concurrency limiter; null if there is no limit.
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Gets the listener receiving request lifecycle timings.
+     *
+     * @return request timing listener; <tt>NoOpRequestTimingListener</tt> if timing is disabled.
+     */
+    public RequestTimingListener getRequestTimingListener() {
+        return requestTimingListener;
+    }
+
+    /**
+     * Gets the executor service running asynchronous requests.
+     *
+     * @return request executor service.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Checks whether properties of read entities are decoded only when first accessed.
+     *
+     * @return whether lazy entity properties are enabled.
+     */
+    public boolean isLazyProperties() {
+        return lazyProperties;
+    }
+
+    /**
+     * Gets the minimum size (in bytes) of entity set payloads to be read in parallel.
+     *
+     * @return parallel read threshold; 0 if entity sets are always read sequentially.
+     */
+    public int getParallelReadThreshold() {
+        return parallelReadThreshold;
+    }
+
+    /**
+     * Gets the maximum number of threads decoding entries of an entity set read in parallel.
+     *
+     * @return parallelism.
+     */
+    public int getParallelReadParallelism() {
+        return parallelReadParallelism;
+    }
+
+    /**
+     * Gets the number of pages fetched ahead of the one being iterated, when following server-driven paging.
+     *
+     * @return prefetch depth.
+     */
+    public int getPagePrefetchDepth() {
+        return pagePrefetchDepth;
+    }
+
+    /**
+     * Gets the maximum number of entities kept on heap by each entity set read.
+     *
+     * @return heap limit; 0 if all entities are kept on heap.
+     */
+    public int getEntitySetHeapLimit() {
+        return entitySetHeapLimit;
+    }
+
+    /**
+     * Gets an URI builder for the given service root, following the key as segment setting of this client.
+     *
+     * @param serviceRoot absolute URL (schema, host and port included) representing the location of the root of the
+     * data service.
+     * @return new ODataURIBuilder instance.
+     */
+    public ODataURIBuilder getURIBuilder(final String serviceRoot) {
+        return new ODataURIBuilder(serviceRoot, keyAsSegment);
+    }
+
+    /**
+     * Gets the factory of retrieve requests bound to this client.
+     *
+     * @return retrieve request factory.
+     */
+    public RetrieveRequestFactory getRetrieveRequestFactory() {
+        return retrieveRequestFactory;
+    }
+
+    /**
+     * Gets the factory of create, update and delete requests bound to this client.
+     *
+     * @return CUD request factory.
+     */
+    public CUDRequestFactory getCUDRequestFactory() {
+        return cudRequestFactory;
+    }
+
+    /**
+     * Gets the factory of invoke requests bound to this client.
+     *
+     * @return invoke request factory.
+     */
+    public InvokeRequestFactory getInvokeRequestFactory() {
+        return invokeRequestFactory;
+    }
+
+    /**
+     * Gets the factory of streamed requests bound to this client.
+     *
+     * @return streamed request factory.
+     */
+    public StreamedRequestFactory getStreamedRequestFactory() {
+        return streamedRequestFactory;
+    }
+
+    /**
+     * Gets the factory of batch requests bound to this client.
+     *
+     * @return batch request factory.
+     */
+    public BatchRequestFactory getBatchRequestFactory() {
+        return batchRequestFactory;
+    }
+
+    /**
+     * Builder for ODataClient objects; initial settings are taken from the current global configuration.
+     *
+     * @see Configuration
+     */
+    public static class Builder {
+
+        private ODataPubFormat defaultPubFormat = Configuration.getDefaultPubFormat();
+
+        private ODataValueFormat defaultValueFormat = Configuration.getDefaultValueFormat();
+
+        private ODataMediaFormat defaultMediaFormat = Configuration.getDefaultMediaFormat();
+
+        private HttpClientFactory httpClientFactory = Configuration.getHttpClientFactory();
+
+        private HttpUriRequestFactory httpUriRequestFactory = Configuration.getHttpUriRequestFactory();
+
+        private boolean useXHTTPMethod = Configuration.isUseXHTTPMethod();
+
+        private boolean keyAsSegment = Configuration.isKeyAsSegment();
+
+        private boolean gzipCompression = Configuration.isGzipCompression();
+
+        private RequestCompression requestCompression = Configuration.getRequestCompression();
+
+        private HttpRequestCoalescer requestCoalescer = Configuration.getRequestCoalescer();
+
+        private ODataResponseCache responseCache = Configuration.getResponseCache();
+
+        private AdaptiveConcurrencyLimiter concurrencyLimiter = Configuration.getConcurrencyLimiter();
+
+        private RequestTimingListener requestTimingListener = Configuration.getRequestTimingListener();
+
+        private ExecutorService executor = Configuration.getExecutor();
+
+        private boolean lazyProperties = Configuration.isLazyProperties();
+
+        private int parallelReadThreshold = Configuration.getParallelReadThreshold();
+
+        private int parallelReadParallelism = Configuration.getParallelReadParallelism();
+
+        private int pagePrefetchDepth = Configuration.getPagePrefetchDepth();
+
+        private int entitySetHeapLimit = Configuration.getEntitySetHeapLimit();
+
+        /**
+         * Sets the OData format for AtomPub exchanges.
+         *
+         * @param defaultPubFormat format.
+         * @return the current builder.
+         */
+        public Builder setDefaultPubFormat(final ODataPubFormat defaultPubFormat) {
+            this.defaultPubFormat = defaultPubFormat;
+            return this;
+        }
+
+        /**
+         * Sets the OData value format.
+         *
+         * @param defaultValueFormat format.
+         * @return the current builder.
+         */
+        public Builder setDefaultValueFormat(final ODataValueFormat defaultValueFormat) {
+            this.defaultValueFormat = defaultValueFormat;
+            return this;
+        }
+
+        /**
+         * Sets the OData media format.
+         *
+         * @param defaultMediaFormat format.
+         * @return the current builder.
+         */
+        public Builder setDefaultMediaFormat(final ODataMediaFormat defaultMediaFormat) {
+            this.defaultMediaFormat = defaultMediaFormat;
+            return this;
+        }
+
+        /**
+         * Sets the HttpClient factory to be used for executing requests.
+         *
+         * @param httpClientFactory implementation of <tt>HttpClientFactory</tt>.
+         * @return the current builder.
+         */
+        public Builder setHttpClientFactory(final HttpClientFactory httpClientFactory) {
+            this.httpClientFactory = httpClientFactory;
+            return this;
+        }
+
+        /**
+         * Sets the HttpUriRequest factory generating requests to be executed.
+         *
+         * @param httpUriRequestFactory implementation of <tt>HttpUriRequestFactory</tt>.
+         * @return the current builder.
+         */
+        public Builder setHttpUriRequestFactory(final HttpUriRequestFactory httpUriRequestFactory) {
+            this.httpUriRequestFactory = httpUriRequestFactory;
+            return this;
+        }
+
+        /**
+         * Sets whether <tt>PUT</tt>, <tt>MERGE</tt>, <tt>PATCH</tt>, <tt>DELETE</tt> HTTP methods need to be
+         * translated to <tt>POST</tt> with additional <tt>X-HTTTP-Method</tt> header.
+         *
+         * @param useXHTTPMethod 'TRUE' to use tunneling.
+         * @return the current builder.
+         */
+        public Builder setUseXHTTPMethod(final boolean useXHTTPMethod) {
+            this.useXHTTPMethod = useXHTTPMethod;
+            return this;
+        }
+
+        /**
+         * Sets whether entity keys are to be represented as URI segments.
+         *
+         * @param keyAsSegment 'TRUE' to use key as segment convention.
+         * @return the current builder.
+         */
+        public Builder setKeyAsSegment(final boolean keyAsSegment) {
+            this.keyAsSegment = keyAsSegment;
+            return this;
+        }
+
+        /**
+         * Sets Gzip compression (e.g. support for <tt>Accept-Encoding: gzip</tt> and
+         * <tt>Content-Encoding: gzip</tt> HTTP headers) enabled or disabled.
+         *
+         * @param gzipCompression 'TRUE' to enable response compression.
+         * @return the current builder.
+         */
+        public Builder setGzipCompression(final boolean gzipCompression) {
+            this.gzipCompression = gzipCompression;
+            return this;
+        }
+
+        /**
+         * Sets the compression policy for request payloads.
+         *
+         * @param requestCompression request compression policy; null to send payloads uncompressed.
+         * @return the current builder.
+         */
+        public Builder setRequestCompression(final RequestCompression requestCompression) {
+            this.requestCompression = requestCompression;
+            return this;
+        }
+
+        /**
+         * Sets the coalescer sharing identical in-flight <tt>GET</tt> requests.
+         *
+         * @param requestCoalescer request coalescer; null to disable coalescing.
+         * @return the current builder.
+         */
+        public Builder setRequestCoalescer(final HttpRequestCoalescer requestCoalescer) {
+            this.requestCoalescer = requestCoalescer;
+            return this;
+        }
+
+        /**
+         * Sets the client-side cache of retrieve responses.
+         *
+         * @param responseCache response cache; null to disable caching.
+         * @return the current builder.
+         */
+        public Builder setResponseCache(final ODataResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        /**
+         * Sets the limiter of in-flight requests per service root.
+         *
+         * @param concurrencyLimiter concurrency limiter; null to disable limiting.
+         * @return the current builder.
+         */
+        public Builder setConcurrencyLimiter(final AdaptiveConcurrencyLimiter concurrencyLimiter) {
+            this.concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
+
+        /**
+         * Sets the listener receiving request lifecycle timings.
+         *
+         * @param requestTimingListener request timing listener; null to disable timing.
+         * @return the current builder.
+         */
+        public Builder setRequestTimingListener(final RequestTimingListener requestTimingListener) {
+            this.requestTimingListener = requestTimingListener == null
+                    ? NoOpRequestTimingListener.INSTANCE : requestTimingListener;
+            return this;
+        }
+
+        /**
+         * Sets the executor service running asynchronous requests.
+         *
+         * @param executor request executor service.
+         * @return the current builder.
+         */
+        public Builder setExecutor(final ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets whether properties of read entities are decoded only when first accessed, via
+         * <tt>ODataEntity.getProperty()</tt> or <tt>ODataEntity.getProperties()</tt>, rather than while reading.
+         *
+         * @param lazyProperties whether lazy entity properties are enabled.
+         * @return the current builder.
+         */
+        public Builder setLazyProperties(final boolean lazyProperties) {
+            this.lazyProperties = lazyProperties;
+            return this;
+        }
+
+        /**
+         * Sets the minimum size (in bytes) of entity set payloads to be read in parallel: entries of such payloads
+         * are decoded by the calling thread together with tasks submitted to the executor.
+         *
+         * @param parallelReadThreshold parallel read threshold; 0 to always read entity sets sequentially.
+         * @return the current builder.
+         */
+        public Builder setParallelReadThreshold(final int parallelReadThreshold) {
+            this.parallelReadThreshold = parallelReadThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of threads decoding entries of an entity set read in parallel, including the
+         * calling one.
+         *
+         * @param parallelReadParallelism parallelism.
+         * @return the current builder.
+         */
+        public Builder setParallelReadParallelism(final int parallelReadParallelism) {
+            this.parallelReadParallelism = parallelReadParallelism;
+            return this;
+        }
+
+        /**
+         * Sets the number of pages fetched ahead of the one being iterated, when following server-driven paging.
+         *
+         * @param pagePrefetchDepth prefetch depth; must be positive.
+         * @return the current builder.
+         */
+        public Builder setPagePrefetchDepth(final int pagePrefetchDepth) {
+            this.pagePrefetchDepth = pagePrefetchDepth;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of entities kept on heap by each entity set read: further entities are spilled
+         * to a memory-mapped temporary file, and deserialized upon each access.
+         *
+         * @param entitySetHeapLimit heap limit; 0 to keep all entities on heap.
+         * @return the current builder.
+         */
+        public Builder setEntitySetHeapLimit(final int entitySetHeapLimit) {
+            this.entitySetHeapLimit = entitySetHeapLimit;
+            return this;
+        }
+
+        /**
+         * Builds the client.
+         *
+         * @return new ODataClient instance.
+         */
+        public ODataClient build() {
+            if (defaultPubFormat == null || defaultValueFormat == null || defaultMediaFormat == null) {
+                throw new IllegalArgumentException("Default formats must be set");
+            }
+            if (httpClientFactory == null || httpUriRequestFactory == null || executor == null) {
+                throw new IllegalArgumentException("HTTP factories and executor must be set");
+            }
+            if (pagePrefetchDepth < 1) {
+                throw new IllegalArgumentException("Prefetch depth must be positive: " + pagePrefetchDepth);
+            }
+
+            return new ODataClient(this);
+        }
+    }
+
+    /**
+     * Client built from the global configuration at the given version.
+     */
+    private static class Snapshot {
+
+        private final long version;
+
+        private final ODataClient client;
+
+        Snapshot(final long version, final ODataClient client) {
+            this.version = version;
+            this.client = client;
+        }
+    }
+}
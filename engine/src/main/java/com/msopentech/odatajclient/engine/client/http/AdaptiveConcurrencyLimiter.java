@@ -0,0 +1,269 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import com.msopentech.odatajclient.engine.utils.URIUtils;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpStatus;
+
+/**
+ * Client-side limiter of in-flight requests per service root (scheme, host and port of the request URI).
+ * <p>
+ * The allowed concurrency is adjusted with an AIMD (additive increase, multiplicative decrease) algorithm: every
+ * successful response grows the limit by about one request per round trip, while <tt>503</tt> or <tt>429</tt>
+ * responses, network failures and responses slower than the configured latency threshold shrink it by the
+ * configured backoff ratio, at most once per round trip: overloads reported by requests sent before the last
+ * decrease are ignored.
+ * <br/>
+ * Requests exceeding the current limit wait for a bounded time and then fail fast with
+ * <tt>HttpClientException</tt>.
+ *
+ * @see com.msopentech.odatajclient.engine.utils.Configuration#setConcurrencyLimiter(AdaptiveConcurrencyLimiter)
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+    public static final int DEFAULT_MIN_LIMIT = 1;
+
+    public static final int DEFAULT_MAX_LIMIT = 200;
+
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    public static final long DEFAULT_LATENCY_THRESHOLD = 5000L;
+
+    public static final long DEFAULT_MAX_WAIT = 1000L;
+
+    private final int initialLimit;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long latencyThreshold;
+
+    private final long maxWait;
+
+    private final ConcurrentMap<String, Limit> limits = new ConcurrentHashMap<String, Limit>();
+
+    /**
+     * Constructor, using default settings.
+     */
+    public AdaptiveConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT,
+                DEFAULT_BACKOFF_RATIO, DEFAULT_LATENCY_THRESHOLD, DEFAULT_MAX_WAIT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param initialLimit initial number of allowed in-flight requests per service root.
+     * @param minLimit lower bound for the number of allowed in-flight requests.
+     * @param maxLimit upper bound for the number of allowed in-flight requests.
+     * @param backoffRatio factor (between 0 and 1) applied to the limit on overload.
+     * @param latencyThreshold milliseconds above which a response is considered a sign of overload.
+     * @param maxWait maximum milliseconds a request waits for an available slot; 0 to fail fast.
+     */
+    public AdaptiveConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit,
+            final double backoffRatio, final long latencyThreshold, final long maxWait) {
+
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Expected 0 < backoffRatio < 1");
+        }
+
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThreshold = latencyThreshold;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Acquires a slot for a request to the given URI, waiting at most the configured time.
+     *
+     * @param uri request URI.
+     * @return acquired slot, to be released once the response body has been consumed.
+     * @throws HttpClientException if no slot becomes available in time.
+     */
+    public Permit acquire(final URI uri) {
+        final String key = URIUtils.getServiceHost(uri);
+
+        Limit limit = limits.get(key);
+        if (limit == null) {
+            final Limit created = new Limit(initialLimit);
+            limit = limits.putIfAbsent(key, created);
+            if (limit == null) {
+                limit = created;
+            }
+        }
+
+        final RequestTiming timing = RequestTiming.current();
+        final long start = System.nanoTime();
+        try {
+            limit.acquire(key);
+        } finally {
+            if (timing != null) {
+                timing.add(RequestTiming.Phase.CONCURRENCY_LIMIT, System.nanoTime() - start);
+            }
+        }
+        return new Permit(limit);
+    }
+
+    /**
+     * Gets the current limit of in-flight requests for the given URI's service root.
+     *
+     * @param uri request URI.
+     * @return current limit.
+     */
+    public int getLimit(final URI uri) {
+        final Limit limit = limits.get(URIUtils.getServiceHost(uri));
+        return limit == null ? initialLimit : (int) limit.limit;
+    }
+
+    /**
+     * Gets the number of in-flight requests for the given URI's service root.
+     *
+     * @param uri request URI.
+     * @return number of in-flight requests.
+     */
+    public int getInFlight(final URI uri) {
+        final Limit limit = limits.get(URIUtils.getServiceHost(uri));
+        return limit == null ? 0 : limit.inFlight;
+    }
+
+    /**
+     * Acquired slot for a single request.
+     * <br/>
+     * The slot is held until the response body has been consumed: <tt>responseReceived()</tt> records status and
+     * latency once the response headers are received, while <tt>release()</tt> frees the slot afterwards.
+     */
+    public class Permit {
+
+        private final Limit limit;
+
+        private final long start = System.nanoTime();
+
+        private boolean overload = false;
+
+        private boolean released = false;
+
+        private Permit(final Limit limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Records the response status and the observed latency, to be taken into account when releasing the slot.
+         *
+         * @param statusCode response status code.
+         */
+        public synchronized void responseReceived(final int statusCode) {
+            final long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            overload = statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE || statusCode == 429
+                    || latency > latencyThreshold;
+        }
+
+        /**
+         * Releases the slot, adjusting the limit according to the recorded response; invoking it more than once has
+         * no further effect.
+         */
+        public synchronized void release() {
+            release(overload);
+        }
+
+        /**
+         * Releases the slot after a network failure, reducing the limit.
+         */
+        public void fail() {
+            release(true);
+        }
+
+        private synchronized void release(final boolean overloaded) {
+            if (!released) {
+                released = true;
+                limit.release(overloaded, start);
+            }
+        }
+    }
+
+    /**
+     * Limit status of a single service root.
+     */
+    private class Limit {
+
+        private volatile double limit;
+
+        private volatile int inFlight = 0;
+
+        /**
+         * Time of the last decrease: overloads reported by requests started before it belong to the same round trip
+         * window, and do not decrease the limit any further.
+         */
+        private long lastDecrease;
+
+        Limit(final int limit) {
+            this.limit = limit;
+            this.lastDecrease = System.nanoTime();
+        }
+
+        synchronized void acquire(final String key) {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(maxWait);
+            final long deadline = System.nanoTime() + remaining;
+
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    throw new HttpClientException("Concurrency limit of " + (int) limit + " reached for " + key);
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new HttpClientException(e);
+                }
+                remaining = deadline - System.nanoTime();
+            }
+
+            inFlight++;
+        }
+
+        synchronized void release(final boolean overload, final long start) {
+            inFlight--;
+
+            if (overload) {
+                if (start - lastDecrease > 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecrease = System.nanoTime();
+                }
+            } else {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+
+            notifyAll();
+        }
+    }
+}
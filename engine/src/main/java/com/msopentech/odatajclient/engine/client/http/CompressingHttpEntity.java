@@ -0,0 +1,195 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.entity.AbstractHttpEntity;
+
+/**
+ * Request entity compressing the given content while being written (or read), without buffering it.
+ *
+ * @see RequestCompression
+ */
+public class CompressingHttpEntity extends AbstractHttpEntity {
+
+    private final InputStream content;
+
+    private final RequestCompression.Encoding encoding;
+
+    private boolean consumed = false;
+
+    /**
+     * Constructor.
+     *
+     * @param content uncompressed content.
+     * @param encoding content encoding.
+     */
+    public CompressingHttpEntity(final InputStream content, final RequestCompression.Encoding encoding) {
+        super();
+        this.content = content;
+        this.encoding = encoding;
+        setContentEncoding(encoding.toString());
+        setChunked(true);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return false;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc }
+     * <p>
+     * The returned stream compresses the content on demand, as its bytes are read.
+     */
+    @Override
+    public InputStream getContent() {
+        if (consumed) {
+            throw new IllegalStateException("Content already consumed");
+        }
+        consumed = true;
+        return new CompressedInputStream();
+    }
+
+    @Override
+    public void writeTo(final OutputStream outstream) throws IOException {
+        if (outstream == null) {
+            throw new IllegalArgumentException("Output stream may not be null");
+        }
+
+        final Deflater deflater = encoding == RequestCompression.Encoding.GZIP ? null : new Deflater();
+        final DeflaterOutputStream compressed = deflater == null
+                ? new GZIPOutputStream(outstream, 8192)
+                : new DeflaterOutputStream(outstream, deflater, 8192);
+        try {
+            IOUtils.copy(content, compressed);
+            // also closes the underlying (chunked) output stream, as done by HttpClient after writeTo()
+            compressed.close();
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            consumed = true;
+            IOUtils.closeQuietly(content);
+        }
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return !consumed;
+    }
+
+    /**
+     * Pulls the content through a deflater; for gzip, header and trailer are added around the raw deflate stream.
+     */
+    private class CompressedInputStream extends InputStream {
+
+        private final boolean gzip = encoding == RequestCompression.Encoding.GZIP;
+
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+
+        private final CRC32 crc = new CRC32();
+
+        private InputStream body = new DeflaterInputStream(
+                gzip ? new CheckedInputStream(content, crc) : content, deflater, 8192);
+
+        /**
+         * Header or trailer bytes still to be returned.
+         */
+        private byte[] pending = gzip ? new byte[] {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0} : null;
+
+        private int pendingPos = 0;
+
+        private final byte[] single = new byte[1];
+
+        private boolean closed = false;
+
+        @Override
+        public int read() throws IOException {
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int off, final int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+
+            if (pending != null && pendingPos < pending.length) {
+                final int count = Math.min(len, pending.length - pendingPos);
+                System.arraycopy(pending, pendingPos, bytes, off, count);
+                pendingPos += count;
+                return count;
+            }
+
+            if (body == null) {
+                return -1;
+            }
+
+            final int read = body.read(bytes, off, len);
+            if (read >= 0) {
+                return read;
+            }
+
+            body = null;
+            if (!gzip) {
+                return -1;
+            }
+            pending = trailer(crc.getValue(), deflater.getBytesRead());
+            pendingPos = 0;
+            return read(bytes, off, len);
+        }
+
+        private byte[] trailer(final long checksum, final long size) {
+            final byte[] trailer = new byte[8];
+            for (int i = 0; i < 4; i++) {
+                trailer[i] = (byte) (checksum >>> (8 * i));
+                trailer[i + 4] = (byte) (size >>> (8 * i));
+            }
+            return trailer;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                deflater.end();
+                IOUtils.closeQuietly(content);
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory implementation, collecting per-phase latency histograms and overall counters.
+ * <br/>
+ * Call <tt>scrape()</tt> to get a plain text report, in the Prometheus exposition format.
+ */
+public class HistogramRequestTimingListener implements RequestTimingListener {
+
+    /**
+     * Upper bounds (in milliseconds) of histogram buckets; an additional bucket collects larger values.
+     */
+    public static final long[] BUCKET_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000};
+
+    private final Map<RequestTiming.Phase, Histogram> histograms =
+            new EnumMap<RequestTiming.Phase, Histogram>(RequestTiming.Phase.class);
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicLong clientErrors = new AtomicLong();
+
+    private final AtomicLong serverErrors = new AtomicLong();
+
+    private final AtomicLong requestBytes = new AtomicLong();
+
+    private final AtomicLong responseBytes = new AtomicLong();
+
+    /**
+     * Constructor.
+     */
+    public HistogramRequestTimingListener() {
+        for (RequestTiming.Phase phase : RequestTiming.Phase.values()) {
+            histograms.put(phase, new Histogram());
+        }
+    }
+
+    @Override
+    public void requestCompleted(final RequestTiming timing) {
+        requests.incrementAndGet();
+        if (timing.getFailure() != null) {
+            failures.incrementAndGet();
+        } else if (timing.getStatusCode() >= 500) {
+            serverErrors.incrementAndGet();
+        } else if (timing.getStatusCode() >= 400) {
+            clientErrors.incrementAndGet();
+        }
+        requestBytes.addAndGet(timing.getRequestBytes());
+        responseBytes.addAndGet(timing.getResponseBytes());
+
+        for (Map.Entry<RequestTiming.Phase, Histogram> entry : histograms.entrySet()) {
+            entry.getValue().record(timing.getDuration(entry.getKey(), TimeUnit.MICROSECONDS));
+        }
+    }
+
+    /**
+     * Gets the latency histogram of the given phase.
+     *
+     * @param phase request phase.
+     * @return latency histogram.
+     */
+    public Histogram getHistogram(final RequestTiming.Phase phase) {
+        return histograms.get(phase);
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    public long getClientErrorCount() {
+        return clientErrors.get();
+    }
+
+    public long getServerErrorCount() {
+        return serverErrors.get();
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.get();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    /**
+     * Resets all histograms and counters.
+     */
+    public void reset() {
+        for (Histogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        requests.set(0);
+        failures.set(0);
+        clientErrors.set(0);
+        serverErrors.set(0);
+        requestBytes.set(0);
+        responseBytes.set(0);
+    }
+
+    /**
+     * Gets a plain text report of collected timings, in the Prometheus exposition format.
+     *
+     * @return timings report.
+     */
+    public String scrape() {
+        final StringBuilder report = new StringBuilder();
+
+        report.append("# TYPE odata_request_phase_seconds histogram\n");
+        for (Map.Entry<RequestTiming.Phase, Histogram> entry : histograms.entrySet()) {
+            final String phase = entry.getKey().name().toLowerCase();
+            final Histogram histogram = entry.getValue();
+
+            long cumulative = 0;
+            for (int i = 0; i <= BUCKET_BOUNDS.length; i++) {
+                cumulative += histogram.getBucketCount(i);
+                report.append("odata_request_phase_seconds_bucket{phase=\"").append(phase).append("\",le=\"").
+                        append(i < BUCKET_BOUNDS.length ? String.valueOf(BUCKET_BOUNDS[i] / 1000.0) : "+Inf").
+                        append("\"} ").append(cumulative).append('\n');
+            }
+            report.append("odata_request_phase_seconds_sum{phase=\"").append(phase).append("\"} ").
+                    append(histogram.getSum(TimeUnit.MICROSECONDS) / 1000000.0).append('\n');
+            report.append("odata_request_phase_seconds_count{phase=\"").append(phase).append("\"} ").
+                    append(histogram.getCount()).append('\n');
+        }
+
+        report.append("# TYPE odata_requests_total counter\n");
+        report.append("odata_requests_total ").append(getRequestCount()).append('\n');
+        report.append("odata_request_failures_total ").append(getFailureCount()).append('\n');
+        report.append("odata_request_client_errors_total ").append(getClientErrorCount()).append('\n');
+        report.append("odata_request_server_errors_total ").append(getServerErrorCount()).append('\n');
+        report.append("odata_request_bytes_total ").append(getRequestBytes()).append('\n');
+        report.append("odata_response_bytes_total ").append(getResponseBytes()).append('\n');
+
+        return report.toString();
+    }
+
+    /**
+     * Latency histogram with fixed buckets.
+     *
+     * @see HistogramRequestTimingListener#BUCKET_BOUNDS
+     */
+    public static class Histogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong sum = new AtomicLong();
+
+        private final AtomicLong max = new AtomicLong();
+
+        private void record(final long micros) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS.length && micros > BUCKET_BOUNDS[bucket] * 1000) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            sum.addAndGet(micros);
+
+            long current = max.get();
+            while (micros > current && !max.compareAndSet(current, micros)) {
+                current = max.get();
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+        }
+
+        /**
+         * Gets the number of values in the given bucket.
+         *
+         * @param bucket bucket index, the last one collecting values larger than all bounds.
+         * @return number of values.
+         * @see HistogramRequestTimingListener#BUCKET_BOUNDS
+         */
+        public long getBucketCount(final int bucket) {
+            return buckets.get(bucket);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getSum(final TimeUnit unit) {
+            return unit.convert(sum.get(), TimeUnit.MICROSECONDS);
+        }
+
+        public long getMax(final TimeUnit unit) {
+            return unit.convert(max.get(), TimeUnit.MICROSECONDS);
+        }
+
+        /**
+         * Gets an estimate of the given percentile, as the upper bound of the bucket containing it.
+         *
+         * @param percentile percentile, between 0 and 100.
+         * @param unit time unit.
+         * @return percentile estimate; the maximum recorded value if beyond all bucket bounds.
+         */
+        public long getPercentile(final double percentile, final TimeUnit unit) {
+            final long total = count.get();
+            final long rank = (long) Math.ceil(total * percentile / 100);
+
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+                cumulative += buckets.get(i);
+                if (cumulative >= rank && cumulative > 0) {
+                    return unit.convert(BUCKET_BOUNDS[i], TimeUnit.MILLISECONDS);
+                }
+            }
+            return getMax(unit);
+        }
+    }
+}
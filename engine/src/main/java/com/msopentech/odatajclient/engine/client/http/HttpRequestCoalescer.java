@@ -0,0 +1,221 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Single-flight execution of identical <tt>GET</tt> requests.
+ * <p>
+ * Requests with the same method, URI and headers issued via the same HTTP client factory (hence with the same
+ * credentials) while one of them is in flight share its network call: the response payload is buffered once and
+ * every caller gets its own copy of the response, to be deserialized independently. Since coalesced responses are
+ * fully buffered, only entity, entity set, property and metadata requests are coalesced: media, raw and streamed
+ * requests always get their own network call.
+ *
+ * @see com.msopentech.odatajclient.engine.utils.Configuration#setRequestCoalescer(HttpRequestCoalescer)
+ */
+public class HttpRequestCoalescer {
+
+    private final ConcurrentMap<String, Call> inFlight = new ConcurrentHashMap<String, Call>();
+
+    private final AtomicLong executed = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Executes the given request, or waits for an identical one already in flight.
+     * <br/>
+     * Only requests issued via the same HTTP client factory are shared, since credentials and other transport
+     * settings are held by the HTTP clients it creates rather than by request headers.
+     *
+     * @param factory HTTP client factory the given client has been created by.
+     * @param client HTTP client to be used if no identical request is in flight.
+     * @param request HTTP request.
+     * @return a private copy of the HTTP response.
+     * @throws IOException in case of network failure while executing the shared request.
+     */
+    public HttpResponse execute(final HttpClientFactory factory, final HttpClient client,
+            final HttpUriRequest request) throws IOException {
+
+        final String key = getKey(factory, request);
+
+        final Call task = new Call(factory, new Callable<BufferedResponse>() {
+
+            @Override
+            public BufferedResponse call() throws Exception {
+                return new BufferedResponse(client.execute(request));
+            }
+        });
+
+        RequestTiming timing = null;
+        Call shared = inFlight.putIfAbsent(key, task);
+        if (shared == null || shared.factory != factory) {
+            // not in flight, or identity hash collision with a request issued via another factory
+            executed.incrementAndGet();
+            final boolean registered = shared == null;
+            shared = task;
+            try {
+                task.run();
+            } finally {
+                if (registered) {
+                    inFlight.remove(key, task);
+                }
+            }
+        } else {
+            coalesced.incrementAndGet();
+            timing = RequestTiming.current();
+        }
+
+        final long start = System.nanoTime();
+        try {
+            return shared.get().copy();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpClientException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new HttpClientException(e.getCause());
+        } finally {
+            if (timing != null) {
+                timing.add(RequestTiming.Phase.COALESCING, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of requests actually sent over the network.
+     *
+     * @return number of executed requests.
+     */
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    /**
+     * Gets the number of requests served by sharing an identical in-flight request.
+     *
+     * @return number of coalesced requests.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Resets executed and coalesced counters.
+     */
+    public void resetStats() {
+        executed.set(0);
+        coalesced.set(0);
+    }
+
+    private String getKey(final HttpClientFactory factory, final HttpUriRequest request) {
+        final StringBuilder key = new StringBuilder().
+                append(System.identityHashCode(factory)).append(' ').
+                append(request.getMethod()).append(' ').append(request.getURI().toASCIIString());
+        for (Header header : request.getAllHeaders()) {
+            key.append('\n').append(header.getName().toLowerCase()).append(':').append(header.getValue());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Shared execution of a request, bound to the HTTP client factory it has been issued via.
+     */
+    private static class Call extends FutureTask<BufferedResponse> {
+
+        private final HttpClientFactory factory;
+
+        Call(final HttpClientFactory factory, final Callable<BufferedResponse> callable) {
+            super(callable);
+            this.factory = factory;
+        }
+    }
+
+    /**
+     * Immutable buffered response, to be copied for each caller.
+     */
+    private static class BufferedResponse {
+
+        private final StatusLine statusLine;
+
+        private final Header[] headers;
+
+        private final byte[] content;
+
+        private final Header contentType;
+
+        private final Header contentEncoding;
+
+        BufferedResponse(final HttpResponse response) throws IOException {
+            this.statusLine = response.getStatusLine();
+            this.headers = response.getAllHeaders();
+
+            final HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                this.content = null;
+                this.contentType = null;
+                this.contentEncoding = null;
+            } else {
+                this.contentType = entity.getContentType();
+                this.contentEncoding = entity.getContentEncoding();
+                try {
+                    this.content = EntityUtils.toByteArray(entity);
+                } finally {
+                    EntityUtils.consumeQuietly(entity);
+                }
+            }
+        }
+
+        HttpResponse copy() {
+            final BasicHttpResponse response = new BasicHttpResponse(statusLine);
+            response.setHeaders(headers);
+
+            if (content != null) {
+                final ByteArrayEntity entity = new ByteArrayEntity(content);
+                entity.setContentType(contentType);
+                entity.setContentEncoding(contentEncoding);
+                response.setEntity(entity);
+            }
+
+            return response;
+        }
+    }
+}
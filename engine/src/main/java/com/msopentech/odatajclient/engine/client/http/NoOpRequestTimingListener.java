@@ -0,0 +1,39 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+/**
+ * Default implementation, ignoring timings.
+ * <br/>
+ * When this listener is configured, no timing is collected at all.
+ */
+public final class NoOpRequestTimingListener implements RequestTimingListener {
+
+    public static final NoOpRequestTimingListener INSTANCE = new NoOpRequestTimingListener();
+
+    private NoOpRequestTimingListener() {
+        // singleton
+    }
+
+    @Override
+    public void requestCompleted(final RequestTiming timing) {
+        // nothing to do
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+/**
+ * Response entity wrapper holding the concurrency limiter permit of the request until the body has been fully read
+ * or the content stream is closed, so that body downloads are counted as in-flight.
+ *
+ * @see AdaptiveConcurrencyLimiter
+ */
+public class PermitHttpEntity extends HttpEntityWrapper {
+
+    private final AdaptiveConcurrencyLimiter.Permit permit;
+
+    private InputStream content;
+
+    /**
+     * Constructor.
+     *
+     * @param entity wrapped response entity.
+     * @param permit permit of the request the response belongs to.
+     */
+    public PermitHttpEntity(final HttpEntity entity, final AdaptiveConcurrencyLimiter.Permit permit) {
+        super(entity);
+        this.permit = permit;
+    }
+
+    /**
+     * Gets the wrapped response entity.
+     *
+     * @return wrapped response entity.
+     */
+    public HttpEntity getWrappedEntity() {
+        return wrappedEntity;
+    }
+
+    @Override
+    public synchronized InputStream getContent() throws IOException {
+        if (content == null || isRepeatable()) {
+            content = new PermitInputStream(wrappedEntity.getContent());
+        }
+        return content;
+    }
+
+    /**
+     * Releases the permit, even if the content stream has been neither fully read nor closed.
+     */
+    public void release() {
+        permit.release();
+    }
+
+    private class PermitInputStream extends ProxyInputStream {
+
+        PermitInputStream(final InputStream proxy) {
+            super(proxy);
+        }
+
+        @Override
+        protected void afterRead(final int n) {
+            if (n < 0) {
+                release();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release();
+            }
+        }
+    }
+}
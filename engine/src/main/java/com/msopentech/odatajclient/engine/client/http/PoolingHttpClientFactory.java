@@ -0,0 +1,286 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import com.msopentech.odatajclient.engine.utils.URIUtils;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Implementation returning one shared, thread-safe HttpClient per service root (scheme, host and port of the
+ * request URI), backed by a pooled connection manager.
+ * <br/>
+ * Connections are kept alive and reused across requests; idle and expired connections are periodically evicted.
+ * Call <tt>shutdown()</tt> to release all pooled connections when the factory is no longer needed.
+ * <br/>
+ * Connection lease, DNS resolution and connect times are reported to the timing of the request being executed, if
+ * any; pool usage is exposed via <tt>getPoolStats()</tt>.
+ *
+ * @see PoolingClientConnectionManager
+ */
+public class PoolingHttpClientFactory implements HttpClientFactory {
+
+    public static final int DEFAULT_MAX_TOTAL = 200;
+
+    public static final int DEFAULT_MAX_PER_ROUTE = 20;
+
+    public static final long DEFAULT_IDLE_TIMEOUT = 30000L;
+
+    private final int maxTotal;
+
+    private final int maxPerRoute;
+
+    private final long idleTimeout;
+
+    private final ConcurrentMap<String, DefaultHttpClient> clients = new ConcurrentHashMap<String, DefaultHttpClient>();
+
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * Constructor, using default pool limits and idle timeout.
+     */
+    public PoolingHttpClientFactory() {
+        this(DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxTotal maximum number of pooled connections per service root.
+     * @param maxPerRoute maximum number of pooled connections per route.
+     * @param idleTimeout milliseconds after which an idle connection is evicted; also used as keep-alive duration
+     * when the server does not specify any.
+     */
+    public PoolingHttpClientFactory(final int maxTotal, final int maxPerRoute, final long idleTimeout) {
+        this.maxTotal = maxTotal;
+        this.maxPerRoute = maxPerRoute;
+        this.idleTimeout = idleTimeout;
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "odatajclient-connection-evictor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.evictor.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                evict();
+            }
+        }, idleTimeout, idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public HttpClient createHttpClient(final HttpMethod method, final URI uri) {
+        final String key = URIUtils.getServiceHost(uri);
+
+        DefaultHttpClient client = clients.get(key);
+        if (client == null) {
+            final DefaultHttpClient created = newHttpClient();
+            client = clients.putIfAbsent(key, created);
+            if (client == null) {
+                client = created;
+            } else {
+                created.getConnectionManager().shutdown();
+            }
+        }
+
+        return client;
+    }
+
+    /**
+     * Builds a new HttpClient backed by a pooled connection manager.
+     * Override in order to customize the shared instance (e.g. credentials, proxy).
+     *
+     * @return new HttpClient instance.
+     */
+    protected DefaultHttpClient newHttpClient() {
+        final PoolingClientConnectionManager connManager = new TimingConnectionManager();
+        connManager.setMaxTotal(maxTotal);
+        connManager.setDefaultMaxPerRoute(maxPerRoute);
+
+        final DefaultHttpClient client = new DefaultHttpClient(connManager);
+        client.setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+
+            @Override
+            public long getKeepAliveDuration(final HttpResponse response, final HttpContext context) {
+                final long duration = super.getKeepAliveDuration(response, context);
+                return duration > 0 ? duration : idleTimeout;
+            }
+        });
+
+        return client;
+    }
+
+    /**
+     * Gets connection pool usage, per service root.
+     *
+     * @return leased, pending and available connections, per service root.
+     */
+    public Map<String, PoolStats> getPoolStats() {
+        final Map<String, PoolStats> stats = new HashMap<String, PoolStats>();
+        for (Map.Entry<String, DefaultHttpClient> entry : clients.entrySet()) {
+            stats.put(entry.getKey(),
+                    ((PoolingClientConnectionManager) entry.getValue().getConnectionManager()).getTotalStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Closes expired connections and connections idle for longer than the configured timeout.
+     */
+    public void evict() {
+        for (DefaultHttpClient client : clients.values()) {
+            client.getConnectionManager().closeExpiredConnections();
+            client.getConnectionManager().closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Shuts down all pooled HttpClients and stops idle connection eviction.
+     */
+    public void shutdown() {
+        evictor.shutdownNow();
+        for (DefaultHttpClient client : clients.values()) {
+            client.getConnectionManager().shutdown();
+        }
+        clients.clear();
+    }
+
+    /**
+     * Pooled connection manager reporting lease and connect times to the current request timing.
+     */
+    private static class TimingConnectionManager extends PoolingClientConnectionManager {
+
+        TimingConnectionManager() {
+            super(SchemeRegistryFactory.createDefault());
+        }
+
+        @Override
+        protected ClientConnectionOperator createConnectionOperator(final SchemeRegistry schreg) {
+            return new TimingConnectionOperator(schreg);
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+            final ClientConnectionRequest request = super.requestConnection(route, state);
+            final RequestTiming timing = RequestTiming.current();
+            if (timing == null) {
+                return request;
+            }
+
+            return new ClientConnectionRequest() {
+
+                @Override
+                public ManagedClientConnection getConnection(final long timeout, final TimeUnit tunit)
+                        throws InterruptedException, ConnectionPoolTimeoutException {
+
+                    final long start = System.nanoTime();
+                    try {
+                        return request.getConnection(timeout, tunit);
+                    } finally {
+                        timing.add(RequestTiming.Phase.LEASE, System.nanoTime() - start);
+                    }
+                }
+
+                @Override
+                public void abortRequest() {
+                    request.abortRequest();
+                }
+            };
+        }
+    }
+
+    /**
+     * Connection operator reporting DNS resolution and connect times to the current request timing.
+     */
+    private static class TimingConnectionOperator extends DefaultClientConnectionOperator {
+
+        TimingConnectionOperator(final SchemeRegistry schemes) {
+            super(schemes);
+        }
+
+        @Override
+        public void openConnection(final OperatedClientConnection conn, final HttpHost target,
+                final InetAddress local, final HttpContext context, final HttpParams params) throws IOException {
+
+            final RequestTiming timing = RequestTiming.current();
+            if (timing == null) {
+                super.openConnection(conn, target, local, context, params);
+            } else {
+                final long dns = timing.getDuration(RequestTiming.Phase.DNS, TimeUnit.NANOSECONDS);
+                final long start = System.nanoTime();
+                try {
+                    super.openConnection(conn, target, local, context, params);
+                } finally {
+                    timing.add(RequestTiming.Phase.CONNECT, System.nanoTime() - start
+                            - (timing.getDuration(RequestTiming.Phase.DNS, TimeUnit.NANOSECONDS) - dns));
+                }
+            }
+        }
+
+        @Override
+        protected InetAddress[] resolveHostname(final String host) throws UnknownHostException {
+            final RequestTiming timing = RequestTiming.current();
+            if (timing == null) {
+                return super.resolveHostname(host);
+            }
+
+            final long start = System.nanoTime();
+            try {
+                return super.resolveHostname(host);
+            } finally {
+                timing.add(RequestTiming.Phase.DNS, System.nanoTime() - start);
+            }
+        }
+    }
+}
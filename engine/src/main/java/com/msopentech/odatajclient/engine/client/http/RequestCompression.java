@@ -0,0 +1,185 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+
+/**
+ * Compression policy for request payloads (e.g. entity create / update, <tt>$batch</tt>).
+ * <p>
+ * Payloads are compressed on the fly while being sent, with the configured <tt>Content-Encoding</tt>; payloads
+ * shorter than the configured threshold are sent as they are. Only the first <tt>threshold</tt> bytes are
+ * buffered, in order to tell small payloads apart.
+ * <br/>
+ * The default encoding can be overridden per service root via <tt>setEncoding(String, Encoding)</tt>.
+ *
+ * @see com.msopentech.odatajclient.engine.utils.Configuration#setRequestCompression(RequestCompression)
+ * @see com.msopentech.odatajclient.engine.communication.request.ODataRequest#setPayloadCompression(Encoding)
+ */
+public class RequestCompression {
+
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    /**
+     * Supported content encodings.
+     */
+    public enum Encoding {
+
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        private final String value;
+
+        private Encoding(final String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+    private final Encoding defaultEncoding;
+
+    private final int threshold;
+
+    private final Map<String, Encoding> byServiceRoot = new ConcurrentHashMap<String, Encoding>();
+
+    private final Map<String, Boolean> disabledServiceRoots = new ConcurrentHashMap<String, Boolean>();
+
+    /**
+     * Constructor, using gzip and default threshold.
+     */
+    public RequestCompression() {
+        this(Encoding.GZIP, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param defaultEncoding encoding to be used for service roots not explicitly configured; null to compress
+     * payloads only for explicitly configured service roots.
+     * @param threshold minimum payload size (in bytes) to be compressed.
+     */
+    public RequestCompression(final Encoding defaultEncoding, final int threshold) {
+        this.defaultEncoding = defaultEncoding;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Sets the encoding for requests whose URI starts with the given service root.
+     *
+     * @param serviceRoot service root.
+     * @param encoding encoding; null to disable compression for the given service root.
+     * @return the current policy.
+     */
+    public RequestCompression setEncoding(final String serviceRoot, final Encoding encoding) {
+        if (encoding == null) {
+            byServiceRoot.remove(serviceRoot);
+            disabledServiceRoots.put(serviceRoot, Boolean.TRUE);
+        } else {
+            disabledServiceRoots.remove(serviceRoot);
+            byServiceRoot.put(serviceRoot, encoding);
+        }
+        return this;
+    }
+
+    /**
+     * Gets the encoding to be used for requests to the given URI, according to the longest matching service root.
+     *
+     * @param uri request URI.
+     * @return encoding; null if payloads are not to be compressed.
+     */
+    public Encoding getEncoding(final URI uri) {
+        final String target = uri.toASCIIString();
+
+        String match = null;
+        Encoding encoding = defaultEncoding;
+        for (Map.Entry<String, Encoding> entry : byServiceRoot.entrySet()) {
+            if (target.startsWith(entry.getKey()) && (match == null || entry.getKey().length() > match.length())) {
+                match = entry.getKey();
+                encoding = entry.getValue();
+            }
+        }
+        for (String serviceRoot : disabledServiceRoots.keySet()) {
+            if (target.startsWith(serviceRoot) && (match == null || serviceRoot.length() > match.length())) {
+                match = serviceRoot;
+                encoding = null;
+            }
+        }
+
+        return encoding;
+    }
+
+    /**
+     * Gets minimum payload size to be compressed.
+     *
+     * @return threshold in bytes.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Wraps the given request entity for compression with the given encoding, unless shorter than the threshold.
+     *
+     * @param entity request entity.
+     * @param encoding content encoding.
+     * @return entity to be sent.
+     * @throws IOException in case of read errors while peeking at the payload.
+     */
+    public HttpEntity compress(final HttpEntity entity, final Encoding encoding) throws IOException {
+        if (entity == null || encoding == null || entity.getContentEncoding() != null
+                || (entity.getContentLength() >= 0 && entity.getContentLength() < threshold)) {
+
+            return entity;
+        }
+
+        final InputStream content = entity.getContent();
+
+        final byte[] head = new byte[threshold];
+        int read = 0;
+        int count;
+        while (read < threshold && (count = content.read(head, read, threshold - read)) != -1) {
+            read += count;
+        }
+
+        final AbstractHttpEntity result;
+        if (read < threshold) {
+            content.close();
+            result = new ByteArrayEntity(head, 0, read);
+        } else {
+            result = new CompressingHttpEntity(
+                    new SequenceInputStream(new ByteArrayInputStream(head, 0, read), content), encoding);
+        }
+        result.setContentType(entity.getContentType());
+        return result;
+    }
+}
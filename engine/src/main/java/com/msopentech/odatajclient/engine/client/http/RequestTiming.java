@@ -0,0 +1,266 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timings of a single request execution, reported to <tt>RequestTimingListener</tt> once the response has been
+ * consumed or closed.
+ * <p>
+ * Waits for the concurrency limiter and for coalesced requests are reported as phases of their own, so that they do
+ * not inflate time to first byte. Connection pool lease, DNS resolution and connect phases are only measured when
+ * connections are provided by <tt>PoolingHttpClientFactory</tt>; the connect phase includes TLS handshake, if any.
+ *
+ * @see RequestTimingListener
+ */
+public class RequestTiming {
+
+    /**
+     * Request lifecycle phases.
+     */
+    public enum Phase {
+
+        /**
+         * Wait for a slot of the concurrency limiter, if enabled.
+         */
+        CONCURRENCY_LIMIT,
+        /**
+         * Wait for the response of an identical request already in flight, when coalesced: the network phases are
+         * then measured by the request actually sent.
+         */
+        COALESCING,
+        /**
+         * Wait for a connection from the pool.
+         */
+        LEASE,
+        /**
+         * Host name resolution.
+         */
+        DNS,
+        /**
+         * TCP connect and TLS handshake; zero when a pooled connection is reused.
+         */
+        CONNECT,
+        /**
+         * From request start to response headers, excluding the phases above.
+         */
+        TIME_TO_FIRST_BYTE,
+        /**
+         * Time spent reading the response body from the network.
+         */
+        BODY_DOWNLOAD,
+        /**
+         * Time spent processing the response body (e.g. <tt>ODataReader</tt> and <tt>ODataBinder</tt>), from the
+         * first read to the response being closed, excluding body download.
+         */
+        DESERIALIZATION,
+        /**
+         * From request start to the response being closed, including any wait.
+         */
+        TOTAL
+
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(RequestTiming.class);
+
+    /**
+     * Timing of the request being executed by the current thread, if any.
+     */
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<RequestTiming>();
+
+    private final RequestTimingListener listener;
+
+    private final HttpMethod method;
+
+    private final URI uri;
+
+    private final long start = System.nanoTime();
+
+    private final long[] nanos = new long[Phase.values().length];
+
+    private volatile int statusCode = -1;
+
+    private volatile long requestBytes = 0;
+
+    private volatile long responseBytes = 0;
+
+    private volatile Throwable failure;
+
+    private boolean completed = false;
+
+    /**
+     * Constructor.
+     *
+     * @param listener listener to be notified on completion.
+     * @param method HTTP method.
+     * @param uri request URI.
+     */
+    public RequestTiming(final RequestTimingListener listener, final HttpMethod method, final URI uri) {
+        this.listener = listener;
+        this.method = method;
+        this.uri = uri;
+    }
+
+    /**
+     * Gets the timing of the request being executed by the current thread.
+     *
+     * @return current request timing; null if none.
+     */
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Marks the given timing as the one of the request being executed by the current thread.
+     *
+     * @param timing request timing; null to clear.
+     */
+    public static void setCurrent(final RequestTiming timing) {
+        if (timing == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(timing);
+        }
+    }
+
+    /**
+     * Adds the given duration to the given phase.
+     *
+     * @param phase phase.
+     * @param duration duration in nanoseconds.
+     */
+    public synchronized void add(final Phase phase, final long duration) {
+        nanos[phase.ordinal()] += duration;
+    }
+
+    /**
+     * Records the reception of response headers.
+     *
+     * @param statusCode response status code.
+     * @param requestBytes number of request body bytes sent.
+     */
+    public synchronized void responseReceived(final int statusCode, final long requestBytes) {
+        this.statusCode = statusCode;
+        this.requestBytes = requestBytes;
+        long firstByte = System.nanoTime() - start;
+        for (int i = 0; i < Phase.TIME_TO_FIRST_BYTE.ordinal(); i++) {
+            firstByte -= nanos[i];
+        }
+        nanos[Phase.TIME_TO_FIRST_BYTE.ordinal()] = firstByte;
+    }
+
+    /**
+     * Records the request failure and notifies the listener.
+     *
+     * @param failure failure cause.
+     */
+    public void failed(final Throwable failure) {
+        this.failure = failure;
+        complete(0, 0, -1);
+    }
+
+    /**
+     * Records response body consumption and notifies the listener; subsequent invocations are ignored.
+     *
+     * @param responseBytes number of response body bytes read.
+     * @param downloadNanos nanoseconds spent reading the response body.
+     * @param firstRead <tt>System.nanoTime()</tt> of the first read; -1 if the body has never been read.
+     */
+    public void complete(final long responseBytes, final long downloadNanos, final long firstRead) {
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+
+            final long now = System.nanoTime();
+            this.responseBytes = responseBytes;
+            nanos[Phase.BODY_DOWNLOAD.ordinal()] = downloadNanos;
+            nanos[Phase.DESERIALIZATION.ordinal()] = firstRead < 0 ? 0 : Math.max(0, now - firstRead - downloadNanos);
+            nanos[Phase.TOTAL.ordinal()] = now - start;
+        }
+
+        try {
+            listener.requestCompleted(this);
+        } catch (RuntimeException e) {
+            LOG.warn("Error notifying request timing", e);
+        }
+    }
+
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    public URI getURI() {
+        return uri;
+    }
+
+    /**
+     * Gets response status code.
+     *
+     * @return response status code; -1 if no response has been received.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * Gets request failure.
+     *
+     * @return failure cause; null if a response has been received.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Gets the duration of the given phase.
+     *
+     * @param phase phase.
+     * @param unit time unit.
+     * @return phase duration.
+     */
+    public synchronized long getDuration(final Phase phase, final TimeUnit unit) {
+        return unit.convert(nanos[phase.ordinal()], TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder().
+                append(method).append(' ').append(uri).append(' ').append(statusCode);
+        for (Phase phase : Phase.values()) {
+            builder.append(' ').append(phase.name().toLowerCase()).append('=').
+                    append(getDuration(phase, TimeUnit.MICROSECONDS) / 1000.0).append("ms");
+        }
+        return builder.append(" sent=").append(requestBytes).append(" received=").append(responseBytes).toString();
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+/**
+ * Interface for receiving request lifecycle timings.
+ * <br/>
+ * Implementations must be thread-safe, since they are notified by any thread consuming responses.
+ *
+ * @see NoOpRequestTimingListener
+ * @see HistogramRequestTimingListener
+ * @see com.msopentech.odatajclient.engine.utils.Configuration#setRequestTimingListener(RequestTimingListener)
+ */
+public interface RequestTimingListener {
+
+    /**
+     * Invoked once the response has been consumed or closed, or the request has failed.
+     * <br/>
+     * Please note that responses never read nor closed are not reported.
+     *
+     * @param timing request timing.
+     */
+    void requestCompleted(RequestTiming timing);
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+/**
+ * Response entity wrapper measuring body download and processing, completing the given request timing once the
+ * content stream is closed.
+ */
+public class TimingHttpEntity extends HttpEntityWrapper {
+
+    private final RequestTiming timing;
+
+    private InputStream content;
+
+    private long bytes = 0;
+
+    private long downloadNanos = 0;
+
+    private long firstRead = -1;
+
+    /**
+     * Constructor.
+     *
+     * @param entity wrapped response entity.
+     * @param timing timing of the request the response belongs to.
+     */
+    public TimingHttpEntity(final HttpEntity entity, final RequestTiming timing) {
+        super(entity);
+        this.timing = timing;
+    }
+
+    /**
+     * Gets the wrapped response entity.
+     *
+     * @return wrapped response entity.
+     */
+    public HttpEntity getWrappedEntity() {
+        return wrappedEntity;
+    }
+
+    @Override
+    public synchronized InputStream getContent() throws IOException {
+        if (content == null || isRepeatable()) {
+            content = new TimingInputStream(wrappedEntity.getContent());
+        }
+        return content;
+    }
+
+    /**
+     * Completes the request timing, even if the content stream has not been closed.
+     */
+    public synchronized void complete() {
+        timing.complete(bytes, downloadNanos, firstRead);
+    }
+
+    private class TimingInputStream extends ProxyInputStream {
+
+        private long readStart;
+
+        TimingInputStream(final InputStream proxy) {
+            super(proxy);
+        }
+
+        @Override
+        protected void beforeRead(final int n) {
+            readStart = System.nanoTime();
+            if (firstRead < 0) {
+                firstRead = readStart;
+            }
+        }
+
+        @Override
+        protected void afterRead(final int n) {
+            downloadNanos += System.nanoTime() - readStart;
+            if (n > 0) {
+                bytes += n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                complete();
+            }
+        }
+    }
+}
@@ -20,7 +20,6 @@
 package com.msopentech.odatajclient.engine.communication.request;
 
 import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
-import java.util.concurrent.Future;
 
 /**
  * Basic OData request.
@@ -39,10 +38,13 @@ public interface ODataBasicRequest<V extends ODataResponse, T extends Enum<T>> e
 
     /**
      * Async request execute.
+     * <p>
+     * The returned future can be composed via callbacks and transformations, without blocking the caller.
      *
-     * @return <code>Future&lt;ODataResponse&gt;</code> about the executed request.
+     * @return <code>ODataFuture&lt;ODataResponse&gt;</code> about the executed request.
+     * @see ODataFuture
      */
-    Future<V> asyncExecute();
+    ODataFuture<V> asyncExecute();
 
     /**
      * Override configured request format.
@@ -19,16 +19,15 @@
  */
 package com.msopentech.odatajclient.engine.communication.request;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchRequest;
 import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
-import com.msopentech.odatajclient.engine.utils.Configuration;
 import com.msopentech.odatajclient.engine.utils.ODataBatchConstants;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 
@@ -42,13 +41,30 @@ public abstract class ODataBasicRequestImpl<V extends ODataResponse, T extends E
         implements ODataBasicRequest<V, T> {
 
     /**
-     * Constructor.
+     * Constructor, using a client with the current global configuration.
      *
+     * @param formatRef reference class for the format being used.
      * @param method request method.
      * @param uri OData request URI.
+     * @deprecated use {@link #ODataBasicRequestImpl(ODataClient, Class, HttpMethod, URI)} instead.
      */
+    @Deprecated
     public ODataBasicRequestImpl(final Class<T> formatRef, final HttpMethod method, final URI uri) {
-        super(formatRef, method, uri);
+        this(ODataClient.fromConfiguration(), formatRef, method, uri);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param odataClient OData client.
+     * @param formatRef reference class for the format being used.
+     * @param method request method.
+     * @param uri OData request URI.
+     */
+    public ODataBasicRequestImpl(
+            final ODataClient odataClient, final Class<T> formatRef, final HttpMethod method, final URI uri) {
+
+        super(odataClient, formatRef, method, uri);
     }
 
     /**
@@ -66,14 +82,14 @@ public abstract class ODataBasicRequestImpl<V extends ODataResponse, T extends E
      * {@inheritDoc}
      */
     @Override
-    public final Future<V> asyncExecute() {
-        return Configuration.getExecutor().submit(new Callable<V>() {
+    public final ODataFuture<V> asyncExecute() {
+        return ODataFuture.submit(new Callable<V>() {
 
             @Override
             public V call() throws Exception {
                 return execute();
             }
-        });
+        }, odataClient.getExecutor());
     }
 
     /**
@@ -0,0 +1,105 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request;
+
+/**
+ * Interfaces for publishing items to subscribers with demand-driven flow control.
+ * <p>
+ * Methods and rules are the ones of the Reactive Streams specification (as <tt>java.util.concurrent.Flow</tt>), so
+ * that publishers can be adapted to any compliant library: items are pushed to the subscriber only as long as
+ * requested, signals are never concurrent and no further signal follows <tt>onError()</tt>, <tt>onComplete()</tt>
+ * or <tt>cancel()</tt>.
+ */
+public final class ODataFlow {
+
+    /**
+     * Producer of items received by subscribers.
+     *
+     * @param <T> item type.
+     */
+    public interface Publisher<T> {
+
+        /**
+         * Adds the given subscriber, which will receive <tt>onSubscribe()</tt> first; failures are signaled via
+         * <tt>onError()</tt>.
+         *
+         * @param subscriber subscriber.
+         * @throws NullPointerException if the given subscriber is null.
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Receiver of items.
+     *
+     * @param <T> item type.
+     */
+    public interface Subscriber<T> {
+
+        /**
+         * Invoked before any other signal of the given subscription.
+         *
+         * @param subscription subscription to request items with.
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Invoked with the next item, only if requested.
+         *
+         * @param item item.
+         */
+        void onNext(T item);
+
+        /**
+         * Invoked upon unrecoverable failure; no further signal follows.
+         *
+         * @param cause failure cause.
+         */
+        void onError(Throwable cause);
+
+        /**
+         * Invoked once all items have been received; no further signal follows.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Link between a publisher and a subscriber.
+     */
+    public interface Subscription {
+
+        /**
+         * Adds the given number of items to the ones the subscriber is ready to receive.
+         *
+         * @param n number of items; <tt>Long.MAX_VALUE</tt> for unbounded. Non-positive values are signaled as
+         * failure.
+         */
+        void request(long n);
+
+        /**
+         * Stops sending items, releasing all resources; items might still be received for a while.
+         */
+        void cancel();
+    }
+
+    private ODataFlow() {
+        // Empty private constructor for static utility classes
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Composable future about an asynchronously executed OData request.
+ * <p>
+ * Callbacks and transformations are invoked by the thread completing the future (or immediately, if already
+ * completed), so that no caller thread needs to be parked waiting for the result.
+ *
+ * @param <V> result type.
+ */
+public class ODataFuture<V> extends FutureTask<V> {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(ODataFuture.class);
+
+    /**
+     * Completion callback.
+     *
+     * @param <V> result type.
+     */
+    public interface Callback<V> {
+
+        /**
+         * Invoked when the future completes successfully.
+         *
+         * @param result computed result.
+         */
+        void onSuccess(V result);
+
+        /**
+         * Invoked when the future completes exceptionally or is cancelled.
+         *
+         * @param cause failure cause.
+         */
+        void onFailure(Throwable cause);
+    }
+
+    /**
+     * Result transformation.
+     *
+     * @param <V> source type.
+     * @param <R> target type.
+     */
+    public interface Transformer<V, R> {
+
+        /**
+         * Transforms the given result.
+         *
+         * @param result result to be transformed.
+         * @return transformed result.
+         * @throws Exception in case of transformation failure: the derived future will complete exceptionally.
+         */
+        R transform(V result) throws Exception;
+    }
+
+    /**
+     * Registered callbacks, null once the future has completed.
+     */
+    private List<Callback<? super V>> callbacks = new ArrayList<Callback<? super V>>();
+
+    /**
+     * Submits the given task onto the executor of the global configuration.
+     *
+     * @param <V> result type.
+     * @param callable task to be executed.
+     * @return future about the given task.
+     * @see ODataClient#fromConfiguration()
+     */
+    public static <V> ODataFuture<V> submit(final Callable<V> callable) {
+        return submit(callable, ODataClient.fromConfiguration().getExecutor());
+    }
+
+    /**
+     * Submits the given task onto the given executor.
+     *
+     * @param <V> result type.
+     * @param callable task to be executed.
+     * @param executor executor running the task.
+     * @return future about the given task.
+     */
+    public static <V> ODataFuture<V> submit(final Callable<V> callable, final Executor executor) {
+        final ODataFuture<V> future = new ODataFuture<V>(callable);
+        executor.execute(future);
+        return future;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param callable task to be executed.
+     */
+    public ODataFuture(final Callable<V> callable) {
+        super(callable);
+    }
+
+    /**
+     * Constructor for futures completed explicitly via <tt>set()</tt> / <tt>setException()</tt>.
+     */
+    private ODataFuture() {
+        super(new Callable<V>() {
+
+            @Override
+            public V call() throws Exception {
+                throw new IllegalStateException("Derived future must not be run");
+            }
+        });
+    }
+
+    /**
+     * Registers a completion callback.
+     *
+     * @param callback callback to be invoked once completed.
+     * @return the current future.
+     */
+    public ODataFuture<V> addCallback(final Callback<? super V> callback) {
+        synchronized (this) {
+            if (callbacks != null) {
+                callbacks.add(callback);
+                return this;
+            }
+        }
+
+        invoke(callback);
+        return this;
+    }
+
+    /**
+     * Returns a new future completing with the transformed result of the current one.
+     *
+     * @param <R> target type.
+     * @param transformer result transformation.
+     * @return derived future.
+     */
+    public <R> ODataFuture<R> then(final Transformer<? super V, R> transformer) {
+        final ODataFuture<R> derived = new ODataFuture<R>();
+
+        addCallback(new Callback<V>() {
+
+            @Override
+            public void onSuccess(final V result) {
+                try {
+                    derived.set(transformer.transform(result));
+                } catch (Throwable t) {
+                    derived.setException(t);
+                }
+            }
+
+            @Override
+            public void onFailure(final Throwable cause) {
+                if (cause instanceof CancellationException) {
+                    derived.cancel(false);
+                } else {
+                    derived.setException(cause);
+                }
+            }
+        });
+
+        return derived;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected void done() {
+        final List<Callback<? super V>> toBeNotified;
+        synchronized (this) {
+            toBeNotified = callbacks;
+            callbacks = null;
+        }
+
+        for (Callback<? super V> callback : toBeNotified) {
+            invoke(callback);
+        }
+    }
+
+    private void invoke(final Callback<? super V> callback) {
+        V result = null;
+        Throwable failure = null;
+        try {
+            result = get();
+        } catch (ExecutionException e) {
+            failure = e.getCause();
+        } catch (CancellationException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        }
+
+        try {
+            if (failure == null) {
+                callback.onSuccess(result);
+            } else {
+                callback.onFailure(failure);
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Error invoking completion callback", e);
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package com.msopentech.odatajclient.engine.communication.request;
 
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
+import com.msopentech.odatajclient.engine.client.http.RequestCompression;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchRequestFactory;
 import com.msopentech.odatajclient.engine.communication.request.cud.ODataCUDRequestFactory;
 import com.msopentech.odatajclient.engine.communication.request.invoke.ODataInvokeRequestFactory;
@@ -158,6 +159,14 @@ public interface ODataRequest {
      */
     void setSlug(final String value);
 
+    /**
+     * Sets the encoding for compressing the request payload, overriding the configured request compression policy.
+     *
+     * @param encoding content encoding; null to send the payload uncompressed.
+     * @see com.msopentech.odatajclient.engine.utils.Configuration#getRequestCompression()
+     */
+    void setPayloadCompression(RequestCompression.Encoding encoding);
+
     /**
      * Adds <tt>X-HTTP-METHOD</tt> OData request header.
      *
@@ -187,4 +196,10 @@ public interface ODataRequest {
      * @return raw input stream response.
      */
     InputStream rawExecute();
+
+    /**
+     * Aborts request execution, releasing the underlying connection: any pending or further read of the response
+     * payload will fail.
+     */
+    void abort();
 }
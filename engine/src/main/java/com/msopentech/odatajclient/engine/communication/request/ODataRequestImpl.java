@@ -19,8 +19,17 @@
  */
 package com.msopentech.odatajclient.engine.communication.request;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.client.http.AdaptiveConcurrencyLimiter;
 import com.msopentech.odatajclient.engine.client.http.HttpClientException;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
+import com.msopentech.odatajclient.engine.client.http.NoOpRequestTimingListener;
+import com.msopentech.odatajclient.engine.client.http.RequestCompression;
+import com.msopentech.odatajclient.engine.client.http.HttpRequestCoalescer;
+import com.msopentech.odatajclient.engine.client.http.RequestTiming;
+import com.msopentech.odatajclient.engine.client.http.RequestTimingListener;
+import com.msopentech.odatajclient.engine.client.http.PermitHttpEntity;
+import com.msopentech.odatajclient.engine.client.http.TimingHttpEntity;
 import com.msopentech.odatajclient.engine.communication.ODataClientErrorException;
 import com.msopentech.odatajclient.engine.communication.ODataServerErrorException;
 import com.msopentech.odatajclient.engine.communication.header.ODataHeaderValues;
@@ -38,23 +47,29 @@ import com.msopentech.odatajclient.engine.data.xml.XMLODataError;
 import com.msopentech.odatajclient.engine.format.ODataMediaFormat;
 import com.msopentech.odatajclient.engine.format.ODataPubFormat;
 import com.msopentech.odatajclient.engine.format.ODataValueFormat;
-import com.msopentech.odatajclient.engine.utils.Configuration;
 import com.msopentech.odatajclient.engine.utils.ODataConstants;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Constructor;
 import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.io.output.TeeOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.HttpEntityWrapper;
 import org.apache.http.impl.client.DecompressingHttpClient;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +77,7 @@ import org.slf4j.LoggerFactory;
  * Abstract representation of an OData request.
  * Get instance by using factories.
  *
+ * @see ODataClient
  * @see ODataCUDRequestFactory
  * @see ODataRetrieveRequestFactory
  * @see ODataBatchRequestFactory
@@ -77,6 +93,11 @@ public class ODataRequestImpl<T extends Enum<T>> implements ODataRequest {
 
     protected final Class<T> formatRef;
 
+    /**
+     * OData client this request has been created by.
+     */
+    protected final ODataClient odataClient;
+
     /**
      * OData request method.
      */
@@ -103,12 +124,40 @@ public class ODataRequestImpl<T extends Enum<T>> implements ODataRequest {
     protected final HttpUriRequest request;
 
     /**
-     * Constructor.
+     * Whether payload compression has been set for this request, overriding the configured policy.
+     */
+    private boolean payloadCompressionSet = false;
+
+    /**
+     * Payload compression set for this request.
+     */
+    private RequestCompression.Encoding payloadCompression = null;
+
+    /**
+     * Constructor, using a client with the current global configuration.
      *
+     * @param formatRef reference class for the format being used.
      * @param method HTTP request method. If configured X-HTTP-METHOD header will be used.
      * @param uri OData request URI.
+     * @deprecated use {@link #ODataRequestImpl(ODataClient, Class, HttpMethod, URI)} instead.
      */
+    @Deprecated
     protected ODataRequestImpl(final Class<T> formatRef, final HttpMethod method, final URI uri) {
+        this(ODataClient.fromConfiguration(), formatRef, method, uri);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param odataClient OData client.
+     * @param formatRef reference class for the format being used.
+     * @param method HTTP request method. If configured X-HTTP-METHOD header will be used.
+     * @param uri OData request URI.
+     */
+    protected ODataRequestImpl(
+            final ODataClient odataClient, final Class<T> formatRef, final HttpMethod method, final URI uri) {
+
+        this.odataClient = odataClient;
         this.formatRef = formatRef;
         this.method = method;
 
@@ -121,13 +170,13 @@ public class ODataRequestImpl<T extends Enum<T>> implements ODataRequest {
         // target uri
         this.uri = uri;
 
-        HttpClient _client = Configuration.getHttpClientFactory().createHttpClient(this.method, this.uri);
-        if (Configuration.isGzipCompression()) {
+        HttpClient _client = odataClient.getHttpClientFactory().createHttpClient(this.method, this.uri);
+        if (odataClient.isGzipCompression()) {
             _client = new DecompressingHttpClient(_client);
         }
         this.client = _client;
 
-        this.request = Configuration.getHttpUriRequestFactory().createHttpUriRequest(this.method, this.uri);
+        this.request = odataClient.getHttpUriRequestFactory().createHttpUriRequest(this.method, this.uri);
     }
 
     /**
@@ -136,12 +185,12 @@ public class ODataRequestImpl<T extends Enum<T>> implements ODataRequest {
     @SuppressWarnings("unchecked")
     public T getDefaultFormat() {
         return (T) (formatRef.equals(ODataPubFormat.class)
-                ? Configuration.getDefaultPubFormat()
+                ? odataClient.getDefaultPubFormat()
                 : (formatRef.equals(ODataValueFormat.class)
-                ? Configuration.getDefaultValueFormat()
+                ? odataClient.getDefaultValueFormat()
                 : (formatRef.equals(ODataMediaFormat.class)
-                ? Configuration.getDefaultMediaFormat()
-                : Configuration.getDefaultFormat())));
+                ? odataClient.getDefaultMediaFormat()
+                : odataClient.getDefaultFormat())));
     }
 
     /**
@@ -224,6 +273,15 @@ public class ODataRequestImpl<T extends Enum<T>> implements ODataRequest {
         odataHeaders.setHeader(ODataHeaders.HeaderName.slug, value);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setPayloadCompression(final RequestCompression.Encoding encoding) {
+        this.payloadCompressionSet = true;
+        this.payloadCompression = encoding;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -347,6 +405,27 @@ public class ODataRequestImpl<T extends Enum<T>> implements ODataRequest {
         }
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void abort() {
+        this.request.abort();
+    }
+
+    /**
+     * Checks whether identical in-flight executions of this request can share a single network call.
+     * <p>
+     * Coalesced responses are fully buffered, hence only requests whose payload is deserialized at once should
+     * opt in: streamed, raw and media requests never do.
+     *
+     * @return whether this request can be served by the configured request coalescer.
+     * @see ODataClient#getRequestCoalescer()
+     */
+    protected boolean isCoalescable() {
+        return false;
+    }
+
     /**
      * Builds the request and execute it.
      *
@@ -362,7 +441,7 @@ public class ODataRequestImpl<T extends Enum<T>> implements ODataRequest {
         }
 
         // Add header for KeyAsSegment management
-        if (Configuration.isKeyAsSegment()) {
+        if (odataClient.isKeyAsSegment()) {
             addCustomHeader(
                     ODataHeaders.HeaderName.dataServiceUrlConventions.toString(), ODataHeaderValues.keyAsSegment);
         }
@@ -372,23 +451,81 @@ public class ODataRequestImpl<T extends Enum<T>> implements ODataRequest {
             this.request.addHeader(key, odataHeaders.getHeader(key));
         }
 
+        // Compress payload, if required
+        if (this.request instanceof HttpEntityEnclosingRequest) {
+            compressPayload((HttpEntityEnclosingRequest) this.request);
+        }
+
         if (LOG.isDebugEnabled()) {
             for (Header header : this.request.getAllHeaders()) {
                 LOG.debug("HTTP header being sent: " + header);
             }
         }
 
+        final RequestTimingListener listener = odataClient.getRequestTimingListener();
+        final RequestTiming timing = listener == NoOpRequestTimingListener.INSTANCE
+                ? null : new RequestTiming(listener, method, uri);
+        final CountingOutputStream requestBytes = timing != null && this.request instanceof HttpEntityEnclosingRequest
+                ? countPayload((HttpEntityEnclosingRequest) this.request) : null;
+
+        final HttpRequestCoalescer coalescer = odataClient.getRequestCoalescer();
+        final AdaptiveConcurrencyLimiter limiter = odataClient.getConcurrencyLimiter();
+
         final HttpResponse response;
+        AdaptiveConcurrencyLimiter.Permit permit = null;
+        RequestTiming.setCurrent(timing);
         try {
-            response = this.client.execute(this.request);
-        } catch (IOException e) {
-            throw new HttpClientException(e);
+            permit = limiter == null ? null : limiter.acquire(this.uri);
+            try {
+                response = coalescer != null && method == HttpMethod.GET && isCoalescable()
+                        ? coalescer.execute(odataClient.getHttpClientFactory(), this.client, this.request)
+                        : this.client.execute(this.request);
+            } catch (IOException e) {
+                if (permit != null) {
+                    permit.fail();
+                }
+                throw new HttpClientException(e);
+            } catch (RuntimeException e) {
+                if (permit != null) {
+                    permit.fail();
+                }
+                this.request.abort();
+                throw new HttpClientException(e);
+            }
+
+            if (permit != null) {
+                permit.responseReceived(response.getStatusLine().getStatusCode());
+            }
         } catch (RuntimeException e) {
-            this.request.abort();
-            throw new HttpClientException(e);
+            if (timing != null) {
+                timing.failed(e);
+            }
+            throw e;
+        } finally {
+            RequestTiming.setCurrent(null);
+        }
+
+        if (timing != null) {
+            timing.responseReceived(response.getStatusLine().getStatusCode(),
+                    requestBytes == null ? 0 : requestBytes.getByteCount());
+            if (response.getEntity() == null) {
+                timing.complete(0, 0, -1);
+            } else {
+                response.setEntity(new TimingHttpEntity(response.getEntity(), timing));
+            }
+        }
+
+        // the slot is held until the response body has been consumed
+        if (permit != null) {
+            if (response.getEntity() == null) {
+                permit.release();
+            } else {
+                response.setEntity(new PermitHttpEntity(response.getEntity(), permit));
+            }
         }
 
         if (response.getStatusLine().getStatusCode() >= 500) {
+            EntityUtils.consumeQuietly(response.getEntity());
             throw new ODataServerErrorException(response.getStatusLine());
         } else if (response.getStatusLine().getStatusCode() >= 400) {
             try {
@@ -414,12 +551,59 @@ public class ODataRequestImpl<T extends Enum<T>> implements ODataRequest {
             } catch (IOException e) {
                 throw new HttpClientException(
                         "Received '" + response.getStatusLine() + "' but could not extract error body", e);
+            } finally {
+                EntityUtils.consumeQuietly(response.getEntity());
             }
         }
 
         return response;
     }
 
+    /**
+     * Wraps the request entity for compression, according to the payload compression set for this request or to
+     * the configured request compression policy.
+     *
+     * @param enclosing HTTP request enclosing the payload.
+     */
+    private void compressPayload(final HttpEntityEnclosingRequest enclosing) {
+        final RequestCompression compression = odataClient.getRequestCompression();
+
+        final RequestCompression.Encoding encoding = payloadCompressionSet
+                ? payloadCompression
+                : compression == null ? null : compression.getEncoding(uri);
+
+        if (encoding != null && enclosing.getEntity() != null) {
+            try {
+                enclosing.setEntity((compression == null ? new RequestCompression() : compression).
+                        compress(enclosing.getEntity(), encoding));
+            } catch (IOException e) {
+                throw new HttpClientException(e);
+            }
+        }
+    }
+
+    /**
+     * Wraps the request entity for counting the bytes being sent.
+     *
+     * @param enclosing HTTP request enclosing the payload.
+     * @return byte counter; null if there is no payload.
+     */
+    private CountingOutputStream countPayload(final HttpEntityEnclosingRequest enclosing) {
+        if (enclosing.getEntity() == null) {
+            return null;
+        }
+
+        final CountingOutputStream counter = new CountingOutputStream(new NullOutputStream());
+        enclosing.setEntity(new HttpEntityWrapper(enclosing.getEntity()) {
+
+            @Override
+            public void writeTo(final OutputStream outstream) throws IOException {
+                super.writeTo(new TeeOutputStream(outstream, counter));
+            }
+        });
+        return counter;
+    }
+
     /**
      * Gets an empty response that can be initialized by a stream.
      * <p>
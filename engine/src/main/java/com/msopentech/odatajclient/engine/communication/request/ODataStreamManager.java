@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpClientException;
 import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
 import com.msopentech.odatajclient.engine.utils.Wrapper;
@@ -26,10 +27,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpResponse;
 
@@ -105,6 +108,15 @@ public abstract class ODataStreamManager<T extends ODataResponse> extends ODataS
         return this.body == null ? this.defaultBody : this.body;
     }
 
+    /**
+     * Checks whether the payload is piped, e.g. written by the caller while being sent.
+     *
+     * @return whether the payload is piped.
+     */
+    public boolean isPiped() {
+        return this.body != null;
+    }
+
     /**
      * Closes piped output stream.
      */
@@ -114,6 +126,9 @@ public abstract class ODataStreamManager<T extends ODataResponse> extends ODataS
 
     /**
      * Gets HttpResponse.
+     * <p>
+     * If not yet started by an executor, the request is executed in the current thread; the given timeout applies
+     * only when waiting for a request running in another thread.
      *
      * @param timeout maximum delay after which the request must be aborted.
      * @param unit time unit.
@@ -121,7 +136,11 @@ public abstract class ODataStreamManager<T extends ODataResponse> extends ODataS
      */
     protected HttpResponse getHttpResponse(final long timeout, final TimeUnit unit) {
         try {
-            return futureWrap.getWrapped().get(timeout, unit);
+            final Future<HttpResponse> future = futureWrap.getWrapped();
+            if (future instanceof RunnableFuture) {
+                ((RunnableFuture<HttpResponse>) future).run();
+            }
+            return future.get(timeout, unit);
         } catch (Exception e) {
             LOG.error("Failure executing request");
             throw new HttpClientException(e);
@@ -147,39 +166,72 @@ public abstract class ODataStreamManager<T extends ODataResponse> extends ODataS
     }
 
     /**
-     * Closes the payload input stream and ask for an asynchronous response.
+     * Gets the executor running asynchronous responses.
+     * <br/>
+     * Stream managers of requests return the executor of the client the request has been created by; the one
+     * of the global configuration is returned by default.
      *
-     * @return <code>Future&lt;ODataResponse&gt;</code> about the executed request.
+     * @return executor.
+     * @see ODataClient#getExecutor()
      */
-    public final Future<T> getAsyncResponse() {
-        return new Future<T>() {
+    protected Executor getExecutor() {
+        return ODataClient.fromConfiguration().getExecutor();
+    }
 
-            @Override
-            public boolean cancel(final boolean mayInterruptIfRunning) {
-                return futureWrap.getWrapped().cancel(mayInterruptIfRunning);
+    /**
+     * Closes the payload input stream and ask for an asynchronous response.
+     * <p>
+     * The returned future is completed by the task executing the HTTP request, so that no thread is parked waiting
+     * for it; cancelling the returned future cancels the underlying HTTP execution as well.
+     *
+     * @return <code>ODataFuture&lt;ODataResponse&gt;</code> about the executed request.
+     */
+    @SuppressWarnings("unchecked")
+    public final ODataFuture<T> getAsyncResponse() {
+        finalizeBody();
+
+        final Future<HttpResponse> wrapped = futureWrap.getWrapped();
+        final ODataFuture<HttpResponse> httpFuture;
+        if (wrapped instanceof ODataFuture) {
+            httpFuture = (ODataFuture<HttpResponse>) wrapped;
+            if (!isPiped()) {
+                // not started yet: run onto the executor instead of the thread asking for the response
+                getExecutor().execute(httpFuture);
             }
+        } else {
+            httpFuture = ODataFuture.submit(new Callable<HttpResponse>() {
+
+                @Override
+                public HttpResponse call() throws Exception {
+                    return getHttpResponse(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                }
+            }, getExecutor());
+        }
 
-            @Override
-            public boolean isCancelled() {
-                return futureWrap.getWrapped().isCancelled();
-            }
+        final ODataFuture<T> future = httpFuture.then(new ODataFuture.Transformer<HttpResponse, T>() {
 
             @Override
-            public boolean isDone() {
-                return futureWrap.getWrapped().isDone();
+            public T transform(final HttpResponse result) {
+                // the HTTP response is already available: no wait
+                return getResponse(0, TimeUnit.MILLISECONDS);
             }
+        });
+        future.addCallback(new ODataFuture.Callback<T>() {
 
             @Override
-            public T get() throws InterruptedException, ExecutionException {
-                return getResponse(0, TimeUnit.SECONDS);
+            public void onSuccess(final T result) {
+                // nothing to do
             }
 
             @Override
-            public T get(final long timeout, final TimeUnit unit)
-                    throws InterruptedException, ExecutionException, TimeoutException {
-
-                return getResponse(timeout, unit);
+            public void onFailure(final Throwable cause) {
+                if (cause instanceof CancellationException) {
+                    wrapped.cancel(true);
+                    httpFuture.cancel(true);
+                }
             }
-        };
+        });
+
+        return future;
     }
 }
@@ -0,0 +1,51 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request.batch;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+
+/**
+ * OData batch request factory class, bound to an OData client.
+ *
+ * @see ODataClient#getBatchRequestFactory()
+ */
+public class BatchRequestFactory {
+
+    private final ODataClient client;
+
+    /**
+     * Constructor.
+     *
+     * @param client OData client.
+     */
+    public BatchRequestFactory(final ODataClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Gets a batch request object instance.
+     *
+     * @param serviceRoot service root.
+     * @return new ODataBatchRequest instance.
+     */
+    public ODataBatchRequest getBatchRequest(final String serviceRoot) {
+        return new ODataBatchRequest(client, client.getURIBuilder(serviceRoot).appendBatchSegment().build());
+    }
+}
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.batch;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.ODataStreamManager;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchRequest.BatchStreamManager;
@@ -33,6 +34,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
@@ -58,10 +60,11 @@ public class ODataBatchRequest extends ODataStreamedRequestImpl<ODataBatchRespon
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param uri batch request URI (http://serviceRoot/$batch)
      */
-    ODataBatchRequest(final URI uri) {
-        super(HttpMethod.POST, uri);
+    ODataBatchRequest(final ODataClient odataClient, final URI uri) {
+        super(odataClient, HttpMethod.POST, uri);
 
         // create a random UUID value for boundary
         boundary = "batch_" + UUID.randomUUID().toString();
@@ -126,6 +129,11 @@ public class ODataBatchRequest extends ODataStreamedRequestImpl<ODataBatchRespon
          */
         private ODataBatchRequestItem currentItem = null;
 
+        /**
+         * Whether the close delimiter has already been streamed.
+         */
+        private boolean bodyFinalized = false;
+
         /**
          * batch request reference.
          */
@@ -141,6 +149,14 @@ public class ODataBatchRequest extends ODataStreamedRequestImpl<ODataBatchRespon
             this.req = req;
         }
 
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        protected Executor getExecutor() {
+            return odataClient.getExecutor();
+        }
+
         /**
          * Gets a changeset batch item instance.
          * A changeset can be submitted embedded into a batch request only.
@@ -190,13 +206,24 @@ public class ODataBatchRequest extends ODataStreamedRequestImpl<ODataBatchRespon
             }
         }
 
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void finalizeBody() {
+            if (!bodyFinalized) {
+                bodyFinalized = true;
+                closeCurrentItem();
+                streamCloseDelimiter();
+            }
+            super.finalizeBody();
+        }
+
         /**
          * {@inheritDoc }
          */
         @Override
         protected ODataBatchResponse getResponse(final long timeout, final TimeUnit unit) {
-            closeCurrentItem();
-            streamCloseDelimiter();
             finalizeBody();
             return new ODataBatchResponseImpl(client, getHttpResponse(timeout, unit));
         }
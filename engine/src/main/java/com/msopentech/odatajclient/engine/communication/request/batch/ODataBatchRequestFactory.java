@@ -19,10 +19,12 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.batch;
 
-import com.msopentech.odatajclient.engine.uri.ODataURIBuilder;
+import com.msopentech.odatajclient.engine.client.ODataClient;
 
 /**
- * OData batch request factory class.
+ * OData batch request factory class, using the current global configuration.
+ *
+ * @see BatchRequestFactory
  */
 public final class ODataBatchRequestFactory {
 
@@ -37,6 +39,6 @@ public final class ODataBatchRequestFactory {
      * @return new ODataBatchRequest instance.
      */
     public static ODataBatchRequest getBatchRequest(final String serviceRoot) {
-        return new ODataBatchRequest(new ODataURIBuilder(serviceRoot).appendBatchSegment().build());
+        return ODataClient.fromConfiguration().getBatchRequestFactory().getBatchRequest(serviceRoot);
     }
 }
@@ -53,14 +53,9 @@ public abstract class ODataBatchResponseItem implements Iterator<ODataResponse>
     private final boolean changeset;
 
     /**
-     * Batch response line iterator.
+     * Batch response part.
      */
-    protected ODataBatchLineIterator batchLineIterator;
-
-    /**
-     * Batch boundary.
-     */
-    protected String boundary;
+    protected ODataMultipartReader.Part part;
 
     /**
      * Gives information about the batch response item status.
@@ -92,16 +87,14 @@ public abstract class ODataBatchResponseItem implements Iterator<ODataResponse>
     /**
      * Initializes ODataResponse template from batch response item part.
      *
-     * @param batchLineIterator batch response line iterator.
-     * @param boundary batch response boundary.
+     * @param part batch response part.
      */
-    void initFromBatch(final ODataBatchLineIterator batchLineIterator, final String boundary) {
+    void initFromBatch(final ODataMultipartReader.Part part) {
         if (closed) {
             throw new IllegalStateException("Invalid batch item because explicitely closed");
         }
-        LOG.debug("Init from batch - boundary '{}'", boundary);
-        this.batchLineIterator = batchLineIterator;
-        this.boundary = boundary;
+        LOG.debug("Init from batch - headers {}", part.getHeaders());
+        this.part = part;
     }
 
     /**
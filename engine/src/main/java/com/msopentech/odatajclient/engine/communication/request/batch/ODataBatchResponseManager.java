@@ -21,14 +21,9 @@ package com.msopentech.odatajclient.engine.communication.request.batch;
 
 import com.msopentech.odatajclient.engine.communication.header.ODataHeaders;
 import com.msopentech.odatajclient.engine.communication.response.ODataBatchResponse;
-import com.msopentech.odatajclient.engine.utils.ODataConstants;
-import java.io.IOException;
-import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.NoSuchElementException;
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,14 +38,9 @@ public class ODataBatchResponseManager implements Iterator<ODataBatchResponseIte
     private static final Logger LOG = LoggerFactory.getLogger(ODataBatchResponseManager.class);
 
     /**
-     * Batch response line iterator.
+     * Batch response parts reader.
      */
-    private final ODataBatchLineIterator batchLineIterator;
-
-    /**
-     * Batch boundary.
-     */
-    private final String batchBoundary;
+    private final ODataMultipartReader batch;
 
     /**
      * Expected batch response items iterator.
@@ -69,19 +59,14 @@ public class ODataBatchResponseManager implements Iterator<ODataBatchResponseIte
      * @param expectedItems expected batch response items.
      */
     public ODataBatchResponseManager(final ODataBatchResponse res, final List<ODataBatchResponseItem> expectedItems) {
-        try {
-            this.expectedItemsIterator = expectedItems.iterator();
-            this.batchLineIterator = new ODataBatchLineIterator(
-                    IOUtils.lineIterator(res.getRawResponse(), ODataConstants.UTF8));
-
-            // search for boundary
-            batchBoundary = ODataBatchUtilities.getBoundaryFromHeader(
-                    res.getHeader(ODataHeaders.HeaderName.contentType));
-            LOG.debug("Retrieved batch response bondary '{}'", batchBoundary);
-        } catch (IOException e) {
-            LOG.error("Error parsing batch response", e);
-            throw new IllegalStateException(e);
-        }
+        this.expectedItemsIterator = expectedItems.iterator();
+
+        // search for boundary
+        final String batchBoundary = ODataBatchUtilities.getBoundaryFromHeader(
+                res.getHeader(ODataHeaders.HeaderName.contentType));
+        LOG.debug("Retrieved batch response bondary '{}'", batchBoundary);
+
+        this.batch = new ODataMultipartReader(res.getRawResponse(), batchBoundary);
     }
 
     /**
@@ -107,34 +92,29 @@ public class ODataBatchResponseManager implements Iterator<ODataBatchResponseIte
 
         current = expectedItemsIterator.next();
 
-        final Map<String, Collection<String>> nextItemHeaders =
-                ODataBatchUtilities.nextItemHeaders(batchLineIterator, batchBoundary);
+        final ODataMultipartReader.Part part = batch.nextPart();
+        if (part == null) {
+            throw new IllegalStateException("Expected item not found");
+        }
 
-        switch (ODataBatchUtilities.getItemType(nextItemHeaders)) {
+        switch (ODataBatchUtilities.getItemType(part.getHeaders())) {
             case CHANGESET:
                 if (!current.isChangeset()) {
                     throw new IllegalStateException("Unexpected batch item");
                 }
-
-                current.initFromBatch(
-                        batchLineIterator,
-                        ODataBatchUtilities.getBoundaryFromHeader(
-                        nextItemHeaders.get(ODataHeaders.HeaderName.contentType.toString())));
                 break;
 
             case RETRIEVE:
                 if (current.isChangeset()) {
                     throw new IllegalStateException("Unexpected batch item");
                 }
-
-                current.initFromBatch(
-                        batchLineIterator,
-                        batchBoundary);
                 break;
             default:
                 throw new IllegalStateException("Expected item not found");
         }
 
+        current.initFromBatch(part);
+
         return current;
     }
 
@@ -21,17 +21,43 @@ package com.msopentech.odatajclient.engine.communication.request.batch;
 
 import static com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchResponseItem.LOG;
 
+import com.msopentech.odatajclient.engine.communication.header.ODataHeaders;
 import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
 import com.msopentech.odatajclient.engine.utils.ODataBatchConstants;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
  * Changeset wrapper for the corresponding batch item.
+ * <br/>
+ * Responses are read in the order they are sent by the server; <tt>getResponse()</tt> allows to access them by
+ * Content-ID instead, buffering the ones skipped in the meantime.
  */
 public class ODataChangesetResponseItem extends ODataBatchResponseItem {
 
+    /**
+     * Changeset parts reader.
+     */
+    private ODataMultipartReader changeset;
+
+    /**
+     * Responses already read, by Content-ID.
+     */
+    private final Map<String, ODataResponse> read = new HashMap<String, ODataResponse>();
+
+    /**
+     * Responses read ahead via <tt>getResponse()</tt>, not yet returned by <tt>next()</tt>.
+     */
+    private final LinkedList<ODataResponse> readAhead = new LinkedList<ODataResponse>();
+
+    /**
+     * Part of the response last read.
+     */
+    private ODataMultipartReader.Part lastPart = null;
+
     /**
      * Last cached OData response.
      */
@@ -44,6 +70,16 @@ public class ODataChangesetResponseItem extends ODataBatchResponseItem {
         super(true);
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    void initFromBatch(final ODataMultipartReader.Part part) {
+        super.initFromBatch(part);
+        this.changeset = new ODataMultipartReader(part, ODataBatchUtilities.getBoundaryFromHeader(
+                part.getHeaders().get(ODataHeaders.HeaderName.contentType.toString())));
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -81,45 +117,85 @@ public class ODataChangesetResponseItem extends ODataBatchResponseItem {
             throw new NoSuchElementException("No item found");
         }
 
-        final Map<String, Collection<String>> nextItemHeaders =
-                ODataBatchUtilities.nextItemHeaders(batchLineIterator, boundary);
+        current = readAhead.isEmpty() ? readResponse() : readAhead.removeFirst();
+
+        if (current.getStatusCode() >= 400) {
+            // found error .... consume expeted items
+            while (expectedItemsIterator.hasNext()) {
+                expectedItemsIterator.next();
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Gets the response to the changeset request with the given Content-ID, reading (and buffering) the responses
+     * preceding it if not read yet. The response will be returned by <tt>next()</tt> as well, in its turn.
+     *
+     * @param contentId Content-ID.
+     * @return response; null if no request with the given Content-ID has been added to the changeset.
+     */
+    @Override
+    public ODataResponse getResponse(final String contentId) {
+        final ODataResponse expected = super.getResponse(contentId);
+        if (expected == null || read.containsKey(contentId)) {
+            return expected;
+        }
+
+        if (changeset == null) {
+            throw new IllegalStateException("Changeset not read yet");
+        }
+
+        while (!read.containsKey(contentId)) {
+            if (lastPart != null) {
+                lastPart.buffer();
+            }
+            readAhead.add(readResponse());
+        }
 
-        if (nextItemHeaders.isEmpty()) {
+        return expected;
+    }
+
+    /**
+     * Reads the next changeset part, initializing the corresponding response.
+     *
+     * @return response.
+     */
+    private ODataResponse readResponse() {
+        final ODataMultipartReader.Part part = changeset.nextPart();
+        if (part == null) {
             throw new IllegalStateException("Expected item not found");
         }
 
-        final Map.Entry<Integer, String> responseLine = ODataBatchUtilities.readResponseLine(batchLineIterator);
+        final Map.Entry<Integer, String> responseLine = part.readResponseLine();
         LOG.debug("Retrieved item response {}", responseLine);
 
-        final Map<String, Collection<String>> headers = ODataBatchUtilities.readHeaders(batchLineIterator);
+        final Map<String, Collection<String>> headers = part.readHeaders();
         LOG.debug("Retrieved item headers {}", headers);
 
-        Collection<String> contentId = nextItemHeaders.get(ODataBatchConstants.CHANGESET_CONTENT_ID_NAME);
+        String contentId = part.getContentId();
 
-        if (contentId == null || contentId.isEmpty()) {
-            contentId = headers.get(ODataBatchConstants.CHANGESET_CONTENT_ID_NAME);
+        if (contentId == null) {
+            final Collection<String> values = headers.get(ODataBatchConstants.CHANGESET_CONTENT_ID_NAME);
 
-            if (contentId == null || contentId.isEmpty()) {
+            if (values == null || values.isEmpty()) {
                 throw new IllegalStateException("Content-ID is missing");
             }
+            contentId = values.iterator().next();
         }
 
-        current = getResponse(contentId.iterator().next());
+        final ODataResponse response = responses.get(contentId);
 
-        if (current == null) {
+        if (response == null || read.containsKey(contentId)) {
             throw new IllegalStateException("Unexpected '" + contentId + "' item found");
         }
 
-        current.initFromBatch(responseLine, headers, batchLineIterator, boundary);
-
-        if (current.getStatusCode() >= 400) {
-            // found error .... consume expeted items
-            while (expectedItemsIterator.hasNext()) {
-                expectedItemsIterator.next();
-            }
-        }
+        response.initFromBatch(responseLine, headers, part);
+        read.put(contentId, response);
+        lastPart = part;
 
-        return current;
+        return response;
     }
 
     /**
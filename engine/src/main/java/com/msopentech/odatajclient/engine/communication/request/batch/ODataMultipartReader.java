@@ -0,0 +1,558 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request.batch;
+
+import com.msopentech.odatajclient.engine.utils.ODataBatchConstants;
+import com.msopentech.odatajclient.engine.utils.ODataConstants;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Streaming reader of multipart bodies, as batch responses and changesets.
+ * <br/>
+ * Parts are delimited by scanning the buffered bytes for the boundary; each part is exposed as a stream reading
+ * directly from the same buffer, up to the next delimiter. Both CRLF and LF line terminators are accepted.
+ * <br/>
+ * Parts are read in order: moving to the next part skips what is left of the current one, unless buffered via
+ * <tt>Part.buffer()</tt>. Readers are not thread-safe.
+ */
+public class ODataMultipartReader {
+
+    private static final Charset UTF8 = Charset.forName(ODataConstants.UTF8);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final String HTTP_VERSION_PREFIX = "HTTP/";
+
+    private final InputStream input;
+
+    /**
+     * Line feed followed by the dash-boundary; the carriage return possibly preceding it is handled apart.
+     */
+    private final byte[] delimiter;
+
+    /**
+     * Boyer-Moore-Horspool shifts for delimiter scanning.
+     */
+    private final int[] shifts = new int[256];
+
+    private byte[] buffer;
+
+    /**
+     * Next byte to be consumed.
+     */
+    private int head = 0;
+
+    /**
+     * End of the bytes read from the input stream.
+     */
+    private int tail = 0;
+
+    /**
+     * Bytes in [head, bodyEnd) belong to the current part.
+     */
+    private int bodyEnd = 0;
+
+    /**
+     * Position of the delimiter closing the current part, once found; -1 otherwise.
+     */
+    private int delimiterAt = -1;
+
+    private boolean partEnded = false;
+
+    private boolean eof = false;
+
+    private boolean finished = false;
+
+    private Part current = null;
+
+    /**
+     * Positions of the line last read via <tt>readLine()</tt>.
+     */
+    private int lineStart;
+
+    private int lineEnd;
+
+    /**
+     * Constructor.
+     *
+     * @param input multipart body.
+     * @param boundary boundary, with or without leading dashes.
+     */
+    public ODataMultipartReader(final InputStream input, final String boundary) {
+        this.input = input;
+        this.delimiter = ("\n" + (boundary.startsWith("--") ? boundary : "--" + boundary)).getBytes(UTF8);
+
+        Arrays.fill(shifts, delimiter.length);
+        for (int i = 0; i < delimiter.length - 1; i++) {
+            shifts[delimiter[i] & 0xFF] = delimiter.length - 1 - i;
+        }
+
+        this.buffer = new byte[Math.max(BUFFER_SIZE, 2 * delimiter.length)];
+        // a virtual line feed lets the first delimiter match at the very beginning: what precedes it is preamble
+        this.buffer[0] = '\n';
+        this.tail = 1;
+    }
+
+    /**
+     * Moves to the next part, reading its headers.
+     *
+     * @return next part; null once the close delimiter (or the end of stream) has been reached.
+     * @throws IllegalStateException in case of I/O failure.
+     */
+    public Part nextPart() {
+        if (finished) {
+            return null;
+        }
+
+        try {
+            if (current != null) {
+                current.release();
+            }
+            // skip preamble or what is left of the current part
+            while (advance()) {
+                head = bodyEnd;
+            }
+
+            if (!require(delimiter.length + 2)) {
+                finished = true;
+                return null;
+            }
+            head += delimiter.length;
+            if (buffer[head] == '-' && buffer[head + 1] == '-') {
+                finished = true;
+                return null;
+            }
+
+            // skip transport padding, up to the end of the boundary line
+            partEnded = false;
+            bodyEnd = head;
+            if (!readLine()) {
+                finished = true;
+                return null;
+            }
+
+            final Map<String, Collection<String>> headers =
+                    new TreeMap<String, Collection<String>>(String.CASE_INSENSITIVE_ORDER);
+            readHeaders(headers);
+
+            current = new Part(headers);
+            return current;
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading multipart body", e);
+        }
+    }
+
+    private int indexOfDelimiter(final int from) {
+        final int last = delimiter.length - 1;
+        int pos = from;
+        while (pos + last < tail) {
+            int i = last;
+            while (buffer[pos + i] == delimiter[i]) {
+                if (i == 0) {
+                    return pos;
+                }
+                i--;
+            }
+            pos += shifts[buffer[pos + last] & 0xFF];
+        }
+        return -1;
+    }
+
+    /**
+     * Reads more bytes from the input stream, compacting (or growing) the buffer.
+     *
+     * @return false if the end of stream has been reached.
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            bodyEnd = Math.max(0, bodyEnd - head);
+            head = 0;
+        } else if (tail == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        final int read = input.read(buffer, tail, buffer.length - tail);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        tail += read;
+        return true;
+    }
+
+    private boolean require(final int count) throws IOException {
+        while (tail - head < count) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Extends the known bytes of the current part, looking for the delimiter closing it.
+     */
+    private void extend() throws IOException {
+        while (true) {
+            final int match = indexOfDelimiter(Math.max(head, bodyEnd));
+            if (match >= 0) {
+                delimiterAt = match;
+                bodyEnd = match > head && buffer[match - 1] == '\r' ? match - 1 : match;
+                return;
+            }
+
+            // bytes which might be the beginning of the delimiter, or the carriage return preceding it, are kept back
+            if (tail - delimiter.length > bodyEnd) {
+                bodyEnd = tail - delimiter.length;
+                return;
+            }
+
+            if (!fill()) {
+                // no delimiter: the part lasts until the end of stream
+                bodyEnd = tail;
+                delimiterAt = tail;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Makes bytes of the current part available in [head, bodyEnd).
+     *
+     * @return false once the current part has ended.
+     */
+    private boolean advance() throws IOException {
+        while (head >= bodyEnd) {
+            if (partEnded) {
+                return false;
+            }
+
+            if (delimiterAt >= 0) {
+                head = delimiterAt;
+                delimiterAt = -1;
+                bodyEnd = head;
+                partEnded = true;
+                return false;
+            }
+
+            extend();
+        }
+        return true;
+    }
+
+    private int read(final byte[] bytes, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!advance()) {
+            return -1;
+        }
+
+        final int count = Math.min(len, bodyEnd - head);
+        if (bytes != null) {
+            System.arraycopy(buffer, head, bytes, off, count);
+        }
+        head += count;
+        return count;
+    }
+
+    /**
+     * Reads the next line of the current part into [lineStart, lineEnd), without line terminator.
+     *
+     * @return false if the current part has ended.
+     */
+    private boolean readLine() throws IOException {
+        if (!advance()) {
+            return false;
+        }
+
+        int from = head;
+        while (true) {
+            for (int i = from; i < bodyEnd; i++) {
+                if (buffer[i] == '\n') {
+                    lineStart = head;
+                    lineEnd = i > head && buffer[i - 1] == '\r' ? i - 1 : i;
+                    head = i + 1;
+                    return true;
+                }
+            }
+
+            if (delimiterAt >= 0) {
+                // last line of the part
+                lineStart = head;
+                lineEnd = bodyEnd;
+                head = bodyEnd;
+                return true;
+            }
+
+            from = bodyEnd - head;
+            extend();
+            from += head;
+        }
+    }
+
+    /**
+     * Reads header lines up to the first empty line.
+     */
+    private void readHeaders(final Map<String, Collection<String>> target) throws IOException {
+        while (readLine() && lineEnd > lineStart) {
+            int sep = lineStart;
+            while (sep < lineEnd && buffer[sep] != ':') {
+                sep++;
+            }
+
+            final int nameEnd = trimEnd(lineStart, sep);
+            final int valueStart = trimStart(sep + 1, lineEnd);
+            final int valueEnd = trimEnd(valueStart, lineEnd);
+            if (sep < lineEnd && nameEnd > lineStart && valueEnd > valueStart) {
+                final String name = new String(buffer, lineStart, nameEnd - lineStart, UTF8);
+                Collection<String> values = target.get(name);
+                if (values == null) {
+                    values = new HashSet<String>();
+                    target.put(name, values);
+                }
+                values.add(new String(buffer, valueStart, valueEnd - valueStart, UTF8));
+            }
+        }
+    }
+
+    /**
+     * Reads a response line, as <tt>HTTP/1.1 200 OK</tt>, skipping leading empty lines.
+     */
+    private Map.Entry<Integer, String> readResponseLine() throws IOException {
+        boolean found;
+        do {
+            found = readLine();
+        } while (found && lineEnd == lineStart);
+
+        if (!found) {
+            throw new IllegalArgumentException("Missing response line");
+        }
+
+        int pos = trimStart(lineStart, lineEnd);
+        final int end = trimEnd(pos, lineEnd);
+        boolean valid = end - pos > HTTP_VERSION_PREFIX.length();
+        for (int i = 0; valid && i < HTTP_VERSION_PREFIX.length(); i++) {
+            valid = Character.toUpperCase(buffer[pos + i]) == HTTP_VERSION_PREFIX.charAt(i);
+        }
+
+        // skip version
+        while (pos < end && buffer[pos] != ' ') {
+            pos++;
+        }
+        pos++;
+
+        int statusCode = 0;
+        int digits = 0;
+        while (pos < end && buffer[pos] >= '0' && buffer[pos] <= '9') {
+            statusCode = statusCode * 10 + buffer[pos++] - '0';
+            digits++;
+        }
+
+        if (!valid || digits == 0 || digits > 3 || (pos < end && buffer[pos] != ' ')) {
+            throw new IllegalArgumentException(
+                    "Invalid response line '" + new String(buffer, lineStart, lineEnd - lineStart, UTF8) + "'");
+        }
+
+        return new AbstractMap.SimpleEntry<Integer, String>(
+                statusCode, pos < end ? new String(buffer, pos + 1, end - pos - 1, UTF8) : "");
+    }
+
+    private int trimStart(final int start, final int end) {
+        int pos = start;
+        while (pos < end && (buffer[pos] == ' ' || buffer[pos] == '\t')) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private int trimEnd(final int start, final int end) {
+        int pos = end;
+        while (pos > start && (buffer[pos - 1] == ' ' || buffer[pos - 1] == '\t')) {
+            pos--;
+        }
+        return pos;
+    }
+
+    /**
+     * Part of a multipart body; reading it gives the part body, up to the next delimiter.
+     */
+    public class Part extends InputStream {
+
+        private final Map<String, Collection<String>> headers;
+
+        private InputStream buffered = null;
+
+        private boolean closed = false;
+
+        private Part(final Map<String, Collection<String>> headers) {
+            this.headers = headers;
+        }
+
+        /**
+         * Gets part headers.
+         *
+         * @return part headers, case-insensitive.
+         */
+        public Map<String, Collection<String>> getHeaders() {
+            return headers;
+        }
+
+        /**
+         * Gets the Content-ID header value.
+         *
+         * @return Content-ID; null if missing.
+         */
+        public String getContentId() {
+            final Collection<String> contentId = headers.get(ODataBatchConstants.CHANGESET_CONTENT_ID_NAME);
+            return contentId == null || contentId.isEmpty() ? null : contentId.iterator().next();
+        }
+
+        /**
+         * Reads the response line of the HTTP response contained in this part.
+         *
+         * @return response status code and message.
+         * @throws IllegalArgumentException if no valid response line is found.
+         */
+        public Map.Entry<Integer, String> readResponseLine() {
+            checkStreaming();
+            try {
+                return ODataMultipartReader.this.readResponseLine();
+            } catch (IOException e) {
+                throw new IllegalStateException("Error reading response line", e);
+            }
+        }
+
+        /**
+         * Reads the headers of the HTTP response contained in this part, after the response line.
+         *
+         * @return response headers, case-insensitive.
+         */
+        public Map<String, Collection<String>> readHeaders() {
+            checkStreaming();
+            final Map<String, Collection<String>> target =
+                    new TreeMap<String, Collection<String>>(String.CASE_INSENSITIVE_ORDER);
+            try {
+                ODataMultipartReader.this.readHeaders(target);
+            } catch (IOException e) {
+                throw new IllegalStateException("Error reading headers", e);
+            }
+            return target;
+        }
+
+        /**
+         * Reads what is left of this part into memory, so that the following parts can be read while this one is
+         * still in use.
+         */
+        public void buffer() {
+            if (buffered == null && !closed) {
+                try {
+                    final byte[] bytes = IOUtils.toByteArray(this);
+                    buffered = new ByteArrayInputStream(bytes);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Error buffering part", e);
+                }
+            }
+        }
+
+        private void checkStreaming() {
+            if (closed || buffered != null || current != this) {
+                throw new IllegalStateException("Part already left behind");
+            }
+        }
+
+        /**
+         * Invoked when moving to the next part.
+         */
+        private void release() {
+            if (buffered == null) {
+                closed = true;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (buffered != null) {
+                return buffered.read();
+            }
+            if (closed || !advance()) {
+                return -1;
+            }
+            return buffer[head++] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int off, final int len) throws IOException {
+            if (buffered != null) {
+                return buffered.read(bytes, off, len);
+            }
+            if (closed) {
+                return -1;
+            }
+            return ODataMultipartReader.this.read(bytes, off, len);
+        }
+
+        @Override
+        public long skip(final long count) throws IOException {
+            if (buffered != null) {
+                return buffered.skip(count);
+            }
+            if (closed) {
+                return 0;
+            }
+
+            final int skipped = ODataMultipartReader.this.read(null, 0, (int) Math.min(count, Integer.MAX_VALUE));
+            return skipped < 0 ? 0 : skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            if (buffered != null) {
+                return buffered.available();
+            }
+            return closed || current != this ? 0 : Math.max(0, bodyEnd - head);
+        }
+
+        /**
+         * Closes this part: what is left of it will be skipped.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            buffered = null;
+        }
+    }
+}
@@ -68,13 +68,13 @@ public class ODataRetrieveResponseItem extends ODataBatchResponseItem {
             throw new NoSuchElementException("No item found");
         }
 
-        final Map.Entry<Integer, String> responseLine = ODataBatchUtilities.readResponseLine(batchLineIterator);
+        final Map.Entry<Integer, String> responseLine = part.readResponseLine();
         LOG.debug("Retrieved item response {}", responseLine);
 
-        final Map<String, Collection<String>> headers = ODataBatchUtilities.readHeaders(batchLineIterator);
+        final Map<String, Collection<String>> headers = part.readHeaders();
         LOG.debug("Retrieved item headers {}", headers);
 
-        return expectedItemsIterator.next().initFromBatch(responseLine, headers, batchLineIterator, boundary);
+        return expectedItemsIterator.next().initFromBatch(responseLine, headers, part);
     }
 
     /**
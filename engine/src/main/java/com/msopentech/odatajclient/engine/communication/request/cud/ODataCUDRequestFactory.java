@@ -19,17 +19,18 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.cud;
 
-import com.msopentech.odatajclient.engine.client.http.HttpMethod;
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.communication.request.UpdateType;
 import com.msopentech.odatajclient.engine.data.ODataEntity;
 import com.msopentech.odatajclient.engine.data.ODataLink;
 import com.msopentech.odatajclient.engine.data.ODataPrimitiveValue;
 import com.msopentech.odatajclient.engine.data.ODataProperty;
-import com.msopentech.odatajclient.engine.utils.Configuration;
 import java.net.URI;
 
 /**
- * OData request factory class.
+ * OData request factory class, using the current global configuration.
+ *
+ * @see CUDRequestFactory
  */
 public final class ODataCUDRequestFactory {
 
@@ -50,7 +51,7 @@ public final class ODataCUDRequestFactory {
      * @return new ODataEntityCreateRequest instance.
      */
     public static ODataEntityCreateRequest getEntityCreateRequest(final URI targetURI, final ODataEntity entity) {
-        return new ODataEntityCreateRequest(targetURI, entity);
+        return ODataClient.fromConfiguration().getCUDRequestFactory().getEntityCreateRequest(targetURI, entity);
     }
 
     /**
@@ -64,16 +65,7 @@ public final class ODataCUDRequestFactory {
     public static ODataEntityUpdateRequest getEntityUpdateRequest(
             final URI targetURI, final UpdateType type, final ODataEntity changes) {
 
-        final ODataEntityUpdateRequest req;
-
-        if (Configuration.isUseXHTTPMethod()) {
-            req = new ODataEntityUpdateRequest(HttpMethod.POST, targetURI, changes);
-            req.setXHTTPMethod(type.getMethod().name());
-        } else {
-            req = new ODataEntityUpdateRequest(type.getMethod(), targetURI, changes);
-        }
-
-        return req;
+        return ODataClient.fromConfiguration().getCUDRequestFactory().getEntityUpdateRequest(targetURI, type, changes);
     }
 
     /**
@@ -84,20 +76,7 @@ public final class ODataCUDRequestFactory {
      * @return new ODataEntityUpdateRequest instance.
      */
     public static ODataEntityUpdateRequest getEntityUpdateRequest(final UpdateType type, final ODataEntity entity) {
-        if (entity.getEditLink() == null) {
-            throw new IllegalArgumentException("No edit link found");
-        }
-
-        final ODataEntityUpdateRequest req;
-
-        if (Configuration.isUseXHTTPMethod()) {
-            req = new ODataEntityUpdateRequest(HttpMethod.POST, entity.getEditLink(), entity);
-            req.setXHTTPMethod(type.getMethod().name());
-        } else {
-            req = new ODataEntityUpdateRequest(type.getMethod(), entity.getEditLink(), entity);
-        }
-
-        return req;
+        return ODataClient.fromConfiguration().getCUDRequestFactory().getEntityUpdateRequest(type, entity);
     }
 
     /**
@@ -113,16 +92,7 @@ public final class ODataCUDRequestFactory {
     public static ODataValueUpdateRequest getValueUpdateRequest(
             final URI targetURI, final UpdateType type, final ODataPrimitiveValue value) {
 
-        final ODataValueUpdateRequest req;
-
-        if (Configuration.isUseXHTTPMethod()) {
-            req = new ODataValueUpdateRequest(HttpMethod.POST, targetURI, value);
-            req.setXHTTPMethod(type.getMethod().name());
-        } else {
-            req = new ODataValueUpdateRequest(type.getMethod(), targetURI, value);
-        }
-
-        return req;
+        return ODataClient.fromConfiguration().getCUDRequestFactory().getValueUpdateRequest(targetURI, type, value);
     }
 
     /**
@@ -137,20 +107,8 @@ public final class ODataCUDRequestFactory {
     public static ODataPropertyUpdateRequest getPropertyPrimitiveValueUpdateRequest(
             final URI targetURI, final ODataProperty property) {
 
-        if (!property.hasPrimitiveValue()) {
-            throw new IllegalArgumentException("A primitive value is required");
-        }
-
-        final ODataPropertyUpdateRequest req;
-
-        if (Configuration.isUseXHTTPMethod()) {
-            req = new ODataPropertyUpdateRequest(HttpMethod.POST, targetURI, property);
-            req.setXHTTPMethod(HttpMethod.PUT.name());
-        } else {
-            req = new ODataPropertyUpdateRequest(HttpMethod.PUT, targetURI, property);
-        }
-
-        return req;
+        return ODataClient.fromConfiguration().getCUDRequestFactory().
+                getPropertyPrimitiveValueUpdateRequest(targetURI, property);
     }
 
     /**
@@ -166,20 +124,8 @@ public final class ODataCUDRequestFactory {
     public static ODataPropertyUpdateRequest getPropertyComplexValueUpdateRequest(
             final URI targetURI, final UpdateType type, final ODataProperty property) {
 
-        if (!property.hasComplexValue()) {
-            throw new IllegalArgumentException("A complex value is required");
-        }
-
-        final ODataPropertyUpdateRequest req;
-
-        if (Configuration.isUseXHTTPMethod()) {
-            req = new ODataPropertyUpdateRequest(HttpMethod.POST, targetURI, property);
-            req.setXHTTPMethod(type.getMethod().name());
-        } else {
-            req = new ODataPropertyUpdateRequest(type.getMethod(), targetURI, property);
-        }
-
-        return req;
+        return ODataClient.fromConfiguration().getCUDRequestFactory().
+                getPropertyComplexValueUpdateRequest(targetURI, type, property);
     }
 
     /**
@@ -194,20 +140,8 @@ public final class ODataCUDRequestFactory {
     public static ODataPropertyUpdateRequest getPropertyCollectionValueUpdateRequest(
             final URI targetURI, final ODataProperty property) {
 
-        if (!property.hasCollectionValue()) {
-            throw new IllegalArgumentException("A collection value is required");
-        }
-
-        final ODataPropertyUpdateRequest req;
-
-        if (Configuration.isUseXHTTPMethod()) {
-            req = new ODataPropertyUpdateRequest(HttpMethod.POST, targetURI, property);
-            req.setXHTTPMethod(HttpMethod.PUT.name());
-        } else {
-            req = new ODataPropertyUpdateRequest(HttpMethod.PUT, targetURI, property);
-        }
-
-        return req;
+        return ODataClient.fromConfiguration().getCUDRequestFactory().
+                getPropertyCollectionValueUpdateRequest(targetURI, property);
     }
 
     /**
@@ -220,7 +154,7 @@ public final class ODataCUDRequestFactory {
      * @return new ODataLinkCreateRequest instance.
      */
     public static ODataLinkCreateRequest getLinkCreateRequest(final URI targetURI, final ODataLink link) {
-        return new ODataLinkCreateRequest(targetURI, link);
+        return ODataClient.fromConfiguration().getCUDRequestFactory().getLinkCreateRequest(targetURI, link);
     }
 
     /**
@@ -238,16 +172,7 @@ public final class ODataCUDRequestFactory {
     public static ODataLinkUpdateRequest getLinkUpdateRequest(
             final URI targetURI, final UpdateType type, final ODataLink link) {
 
-        final ODataLinkUpdateRequest req;
-
-        if (Configuration.isUseXHTTPMethod()) {
-            req = new ODataLinkUpdateRequest(HttpMethod.POST, targetURI, link);
-            req.setXHTTPMethod(type.getMethod().name());
-        } else {
-            req = new ODataLinkUpdateRequest(type.getMethod(), targetURI, link);
-        }
-
-        return req;
+        return ODataClient.fromConfiguration().getCUDRequestFactory().getLinkUpdateRequest(targetURI, type, link);
     }
 
     /**
@@ -259,15 +184,6 @@ public final class ODataCUDRequestFactory {
      * @return new ODataDeleteRequest instance.
      */
     public static ODataDeleteRequest getDeleteRequest(final URI targetURI) {
-        final ODataDeleteRequest req;
-
-        if (Configuration.isUseXHTTPMethod()) {
-            req = new ODataDeleteRequest(HttpMethod.POST, targetURI);
-            req.setXHTTPMethod(HttpMethod.DELETE.name());
-        } else {
-            req = new ODataDeleteRequest(HttpMethod.DELETE, targetURI);
-        }
-
-        return req;
+        return ODataClient.fromConfiguration().getCUDRequestFactory().getDeleteRequest(targetURI);
     }
 }
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.cud;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.response.ODataResponseImpl;
 import com.msopentech.odatajclient.engine.communication.request.ODataBasicRequestImpl;
@@ -42,11 +43,12 @@ public class ODataDeleteRequest extends ODataBasicRequestImpl<ODataDeleteRespons
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param method HTTP method to be used
      * @param uri URI of the entity to be deleted.
      */
-    ODataDeleteRequest(final HttpMethod method, final URI uri) {
-        super(ODataPubFormat.class, method, uri);
+    ODataDeleteRequest(final ODataClient odataClient, final HttpMethod method, final URI uri) {
+        super(odataClient, ODataPubFormat.class, method, uri);
     }
 
     /**
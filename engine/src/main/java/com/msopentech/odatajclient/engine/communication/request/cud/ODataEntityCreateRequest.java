@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.cud;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.ODataBasicRequestImpl;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchableRequest;
@@ -53,11 +54,12 @@ public class ODataEntityCreateRequest extends ODataBasicRequestImpl<ODataEntityC
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param targetURI entity set URI.
      * @param entity entity to be created.
      */
-    ODataEntityCreateRequest(final URI targetURI, final ODataEntity entity) {
-        super(ODataPubFormat.class, HttpMethod.POST, targetURI);
+    ODataEntityCreateRequest(final ODataClient odataClient, final URI targetURI, final ODataEntity entity) {
+        super(odataClient, ODataPubFormat.class, HttpMethod.POST, targetURI);
         this.entity = entity;
     }
 
@@ -116,7 +118,8 @@ public class ODataEntityCreateRequest extends ODataBasicRequestImpl<ODataEntityC
         public ODataEntity getBody() {
             if (entity == null) {
                 try {
-                    entity = ODataReader.readEntity(getRawResponse(), ODataPubFormat.fromString(getAccept()));
+                    entity = ODataReader.readEntity(
+                            getRawResponse(), ODataPubFormat.fromString(getAccept()), odataClient);
                 } finally {
                     this.close();
                 }
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.cud;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.ODataBasicRequestImpl;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchableRequest;
@@ -55,12 +56,15 @@ public class ODataEntityUpdateRequest extends ODataBasicRequestImpl<ODataEntityU
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param method request method.
      * @param uri URI of the entity to be updated.
      * @param changes changes to be applied.
      */
-    ODataEntityUpdateRequest(final HttpMethod method, final URI uri, final ODataEntity changes) {
-        super(ODataPubFormat.class, method, uri);
+    ODataEntityUpdateRequest(
+            final ODataClient odataClient, final HttpMethod method, final URI uri, final ODataEntity changes) {
+
+        super(odataClient, ODataPubFormat.class, method, uri);
         this.changes = changes;
     }
 
@@ -122,7 +126,8 @@ public class ODataEntityUpdateRequest extends ODataBasicRequestImpl<ODataEntityU
         public ODataEntity getBody() {
             if (entity == null) {
                 try {
-                    entity = ODataReader.readEntity(getRawResponse(), ODataPubFormat.fromString(getAccept()));
+                    entity = ODataReader.readEntity(
+                            getRawResponse(), ODataPubFormat.fromString(getAccept()), odataClient);
                 } finally {
                     this.close();
                 }
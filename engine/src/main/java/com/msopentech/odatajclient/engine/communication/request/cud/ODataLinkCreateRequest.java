@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.cud;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.ODataBasicRequestImpl;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchableRequest;
@@ -52,11 +53,12 @@ public class ODataLinkCreateRequest extends ODataBasicRequestImpl<ODataLinkOpera
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param targetURI entity set URI.
      * @param link entity to be linked.
      */
-    ODataLinkCreateRequest(final URI targetURI, final ODataLink link) {
-        super(ODataFormat.class, HttpMethod.POST, targetURI);
+    ODataLinkCreateRequest(final ODataClient odataClient, final URI targetURI, final ODataLink link) {
+        super(odataClient, ODataFormat.class, HttpMethod.POST, targetURI);
         // set request body
         this.link = link;
     }
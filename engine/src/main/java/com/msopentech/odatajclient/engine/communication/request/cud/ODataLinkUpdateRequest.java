@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.cud;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.ODataBasicRequestImpl;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchableRequest;
@@ -55,12 +56,15 @@ public class ODataLinkUpdateRequest extends ODataBasicRequestImpl<ODataLinkOpera
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param method request method.
      * @param targetURI entity URI.
      * @param link entity to be linked.
      */
-    ODataLinkUpdateRequest(final HttpMethod method, final URI targetURI, final ODataLink link) {
-        super(ODataFormat.class, method, targetURI);
+    ODataLinkUpdateRequest(
+            final ODataClient odataClient, final HttpMethod method, final URI targetURI, final ODataLink link) {
+
+        super(odataClient, ODataFormat.class, method, targetURI);
         // set request body
         this.link = link;
     }
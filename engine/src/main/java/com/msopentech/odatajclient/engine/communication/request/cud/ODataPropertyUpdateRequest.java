@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.cud;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.ODataBasicRequestImpl;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchableRequest;
@@ -54,12 +55,15 @@ public class ODataPropertyUpdateRequest extends ODataBasicRequestImpl<ODataPrope
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param method request method.
      * @param targetURI entity set or entity or entity property URI.
      * @param property value to be created.
      */
-    ODataPropertyUpdateRequest(final HttpMethod method, final URI targetURI, final ODataProperty property) {
-        super(ODataFormat.class, method, targetURI);
+    ODataPropertyUpdateRequest(
+            final ODataClient odataClient, final HttpMethod method, final URI targetURI, final ODataProperty property) {
+
+        super(odataClient, ODataFormat.class, method, targetURI);
         // set request body
         this.property = property;
     }
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.cud;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpClientException;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.response.ODataResponseImpl;
@@ -56,12 +57,15 @@ public class ODataValueUpdateRequest extends ODataBasicRequestImpl<ODataValueUpd
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param method request method.
      * @param targetURI entity set or entity or entity property URI.
      * @param value value to be created.
      */
-    ODataValueUpdateRequest(final HttpMethod method, final URI targetURI, final ODataValue value) {
-        super(ODataValueFormat.class, method, targetURI);
+    ODataValueUpdateRequest(
+            final ODataClient odataClient, final HttpMethod method, final URI targetURI, final ODataValue value) {
+
+        super(odataClient, ODataValueFormat.class, method, targetURI);
         // set request body
         this.value = value;
     }
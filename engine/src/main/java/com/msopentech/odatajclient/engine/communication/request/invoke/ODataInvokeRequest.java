@@ -20,9 +20,11 @@
 package com.msopentech.odatajclient.engine.communication.request.invoke;
 
 import com.msopentech.odatajclient.engine.client.http.HttpClientException;
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.ODataBasicRequestImpl;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchableRequest;
+import com.msopentech.odatajclient.engine.communication.request.retrieve.ODataEntitySetPublisher;
 import com.msopentech.odatajclient.engine.communication.response.ODataInvokeResponse;
 import com.msopentech.odatajclient.engine.communication.response.ODataResponseImpl;
 import com.msopentech.odatajclient.engine.data.ODataEntity;
@@ -72,16 +74,18 @@ public class ODataInvokeRequest<T extends ODataInvokeResult>
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param reference reference class for invoke result
      * @param method HTTP method of the request.
      * @param uri URI that identifies the operation.
      */
     ODataInvokeRequest(
+            final ODataClient odataClient,
             final Class<T> reference,
             final HttpMethod method,
             final URI uri) {
 
-        super(ODataPubFormat.class, method, uri);
+        super(odataClient, ODataPubFormat.class, method, uri);
 
         this.reference = reference;
         this.parameters = new LinkedHashMap<String, ODataValue>();
@@ -177,6 +181,22 @@ public class ODataInvokeRequest<T extends ODataInvokeResult>
         }
     }
 
+    /**
+     * Gets a publisher of the entities returned by the operation, following server-driven paging.
+     * <p>
+     * The operation is invoked once the first entity is requested by the subscriber.
+     *
+     * @return new ODataEntitySetPublisher instance, allowing a single subscriber.
+     * @throws IllegalStateException if the operation does not return an entity set.
+     */
+    public ODataEntitySetPublisher publish() {
+        if (!reference.isAssignableFrom(ODataEntitySet.class)) {
+            throw new IllegalStateException("Operation does not return an entity set");
+        }
+
+        return new ODataEntitySetPublisher(odataClient, this);
+    }
+
     /**
      * Response class about an ODataInvokeRequest.
      */
@@ -216,11 +236,11 @@ public class ODataInvokeRequest<T extends ODataInvokeResult>
                 try {
                     if (reference.isAssignableFrom(ODataEntitySet.class)) {
                         invokeResult = (T) ODataReader.readEntitySet(res.getEntity().getContent(),
-                                ODataPubFormat.fromString(getContentType()));
+                                ODataPubFormat.fromString(getContentType()), odataClient);
                     }
                     if (reference.isAssignableFrom(ODataEntity.class)) {
                         invokeResult = (T) ODataReader.readEntity(res.getEntity().getContent(),
-                                ODataPubFormat.fromString(getContentType()));
+                                ODataPubFormat.fromString(getContentType()), odataClient);
                     }
                     if (reference.isAssignableFrom(ODataProperty.class)) {
                         invokeResult = (T) ODataReader.readProperty(res.getEntity().getContent(),
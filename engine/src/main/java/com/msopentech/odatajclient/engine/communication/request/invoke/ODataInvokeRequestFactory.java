@@ -19,22 +19,18 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.invoke;
 
-import com.msopentech.odatajclient.engine.client.http.HttpMethod;
-import com.msopentech.odatajclient.engine.data.ODataEntity;
-import com.msopentech.odatajclient.engine.data.ODataEntitySet;
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.data.ODataInvokeResult;
-import com.msopentech.odatajclient.engine.data.ODataNoContent;
-import com.msopentech.odatajclient.engine.data.ODataProperty;
 import com.msopentech.odatajclient.engine.data.ODataValue;
 import com.msopentech.odatajclient.engine.data.metadata.EdmMetadata;
-import com.msopentech.odatajclient.engine.data.metadata.EdmType;
 import com.msopentech.odatajclient.engine.data.metadata.edm.FunctionImport;
 import java.net.URI;
 import java.util.Map;
-import org.apache.commons.lang3.StringUtils;
 
 /**
- * OData request factory class.
+ * OData request factory class, using the current global configuration.
+ *
+ * @see InvokeRequestFactory
  */
 public class ODataInvokeRequestFactory {
 
@@ -47,42 +43,11 @@ public class ODataInvokeRequestFactory {
      * @param functionImport function import to be invoked
      * @return new ODataInvokeRequest instance.
      */
-    @SuppressWarnings("unchecked")
     public static <T extends ODataInvokeResult> ODataInvokeRequest<T> getInvokeRequest(
             final URI uri, final EdmMetadata metadata, final FunctionImport functionImport) {
 
-        HttpMethod method = null;
-        if (HttpMethod.GET.name().equals(functionImport.getHttpMethod())) {
-            method = HttpMethod.GET;
-        } else if (HttpMethod.POST.name().equals(functionImport.getHttpMethod())) {
-            method = HttpMethod.POST;
-        } else if (functionImport.getHttpMethod() == null) {
-            if (functionImport.isSideEffecting()) {
-                method = HttpMethod.POST;
-            } else {
-                method = HttpMethod.GET;
-            }
-        }
-
-        ODataInvokeRequest<T> result;
-        if (StringUtils.isBlank(functionImport.getReturnType())) {
-            result = (ODataInvokeRequest<T>) new ODataInvokeRequest<ODataNoContent>(ODataNoContent.class, method, uri);
-        } else {
-            final EdmType returnType = new EdmType(metadata, functionImport.getReturnType());
-
-            if (returnType.isCollection() && returnType.isEntityType()) {
-                result = (ODataInvokeRequest<T>) new ODataInvokeRequest<ODataEntitySet>(
-                        ODataEntitySet.class, method, uri);
-            } else if (!returnType.isCollection() && returnType.isEntityType()) {
-                result = (ODataInvokeRequest<T>) new ODataInvokeRequest<ODataEntity>(
-                        ODataEntity.class, method, uri);
-            } else {
-                result = (ODataInvokeRequest<T>) new ODataInvokeRequest<ODataProperty>(
-                        ODataProperty.class, method, uri);
-            }
-        }
-
-        return result;
+        return ODataClient.fromConfiguration().getInvokeRequestFactory().
+                getInvokeRequest(uri, metadata, functionImport);
     }
 
     /**
@@ -95,14 +60,11 @@ public class ODataInvokeRequestFactory {
      * @param parameters parameters to pass to function import invocation
      * @return new ODataInvokeRequest instance.
      */
-    @SuppressWarnings("unchecked")
     public static <T extends ODataInvokeResult> ODataInvokeRequest<T> getInvokeRequest(
             final URI uri, final EdmMetadata metadata, final FunctionImport functionImport,
             final Map<String, ODataValue> parameters) {
 
-        final ODataInvokeRequest<T> result = getInvokeRequest(uri, metadata, functionImport);
-        result.setParameters(parameters);
-
-        return result;
+        return ODataClient.fromConfiguration().getInvokeRequestFactory().
+                getInvokeRequest(uri, metadata, functionImport, parameters);
     }
 }
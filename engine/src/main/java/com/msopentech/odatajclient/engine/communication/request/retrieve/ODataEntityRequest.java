@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.retrieve;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
 import com.msopentech.odatajclient.engine.data.ODataEntity;
 import com.msopentech.odatajclient.engine.data.ODataReader;
@@ -38,10 +39,27 @@ public class ODataEntityRequest extends ODataRetrieveRequest<ODataEntity, ODataP
     /**
      * Private constructor.
      *
+     * @param odataClient OData client.
      * @param query query to be executed.
      */
-    ODataEntityRequest(final URI query) {
-        super(ODataPubFormat.class, query);
+    ODataEntityRequest(final ODataClient odataClient, final URI query) {
+        super(odataClient, ODataPubFormat.class, query);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected boolean isCacheable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected boolean isCoalescable() {
+        return true;
     }
 
     /**
@@ -84,7 +102,8 @@ public class ODataEntityRequest extends ODataRetrieveRequest<ODataEntity, ODataP
         public ODataEntity getBody() {
             if (entity == null) {
                 try {
-                    entity = ODataReader.readEntity(getRawResponse(), ODataPubFormat.fromString(getContentType()));
+                    entity = ODataReader.readEntity(
+                            getRawResponse(), ODataPubFormat.fromString(getContentType()), odataClient);
                 } finally {
                     this.close();
                 }
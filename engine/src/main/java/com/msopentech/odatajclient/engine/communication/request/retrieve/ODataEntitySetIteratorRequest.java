@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.retrieve;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
 import com.msopentech.odatajclient.engine.data.ODataEntitySetIterator;
 import com.msopentech.odatajclient.engine.format.ODataPubFormat;
@@ -39,10 +40,11 @@ public class ODataEntitySetIteratorRequest extends ODataRetrieveRequest<ODataEnt
     /**
      * Private constructor.
      *
+     * @param odataClient OData client.
      * @param query query to be executed.
      */
-    ODataEntitySetIteratorRequest(final URI query) {
-        super(ODataPubFormat.class, query);
+    ODataEntitySetIteratorRequest(final ODataClient odataClient, final URI query) {
+        super(odataClient, ODataPubFormat.class, query);
     }
 
     /**
@@ -77,7 +79,7 @@ public class ODataEntitySetIteratorRequest extends ODataRetrieveRequest<ODataEnt
         public ODataEntitySetIterator getBody() {
             if (feedIterator == null) {
                 feedIterator = new ODataEntitySetIterator(
-                        getRawResponse(), ODataPubFormat.fromString(getContentType()));
+                        getRawResponse(), ODataPubFormat.fromString(getContentType()), odataClient);
             }
             return feedIterator;
         }
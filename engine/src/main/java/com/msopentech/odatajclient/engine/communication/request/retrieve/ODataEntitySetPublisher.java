@@ -0,0 +1,325 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request.retrieve;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.communication.request.ODataBasicRequest;
+import com.msopentech.odatajclient.engine.communication.request.ODataFlow;
+import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataEntitySetIterator;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publisher of the entities of an entity set, following server-driven paging (next links) transparently.
+ * <br/>
+ * Entities are read from the response payload only as requested by the subscriber, on the client executor: no
+ * thread is blocked while there is no demand, and no more than the current entity is kept in memory. Requests are
+ * executed once the first entity of their page is requested; cancelling a subscription aborts the ongoing request,
+ * releasing its connection.
+ *
+ * @see RetrieveRequestFactory#getEntitySetPublisher(java.net.URI)
+ * @see com.msopentech.odatajclient.engine.communication.request.invoke.ODataInvokeRequest#publish()
+ */
+public class ODataEntitySetPublisher implements ODataFlow.Publisher<ODataEntity> {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(ODataEntitySetPublisher.class);
+
+    private final ODataClient client;
+
+    /**
+     * Query returning the first page; null if the first page is returned by a given request.
+     */
+    private final URI query;
+
+    /**
+     * Request returning the first page, until subscribed.
+     */
+    private final AtomicReference<ODataBasicRequest<? extends ODataResponse, ODataPubFormat>> request;
+
+    /**
+     * Constructor: each subscriber will receive the entities returned by the given query.
+     *
+     * @param client OData client.
+     * @param query query returning the first page.
+     */
+    ODataEntitySetPublisher(final ODataClient client, final URI query) {
+        this.client = client;
+        this.query = query;
+        this.request = null;
+    }
+
+    /**
+     * Constructor: a single subscriber will receive the entities returned by the given request.
+     *
+     * @param client OData client.
+     * @param request request returning the first page.
+     */
+    public ODataEntitySetPublisher(
+            final ODataClient client, final ODataBasicRequest<? extends ODataResponse, ODataPubFormat> request) {
+
+        this.client = client;
+        this.query = null;
+        this.request = new AtomicReference<ODataBasicRequest<? extends ODataResponse, ODataPubFormat>>(request);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void subscribe(final ODataFlow.Subscriber<? super ODataEntity> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Null subscriber");
+        }
+
+        final ODataBasicRequest<? extends ODataResponse, ODataPubFormat> first = query == null
+                ? request.getAndSet(null)
+                : client.getRetrieveRequestFactory().getEntitySetIteratorRequest(query);
+
+        final EntitySubscription subscription = new EntitySubscription(subscriber, first);
+        if (first == null) {
+            subscription.fail(new IllegalStateException("Request already subscribed"));
+        }
+        subscription.start();
+    }
+
+    /**
+     * Subscription pushing entities to a subscriber.
+     * <br/>
+     * Signals are emitted by a single drain task at a time: <tt>wip</tt> counts the drain requests not yet served,
+     * and only the caller bringing it from zero submits the task, which loops until all requests are served.
+     */
+    private class EntitySubscription implements ODataFlow.Subscription, Runnable {
+
+        private final ODataFlow.Subscriber<? super ODataEntity> subscriber;
+
+        private final String accept;
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean cancelled = false;
+
+        private volatile Throwable failure;
+
+        /**
+         * Request being executed or read; aborted upon cancellation.
+         */
+        private volatile ODataBasicRequest<? extends ODataResponse, ODataPubFormat> current;
+
+        // following fields are accessed by the drain task only
+
+        private ODataBasicRequest<? extends ODataResponse, ODataPubFormat> pending;
+
+        private ODataEntitySetIterator page;
+
+        private boolean done = false;
+
+        EntitySubscription(
+                final ODataFlow.Subscriber<? super ODataEntity> subscriber,
+                final ODataBasicRequest<? extends ODataResponse, ODataPubFormat> first) {
+
+            this.subscriber = subscriber;
+            this.pending = first;
+            this.accept = first == null ? null : first.getAccept();
+        }
+
+        /**
+         * Signals <tt>onSubscribe()</tt>, keeping the drain task off until it returns.
+         */
+        void start() {
+            wip.set(1);
+            try {
+                subscriber.onSubscribe(this);
+            } catch (RuntimeException e) {
+                LOG.error("Subscriber failure upon subscription", e);
+                cancelled = true;
+            }
+            submit();
+        }
+
+        void fail(final Throwable cause) {
+            failure = cause;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Non-positive number of requested entities: " + n));
+            } else {
+                long previous;
+                long next;
+                do {
+                    previous = requested.get();
+                    next = previous + n < 0 ? Long.MAX_VALUE : previous + n;
+                } while (!requested.compareAndSet(previous, next));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            final ODataBasicRequest<? extends ODataResponse, ODataPubFormat> ongoing = current;
+            if (ongoing != null) {
+                ongoing.abort();
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                submit();
+            }
+        }
+
+        private void submit() {
+            try {
+                client.getExecutor().execute(this);
+            } catch (RejectedExecutionException e) {
+                // the drain task is not running: signal on the current thread
+                done = true;
+                release();
+                if (!cancelled) {
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+
+            try {
+                while (!cancelled && failure == null && requested.get() > 0) {
+                    final ODataEntity entity = nextEntity();
+                    if (entity == null) {
+                        done = true;
+                        release();
+                        subscriber.onComplete();
+                        return;
+                    }
+
+                    try {
+                        subscriber.onNext(entity);
+                    } catch (RuntimeException e) {
+                        LOG.error("Subscriber failure while receiving entity, cancelling subscription", e);
+                        cancel();
+                    }
+
+                    if (requested.get() != Long.MAX_VALUE) {
+                        requested.decrementAndGet();
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+
+            if (cancelled) {
+                done = true;
+                release();
+            } else if (failure != null) {
+                done = true;
+                release();
+                subscriber.onError(failure);
+            }
+        }
+
+        /**
+         * Reads the next entity, executing next page requests as needed.
+         *
+         * @return next entity; null once all pages have been read.
+         */
+        private ODataEntity nextEntity() {
+            while (true) {
+                if (page == null) {
+                    if (pending == null) {
+                        return null;
+                    }
+
+                    current = pending;
+                    pending = null;
+
+                    final ODataResponse res = current.execute();
+                    page = new ODataEntitySetIterator(
+                            res.getRawResponse(), ODataPubFormat.fromString(res.getContentType()), client);
+                }
+
+                if (page.hasNext()) {
+                    return page.next();
+                }
+
+                final URI next = page.getNext();
+                page.close();
+                page = null;
+                current = null;
+
+                if (next != null) {
+                    pending = client.getRetrieveRequestFactory().getEntitySetIteratorRequest(next);
+                    pending.setAccept(accept);
+                }
+            }
+        }
+
+        /**
+         * Releases the page being read, aborting its request if not completely read.
+         */
+        private void release() {
+            final ODataBasicRequest<? extends ODataResponse, ODataPubFormat> ongoing = current;
+            current = null;
+            pending = null;
+
+            if (ongoing != null) {
+                ongoing.abort();
+            }
+            if (page != null) {
+                try {
+                    page.close();
+                } catch (RuntimeException e) {
+                    LOG.debug("Error closing aborted page", e);
+                }
+                page = null;
+            }
+        }
+    }
+}
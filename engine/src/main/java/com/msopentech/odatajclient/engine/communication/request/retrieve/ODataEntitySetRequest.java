@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.retrieve;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
 import com.msopentech.odatajclient.engine.data.ODataEntitySet;
 import com.msopentech.odatajclient.engine.data.ODataReader;
@@ -40,10 +41,27 @@ public class ODataEntitySetRequest extends ODataRetrieveRequest<ODataEntitySet,
     /**
      * Private constructor.
      *
+     * @param odataClient OData client.
      * @param query query to be executed.
      */
-    ODataEntitySetRequest(final URI query) {
-        super(ODataPubFormat.class, query);
+    ODataEntitySetRequest(final ODataClient odataClient, final URI query) {
+        super(odataClient, ODataPubFormat.class, query);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected boolean isCacheable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected boolean isCoalescable() {
+        return true;
     }
 
     /**
@@ -85,8 +103,10 @@ public class ODataEntitySetRequest extends ODataRetrieveRequest<ODataEntitySet,
         @SuppressWarnings("unchecked")
         public ODataEntitySet getBody() {
             if (feed == null) {
+                final long length = res == null || res.getEntity() == null ? -1 : res.getEntity().getContentLength();
                 try {
-                    feed = ODataReader.readEntitySet(getRawResponse(), ODataPubFormat.fromString(getContentType()));
+                    feed = ODataReader.readEntitySet(getRawResponse(), ODataPubFormat.fromString(getContentType()),
+                            odataClient, length);
                 } finally {
                     this.close();
                 }
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.retrieve;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.communication.response.ODataResponseImpl;
 import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
 import com.msopentech.odatajclient.engine.data.ODataObjectWrapper;
@@ -42,10 +43,11 @@ public class ODataGenericRetrieveRequest extends ODataRawRequest {
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param uri query request.
      */
-    public ODataGenericRetrieveRequest(final URI uri) {
-        super(uri);
+    public ODataGenericRetrieveRequest(final ODataClient odataClient, final URI uri) {
+        super(odataClient, uri);
     }
 
     /**
@@ -104,7 +106,7 @@ public class ODataGenericRetrieveRequest extends ODataRawRequest {
         public ODataObjectWrapper getBody() {
             if (obj == null) {
                 try {
-                    obj = new ODataObjectWrapper(getRawResponse(), getContentType());
+                    obj = new ODataObjectWrapper(getRawResponse(), getContentType(), odataClient);
                 } finally {
                     this.close();
                 }
@@ -19,11 +19,11 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.retrieve;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpClientException;
 import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
 import com.msopentech.odatajclient.engine.data.ODataLinkCollection;
 import com.msopentech.odatajclient.engine.data.ODataReader;
-import com.msopentech.odatajclient.engine.uri.ODataURIBuilder;
 import com.msopentech.odatajclient.engine.format.ODataFormat;
 import java.io.IOException;
 import java.net.URI;
@@ -41,11 +41,21 @@ public class ODataLinkCollectionRequest extends ODataRetrieveRequest<ODataLinkCo
     /**
      * Private constructor.
      *
+     * @param odataClient OData client.
      * @param targetURI target URI.
      * @param linkName link name.
      */
-    ODataLinkCollectionRequest(final URI targetURI, final String linkName) {
-        super(ODataFormat.class, new ODataURIBuilder(targetURI.toASCIIString()).appendLinksSegment(linkName).build());
+    ODataLinkCollectionRequest(final ODataClient odataClient, final URI targetURI, final String linkName) {
+        super(odataClient, ODataFormat.class,
+                odataClient.getURIBuilder(targetURI.toASCIIString()).appendLinksSegment(linkName).build());
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected boolean isCacheable() {
+        return true;
     }
 
     /**
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.retrieve;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpClientException;
 import com.msopentech.odatajclient.engine.communication.header.ODataHeaders;
 import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
@@ -40,10 +41,11 @@ public class ODataMediaRequest extends ODataRetrieveRequest<InputStream, ODataMe
     /**
      * Private constructor.
      *
+     * @param odataClient OData client.
      * @param query query to be executed.
      */
-    ODataMediaRequest(final URI query) {
-        super(ODataMediaFormat.class, query);
+    ODataMediaRequest(final ODataClient odataClient, final URI query) {
+        super(odataClient, ODataMediaFormat.class, query);
 
         setAccept(ODataMediaFormat.APPLICATION_OCTET_STREAM.toString());
         setContentType(ODataMediaFormat.APPLICATION_OCTET_STREAM.toString());
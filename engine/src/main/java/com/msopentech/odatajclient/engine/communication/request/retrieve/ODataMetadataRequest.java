@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.retrieve;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
 import com.msopentech.odatajclient.engine.data.ODataReader;
 import com.msopentech.odatajclient.engine.data.metadata.EdmMetadata;
@@ -39,10 +40,11 @@ public class ODataMetadataRequest extends ODataRetrieveRequest<EdmMetadata, ODat
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param uri metadata URI.
      */
-    ODataMetadataRequest(final URI uri) {
-        super(ODataPubFormat.class, uri);
+    ODataMetadataRequest(final ODataClient odataClient, final URI uri) {
+        super(odataClient, ODataPubFormat.class, uri);
         super.setAccept(ContentType.APPLICATION_XML.getMimeType());
         super.setContentType(ContentType.APPLICATION_XML.getMimeType());
     }
@@ -57,6 +59,22 @@ public class ODataMetadataRequest extends ODataRetrieveRequest<EdmMetadata, ODat
         // do nothing: Accept is application/XML
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected boolean isCacheable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected boolean isCoalescable() {
+        return true;
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -0,0 +1,296 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request.retrieve;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataEntitySet;
+import java.io.Closeable;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Iterator over all entities of an entity set, following server-driven paging (next links) transparently.
+ * <br/>
+ * Pages are fetched by tasks running on the client executor, up to the given prefetch depth ahead of the page being
+ * iterated: each task fetches a single page, and the next one is submitted only once there is room for its page,
+ * so that round trips overlap with the consumption of entities without ever parking an executor thread. At most
+ * <tt>prefetchDepth + 1</tt> pages are kept in memory: the one being iterated and the prefetched (or being fetched)
+ * ones.
+ * <br/>
+ * Iterators are not thread-safe; <tt>close()</tt> shall be invoked if the iteration is not completed.
+ *
+ * @see RetrieveRequestFactory#getPagedEntitySetIterator(java.net.URI, int)
+ */
+public class ODataPagedEntitySetIterator implements Iterator<ODataEntity>, Closeable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(ODataPagedEntitySetIterator.class);
+
+    private static final Page END = new Page(null, null);
+
+    private final ODataClient client;
+
+    private final int prefetchDepth;
+
+    /**
+     * Pages fetched and not handed over yet; guarded by <tt>this</tt>, as the fields below.
+     */
+    private final Queue<Page> pages = new ArrayDeque<Page>();
+
+    /**
+     * Next page to be fetched; null once the last page has been fetched (or is being fetched).
+     */
+    private URI nextURI;
+
+    private boolean fetching = false;
+
+    private Future<?> fetcher = null;
+
+    private boolean closed = false;
+
+    private ODataEntitySet currentPage = null;
+
+    private Iterator<ODataEntity> current = Collections.<ODataEntity>emptyList().iterator();
+
+    private boolean ended = false;
+
+    /**
+     * Constructor.
+     *
+     * @param client OData client.
+     * @param query query returning the first page.
+     * @param prefetchDepth number of pages to be fetched ahead of the page being iterated.
+     */
+    ODataPagedEntitySetIterator(final ODataClient client, final URI query, final int prefetchDepth) {
+        if (prefetchDepth < 1) {
+            throw new IllegalArgumentException("Prefetch depth must be positive: " + prefetchDepth);
+        }
+
+        this.client = client;
+        this.prefetchDepth = prefetchDepth;
+        this.nextURI = query;
+        schedule();
+    }
+
+    private ODataEntitySet fetch(final URI uri) {
+        return client.getRetrieveRequestFactory().getEntitySetRequest(uri).execute().getBody();
+    }
+
+    /**
+     * Submits the fetching of the next page, if any and if there is room for it.
+     * <br/>
+     * If the executor rejects the task, the page is left to be fetched by the iterating thread.
+     */
+    private synchronized void schedule() {
+        if (closed || fetching || nextURI == null || pages.size() >= prefetchDepth) {
+            return;
+        }
+
+        final URI uri = nextURI;
+        nextURI = null;
+        fetching = true;
+        try {
+            fetcher = client.getExecutor().submit(new Runnable() {
+
+                @Override
+                public void run() {
+                    fetched(uri, fetchPage(uri));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Page fetching task rejected, page will be fetched while iterating", e);
+            fetching = false;
+            nextURI = uri;
+        }
+    }
+
+    private Page fetchPage(final URI uri) {
+        try {
+            return new Page(fetch(uri), null);
+        } catch (RuntimeException e) {
+            return new Page(null, e);
+        }
+    }
+
+    /**
+     * Hands over a page fetched by a task, submitting the fetching of the following one.
+     */
+    private synchronized void fetched(final URI uri, final Page page) {
+        fetching = false;
+        fetcher = null;
+        if (closed) {
+            release(page);
+            return;
+        }
+
+        LOG.debug("Page {} fetched", uri);
+        nextURI = page.entitySet == null ? null : page.entitySet.getNext();
+        pages.add(page);
+        notifyAll();
+        schedule();
+    }
+
+    private Page nextPage() {
+        final URI uri;
+        synchronized (this) {
+            try {
+                while (pages.isEmpty() && fetching && !closed) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Interrupted while waiting for the next page", e);
+            }
+            if (closed) {
+                throw new IllegalStateException("Iterator closed");
+            }
+
+            final Page page = pages.poll();
+            if (page != null || nextURI == null) {
+                schedule();
+                return page == null ? END : page;
+            }
+
+            // fetching task rejected: the page is fetched by the iterating thread
+            uri = nextURI;
+            nextURI = null;
+        }
+
+        final Page page = fetchPage(uri);
+        synchronized (this) {
+            nextURI = page.entitySet == null ? null : page.entitySet.getNext();
+            schedule();
+        }
+        return page;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext() && !ended) {
+            if (closed) {
+                throw new IllegalStateException("Iterator closed");
+            }
+
+            final Page page = nextPage();
+            if (page.error != null) {
+                ended = true;
+                close();
+                throw page.error;
+            }
+
+            if (currentPage != null) {
+                currentPage.close();
+                currentPage = null;
+            }
+            if (page.entitySet == null) {
+                ended = true;
+            } else {
+                currentPage = page.entitySet;
+                current = page.entitySet.getEntities().iterator();
+            }
+        }
+
+        return current.hasNext();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ODataEntity next() {
+        if (hasNext()) {
+            return current.next();
+        }
+
+        throw new NoSuchElementException("No entity found");
+    }
+
+    /**
+     * Unsupported operation.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Operation not supported");
+    }
+
+    /**
+     * Stops fetching pages and releases the prefetched ones.
+     */
+    @Override
+    public void close() {
+        final Future<?> task;
+        synchronized (this) {
+            closed = true;
+            nextURI = null;
+            task = fetcher;
+            for (Page page : pages) {
+                release(page);
+            }
+            pages.clear();
+            notifyAll();
+
+            if (currentPage != null) {
+                currentPage.close();
+                currentPage = null;
+            }
+            current = Collections.<ODataEntity>emptyList().iterator();
+        }
+
+        if (task != null) {
+            task.cancel(true);
+        }
+    }
+
+    private void release(final Page page) {
+        if (page.entitySet != null) {
+            page.entitySet.close();
+        }
+    }
+
+    /**
+     * Page, or failure while fetching it; <tt>END</tt> after the last page.
+     */
+    private static class Page {
+
+        private final ODataEntitySet entitySet;
+
+        private final RuntimeException error;
+
+        Page(final ODataEntitySet entitySet, final RuntimeException error) {
+            this.entitySet = entitySet;
+            this.error = error;
+        }
+    }
+}
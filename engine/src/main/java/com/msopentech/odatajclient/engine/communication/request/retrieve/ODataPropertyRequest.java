@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.retrieve;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpClientException;
 import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
 import com.msopentech.odatajclient.engine.data.ODataProperty;
@@ -40,10 +41,27 @@ public class ODataPropertyRequest extends ODataRetrieveRequest<ODataProperty, OD
     /**
      * Private constructor.
      *
+     * @param odataClient OData client.
      * @param query query to be executed.
      */
-    ODataPropertyRequest(final URI query) {
-        super(ODataFormat.class, query);
+    ODataPropertyRequest(final ODataClient odataClient, final URI query) {
+        super(odataClient, ODataFormat.class, query);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected boolean isCacheable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected boolean isCoalescable() {
+        return true;
     }
 
     /**
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.retrieve;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.ODataRequestImpl;
 import com.msopentech.odatajclient.engine.format.ODataPubFormat;
@@ -35,9 +36,10 @@ public class ODataRawRequest extends ODataRequestImpl<ODataPubFormat> {
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param uri request URI.
      */
-    ODataRawRequest(final URI uri) {
-        super(ODataPubFormat.class, HttpMethod.GET, uri);
+    ODataRawRequest(final ODataClient odataClient, final URI uri) {
+        super(odataClient, ODataPubFormat.class, HttpMethod.GET, uri);
     }
 }
@@ -0,0 +1,321 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request.retrieve;
+
+import com.msopentech.odatajclient.engine.client.http.HttpClientFactory;
+import com.msopentech.odatajclient.engine.communication.header.ODataHeaders;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.cookie.DateParseException;
+import org.apache.http.impl.cookie.DateUtils;
+
+/**
+ * Client-side cache of retrieve response payloads (entity, entity set, property, value, link collection,
+ * metadata and service document).
+ * <p>
+ * Responses are cached if they carry an <tt>ETag</tt> or freshness information (<tt>Cache-Control: max-age</tt>
+ * or <tt>Expires</tt>) and no <tt>Cache-Control: no-store</tt>. Fresh entries are served without any network
+ * call; stale entries are revalidated with a conditional <tt>GET</tt> (<tt>If-None-Match</tt>), so that a
+ * <tt>304 Not Modified</tt> does not download the payload again.
+ * <p>
+ * Responses are cached per request type, URI and request headers, and are only served to requests sent via the
+ * HTTP client factory they have been received with: a cache can then be shared by clients with different
+ * credentials.
+ * <p>
+ * Payload bytes are cached rather than deserialized objects, so that every response gets its own copy to be
+ * freely modified. The cache is bounded both by number of entries and by overall size of the payload bytes
+ * actually read, evicting least recently used entries first.
+ *
+ * @see com.msopentech.odatajclient.engine.utils.Configuration#setResponseCache(ODataResponseCache)
+ */
+public class ODataResponseCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    public static final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+    private final int maxEntries;
+
+    private final long maxSize;
+
+    private long size = 0;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong revalidations = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor, using default bounds.
+     */
+    public ODataResponseCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries maximum number of cached responses.
+     * @param maxSize maximum overall payload size (in bytes) of cached responses.
+     */
+    public ODataResponseCache(final int maxEntries, final long maxSize) {
+        this.maxEntries = maxEntries;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the cache entry for the given key, if cached via the given transport.
+     *
+     * @param key cache key.
+     * @param transport HTTP client factory the request is going to be sent via.
+     * @return cache entry, if available; null otherwise.
+     */
+    synchronized Entry get(final String key, final HttpClientFactory transport) {
+        final Entry entry = entries.get(key);
+        return entry == null || entry.transport != transport ? null : entry;
+    }
+
+    /**
+     * Reads the payload of the given response and caches it, if allowed by the response headers and not larger
+     * than the overall size bound.
+     *
+     * @param key cache key.
+     * @param transport HTTP client factory the response has been received via.
+     * @param res HTTP response read from the network.
+     * @return the given response, whose payload can still be read in full.
+     * @throws IOException in case of failure while reading the payload.
+     */
+    HttpResponse put(final String key, final HttpClientFactory transport, final HttpResponse res) throws IOException {
+        misses.incrementAndGet();
+
+        final HttpEntity entity = res.getEntity();
+        final Header etag = res.getFirstHeader(ODataHeaders.HeaderName.etag.toString());
+        final long expiresAt = getExpiresAt(res);
+        if (entity == null || entity.getContentLength() > maxSize
+                || expiresAt < 0 || (etag == null && expiresAt <= System.currentTimeMillis())) {
+
+            return res;
+        }
+
+        final InputStream content = entity.getContent();
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream(
+                entity.getContentLength() < 0 ? 4 * 1024 : (int) entity.getContentLength());
+        if (IOUtils.copyLarge(content, payload, 0, maxSize + 1) > maxSize) {
+            // too large to be cached: give back what has been read so far, followed by the rest of the payload
+            final InputStreamEntity replay = new InputStreamEntity(new SequenceInputStream(
+                    new ByteArrayInputStream(payload.toByteArray()), content), -1);
+            replay.setContentType(entity.getContentType());
+            res.setEntity(replay);
+            return res;
+        }
+        content.close();
+
+        final Entry entry = new Entry(transport,
+                etag == null ? null : etag.getValue(), expiresAt, res.getAllHeaders(), payload.toByteArray());
+        res.setEntity(entry.getEntity());
+
+        synchronized (this) {
+            final Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                size -= previous.payload.length;
+            }
+            size += entry.payload.length;
+
+            final Iterator<Map.Entry<String, Entry>> itor = entries.entrySet().iterator();
+            while ((size > maxSize || entries.size() > maxEntries) && itor.hasNext()) {
+                size -= itor.next().getValue().payload.length;
+                itor.remove();
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Refreshes freshness information of the given entry, after a <tt>304 Not Modified</tt>.
+     *
+     * @param entry cache entry.
+     * @param res <tt>304 Not Modified</tt> response.
+     */
+    void revalidated(final Entry entry, final HttpResponse res) {
+        revalidations.incrementAndGet();
+        entry.expiresAt = Math.max(getExpiresAt(res), 0);
+    }
+
+    /**
+     * Records a response served from cache without network call.
+     */
+    void hit() {
+        hits.incrementAndGet();
+    }
+
+    /**
+     * Removes all cached entries.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Gets the number of cached responses.
+     *
+     * @return number of cached responses.
+     */
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of fresh responses served without network call.
+     *
+     * @return number of cache hits.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of stale responses served after a <tt>304 Not Modified</tt>.
+     *
+     * @return number of successful revalidations.
+     */
+    public long getRevalidationCount() {
+        return revalidations.get();
+    }
+
+    /**
+     * Gets the number of responses read from the network.
+     *
+     * @return number of cache misses.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Computes expiration time from <tt>Cache-Control</tt> and <tt>Expires</tt> headers.
+     *
+     * @param res HTTP response.
+     * @return expiration time in milliseconds; 0 if revalidation is always required; -1 if not cacheable.
+     */
+    private long getExpiresAt(final HttpResponse res) {
+        for (Header header : res.getHeaders(HttpHeaders.CACHE_CONTROL)) {
+            for (HeaderElement element : header.getElements()) {
+                if ("no-store".equalsIgnoreCase(element.getName())) {
+                    return -1;
+                }
+                if ("no-cache".equalsIgnoreCase(element.getName())) {
+                    return 0;
+                }
+                if ("max-age".equalsIgnoreCase(element.getName()) && StringUtils.isNumeric(element.getValue())) {
+                    return System.currentTimeMillis() + Long.parseLong(element.getValue()) * 1000;
+                }
+            }
+        }
+
+        final Header expires = res.getFirstHeader(HttpHeaders.EXPIRES);
+        if (expires != null) {
+            try {
+                return DateUtils.parseDate(expires.getValue()).getTime();
+            } catch (DateParseException e) {
+                // invalid dates represent a time in the past
+                return 0;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Cached response.
+     */
+    static class Entry {
+
+        /**
+         * Responses are never shared across transports (hence credentials), even in case of key collision.
+         */
+        private final HttpClientFactory transport;
+
+        private final String etag;
+
+        private volatile long expiresAt;
+
+        private final Header[] headers;
+
+        private final byte[] payload;
+
+        Entry(final HttpClientFactory transport, final String etag, final long expiresAt, final Header[] headers,
+                final byte[] payload) {
+
+            this.transport = transport;
+            this.etag = etag;
+            this.expiresAt = expiresAt;
+            this.headers = headers;
+            this.payload = payload;
+        }
+
+        String getEtag() {
+            return etag;
+        }
+
+        boolean isFresh() {
+            return expiresAt > System.currentTimeMillis();
+        }
+
+        Header[] getHeaders() {
+            return headers;
+        }
+
+        /**
+         * Gets a fresh response entity over the cached payload.
+         *
+         * @return response entity.
+         */
+        HttpEntity getEntity() {
+            final ByteArrayEntity entity = new ByteArrayEntity(payload);
+            for (Header header : headers) {
+                if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getName())) {
+                    entity.setContentType(header);
+                }
+            }
+            return entity;
+        }
+    }
+}
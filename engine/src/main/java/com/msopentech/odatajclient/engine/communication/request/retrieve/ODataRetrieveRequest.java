@@ -19,15 +19,27 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.retrieve;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.client.http.HttpClientException;
+import com.msopentech.odatajclient.engine.client.http.HttpClientFactory;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
+import com.msopentech.odatajclient.engine.communication.header.ODataHeaders;
 import com.msopentech.odatajclient.engine.communication.response.ODataResponseImpl;
 import com.msopentech.odatajclient.engine.communication.request.ODataBasicRequestImpl;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchableRequest;
 import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.Set;
+import java.util.TreeSet;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
 import org.apache.http.client.HttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
 
 /**
  * This is an abstract representation of an OData retrieve query request returning one or more result item.
@@ -40,10 +52,94 @@ abstract class ODataRetrieveRequest<V, T extends Enum<T>>
     /**
      * Private constructor.
      *
+     * @param odataClient OData client.
      * @param query query to be executed.
      */
-    ODataRetrieveRequest(final Class<T> formatRef, final URI query) {
-        super(formatRef, HttpMethod.GET, query);
+    ODataRetrieveRequest(final ODataClient odataClient, final Class<T> formatRef, final URI query) {
+        super(odataClient, formatRef, HttpMethod.GET, query);
+    }
+
+    /**
+     * Checks whether responses to this request can be served by the configured response cache.
+     *
+     * @return whether responses to this request can be cached.
+     * @see ODataClient#getResponseCache()
+     */
+    protected boolean isCacheable() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc }
+     * <p>
+     * Serves fresh cached responses without any network call, and revalidates stale ones with a conditional request.
+     */
+    @Override
+    protected HttpResponse doExecute() {
+        final ODataResponseCache cache = odataClient.getResponseCache();
+        if (cache == null || !isCacheable()
+                || StringUtils.isNotBlank(getIfNoneMatch()) || StringUtils.isNotBlank(getIfMatch())) {
+
+            return super.doExecute();
+        }
+
+        // computed before adding If-None-Match for revalidation
+        final String key = getCacheKey();
+        final HttpClientFactory transport = odataClient.getHttpClientFactory();
+
+        final ODataResponseCache.Entry entry = cache.get(key, transport);
+        if (entry != null && entry.isFresh()) {
+            cache.hit();
+            return getCachedResponse(entry);
+        }
+
+        if (entry != null && entry.getEtag() != null) {
+            setIfNoneMatch(entry.getEtag());
+        }
+
+        final HttpResponse res = super.doExecute();
+        if (entry != null && res.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+            EntityUtils.consumeQuietly(res.getEntity());
+            cache.revalidated(entry, res);
+            return getCachedResponse(entry);
+        }
+
+        if (res.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+            return res;
+        }
+        try {
+            return cache.put(key, transport, res);
+        } catch (IOException e) {
+            EntityUtils.consumeQuietly(res.getEntity());
+            throw new HttpClientException(e);
+        }
+    }
+
+    /**
+     * Builds the cache key from request type, URI and all request headers; since credentials are held by the HTTP
+     * clients rather than by request headers, the identity of the HTTP client factory is part of the key as well.
+     */
+    private String getCacheKey() {
+        final StringBuilder key = new StringBuilder(getClass().getName()).append(' ').
+                append(System.identityHashCode(odataClient.getHttpClientFactory())).append(' ').
+                append(uri.toASCIIString()).append(odataClient.isKeyAsSegment() ? " keyAsSegment" : "").
+                append('\n').append(ODataHeaders.HeaderName.accept.toString().toLowerCase()).append(':').
+                append(getAccept());
+
+        final Set<String> names = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+        names.addAll(getHeaderNames());
+        names.remove(ODataHeaders.HeaderName.accept.toString());
+        for (String name : names) {
+            key.append('\n').append(name.toLowerCase()).append(':').append(getHeader(name));
+        }
+        return key.toString();
+    }
+
+    private HttpResponse getCachedResponse(final ODataResponseCache.Entry entry) {
+        final HttpResponse res = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+        res.setHeaders(entry.getHeaders());
+        res.setEntity(entry.getEntity());
+        return res;
     }
 
     /**
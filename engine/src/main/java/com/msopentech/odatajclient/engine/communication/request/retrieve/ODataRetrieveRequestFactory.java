@@ -19,12 +19,13 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.retrieve;
 
-import com.msopentech.odatajclient.engine.uri.ODataURIBuilder;
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import java.net.URI;
-import org.apache.commons.lang3.StringUtils;
 
 /**
- * OData request factory class.
+ * OData request factory class, using the current global configuration.
+ *
+ * @see RetrieveRequestFactory
  */
 public final class ODataRetrieveRequestFactory {
 
@@ -40,8 +41,7 @@ public final class ODataRetrieveRequestFactory {
      * @return new ODataServiceDocumentRequest instance.
      */
     public static ODataServiceDocumentRequest getServiceDocumentRequest(final String serviceRoot) {
-        return new ODataServiceDocumentRequest(StringUtils.isNotBlank(serviceRoot) && serviceRoot.endsWith("/")
-                ? new ODataURIBuilder(serviceRoot).build() : new ODataURIBuilder(serviceRoot + "/").build());
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().getServiceDocumentRequest(serviceRoot);
     }
 
     /**
@@ -52,7 +52,7 @@ public final class ODataRetrieveRequestFactory {
      * @return new ODataMetadataRequest instance.
      */
     public static ODataMetadataRequest getMetadataRequest(final String serviceRoot) {
-        return new ODataMetadataRequest(new ODataURIBuilder(serviceRoot).appendMetadataSegment().build());
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().getMetadataRequest(serviceRoot);
     }
 
     /**
@@ -62,7 +62,7 @@ public final class ODataRetrieveRequestFactory {
      * @return new ODataEntitySetRequest instance.
      */
     public static ODataEntitySetRequest getEntitySetRequest(final URI query) {
-        return new ODataEntitySetRequest(query);
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().getEntitySetRequest(query);
     }
 
     /**
@@ -75,7 +75,45 @@ public final class ODataRetrieveRequestFactory {
      * @return new ODataEntitySetIteratorRequest instance.
      */
     public static ODataEntitySetIteratorRequest getEntitySetIteratorRequest(final URI query) {
-        return new ODataEntitySetIteratorRequest(query);
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().getEntitySetIteratorRequest(query);
+    }
+
+    /**
+     * Gets an iterator over all entities returned by the given query, following server-driven paging.
+     * <p>
+     * Next pages are fetched in background while the current one is being iterated.
+     *
+     * @param query query to be performed.
+     * @return new ODataPagedEntitySetIterator instance, fetching as many pages ahead as configured.
+     */
+    public static ODataPagedEntitySetIterator getPagedEntitySetIterator(final URI query) {
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().getPagedEntitySetIterator(query);
+    }
+
+    /**
+     * Gets an iterator over all entities returned by the given query, following server-driven paging.
+     * <p>
+     * Next pages are fetched in background while the current one is being iterated.
+     *
+     * @param query query to be performed.
+     * @param prefetchDepth maximum number of pages fetched ahead of the page being iterated.
+     * @return new ODataPagedEntitySetIterator instance.
+     */
+    public static ODataPagedEntitySetIterator getPagedEntitySetIterator(final URI query, final int prefetchDepth) {
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().
+                getPagedEntitySetIterator(query, prefetchDepth);
+    }
+
+    /**
+     * Gets a publisher of all entities returned by the given query, following server-driven paging.
+     * <p>
+     * Entities are read as requested by subscribers; each subscriber receives the entities from a distinct execution.
+     *
+     * @param query query to be performed.
+     * @return new ODataEntitySetPublisher instance.
+     */
+    public static ODataEntitySetPublisher getEntitySetPublisher(final URI query) {
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().getEntitySetPublisher(query);
     }
 
     /**
@@ -85,7 +123,7 @@ public final class ODataRetrieveRequestFactory {
      * @return new ODataEntityRequest instance.
      */
     public static ODataEntityRequest getEntityRequest(final URI query) {
-        return new ODataEntityRequest(query);
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().getEntityRequest(query);
     }
 
     /**
@@ -95,7 +133,7 @@ public final class ODataRetrieveRequestFactory {
      * @return new ODataPropertyRequest instance.
      */
     public static ODataPropertyRequest getPropertyRequest(final URI query) {
-        return new ODataPropertyRequest(query);
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().getPropertyRequest(query);
     }
 
     /**
@@ -105,7 +143,7 @@ public final class ODataRetrieveRequestFactory {
      * @return new ODataValueRequest instance.
      */
     public static ODataValueRequest getValueRequest(final URI query) {
-        return new ODataValueRequest(query);
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().getValueRequest(query);
     }
 
     /**
@@ -116,7 +154,8 @@ public final class ODataRetrieveRequestFactory {
      * @return new ODataLinkRequest instance.
      */
     public static ODataLinkCollectionRequest getLinkCollectionRequest(final URI targetURI, final String linkName) {
-        return new ODataLinkCollectionRequest(targetURI, linkName);
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().
+                getLinkCollectionRequest(targetURI, linkName);
     }
 
     /**
@@ -126,7 +165,7 @@ public final class ODataRetrieveRequestFactory {
      * @return new ODataMediaRequest instance.
      */
     public static ODataMediaRequest getMediaRequest(final URI query) {
-        return new ODataMediaRequest(query);
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().getMediaRequest(query);
     }
 
     /**
@@ -136,7 +175,7 @@ public final class ODataRetrieveRequestFactory {
      * @return new ODataRawRequest instance.
      */
     public static ODataRawRequest getRawRequest(final URI uri) {
-        return new ODataRawRequest(uri);
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().getRawRequest(uri);
     }
 
     /**
@@ -146,6 +185,6 @@ public final class ODataRetrieveRequestFactory {
      * @return new ODataGenericRerieveRequest instance.
      */
     public static ODataGenericRetrieveRequest getGenericRetrieveRequest(final URI uri) {
-        return new ODataGenericRetrieveRequest(uri);
+        return ODataClient.fromConfiguration().getRetrieveRequestFactory().getGenericRetrieveRequest(uri);
     }
 }
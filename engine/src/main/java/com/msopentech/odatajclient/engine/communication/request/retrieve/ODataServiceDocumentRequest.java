@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.retrieve;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
 import com.msopentech.odatajclient.engine.data.ODataServiceDocument;
 import com.msopentech.odatajclient.engine.data.ODataReader;
@@ -38,10 +39,19 @@ public class ODataServiceDocumentRequest extends ODataRetrieveRequest<ODataServi
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param uri request URI.
      */
-    ODataServiceDocumentRequest(final URI uri) {
-        super(ODataFormat.class, uri);
+    ODataServiceDocumentRequest(final ODataClient odataClient, final URI uri) {
+        super(odataClient, ODataFormat.class, uri);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected boolean isCacheable() {
+        return true;
     }
 
     /**
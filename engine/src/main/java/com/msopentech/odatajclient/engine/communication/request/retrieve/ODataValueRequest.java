@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.retrieve;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpClientException;
 import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
 import com.msopentech.odatajclient.engine.data.ODataPrimitiveValue;
@@ -42,10 +43,19 @@ public class ODataValueRequest extends ODataRetrieveRequest<ODataValue, ODataVal
     /**
      * Private constructor.
      *
+     * @param odataClient OData client.
      * @param query query to be executed.
      */
-    ODataValueRequest(final URI query) {
-        super(ODataValueFormat.class, query);
+    ODataValueRequest(final ODataClient odataClient, final URI query) {
+        super(odataClient, ODataValueFormat.class, query);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected boolean isCacheable() {
+        return true;
     }
 
     /**
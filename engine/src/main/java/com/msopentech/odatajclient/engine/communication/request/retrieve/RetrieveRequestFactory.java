@@ -0,0 +1,199 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request.retrieve;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import java.net.URI;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * OData retrieve request factory class, bound to an OData client.
+ *
+ * @see ODataClient#getRetrieveRequestFactory()
+ */
+public class RetrieveRequestFactory {
+
+    private final ODataClient client;
+
+    /**
+     * Constructor.
+     *
+     * @param client OData client.
+     */
+    public RetrieveRequestFactory(final ODataClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Gets a service document request instance.
+     *
+     * @param serviceRoot absolute URL (schema, host and port included) representing the location of the root of the
+     * data service.
+     * @return new ODataServiceDocumentRequest instance.
+     */
+    public ODataServiceDocumentRequest getServiceDocumentRequest(final String serviceRoot) {
+        return new ODataServiceDocumentRequest(client,
+                StringUtils.isNotBlank(serviceRoot) && serviceRoot.endsWith("/")
+                ? client.getURIBuilder(serviceRoot).build() : client.getURIBuilder(serviceRoot + "/").build());
+    }
+
+    /**
+     * Gets a metadata request instance.
+     *
+     * @param serviceRoot absolute URL (schema, host and port included) representing the location of the root of the
+     * data service.
+     * @return new ODataMetadataRequest instance.
+     */
+    public ODataMetadataRequest getMetadataRequest(final String serviceRoot) {
+        return new ODataMetadataRequest(client, client.getURIBuilder(serviceRoot).appendMetadataSegment().build());
+    }
+
+    /**
+     * Gets a query request returning a set of one or more OData entities.
+     *
+     * @param query query to be performed.
+     * @return new ODataEntitySetRequest instance.
+     */
+    public ODataEntitySetRequest getEntitySetRequest(final URI query) {
+        return new ODataEntitySetRequest(client, query);
+    }
+
+    /**
+     * Gets a query request returning a set of one or more OData entities.
+     * <p>
+     * Returned request gives the possibility to consume entities iterating on them without parsing and loading in
+     * memory the entire entity set.
+     *
+     * @param query query to be performed.
+     * @return new ODataEntitySetIteratorRequest instance.
+     */
+    public ODataEntitySetIteratorRequest getEntitySetIteratorRequest(final URI query) {
+        return new ODataEntitySetIteratorRequest(client, query);
+    }
+
+    /**
+     * Gets an iterator over all entities returned by the given query, following server-driven paging.
+     * <p>
+     * Next pages are fetched in background while the current one is being iterated.
+     *
+     * @param query query to be performed.
+     * @return new ODataPagedEntitySetIterator instance, fetching as many pages ahead as configured.
+     * @see ODataClient#getPagePrefetchDepth()
+     */
+    public ODataPagedEntitySetIterator getPagedEntitySetIterator(final URI query) {
+        return getPagedEntitySetIterator(query, client.getPagePrefetchDepth());
+    }
+
+    /**
+     * Gets an iterator over all entities returned by the given query, following server-driven paging.
+     * <p>
+     * Next pages are fetched in background while the current one is being iterated.
+     *
+     * @param query query to be performed.
+     * @param prefetchDepth maximum number of pages fetched ahead of the page being iterated.
+     * @return new ODataPagedEntitySetIterator instance.
+     */
+    public ODataPagedEntitySetIterator getPagedEntitySetIterator(final URI query, final int prefetchDepth) {
+        return new ODataPagedEntitySetIterator(client, query, prefetchDepth);
+    }
+
+    /**
+     * Gets a publisher of all entities returned by the given query, following server-driven paging.
+     * <p>
+     * Entities are read as requested by subscribers; each subscriber receives the entities from a distinct execution.
+     *
+     * @param query query to be performed.
+     * @return new ODataEntitySetPublisher instance.
+     */
+    public ODataEntitySetPublisher getEntitySetPublisher(final URI query) {
+        return new ODataEntitySetPublisher(client, query);
+    }
+
+    /**
+     * Gets a query request returning a single OData entity.
+     *
+     * @param query query to be performed.
+     * @return new ODataEntityRequest instance.
+     */
+    public ODataEntityRequest getEntityRequest(final URI query) {
+        return new ODataEntityRequest(client, query);
+    }
+
+    /**
+     * Gets a query request returning a single OData entity property.
+     *
+     * @param query query to be performed.
+     * @return new ODataPropertyRequest instance.
+     */
+    public ODataPropertyRequest getPropertyRequest(final URI query) {
+        return new ODataPropertyRequest(client, query);
+    }
+
+    /**
+     * Gets a query request returning a single OData entity property value.
+     *
+     * @param query query to be performed.
+     * @return new ODataValueRequest instance.
+     */
+    public ODataValueRequest getValueRequest(final URI query) {
+        return new ODataValueRequest(client, query);
+    }
+
+    /**
+     * Gets a query request returning a single OData link.
+     *
+     * @param targetURI target URI.
+     * @param linkName link name.
+     * @return new ODataLinkRequest instance.
+     */
+    public ODataLinkCollectionRequest getLinkCollectionRequest(final URI targetURI, final String linkName) {
+        return new ODataLinkCollectionRequest(client, targetURI, linkName);
+    }
+
+    /**
+     * Gets a query request returning a media stream.
+     *
+     * @param query query to be performed.
+     * @return new ODataMediaRequest instance.
+     */
+    public ODataMediaRequest getMediaRequest(final URI query) {
+        return new ODataMediaRequest(client, query);
+    }
+
+    /**
+     * Implements a raw request returning a stream.
+     *
+     * @param uri query to be performed.
+     * @return new ODataRawRequest instance.
+     */
+    public ODataRawRequest getRawRequest(final URI uri) {
+        return new ODataRawRequest(client, uri);
+    }
+
+    /**
+     * Implements a generic retrieve request without specifying any return type.
+     *
+     * @param uri query to be performed.
+     * @return new ODataGenericRerieveRequest instance.
+     */
+    public ODataGenericRetrieveRequest getGenericRetrieveRequest(final URI uri) {
+        return new ODataGenericRetrieveRequest(client, uri);
+    }
+}
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.streamed;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.ODataStreamManager;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchableRequest;
@@ -29,6 +30,7 @@ import com.msopentech.odatajclient.engine.data.ODataEntity;
 import com.msopentech.odatajclient.engine.data.ODataReader;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
@@ -48,11 +50,12 @@ public class ODataMediaEntityCreateRequest
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param targetURI target entity set.
      * @param media media entity blob to be created.
      */
-    ODataMediaEntityCreateRequest(final URI targetURI, final InputStream media) {
-        super(HttpMethod.POST, targetURI);
+    ODataMediaEntityCreateRequest(final ODataClient odataClient, final URI targetURI, final InputStream media) {
+        super(odataClient, HttpMethod.POST, targetURI);
         this.media = media;
     }
 
@@ -81,6 +84,14 @@ public class ODataMediaEntityCreateRequest
             super(ODataMediaEntityCreateRequest.this.futureWrapper, input);
         }
 
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        protected Executor getExecutor() {
+            return odataClient.getExecutor();
+        }
+
         /**
          * {@inheritDoc }
          */
@@ -124,7 +135,7 @@ public class ODataMediaEntityCreateRequest
         public ODataEntity getBody() {
             if (entity == null) {
                 try {
-                    entity = ODataReader.readEntity(getRawResponse(), getFormat());
+                    entity = ODataReader.readEntity(getRawResponse(), getFormat(), odataClient);
                 } finally {
                     this.close();
                 }
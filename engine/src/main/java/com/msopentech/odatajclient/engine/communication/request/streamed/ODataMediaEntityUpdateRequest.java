@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.streamed;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.ODataStreamManager;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchableRequest;
@@ -29,6 +30,7 @@ import com.msopentech.odatajclient.engine.data.ODataEntity;
 import com.msopentech.odatajclient.engine.data.ODataReader;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
@@ -48,12 +50,15 @@ public class ODataMediaEntityUpdateRequest
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param method request method.
      * @param editURI edit URI of the entity to be updated.
      * @param media media entity blob to be created.
      */
-    ODataMediaEntityUpdateRequest(final HttpMethod method, final URI editURI, final InputStream media) {
-        super(method, editURI);
+    ODataMediaEntityUpdateRequest(
+            final ODataClient odataClient, final HttpMethod method, final URI editURI, final InputStream media) {
+
+        super(odataClient, method, editURI);
         this.media = media;
     }
 
@@ -82,6 +87,14 @@ public class ODataMediaEntityUpdateRequest
             super(ODataMediaEntityUpdateRequest.this.futureWrapper, input);
         }
 
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        protected Executor getExecutor() {
+            return odataClient.getExecutor();
+        }
+
         /**
          * {@inheritDoc }
          */
@@ -125,7 +138,7 @@ public class ODataMediaEntityUpdateRequest
         public ODataEntity getBody() {
             if (entity == null) {
                 try {
-                    entity = ODataReader.readEntity(getRawResponse(), getFormat());
+                    entity = ODataReader.readEntity(getRawResponse(), getFormat(), odataClient);
                 } finally {
                     this.close();
                 }
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.streamed;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.ODataStreamManager;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchableRequest;
@@ -27,6 +28,7 @@ import com.msopentech.odatajclient.engine.communication.response.ODataResponseIm
 import com.msopentech.odatajclient.engine.communication.response.ODataStreamUpdateResponse;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
@@ -46,12 +48,15 @@ public class ODataStreamUpdateRequest
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param method request method.
      * @param targetURI target URI.
      * @param stream stream to be updated.
      */
-    ODataStreamUpdateRequest(final HttpMethod method, final URI targetURI, final InputStream stream) {
-        super(method, targetURI);
+    ODataStreamUpdateRequest(
+            final ODataClient odataClient, final HttpMethod method, final URI targetURI, final InputStream stream) {
+
+        super(odataClient, method, targetURI);
         this.stream = stream;
     }
 
@@ -78,6 +83,14 @@ public class ODataStreamUpdateRequest
             super(ODataStreamUpdateRequest.this.futureWrapper, input);
         }
 
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        protected Executor getExecutor() {
+            return odataClient.getExecutor();
+        }
+
         /**
          * {@inheritDoc }
          */
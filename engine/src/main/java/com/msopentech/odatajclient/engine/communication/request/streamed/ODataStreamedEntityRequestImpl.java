@@ -19,12 +19,12 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.streamed;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.ODataStreamManager;
 import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
 import com.msopentech.odatajclient.engine.format.ODataFormat;
 import com.msopentech.odatajclient.engine.format.ODataPubFormat;
-import com.msopentech.odatajclient.engine.utils.Configuration;
 import java.net.URI;
 
 /**
@@ -38,14 +38,27 @@ public abstract class ODataStreamedEntityRequestImpl<V extends ODataResponse, T
 
     private ODataPubFormat format;
 
+    /**
+     * Constructor, using a client with the current global configuration.
+     *
+     * @param method HTTP request method.
+     * @param uri request URI.
+     * @deprecated use {@link #ODataStreamedEntityRequestImpl(ODataClient, HttpMethod, URI)} instead.
+     */
+    @Deprecated
+    public ODataStreamedEntityRequestImpl(final HttpMethod method, final URI uri) {
+        this(ODataClient.fromConfiguration(), method, uri);
+    }
+
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param method HTTP request method.
      * @param uri request URI.
      */
-    public ODataStreamedEntityRequestImpl(final HttpMethod method, URI uri) {
-        super(method, uri);
+    public ODataStreamedEntityRequestImpl(final ODataClient odataClient, final HttpMethod method, URI uri) {
+        super(odataClient, method, uri);
         setAccept(getFormat().toString());
     }
 
@@ -53,10 +66,10 @@ public abstract class ODataStreamedEntityRequestImpl<V extends ODataResponse, T
      * Returns resource representation format.
      *
      * @return the configured format (or default if not specified).
-     * @see Configuration#getDefaultPubFormat()
+     * @see ODataClient#getDefaultPubFormat()
      */
     public final ODataPubFormat getFormat() {
-        return format == null ? Configuration.getDefaultPubFormat() : format;
+        return format == null ? odataClient.getDefaultPubFormat() : format;
     }
 
     /**
@@ -19,13 +19,14 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.streamed;
 
-import com.msopentech.odatajclient.engine.client.http.HttpMethod;
-import com.msopentech.odatajclient.engine.utils.Configuration;
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import java.io.InputStream;
 import java.net.URI;
 
 /**
- * OData request factory class.
+ * OData request factory class, using the current global configuration.
+ *
+ * @see StreamedRequestFactory
  */
 public final class ODataStreamedRequestFactory {
 
@@ -45,7 +46,8 @@ public final class ODataStreamedRequestFactory {
     public static ODataMediaEntityCreateRequest getMediaEntityCreateRequest(
             final URI targetURI, final InputStream media) {
 
-        return new ODataMediaEntityCreateRequest(targetURI, media);
+        return ODataClient.fromConfiguration().getStreamedRequestFactory().
+                getMediaEntityCreateRequest(targetURI, media);
     }
 
     /**
@@ -58,16 +60,7 @@ public final class ODataStreamedRequestFactory {
      * @return new ODataStreamUpdateRequest instance.
      */
     public static ODataStreamUpdateRequest getStreamUpdateRequest(final URI targetURI, final InputStream stream) {
-        final ODataStreamUpdateRequest req;
-
-        if (Configuration.isUseXHTTPMethod()) {
-            req = new ODataStreamUpdateRequest(HttpMethod.POST, targetURI, stream);
-            req.setXHTTPMethod(HttpMethod.PUT.name());
-        } else {
-            req = new ODataStreamUpdateRequest(HttpMethod.PUT, targetURI, stream);
-        }
-
-        return req;
+        return ODataClient.fromConfiguration().getStreamedRequestFactory().getStreamUpdateRequest(targetURI, stream);
     }
 
     /**
@@ -82,15 +75,6 @@ public final class ODataStreamedRequestFactory {
     public static ODataMediaEntityUpdateRequest getMediaEntityUpdateRequest(
             final URI editURI, final InputStream media) {
 
-        final ODataMediaEntityUpdateRequest req;
-
-        if (Configuration.isUseXHTTPMethod()) {
-            req = new ODataMediaEntityUpdateRequest(HttpMethod.POST, editURI, media);
-            req.setXHTTPMethod(HttpMethod.PUT.name());
-        } else {
-            req = new ODataMediaEntityUpdateRequest(HttpMethod.PUT, editURI, media);
-        }
-
-        return req;
+        return ODataClient.fromConfiguration().getStreamedRequestFactory().getMediaEntityUpdateRequest(editURI, media);
     }
 }
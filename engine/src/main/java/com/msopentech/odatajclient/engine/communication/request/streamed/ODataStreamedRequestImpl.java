@@ -19,14 +19,15 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.streamed;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
+import com.msopentech.odatajclient.engine.communication.request.ODataFuture;
 import com.msopentech.odatajclient.engine.communication.request.ODataRequestImpl;
 import com.msopentech.odatajclient.engine.communication.request.ODataStreamer;
 import com.msopentech.odatajclient.engine.communication.request.ODataStreamManager;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchRequest;
 import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
 import com.msopentech.odatajclient.engine.format.ODataMediaFormat;
-import com.msopentech.odatajclient.engine.utils.Configuration;
 import com.msopentech.odatajclient.engine.utils.ODataBatchConstants;
 import com.msopentech.odatajclient.engine.utils.Wrapper;
 import java.io.IOException;
@@ -61,15 +62,28 @@ public abstract class ODataStreamedRequestImpl<V extends ODataResponse, T extend
      */
     protected final Wrapper<Future<HttpResponse>> futureWrapper = new Wrapper<Future<HttpResponse>>();
 
+    /**
+     * Constructor, using a client with the current global configuration.
+     *
+     * @param method OData request HTTP method.
+     * @param uri OData request URI.
+     * @deprecated use {@link #ODataStreamedRequestImpl(ODataClient, HttpMethod, URI)} instead.
+     */
+    @Deprecated
+    public ODataStreamedRequestImpl(final HttpMethod method, final URI uri) {
+        this(ODataClient.fromConfiguration(), method, uri);
+    }
+
     /**
      * Constructor.
      *
+     * @param odataClient OData client.
      * @param method OData request HTTP method.
      * @param uri OData request URI.
      */
     @SuppressWarnings("unchecked")
-    public ODataStreamedRequestImpl(final HttpMethod method, final URI uri) {
-        super(ODataMediaFormat.class, method, uri);
+    public ODataStreamedRequestImpl(final ODataClient odataClient, final HttpMethod method, final URI uri) {
+        super(odataClient, ODataMediaFormat.class, method, uri);
         setAccept(ContentType.APPLICATION_OCTET_STREAM.getMimeType());
         setContentType(ContentType.APPLICATION_OCTET_STREAM.getMimeType());
     }
@@ -91,13 +105,19 @@ public abstract class ODataStreamedRequestImpl<V extends ODataResponse, T extend
         
         ((HttpEntityEnclosingRequestBase) request).setEntity(new InputStreamEntity(streamManager.getBody(), -65000));
 
-        futureWrapper.setWrapped(Configuration.getExecutor().submit(new Callable<HttpResponse>() {
+        final ODataFuture<HttpResponse> future = new ODataFuture<HttpResponse>(new Callable<HttpResponse>() {
 
             @Override
             public HttpResponse call() throws Exception {
                 return doExecute();
             }
-        }));
+        });
+        // a piped payload is being written by the caller while sent: this requires a separate thread;
+        // otherwise, the request will be executed by the thread asking for the response
+        if (streamManager.isPiped()) {
+            odataClient.getExecutor().execute(future);
+        }
+        futureWrapper.setWrapped(future);
 
         // returns the stream manager object
         return (T) streamManager;
@@ -20,7 +20,6 @@
 package com.msopentech.odatajclient.engine.communication.response;
 
 import com.msopentech.odatajclient.engine.communication.header.ODataHeaders.HeaderName;
-import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchLineIterator;
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.Map;
@@ -93,14 +92,12 @@ public interface ODataResponse {
      *
      * @param responseLine response line.
      * @param headers response headers.
-     * @param batchLineIterator batch line iterator.
-     * @param boundary batch boundary.
+     * @param payload response payload, bounded to the batch response item.
      */
     ODataResponse initFromBatch(
             final Map.Entry<Integer, String> responseLine,
             final Map<String, Collection<String>> headers,
-            final ODataBatchLineIterator batchLineIterator,
-            final String boundary);
+            final InputStream payload);
 
     /**
      * Close the underlying message entity input stream (if available and open) as well as releases any other
@@ -20,23 +20,24 @@
 package com.msopentech.odatajclient.engine.communication.response;
 
 import com.msopentech.odatajclient.engine.client.http.NoContentException;
+import com.msopentech.odatajclient.engine.client.http.PermitHttpEntity;
+import com.msopentech.odatajclient.engine.client.http.TimingHttpEntity;
 import com.msopentech.odatajclient.engine.communication.header.ODataHeaders;
-import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchUtilities;
-import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchController;
-import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchLineIterator;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.TreeMap;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.ProxyInputStream;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.slf4j.LoggerFactory;
 
 /**
@@ -49,6 +50,11 @@ public abstract class ODataResponseImpl implements ODataResponse {
      */
     protected static final org.slf4j.Logger LOG = LoggerFactory.getLogger(ODataResponse.class);
 
+    /**
+     * Maximum number of response body bytes read when closing, for the connection to be reused.
+     */
+    private static final int MAX_DRAIN = 64 * 1024;
+
     /**
      * HTTP client.
      */
@@ -85,11 +91,6 @@ public abstract class ODataResponseImpl implements ODataResponse {
      */
     private boolean hasBeenInitialized = false;
 
-    /**
-     * Batch info (if to be batched).
-     */
-    private ODataBatchController batchInfo = null;
-
     /**
      * Constructor.
      */
@@ -109,7 +110,9 @@ public abstract class ODataResponseImpl implements ODataResponse {
         this.res = res;
 
         try {
-            this.payload = this.res.getEntity() == null ? null : this.res.getEntity().getContent();
+            final HttpEntity entity = this.res.getEntity();
+            this.payload = entity == null || entity.getContent() == null
+                    ? null : new ReleasingInputStream(entity.getContent(), entity);
         } catch (Exception e) {
             LOG.error("Error retrieving payload", e);
             throw new IllegalStateException(e);
@@ -202,8 +205,7 @@ public abstract class ODataResponseImpl implements ODataResponse {
     public ODataResponse initFromBatch(
             final Map.Entry<Integer, String> responseLine,
             final Map<String, Collection<String>> headers,
-            final ODataBatchLineIterator batchLineIterator,
-            final String boundary) {
+            final InputStream payload) {
 
         if (hasBeenInitialized) {
             throw new IllegalStateException("Request already initialized");
@@ -211,7 +213,7 @@ public abstract class ODataResponseImpl implements ODataResponse {
 
         this.hasBeenInitialized = true;
 
-        this.batchInfo = new ODataBatchController(batchLineIterator, boundary);
+        this.payload = payload;
 
         this.statusCode = responseLine.getKey();
         this.statusMessage = responseLine.getValue();
@@ -227,12 +229,20 @@ public abstract class ODataResponseImpl implements ODataResponse {
     public void close() {
         if (client == null) {
             IOUtils.closeQuietly(payload);
+        } else if (client.getConnectionManager() instanceof PoolingClientConnectionManager) {
+            // shared client: give the connection back to the pool, so that it can be reused
+            IOUtils.closeQuietly(payload);
         } else {
             this.client.getConnectionManager().shutdown();
         }
 
-        if (batchInfo != null) {
-            batchInfo.setValidBatch(false);
+        HttpEntity entity = res == null ? null : res.getEntity();
+        if (entity instanceof PermitHttpEntity) {
+            ((PermitHttpEntity) entity).release();
+            entity = ((PermitHttpEntity) entity).getWrappedEntity();
+        }
+        if (entity instanceof TimingHttpEntity) {
+            ((TimingHttpEntity) entity).complete();
         }
     }
 
@@ -245,33 +255,54 @@ public abstract class ODataResponseImpl implements ODataResponse {
             throw new NoContentException();
         }
 
-        if (payload == null && batchInfo.isValidBatch()) {
-            // get input stream till the end of item
-            payload = new PipedInputStream();
+        return payload;
+    }
 
-            try {
-                final PipedOutputStream os = new PipedOutputStream((PipedInputStream) payload);
-
-                new Thread(new Runnable() {
-
-                    @Override
-                    public void run() {
-                        try {
-                            ODataBatchUtilities.readBatchPart(batchInfo, os, true);
-                        } catch (Exception e) {
-                            LOG.error("Error streaming batch item payload", e);
-                        } finally {
-                            IOUtils.closeQuietly(os);
-                        }
-                    }
-                }).start();
+    /**
+     * Response body stream giving the connection back to the pool when closed, once the rest of the body has been
+     * read, if short; otherwise the connection is aborted, rather than downloading a large remainder (e.g. of a
+     * feed whose iteration has been stopped).
+     */
+    private static class ReleasingInputStream extends ProxyInputStream {
+
+        private final HttpEntity entity;
+
+        private boolean closed = false;
+
+        ReleasingInputStream(final InputStream proxy, final HttpEntity entity) {
+            super(proxy);
+            this.entity = entity;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
 
+            try {
+                if (IOUtils.skip(in, MAX_DRAIN) == MAX_DRAIN && in.read() != -1) {
+                    abort();
+                }
             } catch (IOException e) {
-                LOG.error("Error streaming payload response", e);
-                throw new IllegalStateException(e);
+                LOG.debug("Error reading the rest of response body", e);
+            } finally {
+                super.close();
             }
         }
 
-        return payload;
+        private void abort() throws IOException {
+            HttpEntity raw = entity;
+            while (raw instanceof PermitHttpEntity || raw instanceof TimingHttpEntity) {
+                raw = raw instanceof PermitHttpEntity
+                        ? ((PermitHttpEntity) raw).getWrappedEntity()
+                        : ((TimingHttpEntity) raw).getWrappedEntity();
+            }
+            if (raw instanceof ConnectionReleaseTrigger) {
+                LOG.debug("Aborting connection, more than {} bytes of response body left", MAX_DRAIN);
+                ((ConnectionReleaseTrigger) raw).abortConnection();
+            }
+        }
     }
 }
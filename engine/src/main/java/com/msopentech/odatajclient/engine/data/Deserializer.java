@@ -19,18 +19,6 @@
  */
 package com.msopentech.odatajclient.engine.data;
 
-import com.fasterxml.aalto.stax.InputFactoryImpl;
-import com.fasterxml.aalto.stax.OutputFactoryImpl;
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.deser.DeserializationProblemHandler;
-import com.fasterxml.jackson.dataformat.xml.JacksonXmlModule;
-import com.fasterxml.jackson.dataformat.xml.XmlFactory;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.msopentech.odatajclient.engine.data.atom.AtomDeserializer;
 import com.msopentech.odatajclient.engine.data.atom.AtomEntry;
 import com.msopentech.odatajclient.engine.data.atom.AtomFeed;
@@ -41,13 +29,12 @@ import com.msopentech.odatajclient.engine.data.json.JSONProperty;
 import com.msopentech.odatajclient.engine.data.json.JSONServiceDocument;
 import com.msopentech.odatajclient.engine.data.json.error.JSONODataError;
 import com.msopentech.odatajclient.engine.data.json.error.JSONODataErrorBundle;
-import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractAnnotatedEdm;
-import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractAnnotatedEdmUtils;
 import com.msopentech.odatajclient.engine.data.metadata.edm.Edmx;
 import com.msopentech.odatajclient.engine.data.xml.XMLLinkCollection;
 import com.msopentech.odatajclient.engine.data.xml.XMLServiceDocument;
 import com.msopentech.odatajclient.engine.data.xml.XMLODataError;
 import com.msopentech.odatajclient.engine.format.ODataFormat;
+import com.msopentech.odatajclient.engine.utils.ODataCodecs;
 import com.msopentech.odatajclient.engine.utils.ODataConstants;
 import com.msopentech.odatajclient.engine.utils.XMLUtils;
 import java.io.IOException;
@@ -69,29 +56,7 @@ public final class Deserializer {
 
     public static Edmx toMetadata(final InputStream input) {
         try {
-            final XmlMapper xmlMapper = new XmlMapper(
-                    new XmlFactory(new InputFactoryImpl(), new OutputFactoryImpl()), new JacksonXmlModule());
-            xmlMapper.addHandler(new DeserializationProblemHandler() {
-
-                @Override
-                public boolean handleUnknownProperty(final DeserializationContext ctxt, final JsonParser jp,
-                        final JsonDeserializer<?> deserializer, final Object beanOrClass, final String propertyName)
-                        throws IOException, JsonProcessingException {
-
-                    // 1. special handling of AbstractAnnotatedEdm's fields
-                    if (beanOrClass instanceof AbstractAnnotatedEdm
-                            && AbstractAnnotatedEdmUtils.isAbstractAnnotatedProperty(propertyName)) {
-
-                        AbstractAnnotatedEdmUtils.parseAnnotatedEdm((AbstractAnnotatedEdm) beanOrClass, jp);
-                    } // 2. skip any other unknown property
-                    else {
-                        ctxt.getParser().skipChildren();
-                    }
-
-                    return true;
-                }
-            });
-            return xmlMapper.readValue(input, Edmx.class);
+            return ODataCodecs.get(ODataFormat.XML).read(input, Edmx.class);
         } catch (Exception e) {
             throw new IllegalArgumentException("Could not parse as Edmx document", e);
         }
@@ -227,9 +192,7 @@ public final class Deserializer {
 
     private static JSONFeed toJSONFeed(final InputStream input) {
         try {
-            final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
-
-            return mapper.readValue(input, JSONFeed.class);
+            return ODataCodecs.get(ODataFormat.JSON).read(input, JSONFeed.class);
         } catch (IOException e) {
             throw new IllegalArgumentException("While deserializing JSON feed", e);
         }
@@ -237,9 +200,7 @@ public final class Deserializer {
 
     private static JSONEntry toJSONEntry(final InputStream input) {
         try {
-            final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
-
-            return mapper.readValue(input, JSONEntry.class);
+            return ODataCodecs.get(ODataFormat.JSON).read(input, JSONEntry.class);
         } catch (IOException e) {
             throw new IllegalArgumentException("While deserializing JSON entry", e);
         }
@@ -251,9 +212,7 @@ public final class Deserializer {
 
     private static Element toPropertyDOMFromJSON(final InputStream input) {
         try {
-            final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
-
-            return mapper.readValue(input, JSONProperty.class).getContent();
+            return ODataCodecs.get(ODataFormat.JSON).read(input, JSONProperty.class).getContent();
         } catch (IOException e) {
             throw new IllegalArgumentException("While deserializing JSON property", e);
         }
@@ -283,9 +242,7 @@ public final class Deserializer {
 
     private static ServiceDocumentResource toServiceDocumentFromJSON(final InputStream input) {
         try {
-            final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
-
-            return mapper.readValue(input, JSONServiceDocument.class);
+            return ODataCodecs.get(ODataFormat.JSON).read(input, JSONServiceDocument.class);
         } catch (IOException e) {
             throw new IllegalArgumentException("While deserializing JSON service document", e);
         }
@@ -312,9 +269,7 @@ public final class Deserializer {
 
     private static JSONLinkCollection toLinkCollectionFromJSON(final InputStream input) {
         try {
-            final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
-
-            return mapper.readValue(input, JSONLinkCollection.class);
+            return ODataCodecs.get(ODataFormat.JSON).read(input, JSONLinkCollection.class);
         } catch (IOException e) {
             throw new IllegalArgumentException("While deserializing JSON $links", e);
         }
@@ -322,9 +277,7 @@ public final class Deserializer {
 
     private static XMLODataError toODataErrorFromXML(final InputStream input) {
         try {
-            final XmlMapper xmlMapper = new XmlMapper(
-                    new XmlFactory(new InputFactoryImpl(), new OutputFactoryImpl()), new JacksonXmlModule());
-            return xmlMapper.readValue(input, XMLODataError.class);
+            return ODataCodecs.get(ODataFormat.XML).read(input, XMLODataError.class);
         } catch (Exception e) {
             throw new IllegalArgumentException("While deserializing XML error", e);
         }
@@ -332,9 +285,7 @@ public final class Deserializer {
 
     private static JSONODataError toODataErrorFromJSON(final InputStream input) {
         try {
-            final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
-
-            return mapper.readValue(input, JSONODataErrorBundle.class).getError();
+            return ODataCodecs.get(ODataFormat.JSON).read(input, JSONODataErrorBundle.class).getError();
         } catch (IOException e) {
             throw new IllegalArgumentException("While deserializing JSON error", e);
         }
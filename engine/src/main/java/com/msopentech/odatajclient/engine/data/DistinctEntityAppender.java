@@ -0,0 +1,98 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills a new entity set skipping duplicate entities, as <tt>ODataEntitySet.addEntity()</tt> does, without comparing
+ * each entity with all the previous ones.
+ * <br/>
+ * Entities are indexed by name, links, ETag and media source: only entities sharing all of them are compared via
+ * <tt>equals()</tt>, so that lazily decoded properties are not loaded for distinct entities. Entities carrying
+ * neither self nor edit link are indexed by <tt>hashCode()</tt> instead. Positions rather than entities are kept,
+ * so that entities beyond the heap limit of the entity set are not retained.
+ *
+ * @see ODataEntitySet#addEntity(com.msopentech.odatajclient.engine.data.ODataEntity)
+ */
+public class DistinctEntityAppender {
+
+    private final ODataEntitySet entitySet;
+
+    private final Map<String, List<Integer>> positions = new HashMap<String, List<Integer>>();
+
+    /**
+     * Constructor.
+     *
+     * @param entitySet empty entity set to be filled.
+     */
+    public DistinctEntityAppender(final ODataEntitySet entitySet) {
+        this.entitySet = entitySet;
+    }
+
+    /**
+     * Adds the given entity to the entity set, unless an equal entity has already been added.
+     *
+     * @param entity entity to be added.
+     * @return 'FALSE' if already added; 'TRUE' otherwise.
+     */
+    public boolean add(final ODataEntity entity) {
+        final List<ODataEntity> entities = entitySet.getEntities();
+
+        final String key = getKey(entity);
+        final List<Integer> same = positions.get(key);
+        if (same != null) {
+            for (int position : same) {
+                if (entity.equals(entities.get(position))) {
+                    return false;
+                }
+            }
+        }
+
+        final int position = entities.size();
+        entities.add(entity);
+
+        if (same == null) {
+            positions.put(key, Collections.singletonList(position));
+        } else {
+            final List<Integer> grown = new ArrayList<Integer>(same);
+            grown.add(position);
+            positions.put(key, grown);
+        }
+        return true;
+    }
+
+    private String getKey(final ODataEntity entity) {
+        if (entity.getLink() == null) {
+            return "#" + entity.hashCode();
+        }
+
+        return new StringBuilder().
+                append(entity.getName()).append('\n').
+                append(entity.getLink()).append('\n').
+                append(entity.getEditLink()).append('\n').
+                append(entity.getETag()).append('\n').
+                append(entity.getMediaContentSource()).toString();
+    }
+}
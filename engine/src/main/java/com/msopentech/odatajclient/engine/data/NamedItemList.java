@@ -0,0 +1,214 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Insertion-ordered list of named items (properties or links), indexed by name.
+ * <br/>
+ * Lookup by name and <tt>contains()</tt> take constant time, unless several items share the same name; any other
+ * <tt>List</tt> operation behaves as for <tt>ArrayList</tt>, so that instances can be exposed as plain lists.
+ *
+ * @param <T> item type.
+ */
+public abstract class NamedItemList<T> extends AbstractList<T> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = -4108463981237318816L;
+
+    private final Class<T> reference;
+
+    private final List<T> items = new ArrayList<T>();
+
+    /**
+     * Last item (by position) for each name.
+     */
+    private final Map<String, T> byName = new HashMap<String, T>();
+
+    /**
+     * Number of items sharing their name with an item placed before them.
+     */
+    private int shared = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param reference item type.
+     */
+    protected NamedItemList(final Class<T> reference) {
+        this.reference = reference;
+    }
+
+    /**
+     * Gets the name of the given item.
+     *
+     * @param item item.
+     * @return item name.
+     */
+    protected abstract String nameOf(T item);
+
+    /**
+     * Creates an empty list of properties.
+     *
+     * @return empty list of properties.
+     */
+    public static NamedItemList<ODataProperty> newPropertyList() {
+        return new PropertyList();
+    }
+
+    /**
+     * Creates an empty list of links.
+     *
+     * @return empty list of links.
+     */
+    public static NamedItemList<ODataLink> newLinkList() {
+        return new LinkList();
+    }
+
+    /**
+     * Gets the last item with the given name.
+     *
+     * @param name item name.
+     * @return item if found with given name, <tt>null</tt> otherwise.
+     */
+    public T getByName(final String name) {
+        return byName.get(name);
+    }
+
+    private void indexLast(final T item) {
+        if (byName.put(nameOf(item), item) != null) {
+            shared++;
+        }
+    }
+
+    private void reindex() {
+        byName.clear();
+        shared = 0;
+        for (T item : items) {
+            indexLast(item);
+        }
+    }
+
+    @Override
+    public T get(final int index) {
+        return items.get(index);
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public boolean contains(final Object obj) {
+        if (!reference.isInstance(obj)) {
+            return false;
+        }
+
+        final T item = byName.get(nameOf(reference.cast(obj)));
+        if (item == null) {
+            return false;
+        }
+        return item.equals(obj) || (shared > 0 && items.contains(obj));
+    }
+
+    @Override
+    public boolean add(final T item) {
+        items.add(item);
+        indexLast(item);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(final int index, final T item) {
+        if (index == items.size()) {
+            add(item);
+        } else {
+            items.add(index, item);
+            reindex();
+            modCount++;
+        }
+    }
+
+    @Override
+    public T set(final int index, final T item) {
+        final T previous = items.set(index, item);
+        reindex();
+        return previous;
+    }
+
+    @Override
+    public T remove(final int index) {
+        final T removed = items.remove(index);
+        reindex();
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    protected void removeRange(final int fromIndex, final int toIndex) {
+        items.subList(fromIndex, toIndex).clear();
+        reindex();
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        items.clear();
+        byName.clear();
+        shared = 0;
+        modCount++;
+    }
+
+    private static class PropertyList extends NamedItemList<ODataProperty> {
+
+        private static final long serialVersionUID = 3350938413734287064L;
+
+        PropertyList() {
+            super(ODataProperty.class);
+        }
+
+        @Override
+        protected String nameOf(final ODataProperty item) {
+            return item.getName();
+        }
+    }
+
+    private static class LinkList extends NamedItemList<ODataLink> {
+
+        private static final long serialVersionUID = -2447120398613624318L;
+
+        LinkList() {
+            super(ODataLink.class);
+        }
+
+        @Override
+        protected String nameOf(final ODataLink item) {
+            return item.getName();
+        }
+    }
+}
@@ -19,9 +19,8 @@
  */
 package com.msopentech.odatajclient.engine.data;
 
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
 import java.io.Serializable;
-import javax.xml.datatype.DatatypeConfigurationException;
-import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.Duration;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -40,9 +39,8 @@ public final class ODataDuration implements Serializable {
 
     public ODataDuration(final String input) {
         try {
-            final DatatypeFactory dtFactory = DatatypeFactory.newInstance();
-            this.duration = dtFactory.newDuration(input);
-        } catch (DatatypeConfigurationException e) {
+            this.duration = ((ODataDuration) ODataLiteralCodec.parse(EdmSimpleType.Time, input)).getDuration();
+        } catch (RuntimeException e) {
             throw new IllegalArgumentException("Could not parse '" + input + "' as Duration", e);
         }
     }
@@ -19,6 +19,8 @@
  */
 package com.msopentech.odatajclient.engine.data;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
@@ -59,17 +61,17 @@ public class ODataEntity extends ODataItem implements ODataInvokeResult {
     /**
      * Navigation links (might contain in-line entities or feeds).
      */
-    protected final List<ODataLink> navigationLinks = new ArrayList<ODataLink>();
+    protected final NamedItemList<ODataLink> navigationLinks = NamedItemList.newLinkList();
 
     /**
      * Association links.
      */
-    protected final List<ODataLink> associationLinks = new ArrayList<ODataLink>();
+    protected final NamedItemList<ODataLink> associationLinks = NamedItemList.newLinkList();
 
     /**
      * Media edit links.
      */
-    protected final List<ODataLink> editMediaLinks = new ArrayList<ODataLink>();
+    protected final NamedItemList<ODataLink> editMediaLinks = NamedItemList.newLinkList();
 
     /**
      * Operations (legacy, functions, actions).
@@ -79,7 +81,12 @@ public class ODataEntity extends ODataItem implements ODataInvokeResult {
     /**
      * Entity properties.
      */
-    protected final List<ODataProperty> properties = new ArrayList<ODataProperty>();
+    protected final NamedItemList<ODataProperty> properties = NamedItemList.newPropertyList();
+
+    /**
+     * Source of properties not decoded yet, if any.
+     */
+    private transient volatile ODataPropertySource propertySource;
 
     /**
      * Constructor.
@@ -156,6 +163,43 @@ public class ODataEntity extends ODataItem implements ODataInvokeResult {
         return this.operations;
     }
 
+    /**
+     * Sets a source of properties to be decoded when first accessed, in addition to properties already added.
+     *
+     * @param propertySource source of properties.
+     */
+    public void setPropertySource(final ODataPropertySource propertySource) {
+        this.propertySource = propertySource;
+    }
+
+    /**
+     * Checks whether properties have been decoded from the source set via <tt>setPropertySource()</tt>, if any.
+     *
+     * @return 'TRUE' if no properties are pending decoding; 'FALSE' otherwise.
+     */
+    public boolean isPropertiesLoaded() {
+        return propertySource == null;
+    }
+
+    /**
+     * Decodes properties from the source set via <tt>setPropertySource()</tt>, if not done yet.
+     */
+    protected void loadProperties() {
+        if (propertySource != null) {
+            synchronized (this) {
+                final ODataPropertySource source = propertySource;
+                if (source != null) {
+                    for (ODataProperty property : source.getProperties()) {
+                        if (!properties.contains(property)) {
+                            properties.add(property);
+                        }
+                    }
+                    propertySource = null;
+                }
+            }
+        }
+    }
+
     /**
      * Searches for property with given name.
      *
@@ -166,10 +210,13 @@ public class ODataEntity extends ODataItem implements ODataInvokeResult {
         ODataProperty result = null;
 
         if (StringUtils.isNotBlank(name)) {
-            for (ODataProperty property : properties) {
-                if (name.equals(property.getName())) {
-                    result = property;
-                }
+            // properties pending decoding follow the ones already added: only the requested one is decoded
+            final ODataPropertySource source = propertySource;
+            if (source != null) {
+                result = source.getProperty(name);
+            }
+            if (result == null) {
+                result = properties.getByName(name);
             }
         }
 
@@ -182,6 +229,7 @@ public class ODataEntity extends ODataItem implements ODataInvokeResult {
      * @return OData entity properties.
      */
     public List<ODataProperty> getProperties() {
+        loadProperties();
         return properties;
     }
 
@@ -191,6 +239,7 @@ public class ODataEntity extends ODataItem implements ODataInvokeResult {
      * @param property property to be added.
      */
     public boolean addProperty(final ODataProperty property) {
+        loadProperties();
         return properties.contains(property) ? false : properties.add(property);
     }
 
@@ -200,6 +249,7 @@ public class ODataEntity extends ODataItem implements ODataInvokeResult {
      * @param property property to be removed.
      */
     public boolean removeProperty(final ODataProperty property) {
+        loadProperties();
         return properties.remove(property);
     }
 
@@ -359,4 +409,39 @@ public class ODataEntity extends ODataItem implements ODataInvokeResult {
     public void setMediaContentSource(final String mediaContentSource) {
         this.mediaContentSource = mediaContentSource;
     }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        loadProperties();
+        if (obj instanceof ODataEntity) {
+            ((ODataEntity) obj).loadProperties();
+        }
+        return super.equals(obj);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int hashCode() {
+        loadProperties();
+        return super.hashCode();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String toString() {
+        loadProperties();
+        return super.toString();
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        loadProperties();
+        out.defaultWriteObject();
+    }
 }
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.data;
 
+import java.io.Closeable;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
@@ -27,7 +28,7 @@ import java.util.List;
  * OData entity collection.
  * If pagination was used to get this instance, forward page navigation URI will be available.
  */
-public class ODataEntitySet extends ODataItem implements ODataInvokeResult {
+public class ODataEntitySet extends ODataItem implements ODataInvokeResult, Closeable {
 
     private static final long serialVersionUID = 9039605899821494024L;
 
@@ -44,14 +45,16 @@ public class ODataEntitySet extends ODataItem implements ODataInvokeResult {
 
     /**
      * OData entities contained in this feed.
+     *
+     * @see com.msopentech.odatajclient.engine.client.ODataClient#getEntitySetHeapLimit()
      */
-    protected List<ODataEntity> entities = new ArrayList<ODataEntity>();
+    protected List<ODataEntity> entities;
 
     /**
      * Constructor.
      */
     ODataEntitySet() {
-        super(null);
+        this(null, 0);
     }
 
     /**
@@ -60,8 +63,19 @@ public class ODataEntitySet extends ODataItem implements ODataInvokeResult {
      * @param next next link.
      */
     ODataEntitySet(final URI next) {
+        this(next, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param next next link.
+     * @param heapLimit maximum number of entities kept on heap; 0 to keep all entities on heap.
+     */
+    ODataEntitySet(final URI next, final int heapLimit) {
         super(null);
         this.next = next;
+        this.entities = heapLimit > 0 ? new SpillingEntityList(heapLimit) : new ArrayList<ODataEntity>();
     }
 
     /**
@@ -73,6 +87,15 @@ public class ODataEntitySet extends ODataItem implements ODataInvokeResult {
         return next;
     }
 
+    /**
+     * Sets next page link.
+     *
+     * @param next next page link; null value if single page or last page reached.
+     */
+    public void setNext(final URI next) {
+        this.next = next;
+    }
+
     /**
      * Sets in-line count.
      *
@@ -119,4 +142,17 @@ public class ODataEntitySet extends ODataItem implements ODataInvokeResult {
     public List<ODataEntity> getEntities() {
         return entities;
     }
+
+    /**
+     * Releases the temporary file holding entities beyond the heap limit, if any: all entities are removed.
+     * Entity sets kept entirely on heap are left untouched.
+     *
+     * @see com.msopentech.odatajclient.engine.client.ODataClient#getEntitySetHeapLimit()
+     */
+    @Override
+    public void close() {
+        if (entities instanceof SpillingEntityList) {
+            ((SpillingEntityList) entities).close();
+        }
+    }
 }
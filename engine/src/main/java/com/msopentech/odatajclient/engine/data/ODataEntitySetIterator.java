@@ -19,51 +19,37 @@
  */
 package com.msopentech.odatajclient.engine.data;
 
-import static com.msopentech.odatajclient.engine.data.Deserializer.toEntry;
-
-import com.msopentech.odatajclient.engine.data.atom.AtomEntry;
-import com.msopentech.odatajclient.engine.data.json.JSONEntry;
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.data.atom.AtomStreamReader;
+import com.msopentech.odatajclient.engine.data.json.JSONStreamReader;
 import com.msopentech.odatajclient.engine.format.ODataPubFormat;
-import com.msopentech.odatajclient.engine.utils.ODataConstants;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.URI;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.StringUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * OData entity set iterator class.
+ * <br/>
+ * Entities are read one at a time while the source stream is being parsed, so that only the current entity is kept
+ * in memory; entity set information (as the next link) is gathered on the way.
+ *
+ * @see ODataEntitySource
  */
 public class ODataEntitySetIterator implements Iterator<ODataEntity> {
 
-    /**
-     * Logger.
-     */
-    private static final Logger LOG = LoggerFactory.getLogger(ODataEntitySetIterator.class);
-
     private static final long serialVersionUID = 9039605899821494025L;
 
-    private final InputStream stream;
+    private final ODataEntitySource source;
 
-    private final ODataPubFormat format;
-
-    private EntryResource cached;
+    private ODataEntity cached;
 
     private ODataEntitySet entitySet;
 
-    private final ByteArrayOutputStream osFeed;
-
-    private final String namespaces;
-
     private boolean available = true;
 
+    private int read = 0;
+
     /**
      * Constructor.
      *
@@ -71,26 +57,20 @@ public class ODataEntitySetIterator implements Iterator<ODataEntity> {
      * @param format OData format.
      */
     public ODataEntitySetIterator(final InputStream stream, final ODataPubFormat format) {
-        this.stream = stream;
-        this.format = format;
-        this.osFeed = new ByteArrayOutputStream();
+        this(stream, format, ODataClient.fromConfiguration());
+    }
 
-        if (format == ODataPubFormat.ATOM) {
-            namespaces = getAllElementAttributes(stream, "feed", osFeed);
-        } else {
-            namespaces = null;
-            try {
-                if (consume(stream, "\"value\":", osFeed, true) >= 0) {
-                    int c = 0;
-                    while (c != '[' && (c = stream.read()) >= 0) {
-                        osFeed.write(c);
-                    }
-                }
-            } catch (IOException e) {
-                LOG.error("Error parsing feed", e);
-                throw new IllegalStateException(e);
-            }
-        }
+    /**
+     * Constructor.
+     *
+     * @param stream source stream.
+     * @param format OData format.
+     * @param client OData client, whose settings are followed when reading entities.
+     */
+    public ODataEntitySetIterator(final InputStream stream, final ODataPubFormat format, final ODataClient client) {
+        this.source = format == ODataPubFormat.ATOM
+                ? AtomStreamReader.openEntitySet(stream, client.isLazyProperties())
+                : JSONStreamReader.openEntitySet(stream, client.isLazyProperties());
     }
 
     /**
@@ -99,16 +79,16 @@ public class ODataEntitySetIterator implements Iterator<ODataEntity> {
     @Override
     public boolean hasNext() {
         if (available && cached == null) {
-            if (format == ODataPubFormat.ATOM) {
-                cached = nextAtomEntryFromFeed(stream, osFeed, namespaces);
-            } else {
-                cached = nextJsonEntryFromFeed(stream, osFeed);
+            try {
+                cached = source.next();
+            } catch (RuntimeException e) {
+                available = false;
+                throw e;
             }
 
             if (cached == null) {
                 available = false;
-                entitySet = ODataReader.readEntitySet(new ByteArrayInputStream(osFeed.toByteArray()), format);
-                close();
+                entitySet = source.getEntitySet();
             }
         }
 
@@ -121,8 +101,9 @@ public class ODataEntitySetIterator implements Iterator<ODataEntity> {
     @Override
     public ODataEntity next() {
         if (hasNext()) {
-            final ODataEntity res = ODataBinder.getODataEntity(cached);
+            final ODataEntity res = cached;
             cached = null;
+            read++;
             return res;
         }
 
@@ -141,8 +122,7 @@ public class ODataEntitySetIterator implements Iterator<ODataEntity> {
      * Closes the current iterator.
      */
     public void close() {
-        IOUtils.closeQuietly(stream);
-        IOUtils.closeQuietly(osFeed);
+        source.close();
     }
 
     /**
@@ -158,155 +138,25 @@ public class ODataEntitySetIterator implements Iterator<ODataEntity> {
     }
 
     /**
-     * Finalize object closing all managed resources.
+     * Gets in-line count.
      *
-     * @throws Throwable
+     * @return in-line count value, if <tt>$inlinecount</tt> was requested; number of iterated entities otherwise.
      */
-    @Override
-    protected void finalize() throws Throwable {
-        close();
-        super.finalize();
-    }
-
-    private JSONEntry nextJsonEntryFromFeed(final InputStream input, final OutputStream osFeed) {
-        final ByteArrayOutputStream entry = new ByteArrayOutputStream();
-
-        JSONEntry entity = null;
-        try {
-            int c = 0;
-
-            boolean foundNewOne = false;
-
-            do {
-                c = input.read();
-                if (c == '{') {
-                    entry.write(c);
-                    c = -1;
-                    foundNewOne = true;
-                }
-                if (c == ']') {
-                    osFeed.write(c);
-                    c = -1;
-                }
-            } while (c >= 0);
-
-            if (foundNewOne) {
-                int count = 1;
-                c = 0;
-
-                while (count > 0 && c >= 0) {
-                    c = input.read();
-                    if (c == '{') {
-                        count++;
-                    } else if (c == '}') {
-                        count--;
-                    }
-                    entry.write(c);
-                }
-
-                if (c >= 0) {
-                    entity = toEntry(new ByteArrayInputStream(entry.toByteArray()), JSONEntry.class);
-                }
-            } else {
-                while ((c = input.read()) >= 0) {
-                    osFeed.write(c);
-                }
-            }
-        } catch (Exception e) {
-            LOG.error("Error retrieving entities from EntitySet", e);
+    public int getCount() {
+        if (entitySet == null) {
+            throw new IllegalStateException("Iteration must be completed in order to retrieve the in-line count");
         }
-
-        return entity;
+        return entitySet.count == null ? read : entitySet.count;
     }
 
     /**
-     * De-Serializes a stream into an OData entity set.
+     * Finalize object closing all managed resources.
      *
-     * @param input stream to de-serialize.
-     * @param format de-serialize as AtomFeed or JSONFeed
-     * @return de-serialized entity set.
+     * @throws Throwable
      */
-    private AtomEntry nextAtomEntryFromFeed(final InputStream input, final OutputStream osFeed, final String namespaces) {
-        final ByteArrayOutputStream entry = new ByteArrayOutputStream();
-
-        AtomEntry entity = null;
-
-        try {
-            if (consume(input, "<entry>", osFeed, false) >= 0) {
-                entry.write("<entry ".getBytes(ODataConstants.UTF8));
-                entry.write(namespaces.getBytes(ODataConstants.UTF8));
-                entry.write(">".getBytes(ODataConstants.UTF8));
-
-                if (consume(input, "</entry>", entry, true) >= 0) {
-                    entity = toEntry(new ByteArrayInputStream(entry.toByteArray()), AtomEntry.class);
-                }
-            }
-        } catch (Exception e) {
-            LOG.error("Error retrieving entities from EntitySet", e);
-        }
-
-        return entity;
-    }
-
-    private String getAllElementAttributes(final InputStream input, final String name, final OutputStream os) {
-        final ByteArrayOutputStream attrs = new ByteArrayOutputStream();
-
-        String res;
-
-        try {
-            byte[] attrsDeclaration = null;
-
-            final String key = "<" + name + " ";
-            if (consume(input, key, os, true) >= 0 && consume(input, ">", attrs, false) >= 0) {
-                attrsDeclaration = attrs.toByteArray();
-                os.write(attrsDeclaration);
-                os.write('>');
-            }
-
-            res = attrsDeclaration == null
-                    ? StringUtils.EMPTY
-                    : new String(attrsDeclaration, ODataConstants.UTF8).trim();
-        } catch (Exception e) {
-            LOG.error("Error retrieving entities from EntitySet", e);
-            res = StringUtils.EMPTY;
-        }
-
-        return res.endsWith("/") ? res.substring(0, res.length() - 1) : res;
-    }
-
-    private int consume(
-            final InputStream input, final String end, final OutputStream os, final boolean includeEndKey)
-            throws IOException {
-
-        final char[] endKey = end.toCharArray();
-        final char[] endLowerKey = end.toLowerCase().toCharArray();
-        final char[] endUpperKey = end.toUpperCase().toCharArray();
-
-        int pos = 0;
-        int c = 0;
-        while (pos < endKey.length && (c = input.read()) >= 0) {
-            if (c == endLowerKey[pos] || c == endUpperKey[pos]) {
-                pos++;
-                if (includeEndKey && os != null) {
-                    os.write(c);
-                }
-            } else if (pos > 0) {
-                if (!includeEndKey && os != null) {
-                    for (int i = 0; i < pos; i++) {
-                        os.write(endKey[i]);
-                    }
-                }
-                if (os != null) {
-                    os.write(c);
-                }
-                pos = 0;
-            } else {
-                if (os != null) {
-                    os.write(c);
-                }
-            }
-        }
-
-        return c;
+    @Override
+    protected void finalize() throws Throwable {
+        close();
+        super.finalize();
     }
 }
@@ -0,0 +1,55 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data;
+
+import java.io.Closeable;
+
+/**
+ * Source of the entities of an entity set, read one at a time while the underlying payload is being parsed.
+ * <br/>
+ * Sources are not thread-safe.
+ *
+ * @see com.msopentech.odatajclient.engine.data.atom.AtomStreamReader#openEntitySet(java.io.InputStream, boolean)
+ * @see com.msopentech.odatajclient.engine.data.json.JSONStreamReader#openEntitySet(java.io.InputStream, boolean)
+ */
+public interface ODataEntitySource extends Closeable {
+
+    /**
+     * Reads the next entity; the underlying payload is closed once the end of the entity set is reached.
+     *
+     * @return next entity; null if no more entities are available.
+     * @throws IllegalArgumentException if the payload cannot be read.
+     */
+    ODataEntity next();
+
+    /**
+     * Gets the entity set information found in the payload (count, next link), once all entities have been read.
+     *
+     * @return entity set without entities.
+     * @throws IllegalStateException if not all entities have been read yet.
+     */
+    ODataEntitySet getEntitySet();
+
+    /**
+     * Closes the underlying payload, without reading further entities.
+     */
+    @Override
+    void close();
+}
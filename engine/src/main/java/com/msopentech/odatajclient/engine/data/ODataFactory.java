@@ -54,6 +54,17 @@ public final class ODataFactory {
         return new ODataEntitySet(next);
     }
 
+    /**
+     * Instantiates a new entity set, keeping at most the given number of entities on heap.
+     *
+     * @param next next link; null if none.
+     * @param heapLimit maximum number of entities kept on heap; 0 to keep all entities on heap.
+     * @return entity set.
+     */
+    public static ODataEntitySet newEntitySet(final URI next, final int heapLimit) {
+        return new ODataEntitySet(next, heapLimit);
+    }
+
     /**
      * Instantiates a new entity.
      *
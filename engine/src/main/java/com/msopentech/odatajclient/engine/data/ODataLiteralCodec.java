@@ -0,0 +1,880 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data;
+
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.UUID;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+
+/**
+ * Parses and formats the literal form of primitive values, as found in Atom and JSON payloads.
+ * <br/>
+ * Literals are read straight from character (or ASCII / UTF-8 byte) ranges and written into a given buffer, without
+ * going through <tt>DecimalFormat</tt>, <tt>SimpleDateFormat</tt> or regular expressions. All methods are
+ * thread-safe.
+ * <br/>
+ * Atom and JSON light share the same literal forms for all primitive types: JSON light only differs in how literals
+ * are enclosed (quoted or not), which is up to the JSON parser / generator.
+ * <br/>
+ * As done so far, <tt>DateTime</tt> and <tt>DateTimeOffset</tt> fields are read and written in the JVM default time
+ * zone, as found by each thread on first use; the time zone suffix, if any, is kept as is.
+ *
+ * @see EdmSimpleType
+ */
+public final class ODataLiteralCodec {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int DECIMAL_MAX_SCALE = 23;
+
+    private static final int NANOS_DIGITS = 9;
+
+    private static final int MAX_REUSED_BUFFER = 8192;
+
+    private static final String INF = "INF";
+
+    private static final String NEGATIVE_INF = "-INF";
+
+    private static final String NAN = "NaN";
+
+    private static final char[] BASE64_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    private static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        for (int i = 0; i < BASE64_VALUES.length; i++) {
+            BASE64_VALUES[i] = -1;
+        }
+        for (int i = 0; i < BASE64_ALPHABET.length; i++) {
+            BASE64_VALUES[BASE64_ALPHABET[i]] = (byte) i;
+        }
+        // URL-safe alphabet
+        BASE64_VALUES['-'] = 62;
+        BASE64_VALUES['_'] = 63;
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<Calendar> CALENDAR = new ThreadLocal<Calendar>() {
+
+        @Override
+        protected Calendar initialValue() {
+            final Calendar calendar = new GregorianCalendar();
+            calendar.setLenient(false);
+            return calendar;
+        }
+    };
+
+    private static final ThreadLocal<DatatypeFactory> DATATYPE_FACTORY = new ThreadLocal<DatatypeFactory>() {
+
+        @Override
+        protected DatatypeFactory initialValue() {
+            try {
+                return DatatypeFactory.newInstance();
+            } catch (DatatypeConfigurationException e) {
+                throw new IllegalStateException("No DatatypeFactory available", e);
+            }
+        }
+    };
+
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder();
+        }
+    };
+
+    private ODataLiteralCodec() {
+        // Empty private constructor for static utility classes
+    }
+
+    /**
+     * Parses the given literal.
+     *
+     * @param type type.
+     * @param literal literal.
+     * @return parsed value, as instance of <tt>type.javaType()</tt>.
+     * @throws IllegalArgumentException if the literal is not valid for the given type.
+     */
+    public static Object parse(final EdmSimpleType type, final CharSequence literal) {
+        return parse(type, literal, 0, literal.length());
+    }
+
+    /**
+     * Parses the literal found in the given character range.
+     *
+     * @param type type.
+     * @param buffer characters.
+     * @param offset literal offset.
+     * @param length literal length.
+     * @return parsed value, as instance of <tt>type.javaType()</tt>.
+     * @throws IllegalArgumentException if the literal is not valid for the given type.
+     */
+    public static Object parse(final EdmSimpleType type, final char[] buffer, final int offset, final int length) {
+        return parse(type, CharBuffer.wrap(buffer), offset, offset + length);
+    }
+
+    /**
+     * Parses the literal found in the given UTF-8 encoded byte range.
+     *
+     * @param type type.
+     * @param buffer bytes.
+     * @param offset literal offset.
+     * @param length literal length.
+     * @return parsed value, as instance of <tt>type.javaType()</tt>.
+     * @throws IllegalArgumentException if the literal is not valid for the given type.
+     */
+    public static Object parse(final EdmSimpleType type, final byte[] buffer, final int offset, final int length) {
+        // only strings and URIs may legitimately contain non-ASCII characters
+        return type == EdmSimpleType.String || type == EdmSimpleType.Stream
+                ? parse(type, new String(buffer, offset, length, UTF8))
+                : parse(type, new AsciiSequence(buffer), offset, offset + length);
+    }
+
+    private static Object parse(final EdmSimpleType type, final CharSequence literal, final int start, final int end) {
+        if (type == EdmSimpleType.String) {
+            return text(literal, start, end);
+        }
+
+        final int from = trimStart(literal, start, end);
+        final int to = trimEnd(literal, from, end);
+
+        final Object value;
+        switch (type) {
+            case Null:
+                value = null;
+                break;
+
+            case Binary:
+                value = parseBase64(literal, from, to);
+                break;
+
+            case Boolean:
+                value = parseIntegral(type, literal, from, to) != 0;
+                break;
+
+            case SByte:
+                value = (byte) parseIntegral(type, literal, from, to);
+                break;
+
+            case Int16:
+                value = (short) parseIntegral(type, literal, from, to);
+                break;
+
+            case Byte:
+            case Int32:
+                value = (int) parseIntegral(type, literal, from, to);
+                break;
+
+            case Int64:
+                value = parseIntegral(type, literal, from, to);
+                break;
+
+            case Decimal:
+                value = new BigDecimal(text(literal, from, to));
+                break;
+
+            case Single:
+                value = (float) parseFloating(type, literal, from, to);
+                break;
+
+            case Double:
+                value = parseFloating(type, literal, from, to);
+                break;
+
+            case DateTime:
+            case DateTimeOffset:
+                value = parseTimestamp(type, literal, from, to);
+                break;
+
+            case Time:
+                value = new ODataDuration(DATATYPE_FACTORY.get().newDuration(text(literal, from, to)));
+                break;
+
+            case Guid:
+                value = parseGuid(literal, from, to);
+                break;
+
+            case Stream:
+                value = URI.create(text(literal, from, to));
+                break;
+
+            default:
+                throw new IllegalArgumentException("No literal form for " + type);
+        }
+
+        return value;
+    }
+
+    /**
+     * Parses a boolean (as 0 or 1) or integral literal, without boxing.
+     *
+     * @param type one of <tt>Boolean</tt>, <tt>SByte</tt>, <tt>Byte</tt>, <tt>Int16</tt>, <tt>Int32</tt> or
+     * <tt>Int64</tt>.
+     * @param literal literal.
+     * @return parsed value.
+     * @throws IllegalArgumentException if the literal is not valid for the given type.
+     */
+    static long parseIntegral(final EdmSimpleType type, final CharSequence literal) {
+        final int from = trimStart(literal, 0, literal.length());
+        return parseIntegral(type, literal, from, trimEnd(literal, from, literal.length()));
+    }
+
+    private static long parseIntegral(
+            final EdmSimpleType type, final CharSequence literal, final int start, final int end) {
+
+        final long value;
+        switch (type) {
+            case Boolean:
+                value = equalsIgnoreCase(literal, start, end, "true") ? 1 : 0;
+                break;
+
+            case SByte:
+                value = parseLong(literal, start, end, Byte.MIN_VALUE, Byte.MAX_VALUE);
+                break;
+
+            case Int16:
+                value = parseLong(literal, start, end, Short.MIN_VALUE, Short.MAX_VALUE);
+                break;
+
+            case Int64:
+                value = parseLong(literal, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+                break;
+
+            default:
+                value = parseLong(literal, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+
+        return value;
+    }
+
+    /**
+     * Parses a <tt>Single</tt> or <tt>Double</tt> literal, without boxing.
+     *
+     * @param type <tt>Single</tt> or <tt>Double</tt>.
+     * @param literal literal.
+     * @return parsed value; <tt>Single</tt> values are rounded to float precision.
+     * @throws IllegalArgumentException if the literal is not valid for the given type.
+     */
+    static double parseFloating(final EdmSimpleType type, final CharSequence literal) {
+        final int from = trimStart(literal, 0, literal.length());
+        return parseFloating(type, literal, from, trimEnd(literal, from, literal.length()));
+    }
+
+    private static double parseFloating(
+            final EdmSimpleType type, final CharSequence literal, final int start, final int end) {
+
+        final Double special = parseSpecial(literal, start, end);
+        if (special != null) {
+            return special;
+        }
+        return type == EdmSimpleType.Single
+                ? Float.parseFloat(text(literal, start, end))
+                : Double.parseDouble(text(literal, start, end));
+    }
+
+    /**
+     * Converts a boolean (as 0 or 1) or integral value to <tt>long</tt>.
+     *
+     * @param value <tt>Boolean</tt> or <tt>Number</tt>.
+     * @return converted value.
+     */
+    static long toLong(final Object value) {
+        return value instanceof Boolean
+                ? ((Boolean) value ? 1 : 0)
+                : ((Number) value).longValue();
+    }
+
+    /**
+     * Formats a <tt>Single</tt> or <tt>Double</tt> value, without boxing.
+     *
+     * @param type <tt>Single</tt> or <tt>Double</tt>.
+     * @param value value.
+     * @return literal.
+     */
+    static String formatFloating(final EdmSimpleType type, final double value) {
+        final String literal;
+        if (Double.isNaN(value)) {
+            literal = NAN;
+        } else if (Double.isInfinite(value)) {
+            literal = value > 0 ? INF : NEGATIVE_INF;
+        } else {
+            literal = type == EdmSimpleType.Single ? Float.toString((float) value) : Double.toString(value);
+        }
+        return literal;
+    }
+
+    /**
+     * Formats the given value.
+     *
+     * @param type type.
+     * @param value value, as instance of <tt>type.javaType()</tt>.
+     * @return literal.
+     */
+    public static String format(final EdmSimpleType type, final Object value) {
+        if (type == EdmSimpleType.String) {
+            return (String) value;
+        }
+
+        final StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        format(type, value, buffer);
+        final String literal = buffer.toString();
+
+        if (buffer.capacity() > MAX_REUSED_BUFFER) {
+            BUFFER.remove();
+        }
+
+        return literal;
+    }
+
+    /**
+     * Formats the given value into the given buffer.
+     *
+     * @param type type.
+     * @param value value, as instance of <tt>type.javaType()</tt>.
+     * @param buffer buffer the literal is appended to.
+     */
+    public static void format(final EdmSimpleType type, final Object value, final StringBuilder buffer) {
+        switch (type) {
+            case Null:
+                break;
+
+            case Binary:
+                formatBase64((byte[]) value, buffer);
+                break;
+
+            case Boolean:
+                buffer.append(((Boolean) value).booleanValue());
+                break;
+
+            case SByte:
+            case Int16:
+            case Byte:
+            case Int32:
+                buffer.append(((Number) value).intValue());
+                break;
+
+            case Int64:
+                buffer.append(((Long) value).longValue());
+                break;
+
+            case Decimal:
+                formatDecimal((BigDecimal) value, buffer);
+                break;
+
+            case Single:
+                final float single = (Float) value;
+                if (!formatSpecial(single, buffer)) {
+                    buffer.append(single);
+                }
+                break;
+
+            case Double:
+                final double dbl = (Double) value;
+                if (!formatSpecial(dbl, buffer)) {
+                    buffer.append(dbl);
+                }
+                break;
+
+            case DateTime:
+            case DateTimeOffset:
+                formatTimestamp((ODataTimestamp) value, buffer);
+                break;
+
+            case Time:
+                buffer.append(((ODataDuration) value).getDuration().toString());
+                break;
+
+            case Guid:
+                formatGuid((UUID) value, buffer);
+                break;
+
+            case Stream:
+                buffer.append(((URI) value).toASCIIString());
+                break;
+
+            case String:
+                buffer.append((String) value);
+                break;
+
+            default:
+                throw new IllegalArgumentException("No literal form for " + type);
+        }
+    }
+
+    private static String text(final CharSequence literal, final int start, final int end) {
+        return start == 0 && end == literal.length() && literal instanceof String
+                ? (String) literal
+                : literal.subSequence(start, end).toString();
+    }
+
+    private static boolean equals(
+            final CharSequence literal, final int start, final int end, final String expected) {
+
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (literal.charAt(i) != expected.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the given range with a lower case string, ignoring case.
+     */
+    private static boolean equalsIgnoreCase(
+            final CharSequence literal, final int start, final int end, final String expected) {
+
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (Character.toLowerCase(literal.charAt(i)) != expected.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int trimStart(final CharSequence literal, final int start, final int end) {
+        int from = start;
+        while (from < end && Character.isWhitespace(literal.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(final CharSequence literal, final int start, final int end) {
+        int to = end;
+        while (to > start && Character.isWhitespace(literal.charAt(to - 1))) {
+            to--;
+        }
+        return to;
+    }
+
+    private static NumberFormatException invalid(final CharSequence literal, final int start, final int end) {
+        return new NumberFormatException("For input string: \"" + text(literal, start, end) + "\"");
+    }
+
+    private static long parseLong(final CharSequence literal, final int start, final int end,
+            final long min, final long max) {
+
+        if (start == end) {
+            throw invalid(literal, start, end);
+        }
+
+        int pos = start;
+        final boolean negative = literal.charAt(pos) == '-';
+        if (negative || literal.charAt(pos) == '+') {
+            pos++;
+            if (pos == end) {
+                throw invalid(literal, start, end);
+            }
+        }
+
+        // accumulate negatively, as |Long.MIN_VALUE| > Long.MAX_VALUE
+        final long limit = negative ? min : -max;
+        final long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; pos < end; pos++) {
+            final int digit = literal.charAt(pos) - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit) {
+                throw invalid(literal, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw invalid(literal, start, end);
+            }
+            result -= digit;
+        }
+
+        return negative ? result : -result;
+    }
+
+    /**
+     * Checks for the special floating point literals <tt>INF</tt>, <tt>-INF</tt> and <tt>NaN</tt>.
+     *
+     * @return corresponding value if special, null otherwise.
+     */
+    private static Double parseSpecial(final CharSequence literal, final int start, final int end) {
+        Double value = null;
+        if (equals(literal, start, end, NAN)) {
+            value = Double.NaN;
+        } else if (equals(literal, start, end, INF)) {
+            value = Double.POSITIVE_INFINITY;
+        } else if (equals(literal, start, end, NEGATIVE_INF)) {
+            value = Double.NEGATIVE_INFINITY;
+        }
+        return value;
+    }
+
+    private static boolean formatSpecial(final double value, final StringBuilder buffer) {
+        boolean special = true;
+        if (Double.isNaN(value)) {
+            buffer.append(NAN);
+        } else if (value == Double.POSITIVE_INFINITY) {
+            buffer.append(INF);
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            buffer.append(NEGATIVE_INF);
+        } else {
+            special = false;
+        }
+        return special;
+    }
+
+    private static void formatDecimal(final BigDecimal value, final StringBuilder buffer) {
+        BigDecimal decimal = value;
+        if (decimal.scale() > DECIMAL_MAX_SCALE) {
+            decimal = decimal.setScale(DECIMAL_MAX_SCALE, RoundingMode.HALF_EVEN);
+        }
+
+        if (decimal.signum() == 0) {
+            buffer.append('0');
+        } else {
+            if (decimal.scale() > 0) {
+                decimal = decimal.stripTrailingZeros();
+            }
+            buffer.append(decimal.scale() < 0 ? decimal.setScale(0).toPlainString() : decimal.toPlainString());
+        }
+    }
+
+    private static int digit(final CharSequence literal, final int pos, final int start, final int end) {
+        final int digit = pos < end ? literal.charAt(pos) - '0' : -1;
+        if (digit < 0 || digit > 9) {
+            throw new IllegalArgumentException("Cannot parse timestamp " + text(literal, start, end));
+        }
+        return digit;
+    }
+
+    private static int expect(final CharSequence literal, final int pos, final char separator,
+            final int start, final int end) {
+
+        if (pos >= end || literal.charAt(pos) != separator) {
+            throw new IllegalArgumentException("Cannot parse timestamp " + text(literal, start, end));
+        }
+        return pos + 1;
+    }
+
+    /**
+     * Checks that the given timezone is either <tt>Z</tt> or <tt>&plusmn;hh:mm</tt>.
+     */
+    private static void checkTimezone(final CharSequence literal, final int pos, final int start, final int end) {
+        final char sign = literal.charAt(pos);
+        if (sign == 'Z' && pos + 1 == end) {
+            return;
+        }
+        if ((sign == '+' || sign == '-') && pos + 6 == end) {
+            final int hours = digit(literal, pos + 1, start, end) * 10 + digit(literal, pos + 2, start, end);
+            expect(literal, pos + 3, ':', start, end);
+            final int minutes = digit(literal, pos + 4, start, end) * 10 + digit(literal, pos + 5, start, end);
+            if (hours < 24 && minutes < 60) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Cannot parse timestamp " + text(literal, start, end));
+    }
+
+    /**
+     * Parses <tt>yyyy-MM-ddTHH:mm[:ss[.fffffffff]][Z|&plusmn;hh:mm]</tt>.
+     */
+    private static ODataTimestamp parseTimestamp(final EdmSimpleType type, final CharSequence literal,
+            final int start, final int end) {
+
+        // year, month, day, hour, minute, second
+        final int[] fields = new int[6];
+
+        int pos = start;
+        for (int field = 0; field < fields.length; field++) {
+            if (field > 0) {
+                // seconds are optional
+                if (field == fields.length - 1 && (pos == end || literal.charAt(pos) != ':')) {
+                    break;
+                }
+                pos = expect(literal, pos, field < 3 ? '-' : field == 3 ? 'T' : ':', start, end);
+            }
+
+            int value = digit(literal, pos++, start, end);
+            while (pos < end && literal.charAt(pos) >= '0' && literal.charAt(pos) <= '9') {
+                value = value * 10 + literal.charAt(pos++) - '0';
+            }
+            fields[field] = value;
+        }
+
+        int nanos = 0;
+        if (pos < end && literal.charAt(pos) == '.') {
+            pos++;
+            int digits = 0;
+            while (pos < end && literal.charAt(pos) >= '0' && literal.charAt(pos) <= '9') {
+                if (digits < NANOS_DIGITS) {
+                    nanos = nanos * 10 + literal.charAt(pos) - '0';
+                    digits++;
+                }
+                pos++;
+            }
+            if (digits == 0) {
+                throw new IllegalArgumentException("Cannot parse timestamp " + text(literal, start, end));
+            }
+            for (; digits < NANOS_DIGITS; digits++) {
+                nanos *= 10;
+            }
+        }
+
+        if (pos < end) {
+            checkTimezone(literal, pos, start, end);
+        }
+
+        final Calendar calendar = CALENDAR.get();
+        calendar.clear();
+        calendar.set(fields[0], fields[1] - 1, fields[2], fields[3], fields[4], fields[5]);
+
+        final Timestamp timestamp;
+        try {
+            // the calendar is not lenient: out of range fields are rejected here
+            timestamp = new Timestamp(calendar.getTimeInMillis());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cannot parse timestamp " + text(literal, start, end), e);
+        }
+        timestamp.setNanos(nanos);
+
+        return new ODataTimestamp(timestamp, pos < end ? text(literal, pos, end) : null,
+                type == EdmSimpleType.DateTimeOffset);
+    }
+
+    /**
+     * Appends the given non-negative value, left padded with zeros up to the given number of digits.
+     */
+    private static void pad(final int value, final int digits, final StringBuilder buffer) {
+        int limit = 1;
+        for (int i = 1; i < digits; i++) {
+            limit *= 10;
+        }
+        for (; limit > 1 && value < limit; limit /= 10) {
+            buffer.append('0');
+        }
+        buffer.append(value);
+    }
+
+    private static void formatTimestamp(final ODataTimestamp value, final StringBuilder buffer) {
+        final Timestamp timestamp = value.getTimestamp();
+
+        final Calendar calendar = CALENDAR.get();
+        calendar.setTimeInMillis(timestamp.getTime());
+
+        pad(calendar.get(Calendar.YEAR), 4, buffer);
+        buffer.append('-');
+        pad(calendar.get(Calendar.MONTH) + 1, 2, buffer);
+        buffer.append('-');
+        pad(calendar.get(Calendar.DAY_OF_MONTH), 2, buffer);
+        buffer.append('T');
+        pad(calendar.get(Calendar.HOUR_OF_DAY), 2, buffer);
+        buffer.append(':');
+        pad(calendar.get(Calendar.MINUTE), 2, buffer);
+        buffer.append(':');
+        pad(calendar.get(Calendar.SECOND), 2, buffer);
+
+        int nanos = timestamp.getNanos();
+        if (nanos > 0) {
+            int digits = NANOS_DIGITS;
+            while (nanos % 10 == 0) {
+                nanos /= 10;
+                digits--;
+            }
+            buffer.append('.');
+            pad(nanos, digits, buffer);
+        }
+
+        if (value.getTimezone() != null) {
+            buffer.append(value.getTimezone());
+        }
+    }
+
+    private static int hex(final CharSequence literal, final int pos, final int start, final int end) {
+        final char chr = literal.charAt(pos);
+        final int value = Character.digit(chr, 16);
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid GUID: " + text(literal, start, end));
+        }
+        return value;
+    }
+
+    private static long hex(final CharSequence literal, final int from, final int to,
+            final int start, final int end) {
+
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = (value << 4) | hex(literal, i, start, end);
+        }
+        return value;
+    }
+
+    private static UUID parseGuid(final CharSequence literal, final int start, final int end) {
+        // canonical form is 8-4-4-4-12 hex digits; anything else is left to UUID.fromString()
+        if (end - start != 36 || literal.charAt(start + 8) != '-' || literal.charAt(start + 13) != '-'
+                || literal.charAt(start + 18) != '-' || literal.charAt(start + 23) != '-') {
+
+            return UUID.fromString(text(literal, start, end));
+        }
+
+        final long mostSigBits = hex(literal, start, start + 8, start, end) << 32
+                | hex(literal, start + 9, start + 13, start, end) << 16
+                | hex(literal, start + 14, start + 18, start, end);
+        final long leastSigBits = hex(literal, start + 19, start + 23, start, end) << 48
+                | hex(literal, start + 24, start + 36, start, end);
+
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    private static void formatHex(final long value, final int digits, final StringBuilder buffer) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            buffer.append(HEX_DIGITS[(int) (value >>> shift) & 0xF]);
+        }
+    }
+
+    private static void formatGuid(final UUID value, final StringBuilder buffer) {
+        final long mostSigBits = value.getMostSignificantBits();
+        final long leastSigBits = value.getLeastSignificantBits();
+
+        formatHex(mostSigBits >>> 32, 8, buffer);
+        buffer.append('-');
+        formatHex(mostSigBits >>> 16, 4, buffer);
+        buffer.append('-');
+        formatHex(mostSigBits, 4, buffer);
+        buffer.append('-');
+        formatHex(leastSigBits >>> 48, 4, buffer);
+        buffer.append('-');
+        formatHex(leastSigBits, 12, buffer);
+    }
+
+    private static int base64Value(final char chr) {
+        return chr < BASE64_VALUES.length ? BASE64_VALUES[chr] : -1;
+    }
+
+    /**
+     * Decodes both standard and URL-safe Base64, ignoring any character outside the alphabet (as line breaks) and
+     * stopping at the first padding character.
+     */
+    private static byte[] parseBase64(final CharSequence literal, final int start, final int end) {
+        int count = 0;
+        for (int i = start; i < end && literal.charAt(i) != '='; i++) {
+            if (base64Value(literal.charAt(i)) >= 0) {
+                count++;
+            }
+        }
+
+        final byte[] decoded = new byte[count * 6 / 8];
+
+        int bits = 0;
+        int accumulator = 0;
+        int pos = 0;
+        for (int i = start; i < end && pos < decoded.length; i++) {
+            final int value = base64Value(literal.charAt(i));
+            if (value >= 0) {
+                accumulator = (accumulator << 6) | value;
+                bits += 6;
+                if (bits >= 8) {
+                    bits -= 8;
+                    decoded[pos++] = (byte) (accumulator >> bits);
+                    accumulator &= (1 << bits) - 1;
+                }
+            }
+        }
+
+        return decoded;
+    }
+
+    private static void formatBase64(final byte[] value, final StringBuilder buffer) {
+        buffer.ensureCapacity(buffer.length() + (value.length + 2) / 3 * 4);
+
+        int i = 0;
+        for (; i + 2 < value.length; i += 3) {
+            final int chunk = (value[i] & 0xFF) << 16 | (value[i + 1] & 0xFF) << 8 | (value[i + 2] & 0xFF);
+            buffer.append(BASE64_ALPHABET[chunk >> 18]).append(BASE64_ALPHABET[(chunk >> 12) & 0x3F]).
+                    append(BASE64_ALPHABET[(chunk >> 6) & 0x3F]).append(BASE64_ALPHABET[chunk & 0x3F]);
+        }
+
+        final int remaining = value.length - i;
+        if (remaining == 1) {
+            final int chunk = (value[i] & 0xFF) << 16;
+            buffer.append(BASE64_ALPHABET[chunk >> 18]).append(BASE64_ALPHABET[(chunk >> 12) & 0x3F]).
+                    append("==");
+        } else if (remaining == 2) {
+            final int chunk = (value[i] & 0xFF) << 16 | (value[i + 1] & 0xFF) << 8;
+            buffer.append(BASE64_ALPHABET[chunk >> 18]).append(BASE64_ALPHABET[(chunk >> 12) & 0x3F]).
+                    append(BASE64_ALPHABET[(chunk >> 6) & 0x3F]).append('=');
+        }
+    }
+
+    /**
+     * ASCII view over a byte range, for literals of non-string types.
+     */
+    private static final class AsciiSequence implements CharSequence {
+
+        private final byte[] bytes;
+
+        private final int offset;
+
+        private final int length;
+
+        AsciiSequence(final byte[] bytes) {
+            this(bytes, 0, bytes.length);
+        }
+
+        AsciiSequence(final byte[] bytes, final int offset, final int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return (char) (bytes[offset + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return new AsciiSequence(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, offset, length, UTF8);
+        }
+    }
+}
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.data;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.data.metadata.EdmMetadata;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -37,6 +38,8 @@ public class ODataObjectWrapper {
 
     private final String format;
 
+    private final ODataClient client;
+
     /**
      * Constructor.
      *
@@ -45,9 +48,22 @@ public class ODataObjectWrapper {
      * <tt>ODataServiceDocumentFormat</tt>).
      */
     public ODataObjectWrapper(final InputStream is, final String format) {
+        this(is, format, ODataClient.fromConfiguration());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param is source input stream.
+     * @param format source format (<tt>ODataPubFormat</tt>, <tt>ODataFormat</tt>, <tt>ODataValueFormat</tt>,
+     * <tt>ODataServiceDocumentFormat</tt>).
+     * @param client OData client, whose settings are followed when parsing.
+     */
+    public ODataObjectWrapper(final InputStream is, final String format, final ODataClient client) {
         try {
             this.obj = IOUtils.toByteArray(is);
             this.format = format;
+            this.client = client;
         } catch (IOException e) {
             throw new IllegalArgumentException(e);
         }
@@ -61,7 +77,7 @@ public class ODataObjectWrapper {
      * @return <tt>ODataEntitySetIterator</tt> if success; null otherwise.
      */
     public ODataEntitySetIterator getODataEntitySetIterator() {
-        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataEntitySetIterator.class);
+        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataEntitySetIterator.class, client);
     }
 
     /**
@@ -70,7 +86,7 @@ public class ODataObjectWrapper {
      * @return <tt>ODataEntitySet</tt> if success; null otherwise.
      */
     public ODataEntitySet getODataEntitySet() {
-        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataEntitySet.class);
+        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataEntitySet.class, client);
     }
 
     /**
@@ -79,7 +95,7 @@ public class ODataObjectWrapper {
      * @return <tt>ODataEntity</tt> if success; null otherwise.
      */
     public ODataEntity getODataEntity() {
-        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataEntity.class);
+        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataEntity.class, client);
     }
 
     /**
@@ -88,7 +104,7 @@ public class ODataObjectWrapper {
      * @return <tt>ODataProperty</tt> if success; null otherwise.
      */
     public ODataProperty getODataProperty() {
-        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataProperty.class);
+        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataProperty.class, client);
     }
 
     /**
@@ -97,7 +113,7 @@ public class ODataObjectWrapper {
      * @return <tt>ODataLinkCollection</tt> if success; null otherwise.
      */
     public ODataLinkCollection getODataLinkCollection() {
-        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataLinkCollection.class);
+        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataLinkCollection.class, client);
     }
 
     /**
@@ -106,7 +122,7 @@ public class ODataObjectWrapper {
      * @return <tt>ODataValue</tt> if success; null otherwise.
      */
     public ODataValue getODataValue() {
-        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataValue.class);
+        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataValue.class, client);
     }
 
     /**
@@ -115,7 +131,7 @@ public class ODataObjectWrapper {
      * @return <tt>EdmMetadata</tt> if success; null otherwise.
      */
     public EdmMetadata getEdmMetadata() {
-        return ODataReader.read(new ByteArrayInputStream(obj), null, EdmMetadata.class);
+        return ODataReader.read(new ByteArrayInputStream(obj), null, EdmMetadata.class, client);
     }
 
     /**
@@ -124,7 +140,7 @@ public class ODataObjectWrapper {
      * @return <tt>ODataServiceDocument</tt> if success; null otherwise.
      */
     public ODataServiceDocument getODataServiceDocument() {
-        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataServiceDocument.class);
+        return ODataReader.read(new ByteArrayInputStream(obj), format, ODataServiceDocument.class, client);
     }
 
     /**
@@ -133,6 +149,6 @@ public class ODataObjectWrapper {
      * @return <tt>ODataError</tt> if success; null otherwise.
      */
     public ODataError getODataError() {
-        return ODataReader.read(new ByteArrayInputStream(obj), null, ODataError.class);
+        return ODataReader.read(new ByteArrayInputStream(obj), null, ODataError.class, client);
     }
 }
@@ -20,15 +20,11 @@
 package com.msopentech.odatajclient.engine.data;
 
 import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
-import java.math.BigDecimal;
-import java.net.URI;
 import java.sql.Timestamp;
-import java.text.DecimalFormat;
 import java.util.Date;
-import java.util.UUID;
 import javax.xml.datatype.Duration;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 /**
  * OData primitive property value.
@@ -42,14 +38,11 @@ public class ODataPrimitiveValue extends ODataValue {
      */
     public static class Builder {
 
-        private final ODataPrimitiveValue opv;
+        private String text;
 
-        /**
-         * Constructor.
-         */
-        public Builder() {
-            this.opv = new ODataPrimitiveValue();
-        }
+        private Object value;
+
+        private EdmSimpleType type;
 
         /**
          * Sets the given value provided as a text.
@@ -58,7 +51,7 @@ public class ODataPrimitiveValue extends ODataValue {
          * @return the current builder.
          */
         public Builder setText(final String text) {
-            this.opv.text = text;
+            this.text = text;
             return this;
         }
 
@@ -69,7 +62,7 @@ public class ODataPrimitiveValue extends ODataValue {
          * @return the current builder.
          */
         public Builder setValue(final Object value) {
-            this.opv.value = value;
+            this.value = value;
             return this;
         }
 
@@ -84,66 +77,88 @@ public class ODataPrimitiveValue extends ODataValue {
                 throw new IllegalArgumentException("Cannot build a primitive value for "
                         + EdmSimpleType.Stream.toString());
             }
-            this.opv.type = type;
+            this.type = type;
             return this;
         }
 
         /**
          * Builds the primitive value.
+         * <br/>
+         * Numeric and boolean values are parsed right away and stored unboxed; any other value only keeps the form
+         * it was provided in (text or object), the other one being derived when first requested.
          *
          * @return <code>ODataPrimitiveValue</code> object.
          */
         public ODataPrimitiveValue build() {
-            if (this.opv.text == null && this.opv.value == null) {
+            if (this.text == null && this.value == null) {
                 throw new IllegalArgumentException("Must provide either text or value");
             }
-            if (this.opv.text != null && this.opv.value != null) {
+            if (this.text != null && this.value != null) {
                 throw new IllegalArgumentException("Cannot provide both text and value");
             }
 
-            if (this.opv.type == null) {
-                this.opv.type = EdmSimpleType.String;
+            if (this.type == null) {
+                this.type = EdmSimpleType.String;
             }
 
-            if (this.opv.type.isGeospatial()) {
+            if (this.type.isGeospatial()) {
                 throw new IllegalArgumentException(
                         "Use " + ODataGeospatialValue.class.getSimpleName() + " for geospatial types");
             }
 
-            if (this.opv.value instanceof Timestamp) {
-                this.opv.value = ODataTimestamp.getInstance(this.opv.type, (Timestamp) this.opv.value);
-            } else if (this.opv.value instanceof Date) {
-                this.opv.value = ODataTimestamp.getInstance(this.opv.type,
-                        new Timestamp(((Date) this.opv.value).getTime()));
+            if (this.value instanceof Timestamp) {
+                this.value = ODataTimestamp.getInstance(this.type, (Timestamp) this.value);
+            } else if (this.value instanceof Date) {
+                this.value = ODataTimestamp.getInstance(this.type, new Timestamp(((Date) this.value).getTime()));
             }
-            if (this.opv.value instanceof Duration) {
-                this.opv.value = new ODataDuration((Duration) this.opv.value);
+            if (this.value instanceof Duration) {
+                this.value = new ODataDuration((Duration) this.value);
             }
 
-            if (this.opv.value != null && !this.opv.type.javaType().isAssignableFrom(this.opv.value.getClass())) {
-                throw new IllegalArgumentException("Provided value is not compatible with " + this.opv.type.toString());
+            if (this.value != null && !this.type.javaType().isAssignableFrom(this.value.getClass())) {
+                throw new IllegalArgumentException("Provided value is not compatible with " + this.type.toString());
             }
 
-            if (this.opv.text != null) {
-                this.opv.parseText();
-            }
-            if (this.opv.value != null) {
-                this.opv.formatValue();
+            final ODataPrimitiveValue opv;
+            switch (this.type) {
+                case Boolean:
+                case SByte:
+                case Byte:
+                case Int16:
+                case Int32:
+                case Int64:
+                    opv = new IntegralValue(this.type, this.text == null
+                            ? ODataLiteralCodec.toLong(this.value)
+                            : ODataLiteralCodec.parseIntegral(this.type, this.text));
+                    break;
+
+                case Single:
+                case Double:
+                    opv = new FloatingValue(this.type, this.text == null
+                            ? ((Number) this.value).doubleValue()
+                            : ODataLiteralCodec.parseFloating(this.type, this.text));
+                    break;
+
+                default:
+                    opv = new ODataPrimitiveValue();
+                    opv.type = this.type;
+                    opv.text = this.text;
+                    opv.value = this.value;
             }
 
-            return this.opv;
+            return opv;
         }
     }
 
     /**
-     * Text value.
+     * Text value; if null, derived from <tt>value</tt> when first requested.
      */
-    private String text;
+    private volatile String text;
 
     /**
-     * Actual value.
+     * Actual value; if null, derived from <tt>text</tt> when first requested.
      */
-    protected Object value;
+    protected volatile Object value;
 
     /**
      * Value type.
@@ -160,145 +175,13 @@ public class ODataPrimitiveValue extends ODataValue {
     }
 
     /**
-     * Parses given text as object value.
-     */
-    private void parseText() {
-        switch (this.type) {
-            case Null:
-                this.value = null;
-                break;
-
-            case Binary:
-                this.value = Base64.decodeBase64(this.toString());
-                break;
-
-            case SByte:
-                this.value = Byte.parseByte(this.toString());
-                break;
-
-            case Boolean:
-                this.value = Boolean.parseBoolean(this.toString());
-                break;
-
-            case DateTime:
-            case DateTimeOffset:
-                this.value = ODataTimestamp.parse(this.type, this.toString());
-                break;
-
-            case Time:
-                this.value = new ODataDuration(this.toString());
-                break;
-
-            case Decimal:
-                this.value = new BigDecimal(this.toString());
-                break;
-
-            case Single:
-                this.value = Float.parseFloat(this.toString());
-                break;
-
-            case Double:
-                this.value = Double.parseDouble(this.toString());
-                break;
-
-            case Guid:
-                this.value = UUID.fromString(this.toString());
-                break;
-
-            case Int16:
-                this.value = Short.parseShort(this.toString());
-                break;
-
-            case Byte:
-            case Int32:
-                this.value = Integer.parseInt(this.toString());
-                break;
-
-            case Int64:
-                this.value = Long.parseLong(this.toString());
-                break;
-
-            case Stream:
-                this.value = URI.create(this.toString());
-                break;
-
-            case String:
-                this.value = this.toString();
-                break;
-
-            default:
-        }
-    }
-
-    /**
-     * Format given value as text.
+     * Constructor for values not using <tt>text</tt> and <tt>value</tt>.
+     *
+     * @param type value type.
      */
-    private void formatValue() {
-        switch (this.type) {
-            case Null:
-                this.text = StringUtils.EMPTY;
-                break;
-
-            case Binary:
-                this.text = Base64.encodeBase64String(this.<byte[]>toCastValue());
-                break;
-
-            case SByte:
-                this.text = this.<Byte>toCastValue().toString();
-                break;
-
-            case Boolean:
-                this.text = this.<Boolean>toCastValue().toString();
-                break;
-
-            case DateTime:
-            case DateTimeOffset:
-                this.text = this.<ODataTimestamp>toCastValue().toString();
-                break;
-
-            case Time:
-                this.text = this.<ODataDuration>toCastValue().toString();
-                break;
-
-            case Decimal:
-                this.text = new DecimalFormat(this.type.pattern()).format(this.<BigDecimal>toCastValue());
-                break;
-
-            case Single:
-                this.text = new DecimalFormat(this.type.pattern()).format(this.<Float>toCastValue());
-                break;
-
-            case Double:
-                this.text = new DecimalFormat(this.type.pattern()).format(this.<Double>toCastValue());
-                break;
-
-            case Guid:
-                this.text = this.<UUID>toCastValue().toString();
-                break;
-
-            case Int16:
-                this.text = this.<Short>toCastValue().toString();
-                break;
-
-            case Byte:
-            case Int32:
-                this.text = this.<Integer>toCastValue().toString();
-                break;
-
-            case Int64:
-                this.text = this.<Long>toCastValue().toString();
-                break;
-
-            case Stream:
-                this.text = this.<URI>toCastValue().toASCIIString();
-                break;
-
-            case String:
-                this.text = this.<String>toCastValue();
-                break;
-
-            default:
-        }
+    ODataPrimitiveValue(final EdmSimpleType type) {
+        super();
+        this.type = type;
     }
 
     /**
@@ -315,7 +198,12 @@ public class ODataPrimitiveValue extends ODataValue {
      */
     @Override
     public String toString() {
-        return this.text;
+        String result = this.text;
+        if (result == null && this.value != null) {
+            result = ODataLiteralCodec.format(this.type, this.value);
+            this.text = result;
+        }
+        return result;
     }
 
     /**
@@ -324,7 +212,12 @@ public class ODataPrimitiveValue extends ODataValue {
      * @return
      */
     public Object toValue() {
-        return this.value;
+        Object result = this.value;
+        if (result == null && this.text != null) {
+            result = ODataLiteralCodec.parse(this.type, this.text);
+            this.value = result;
+        }
+        return result;
     }
 
     /**
@@ -337,4 +230,103 @@ public class ODataPrimitiveValue extends ODataValue {
     public <T> T toCastValue() {
         return (T) type.javaType().cast(toValue());
     }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ODataPrimitiveValue)) {
+            return false;
+        }
+
+        final ODataPrimitiveValue other = (ODataPrimitiveValue) obj;
+        return this.type == other.type && new EqualsBuilder().append(toValue(), other.toValue()).isEquals();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder().append(this.type).append(toValue()).toHashCode();
+    }
+
+    /**
+     * Boolean and integral values, stored unboxed.
+     */
+    private static final class IntegralValue extends ODataPrimitiveValue {
+
+        private static final long serialVersionUID = -4235937937452497291L;
+
+        private final long longValue;
+
+        IntegralValue(final EdmSimpleType type, final long longValue) {
+            super(type);
+            this.longValue = longValue;
+        }
+
+        @Override
+        public Object toValue() {
+            final Object result;
+            switch (this.type) {
+                case Boolean:
+                    result = Boolean.valueOf(longValue != 0);
+                    break;
+
+                case SByte:
+                    result = Byte.valueOf((byte) longValue);
+                    break;
+
+                case Int16:
+                    result = Short.valueOf((short) longValue);
+                    break;
+
+                case Int64:
+                    result = Long.valueOf(longValue);
+                    break;
+
+                default:
+                    result = Integer.valueOf((int) longValue);
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return this.type == EdmSimpleType.Boolean
+                    ? String.valueOf(longValue != 0)
+                    : Long.toString(longValue);
+        }
+    }
+
+    /**
+     * Floating point values, stored unboxed.
+     */
+    private static final class FloatingValue extends ODataPrimitiveValue {
+
+        private static final long serialVersionUID = 6904585539520335427L;
+
+        private final double doubleValue;
+
+        FloatingValue(final EdmSimpleType type, final double doubleValue) {
+            super(type);
+            this.doubleValue = doubleValue;
+        }
+
+        @Override
+        public Object toValue() {
+            return this.type == EdmSimpleType.Single
+                    ? (Object) Float.valueOf((float) doubleValue)
+                    : (Object) Double.valueOf(doubleValue);
+        }
+
+        @Override
+        public String toString() {
+            return ODataLiteralCodec.formatFloating(this.type, doubleValue);
+        }
+    }
 }
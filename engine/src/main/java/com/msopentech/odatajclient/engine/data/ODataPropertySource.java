@@ -0,0 +1,46 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data;
+
+import java.util.List;
+
+/**
+ * Source of entity properties, decoded only when first accessed.
+ *
+ * @see ODataEntity#setPropertySource(com.msopentech.odatajclient.engine.data.ODataPropertySource)
+ */
+public interface ODataPropertySource {
+
+    /**
+     * Decodes the property with the given name only, leaving any other property pending.
+     *
+     * @param name property name.
+     * @return decoded property; null if this source holds no property with the given name.
+     */
+    ODataProperty getProperty(String name);
+
+    /**
+     * Decodes all the properties held by this source, in document order; properties already decoded via
+     * <tt>getProperty()</tt> are not decoded again.
+     *
+     * @return decoded properties.
+     */
+    List<ODataProperty> getProperties();
+}
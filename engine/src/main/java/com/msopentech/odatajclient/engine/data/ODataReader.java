@@ -19,6 +19,9 @@
  */
 package com.msopentech.odatajclient.engine.data;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.data.atom.AtomStreamReader;
+import com.msopentech.odatajclient.engine.data.json.JSONStreamReader;
 import com.msopentech.odatajclient.engine.data.metadata.EdmMetadata;
 import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
 import com.msopentech.odatajclient.engine.format.ODataPubFormat;
@@ -40,6 +43,14 @@ import org.w3c.dom.NodeList;
  * Use this class to de-serialize an OData response body.
  * <p>
  * This class provides method helpers to de-serialize an entire feed, a set of entities and a single entity as well.
+ * Atom and JSON entries and feeds are read in a single pass, without building any DOM; entity properties can be
+ * decoded on first access instead, see <tt>ODataClient.Builder.setLazyProperties()</tt>. Large entity sets can be
+ * read on several threads, see <tt>ODataClient.Builder.setParallelReadThreshold()</tt>.
+ * <br/>
+ * Methods not given an <tt>ODataClient</tt> follow the global configuration.
+ *
+ * @see AtomStreamReader
+ * @see JSONStreamReader
  */
 public final class ODataReader {
 
@@ -60,7 +71,44 @@ public final class ODataReader {
      * @return de-serialized entity set.
      */
     public static ODataEntitySet readEntitySet(final InputStream input, final ODataPubFormat format) {
-        return ODataBinder.getODataEntitySet(Deserializer.toFeed(input, ResourceFactory.feedClassForFormat(format)));
+        return readEntitySet(input, format, ODataClient.fromConfiguration());
+    }
+
+    /**
+     * De-Serializes a stream into an OData entity set, following the settings of the given client.
+     *
+     * @param input stream to de-serialize.
+     * @param format de-serialize as AtomFeed or JSONFeed
+     * @param client OData client.
+     * @return de-serialized entity set.
+     */
+    public static ODataEntitySet readEntitySet(
+            final InputStream input, final ODataPubFormat format, final ODataClient client) {
+
+        return readEntitySet(input, format, client, -1);
+    }
+
+    /**
+     * De-Serializes a stream of known length into an OData entity set, following the settings of the given client.
+     * <br/>
+     * The length, if known, lets payloads below the parallel read threshold be read without being buffered.
+     *
+     * @param input stream to de-serialize.
+     * @param format de-serialize as AtomFeed or JSONFeed
+     * @param client OData client.
+     * @param length payload length in bytes, e.g. from <tt>Content-Length</tt>; -1 if unknown.
+     * @return de-serialized entity set.
+     */
+    public static ODataEntitySet readEntitySet(
+            final InputStream input, final ODataPubFormat format, final ODataClient client, final long length) {
+
+        if (client.getParallelReadThreshold() > 0) {
+            return ParallelEntitySetReader.read(input, format, client, length);
+        }
+
+        return format == ODataPubFormat.ATOM
+                ? AtomStreamReader.readEntitySet(input, client.isLazyProperties(), client.getEntitySetHeapLimit())
+                : JSONStreamReader.readEntitySet(input, client.isLazyProperties(), client.getEntitySetHeapLimit());
     }
 
     /**
@@ -71,7 +119,24 @@ public final class ODataReader {
      * @return entity de-serialized.
      */
     public static ODataEntity readEntity(final InputStream input, final ODataPubFormat format) {
-        return ODataBinder.getODataEntity(Deserializer.toEntry(input, ResourceFactory.entryClassForFormat(format)));
+        return readEntity(input, format, ODataClient.fromConfiguration());
+    }
+
+    /**
+     * Parses a stream taking care to de-serializes the first OData entity found, following the settings of the given
+     * client.
+     *
+     * @param input stream to de-serialize.
+     * @param format de-serialize as AtomEntry or JSONEntry
+     * @param client OData client.
+     * @return entity de-serialized.
+     */
+    public static ODataEntity readEntity(
+            final InputStream input, final ODataPubFormat format, final ODataClient client) {
+
+        return format == ODataPubFormat.ATOM
+                ? AtomStreamReader.readEntity(input, client.isLazyProperties())
+                : JSONStreamReader.readEntity(input, client.isLazyProperties());
     }
 
     /**
@@ -166,18 +231,36 @@ public final class ODataReader {
      * @param reference reference.
      * @return read object.
      */
-    @SuppressWarnings("unchecked")
     public static <T> T read(final InputStream src, final String format, final Class<T> reference) {
+        return read(src, format, reference, ODataClient.fromConfiguration());
+    }
+
+    /**
+     * Parses a stream into the object type specified by the given reference, following the settings of the given
+     * client.
+     *
+     * @param <V> format type (<tt>ODataPubFormat</tt>, <tt>ODataFormat</tt>, <tt>ODataValueFormat</tt>,
+     * <tt>ODataServiceDocumentFormat</tt>)
+     * @param <T> expected object type.
+     * @param src input stream.
+     * @param format format
+     * @param reference reference.
+     * @param client OData client.
+     * @return read object.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T read(
+            final InputStream src, final String format, final Class<T> reference, final ODataClient client) {
 
         Object res;
 
         try {
             if (ODataEntitySetIterator.class.isAssignableFrom(reference)) {
-                res = new ODataEntitySetIterator(src, ODataPubFormat.fromString(format));
+                res = new ODataEntitySetIterator(src, ODataPubFormat.fromString(format), client);
             } else if (ODataEntitySet.class.isAssignableFrom(reference)) {
-                res = ODataReader.readEntitySet(src, ODataPubFormat.fromString(format));
+                res = ODataReader.readEntitySet(src, ODataPubFormat.fromString(format), client);
             } else if (ODataEntity.class.isAssignableFrom(reference)) {
-                res = ODataReader.readEntity(src, ODataPubFormat.fromString(format));
+                res = ODataReader.readEntity(src, ODataPubFormat.fromString(format), client);
             } else if (ODataProperty.class.isAssignableFrom(reference)) {
                 res = ODataReader.readProperty(src, ODataFormat.fromString(format));
             } else if (ODataLinkCollection.class.isAssignableFrom(reference)) {
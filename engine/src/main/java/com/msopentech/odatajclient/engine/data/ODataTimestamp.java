@@ -22,9 +22,6 @@ package com.msopentech.odatajclient.engine.data;
 import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
 import java.io.Serializable;
 import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
@@ -38,64 +35,30 @@ public final class ODataTimestamp implements Serializable {
 
     private static final long serialVersionUID = 4053990618660356004L;
 
-    private final SimpleDateFormat sdf;
-
     private final Timestamp timestamp;
 
-    private String timezone;
+    private final String timezone;
 
     private final boolean offset;
 
     public static ODataTimestamp getInstance(final EdmSimpleType type, final Timestamp timestamp) {
-        return new ODataTimestamp(new SimpleDateFormat(type.pattern()),
-                new Date(timestamp.getTime()), timestamp.getNanos(), type == EdmSimpleType.DateTimeOffset);
+        final Timestamp copy = new Timestamp(timestamp.getTime());
+        copy.setNanos(timestamp.getNanos());
+        return new ODataTimestamp(copy, null, type == EdmSimpleType.DateTimeOffset);
     }
 
     public static ODataTimestamp parse(final EdmSimpleType type, final String input) {
-        final ODataTimestamp instance;
-
-        final String[] dateParts = input.split("\\.");
-        final SimpleDateFormat sdf = new SimpleDateFormat(type.pattern());
-        final boolean isOffset = type == EdmSimpleType.DateTimeOffset;
-
         try {
-            final Date date = sdf.parse(dateParts[0]);
-            if (dateParts.length > 1) {
-                int idx = dateParts[1].indexOf('+');
-                if (idx == -1) {
-                    idx = dateParts[1].indexOf('-');
-                }
-                if (idx == -1) {
-                    instance = new ODataTimestamp(sdf, date, Integer.parseInt(dateParts[1]), isOffset);
-                } else {
-                    instance = new ODataTimestamp(sdf, date,
-                            Integer.parseInt(dateParts[1].substring(0, idx)), dateParts[1].substring(idx), isOffset);
-                }
-            } else {
-                instance = new ODataTimestamp(sdf, date, isOffset);
-            }
+            return (ODataTimestamp) ODataLiteralCodec.parse(type, input);
         } catch (Exception e) {
             throw new IllegalArgumentException("Cannot parse " + type.pattern(), e);
         }
-
-        return instance;
-    }
-
-    private ODataTimestamp(final SimpleDateFormat sdf, final Date date, final boolean offset) {
-        this.sdf = sdf;
-        this.timestamp = new Timestamp(date.getTime());
-        this.offset = offset;
-    }
-
-    private ODataTimestamp(final SimpleDateFormat sdf, final Date date, final int nanos, final boolean offset) {
-        this(sdf, date, offset);
-        this.timestamp.setNanos(nanos);
     }
 
-    private ODataTimestamp(
-            final SimpleDateFormat sdf, final Date date, final int nanos, final String timezone, final boolean offset) {
-        this(sdf, date, nanos, offset);
+    ODataTimestamp(final Timestamp timestamp, final String timezone, final boolean offset) {
+        this.timestamp = timestamp;
         this.timezone = timezone;
+        this.offset = offset;
     }
 
     public Timestamp getTimestamp() {
@@ -115,7 +78,7 @@ public final class ODataTimestamp implements Serializable {
      */
     @Override
     public boolean equals(final Object obj) {
-        return EqualsBuilder.reflectionEquals(this, obj, "sdf");
+        return EqualsBuilder.reflectionEquals(this, obj);
     }
 
     /**
@@ -123,7 +86,7 @@ public final class ODataTimestamp implements Serializable {
      */
     @Override
     public int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this, "sdf");
+        return HashCodeBuilder.reflectionHashCode(this);
     }
 
     /**
@@ -131,13 +94,6 @@ public final class ODataTimestamp implements Serializable {
      */
     @Override
     public String toString() {
-        final StringBuilder formatted = new StringBuilder().append(sdf.format(timestamp));
-        if (timestamp.getNanos() > 0) {
-            formatted.append('.').append(String.valueOf(timestamp.getNanos()));
-        }
-        if (StringUtils.isNotBlank(timezone)) {
-            formatted.append(timezone);
-        }
-        return formatted.toString();
+        return ODataLiteralCodec.format(offset ? EdmSimpleType.DateTimeOffset : EdmSimpleType.DateTime, this);
     }
 }
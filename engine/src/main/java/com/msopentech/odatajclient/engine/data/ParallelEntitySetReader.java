@@ -0,0 +1,390 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data;
+
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.msopentech.javax.xml.stream.XMLInputFactory;
+import com.msopentech.javax.xml.stream.XMLStreamConstants;
+import com.msopentech.javax.xml.stream.XMLStreamException;
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.data.atom.AtomStreamReader;
+import com.msopentech.odatajclient.engine.data.json.JSONStreamReader;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import com.msopentech.odatajclient.engine.utils.ODataConstants;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads large entity sets on several threads.
+ * <br/>
+ * Payloads known to be smaller than the threshold are streamed to the sequential reader; otherwise up to threshold
+ * bytes are buffered, and the payload is read sequentially out of them if it turns out to be smaller. Larger
+ * payloads are buffered and scanned once for entry boundaries, without decoding anything; consecutive entries are
+ * then decoded in chunks, each chunk being wrapped as a feed of its own, while feed-level information (count, next
+ * link) is read out of what is left. Entries are returned in payload order.
+ * <br/>
+ * Chunks are decoded by the calling thread and by up to <tt>parallelism - 1</tt> tasks submitted to the given
+ * executor, so that reading completes even when the executor has no thread available.
+ *
+ * @see ODataClient#getParallelReadThreshold()
+ */
+final class ParallelEntitySetReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelEntitySetReader.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Chunks per decoding thread, so that threads stay busy even if entries differ in size.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final XMLInputFactory XML_FACTORY;
+
+    static {
+        XML_FACTORY = new InputFactoryImpl();
+        XML_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private ParallelEntitySetReader() {
+        // Empty private constructor for static utility classes
+    }
+
+    /**
+     * Reads an entity set, in parallel if the payload is large enough.
+     * <br/>
+     * Entity sets spilling entities beyond a heap limit are always streamed, since their payload is not meant to
+     * be held in memory.
+     *
+     * @param input stream to de-serialize.
+     * @param format Atom or JSON.
+     * @param client OData client providing threshold, parallelism and executor running decoding tasks.
+     * @param length payload length in bytes; -1 if unknown.
+     * @return entity set.
+     */
+    static ODataEntitySet read(final InputStream input, final ODataPubFormat format, final ODataClient client,
+            final long length) {
+
+        final int threshold = client.getParallelReadThreshold();
+        final int parallelism = client.getParallelReadParallelism();
+        final boolean lazy = client.isLazyProperties();
+        final int heapLimit = client.getEntitySetHeapLimit();
+
+        if (parallelism < 2 || heapLimit > 0 || (length >= 0 && length < threshold)) {
+            return readSequentially(input, format, lazy, heapLimit);
+        }
+
+        final byte[] payload;
+        try {
+            final ByteArrayOutputStream buffer =
+                    new ByteArrayOutputStream(length > 0 && length < Integer.MAX_VALUE ? (int) length : 4 * 1024);
+            if (IOUtils.copyLarge(input, buffer, 0, threshold) < threshold) {
+                // the whole payload has been read, and it is too small
+                return readSequentially(new ByteArrayInputStream(buffer.toByteArray()), format, lazy, heapLimit);
+            }
+            IOUtils.copyLarge(input, buffer);
+            payload = buffer.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("While reading entity set payload", e);
+        }
+
+        Layout layout = null;
+        try {
+            layout = format == ODataPubFormat.ATOM ? scanAtom(payload) : scanJSON(payload);
+        } catch (Exception e) {
+            LOG.debug("Could not find entry boundaries, reading sequentially", e);
+        }
+
+        if (layout == null || layout.size() < 2) {
+            return readSequentially(new ByteArrayInputStream(payload), format, lazy, heapLimit);
+        }
+
+        final ODataEntitySet entitySet = readSequentially(layout.skeleton(), format, lazy, heapLimit);
+        decode(layout, format, lazy, parallelism, client.getExecutor(), entitySet);
+        return entitySet;
+    }
+
+    private static ODataEntitySet readSequentially(final InputStream input, final ODataPubFormat format,
+            final boolean lazy, final int heapLimit) {
+
+        return format == ODataPubFormat.ATOM
+                ? AtomStreamReader.readEntitySet(input, lazy, heapLimit)
+                : JSONStreamReader.readEntitySet(input, lazy, heapLimit);
+    }
+
+    /**
+     * Decodes the entries of the given layout in chunks, adding them to the given entity set in document order.
+     */
+    private static void decode(final Layout layout, final ODataPubFormat format, final boolean lazy,
+            final int parallelism, final Executor executor, final ODataEntitySet entitySet) {
+
+        final int chunkCount = Math.min(layout.size(), parallelism * CHUNKS_PER_THREAD);
+        final long chunkBytes = layout.entryBytes() / chunkCount;
+
+        final List<FutureTask<List<ODataEntity>>> chunks = new ArrayList<FutureTask<List<ODataEntity>>>(chunkCount);
+        int first = 0;
+        long bytes = 0;
+        for (int i = 0; i < layout.size(); i++) {
+            bytes += layout.ends[i] - layout.starts[i];
+            if (bytes >= chunkBytes || i == layout.size() - 1) {
+                final InputStream chunk = layout.chunk(first, i);
+                chunks.add(new FutureTask<List<ODataEntity>>(new Callable<List<ODataEntity>>() {
+
+                    @Override
+                    public List<ODataEntity> call() {
+                        return readSequentially(chunk, format, lazy, 0).getEntities();
+                    }
+                }));
+                first = i + 1;
+                bytes = 0;
+            }
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        final Runnable worker = new Runnable() {
+
+            @Override
+            public void run() {
+                int index;
+                while ((index = next.getAndIncrement()) < chunks.size()) {
+                    chunks.get(index).run();
+                }
+            }
+        };
+
+        for (int i = 1; i < parallelism && i < chunks.size(); i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                LOG.debug("Decoding task rejected, will be run by the calling thread", e);
+                break;
+            }
+        }
+        worker.run();
+
+        try {
+            final DistinctEntityAppender appender = new DistinctEntityAppender(entitySet);
+            for (FutureTask<List<ODataEntity>> chunk : chunks) {
+                for (ODataEntity entity : chunk.get()) {
+                    appender.add(entity);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while decoding entity set", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalArgumentException("While decoding entity set", e.getCause());
+        }
+    }
+
+    /**
+     * Finds the entries of the given Atom feed.
+     */
+    private static Layout scanAtom(final byte[] payload) throws XMLStreamException {
+        final XMLStreamReader2 reader =
+                (XMLStreamReader2) XML_FACTORY.createXMLStreamReader(new ByteArrayInputStream(payload));
+        try {
+            reader.nextTag();
+            if (!ODataConstants.NS_ATOM.equals(reader.getNamespaceURI())
+                    || !ODataConstants.ATOM_ELEM_FEED.equals(reader.getLocalName())) {
+
+                return null;
+            }
+
+            // entries are wrapped with the same prolog and feed start tag, for namespaces and encoding to apply
+            final int headEnd = (int) reader.getLocationInfo().getEndingByteOffset();
+            final String tail = StringUtils.isEmpty(reader.getPrefix())
+                    ? "</" + reader.getLocalName() + ">"
+                    : "</" + reader.getPrefix() + ":" + reader.getLocalName() + ">";
+            final Layout layout = new Layout(payload, Arrays.copyOf(payload, headEnd), tail.getBytes(UTF8), true);
+
+            int depth = 1;
+            while (depth > 0) {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (depth == 1 && ODataConstants.NS_ATOM.equals(reader.getNamespaceURI())
+                            && ODataConstants.ATOM_ELEM_ENTRY.equals(reader.getLocalName())) {
+
+                        final long start = reader.getLocationInfo().getStartingByteOffset();
+                        reader.skipElement();
+                        layout.add(start, reader.getLocationInfo().getEndingByteOffset());
+                    } else {
+                        depth++;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+
+            return layout;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Finds the entries of the given JSON feed.
+     */
+    private static Layout scanJSON(final byte[] payload) throws IOException {
+        final JsonParser parser = JSON_FACTORY.createParser(payload);
+        try {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            final Layout layout = new Layout(payload,
+                    ("{\"" + ODataConstants.JSON_VALUE + "\":[").getBytes(UTF8), "]}".getBytes(UTF8), false);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                final JsonToken token = parser.nextToken();
+
+                if (ODataConstants.JSON_VALUE.equals(name) && token == JsonToken.START_ARRAY && layout.size() == 0) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        final long start = parser.getTokenLocation().getByteOffset();
+                        parser.skipChildren();
+                        layout.add(start, parser.getCurrentLocation().getByteOffset());
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            return layout;
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Entry boundaries within a feed payload.
+     */
+    private static class Layout {
+
+        private final byte[] payload;
+
+        /**
+         * Bytes to put before a chunk of entries, for it to be read as a feed.
+         */
+        private final byte[] head;
+
+        /**
+         * Bytes to put after a chunk of entries, for it to be read as a feed.
+         */
+        private final byte[] tail;
+
+        /**
+         * Whether the payload found between entries is to be kept when reading feed-level information.
+         */
+        private final boolean keepSeparators;
+
+        private int[] starts = new int[16];
+
+        private int[] ends = new int[16];
+
+        private int size = 0;
+
+        Layout(final byte[] payload, final byte[] head, final byte[] tail, final boolean keepSeparators) {
+            this.payload = payload;
+            this.head = head;
+            this.tail = tail;
+            this.keepSeparators = keepSeparators;
+        }
+
+        void add(final long start, final long end) {
+            if (start < 0 || end <= start || end > payload.length || (size > 0 && start < ends[size - 1])) {
+                throw new IllegalStateException("Invalid entry boundaries: " + start + ", " + end);
+            }
+
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = (int) start;
+            ends[size] = (int) end;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long entryBytes() {
+            long bytes = 0;
+            for (int i = 0; i < size; i++) {
+                bytes += ends[i] - starts[i];
+            }
+            return bytes;
+        }
+
+        /**
+         * Gets the given entries, wrapped as a feed.
+         */
+        InputStream chunk(final int first, final int last) {
+            return new SequenceInputStream(Collections.enumeration(Arrays.<InputStream>asList(
+                    new ByteArrayInputStream(head),
+                    new ByteArrayInputStream(payload, starts[first], ends[last] - starts[first]),
+                    new ByteArrayInputStream(tail))));
+        }
+
+        /**
+         * Gets the payload without entries.
+         */
+        InputStream skeleton() {
+            final ByteArrayOutputStream skeleton = new ByteArrayOutputStream(head.length + tail.length);
+            skeleton.write(payload, 0, starts[0]);
+            if (keepSeparators) {
+                for (int i = 1; i < size; i++) {
+                    skeleton.write(payload, ends[i - 1], starts[i] - ends[i - 1]);
+                }
+            }
+            skeleton.write(payload, ends[size - 1], payload.length - ends[size - 1]);
+            return new ByteArrayInputStream(skeleton.toByteArray());
+        }
+    }
+}
@@ -19,8 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.data;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.msopentech.odatajclient.engine.data.atom.AtomEntry;
 import com.msopentech.odatajclient.engine.data.atom.AtomFeed;
@@ -29,6 +28,7 @@ import com.msopentech.odatajclient.engine.data.json.JSONEntry;
 import com.msopentech.odatajclient.engine.data.json.JSONFeed;
 import com.msopentech.odatajclient.engine.data.json.JSONProperty;
 import com.msopentech.odatajclient.engine.format.ODataFormat;
+import com.msopentech.odatajclient.engine.utils.ODataCodecs;
 import com.msopentech.odatajclient.engine.utils.ODataConstants;
 import com.msopentech.odatajclient.engine.utils.XMLUtils;
 import java.io.IOException;
@@ -186,8 +186,7 @@ public final class Serializer {
 
     private static <T extends AbstractPayloadObject> void json(final T obj, final Writer writer) {
         try {
-            final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
-            mapper.writeValue(writer, obj);
+            ODataCodecs.get(ODataFormat.JSON).write(writer, obj);
         } catch (IOException e) {
             throw new IllegalArgumentException("While serializing JSON object", e);
         }
@@ -195,10 +194,9 @@ public final class Serializer {
 
     private static void json(final Element element, final Writer writer) {
         try {
-            final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
             final JSONProperty property = new JSONProperty();
             property.setContent(element);
-            mapper.writeValue(writer, property);
+            ODataCodecs.get(ODataFormat.JSON).write(writer, property);
         } catch (IOException e) {
             throw new IllegalArgumentException("While serializing JSON property", e);
         }
@@ -218,12 +216,11 @@ public final class Serializer {
     }
 
     private static void jsonLink(final ODataLink link, final Writer writer) {
-        final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        final ObjectNode uri = mapper.createObjectNode();
+        final ObjectNode uri = JsonNodeFactory.instance.objectNode();
         uri.put(ODataConstants.JSON_URL, link.getLink().toASCIIString());
 
         try {
-            mapper.writeValue(writer, uri);
+            ODataCodecs.get(ODataFormat.JSON).write(writer, uri);
         } catch (Exception e) {
             throw new IllegalArgumentException("While serializing JSON link", e);
         }
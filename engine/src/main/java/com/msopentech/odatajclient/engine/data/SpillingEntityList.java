@@ -0,0 +1,499 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * List of entities keeping at most the given number of them on heap: further entities are serialized (and
+ * deflated) to a temporary file, which is memory-mapped for reading.
+ * <br/>
+ * Spilled entities are deserialized upon each access, hence changes applied to them must be stored back via
+ * <tt>set()</tt>; the file is compacted once records replaced or removed this way outweigh the live ones.
+ * <br/>
+ * The temporary file is deleted by <tt>clear()</tt> or <tt>close()</tt>, or else once the list is garbage collected
+ * or the JVM shuts down. Lists are not thread-safe.
+ *
+ * @see com.msopentech.odatajclient.engine.client.ODataClient.Builder#setEntitySetHeapLimit(int)
+ */
+final class SpillingEntityList extends AbstractList<ODataEntity> implements RandomAccess, Closeable, Serializable {
+
+    private static final long serialVersionUID = -2913725469431736092L;
+
+    /**
+     * Size of the file regions mapped for reading.
+     */
+    private static final int WINDOW_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Minimum size of replaced or removed records for the temporary file to be compacted.
+     */
+    private static final long COMPACTION_THRESHOLD = 1024 * 1024;
+
+    private final int heapLimit;
+
+    /**
+     * Entities kept on heap; null for spilled ones.
+     */
+    private ODataEntity[] heap = new ODataEntity[16];
+
+    /**
+     * Spilled entity records: offset in file, length and hash code.
+     */
+    private long[] offsets = new long[16];
+
+    private int[] lengths = new int[16];
+
+    private int[] hashes = new int[16];
+
+    private int size = 0;
+
+    private int onHeap = 0;
+
+    private transient SpillFile spill;
+
+    private long spillSize = 0;
+
+    /**
+     * Size of the records left behind in the temporary file by replaced or removed entities.
+     */
+    private long garbage = 0;
+
+    private MappedByteBuffer window;
+
+    private long windowStart;
+
+    private final transient ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private final transient Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    private final transient Inflater inflater = new Inflater();
+
+    /**
+     * Constructor.
+     *
+     * @param heapLimit maximum number of entities to be kept on heap.
+     */
+    SpillingEntityList(final int heapLimit) {
+        this.heapLimit = heapLimit;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public ODataEntity get(final int index) {
+        checkIndex(index, size);
+        return heap[index] == null ? read(index) : heap[index];
+    }
+
+    @Override
+    public ODataEntity set(final int index, final ODataEntity entity) {
+        checkIndex(index, size);
+        final ODataEntity previous = get(index);
+        if (heap[index] == null) {
+            garbage += lengths[index];
+            write(index, notNull(entity));
+            compactIfNeeded();
+        } else {
+            heap[index] = notNull(entity);
+        }
+        return previous;
+    }
+
+    @Override
+    public void add(final int index, final ODataEntity entity) {
+        checkIndex(index, size + 1);
+        notNull(entity);
+        ensureCapacity(size + 1);
+
+        final int moved = size - index;
+        System.arraycopy(heap, index, heap, index + 1, moved);
+        System.arraycopy(offsets, index, offsets, index + 1, moved);
+        System.arraycopy(lengths, index, lengths, index + 1, moved);
+        System.arraycopy(hashes, index, hashes, index + 1, moved);
+        size++;
+        modCount++;
+
+        if (onHeap < heapLimit) {
+            heap[index] = entity;
+            onHeap++;
+        } else {
+            heap[index] = null;
+            write(index, entity);
+        }
+    }
+
+    @Override
+    public ODataEntity remove(final int index) {
+        checkIndex(index, size);
+        final ODataEntity removed = get(index);
+        if (heap[index] == null) {
+            garbage += lengths[index];
+        } else {
+            onHeap--;
+        }
+
+        final int moved = size - index - 1;
+        System.arraycopy(heap, index + 1, heap, index, moved);
+        System.arraycopy(offsets, index + 1, offsets, index, moved);
+        System.arraycopy(lengths, index + 1, lengths, index, moved);
+        System.arraycopy(hashes, index + 1, hashes, index, moved);
+        heap[--size] = null;
+        modCount++;
+        compactIfNeeded();
+
+        return removed;
+    }
+
+    /**
+     * {@inheritDoc }
+     * <br/>
+     * Spilled entities are deserialized only if their hash code matches.
+     */
+    @Override
+    public int indexOf(final Object obj) {
+        if (!(obj instanceof ODataEntity)) {
+            return -1;
+        }
+
+        final int hash = obj.hashCode();
+        for (int i = 0; i < size; i++) {
+            if (heap[i] == null ? hashes[i] == hash && read(i).equals(obj) : heap[i].equals(obj)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(final Object obj) {
+        return indexOf(obj) >= 0;
+    }
+
+    @Override
+    public boolean remove(final Object obj) {
+        final int index = indexOf(obj);
+        if (index < 0) {
+            return false;
+        }
+
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(heap, 0, size, null);
+        size = 0;
+        onHeap = 0;
+        modCount++;
+        release();
+    }
+
+    /**
+     * Removes all entities, deleting the temporary file.
+     */
+    @Override
+    public void close() {
+        clear();
+    }
+
+    private void checkIndex(final int index, final int limit) {
+        if (index < 0 || index >= limit) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static ODataEntity notNull(final ODataEntity entity) {
+        if (entity == null) {
+            throw new NullPointerException("Null entity");
+        }
+        return entity;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > heap.length) {
+            final int newCapacity = Math.max(capacity, heap.length + (heap.length >> 1));
+            heap = Arrays.copyOf(heap, newCapacity);
+            offsets = Arrays.copyOf(offsets, newCapacity);
+            lengths = Arrays.copyOf(lengths, newCapacity);
+            hashes = Arrays.copyOf(hashes, newCapacity);
+        }
+    }
+
+    /**
+     * Appends the given entity to the temporary file, as entity at the given index; records previously written for
+     * the same index are left behind, to be reclaimed by compaction.
+     */
+    private void write(final int index, final ODataEntity entity) {
+        buffer.reset();
+        deflater.reset();
+        try {
+            final DeflaterOutputStream deflated = new DeflaterOutputStream(buffer, deflater);
+            final ObjectOutputStream oos = new ObjectOutputStream(deflated);
+            oos.writeObject(entity);
+            oos.flush();
+            deflated.finish();
+
+            if (spill == null) {
+                spill = new SpillFile(this);
+            }
+
+            offsets[index] = spillSize;
+            lengths[index] = buffer.size();
+            hashes[index] = entity.hashCode();
+            spillSize = spill.write(ByteBuffer.wrap(buffer.toByteArray()), spillSize);
+        } catch (IOException e) {
+            throw new IllegalStateException("While spilling entity to temporary file", e);
+        }
+    }
+
+    /**
+     * Rewrites live records to a new temporary file, if replaced or removed ones take more than half of the current.
+     */
+    private void compactIfNeeded() {
+        if (garbage < COMPACTION_THRESHOLD || garbage <= spillSize - garbage) {
+            return;
+        }
+
+        final SpillFile compacted;
+        try {
+            compacted = new SpillFile(this);
+        } catch (IOException e) {
+            throw new IllegalStateException("While compacting " + spill.file, e);
+        }
+        try {
+            long position = 0;
+            for (int i = 0; i < size; i++) {
+                if (heap[i] == null) {
+                    final ByteBuffer record = record(i);
+                    offsets[i] = position;
+                    position = compacted.write(record, position);
+                }
+            }
+
+            spill.release();
+            spill = compacted;
+            spillSize = position;
+            garbage = 0;
+            window = null;
+        } catch (IOException e) {
+            compacted.release();
+            throw new IllegalStateException("While compacting " + spill.file, e);
+        }
+    }
+
+    /**
+     * Gets the record of the entity at the given index from the temporary file, remapping the read window if needed.
+     */
+    private ByteBuffer record(final int index) throws IOException {
+        final long offset = offsets[index];
+        final int length = lengths[index];
+
+        if (window == null || offset < windowStart || offset + length > windowStart + window.capacity()) {
+            windowStart = offset;
+            window = spill.channel().map(FileChannel.MapMode.READ_ONLY,
+                    offset, Math.min(spillSize - offset, Math.max(WINDOW_SIZE, length)));
+        }
+
+        final ByteBuffer record = window.duplicate();
+        record.position((int) (offset - windowStart));
+        record.limit(record.position() + length);
+        return record;
+    }
+
+    /**
+     * Reads the entity at the given index from the temporary file.
+     */
+    private ODataEntity read(final int index) {
+        try {
+            inflater.reset();
+            final ObjectInputStream ois =
+                    new ObjectInputStream(new InflaterInputStream(new ByteBufferInputStream(record(index)), inflater));
+            return (ODataEntity) ois.readObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("While reading spilled entity from " + spill.file, e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("While reading spilled entity from " + spill.file, e);
+        }
+    }
+
+    /**
+     * Closes and deletes the temporary file, if any.
+     */
+    private void release() {
+        window = null;
+        spillSize = 0;
+        garbage = 0;
+        if (spill != null) {
+            spill.release();
+            spill = null;
+        }
+    }
+
+    /**
+     * Serialized lists hold all entities on heap.
+     */
+    private Object writeReplace() {
+        return new ArrayList<ODataEntity>(this);
+    }
+
+    /**
+     * Temporary file holding spilled records, deleted when explicitly released or else once the owning list is no
+     * longer reachable, or at JVM shutdown.
+     */
+    private static final class SpillFile extends PhantomReference<SpillingEntityList> {
+
+        private static final ReferenceQueue<SpillingEntityList> UNREACHABLE = new ReferenceQueue<SpillingEntityList>();
+
+        /**
+         * Files not released yet; also keeps their references reachable until enqueued.
+         */
+        private static final Set<SpillFile> OPEN = Collections.synchronizedSet(new HashSet<SpillFile>());
+
+        static {
+            final Thread reaper = new Thread("odata-spill-reaper") {
+
+                @Override
+                public void run() {
+                    while (true) {
+                        try {
+                            ((SpillFile) UNREACHABLE.remove()).release();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            };
+            reaper.setDaemon(true);
+            reaper.start();
+
+            Runtime.getRuntime().addShutdownHook(new Thread("odata-spill-cleanup") {
+
+                @Override
+                public void run() {
+                    for (SpillFile spill : OPEN.toArray(new SpillFile[0])) {
+                        spill.release();
+                    }
+                }
+            });
+        }
+
+        private final File file;
+
+        private final RandomAccessFile raf;
+
+        SpillFile(final SpillingEntityList owner) throws IOException {
+            super(owner, UNREACHABLE);
+
+            this.file = File.createTempFile("odata-entities", ".spill");
+            try {
+                this.raf = new RandomAccessFile(file, "rw");
+            } catch (IOException e) {
+                file.delete();
+                throw e;
+            }
+            OPEN.add(this);
+        }
+
+        FileChannel channel() {
+            return raf.getChannel();
+        }
+
+        /**
+         * Writes the given record at the given position.
+         *
+         * @return position following the record.
+         */
+        long write(final ByteBuffer record, final long position) throws IOException {
+            long next = position;
+            while (record.hasRemaining()) {
+                next += raf.getChannel().write(record, next);
+            }
+            return next;
+        }
+
+        void release() {
+            if (OPEN.remove(this)) {
+                clear();
+                IOUtils.closeQuietly(raf);
+                file.delete();
+            }
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int off, final int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            final int read = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, read);
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
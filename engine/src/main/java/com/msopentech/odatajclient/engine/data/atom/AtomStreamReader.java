@@ -0,0 +1,1010 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data.atom;
+
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+import com.fasterxml.aalto.stax.OutputFactoryImpl;
+import com.msopentech.javax.xml.stream.XMLInputFactory;
+import com.msopentech.javax.xml.stream.XMLOutputFactory;
+import com.msopentech.javax.xml.stream.XMLStreamConstants;
+import com.msopentech.javax.xml.stream.XMLStreamException;
+import com.msopentech.javax.xml.stream.XMLStreamReader;
+import com.msopentech.odatajclient.engine.data.DistinctEntityAppender;
+import com.msopentech.odatajclient.engine.data.ODataCollectionValue;
+import com.msopentech.odatajclient.engine.data.ODataComplexValue;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataEntitySet;
+import com.msopentech.odatajclient.engine.data.ODataEntitySource;
+import com.msopentech.odatajclient.engine.data.ODataFactory;
+import com.msopentech.odatajclient.engine.data.ODataGeospatialValue;
+import com.msopentech.odatajclient.engine.data.ODataLink;
+import com.msopentech.odatajclient.engine.data.ODataOperation;
+import com.msopentech.odatajclient.engine.data.ODataPrimitiveValue;
+import com.msopentech.odatajclient.engine.data.ODataProperty;
+import com.msopentech.odatajclient.engine.data.ODataPropertySource;
+import com.msopentech.odatajclient.engine.data.ODataValue;
+import com.msopentech.odatajclient.engine.data.metadata.EdmType;
+import com.msopentech.odatajclient.engine.utils.ODataConstants;
+import com.msopentech.odatajclient.engine.utils.SymbolTable;
+import com.msopentech.odatajclient.engine.utils.URIUtils;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.codehaus.stax2.XMLStreamWriter2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Atom reader, binding <tt>ODataEntity</tt> and <tt>ODataEntitySet</tt> objects in a single pass over the given
+ * stream, without building any intermediate DOM or <tt>AtomEntry</tt> / <tt>AtomFeed</tt> representation.
+ * <br/>
+ * Bound objects are the same as the ones obtained via <tt>AtomDeserializer</tt> and <tt>ODataBinder</tt>; the only
+ * DOM fragments built are the ones of geospatial values.
+ * <br/>
+ * When reading with lazy properties, the text of each primitive property with a declared type is kept as it is, and
+ * parsed only when first accessed via <tt>ODataEntity.getProperty()</tt> or <tt>ODataEntity.getProperties()</tt>.
+ *
+ * @see com.msopentech.odatajclient.engine.data.ODataReader
+ */
+public final class AtomStreamReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AtomStreamReader.class);
+
+    private static final XMLInputFactory FACTORY;
+
+    static {
+        FACTORY = new InputFactoryImpl();
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Writes property elements buffered for lazy decoding, declaring namespaces bound on their ancestors.
+     */
+    private static final XMLOutputFactory OUTPUT_FACTORY;
+
+    static {
+        OUTPUT_FACTORY = new OutputFactoryImpl();
+        OUTPUT_FACTORY.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+    }
+
+    private static final String ATTR_BASE = "base";
+
+    private static final String ATTR_NULL = "null";
+
+    private static final String ATTR_ETAG = "etag";
+
+    private static final String ELEM_PROPERTIES = "properties";
+
+    private static final String ELEM_ACTION = "action";
+
+    private static final String ELEM_INLINE = "inline";
+
+    private static final String ELEM_COUNT = "count";
+
+    private AtomStreamReader() {
+        // Empty private constructor for static utility classes
+    }
+
+    /**
+     * Reads an OData entity set from the given Atom feed.
+     *
+     * @param input stream to be de-serialized.
+     * @return OData entity set.
+     */
+    public static ODataEntitySet readEntitySet(final InputStream input) {
+        return readEntitySet(input, false);
+    }
+
+    /**
+     * Reads an OData entity set from the given Atom feed.
+     *
+     * @param input stream to be de-serialized.
+     * @param lazyProperties whether entity properties shall be decoded only when first accessed.
+     * @return OData entity set.
+     */
+    public static ODataEntitySet readEntitySet(final InputStream input, final boolean lazyProperties) {
+        return readEntitySet(input, lazyProperties, 0);
+    }
+
+    /**
+     * Reads an OData entity set from the given Atom feed.
+     *
+     * @param input stream to be de-serialized.
+     * @param lazyProperties whether entity properties shall be decoded only when first accessed.
+     * @param heapLimit maximum number of entities kept on heap by the returned entity set; 0 to keep all entities on
+     * heap.
+     * @return OData entity set.
+     */
+    public static ODataEntitySet readEntitySet(
+            final InputStream input, final boolean lazyProperties, final int heapLimit) {
+
+        XMLStreamReader2 reader = null;
+        try {
+            reader = (XMLStreamReader2) FACTORY.createXMLStreamReader(input);
+            reader.nextTag();
+            if (!isAtom(reader, ODataConstants.ATOM_ELEM_FEED)) {
+                throw new IllegalArgumentException("Atom feed expected, found " + reader.getName());
+            }
+            return readFeed(reader, null, lazyProperties, heapLimit, new SymbolTable());
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("While deserializing Atom feed", e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    /**
+     * Opens the given Atom feed, for its entries to be read one at a time.
+     *
+     * @param input stream to be de-serialized; closed when the end of the feed is reached or the returned source
+     * is closed.
+     * @param lazyProperties whether entity properties shall be decoded only when first accessed.
+     * @return source of the feed entities.
+     */
+    public static ODataEntitySource openEntitySet(final InputStream input, final boolean lazyProperties) {
+        XMLStreamReader2 reader = null;
+        try {
+            reader = (XMLStreamReader2) FACTORY.createXMLStreamReader(input);
+            reader.nextTag();
+            if (!isAtom(reader, ODataConstants.ATOM_ELEM_FEED)) {
+                throw new IllegalArgumentException("Atom feed expected, found " + reader.getName());
+            }
+            return new FeedSource(reader, null, lazyProperties, new SymbolTable(), input);
+        } catch (XMLStreamException e) {
+            close(reader);
+            IOUtils.closeQuietly(input);
+            throw new IllegalArgumentException("While deserializing Atom feed", e);
+        } catch (RuntimeException e) {
+            close(reader);
+            IOUtils.closeQuietly(input);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads an OData entity from the given Atom entry.
+     *
+     * @param input stream to be de-serialized.
+     * @return OData entity.
+     */
+    public static ODataEntity readEntity(final InputStream input) {
+        return readEntity(input, false);
+    }
+
+    /**
+     * Reads an OData entity from the given Atom entry.
+     *
+     * @param input stream to be de-serialized.
+     * @param lazyProperties whether entity properties shall be decoded only when first accessed.
+     * @return OData entity.
+     */
+    public static ODataEntity readEntity(final InputStream input, final boolean lazyProperties) {
+        XMLStreamReader2 reader = null;
+        try {
+            reader = (XMLStreamReader2) FACTORY.createXMLStreamReader(input);
+            reader.nextTag();
+            if (!isAtom(reader, ODataConstants.ATOM_ELEM_ENTRY)) {
+                throw new IllegalArgumentException("Atom entry expected, found " + reader.getName());
+            }
+            return readEntry(reader, null, lazyProperties, new SymbolTable());
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("While deserializing Atom entry", e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    private static void close(final XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                LOG.debug("Error closing XML stream reader", e);
+            }
+        }
+    }
+
+    private static boolean isAtom(final XMLStreamReader reader, final String localName) {
+        return ODataConstants.NS_ATOM.equals(reader.getNamespaceURI()) && localName.equals(reader.getLocalName());
+    }
+
+    private static boolean isMetadata(final XMLStreamReader reader, final String localName) {
+        return ODataConstants.NS_METADATA.equals(reader.getNamespaceURI()) && localName.equals(reader.getLocalName());
+    }
+
+    /**
+     * Gets the given attribute value, as a DOM element would do.
+     *
+     * @param reader reader positioned on a start element.
+     * @param namespaceURI attribute namespace; null for no namespace.
+     * @param localName attribute local name.
+     * @return attribute value; empty string if not found.
+     */
+    private static String attribute(final XMLStreamReader reader, final String namespaceURI, final String localName) {
+        final String value = reader.getAttributeValue(namespaceURI, localName);
+        return value == null ? StringUtils.EMPTY : value;
+    }
+
+    private static URI baseURI(final XMLStreamReader reader, final URI defaultBaseURI) {
+        final String base = reader.getAttributeValue(XMLConstants.XML_NS_URI, ATTR_BASE);
+        return StringUtils.isBlank(base) ? defaultBaseURI : URI.create(base);
+    }
+
+    /**
+     * Moves to the next child element of the current element, ignoring any text, comment or processing instruction.
+     *
+     * @return 'TRUE' if positioned on a child start element; 'FALSE' if positioned on the current end element.
+     */
+    private static boolean nextElement(final XMLStreamReader reader) throws XMLStreamException {
+        int event;
+        do {
+            event = reader.next();
+        } while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT);
+
+        return event == XMLStreamConstants.START_ELEMENT;
+    }
+
+    /**
+     * Skips the current element, leaving the reader on its end element.
+     */
+    private static void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Reads the text content of the current element, as <tt>Node.getTextContent()</tt> would do, leaving the reader
+     * on its end element.
+     */
+    private static String readText(final XMLStreamReader reader) throws XMLStreamException {
+        final StringBuilder text = new StringBuilder();
+
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+
+                default:
+            }
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Builds a DOM tree out of the current element, leaving the reader on its end element.
+     */
+    private static Element readTree(final XMLStreamReader reader) throws XMLStreamException {
+        final Document doc;
+        try {
+            doc = ODataConstants.DOC_BUILDER_FACTORY.newDocumentBuilder().newDocument();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("While building DOM tree", e);
+        }
+
+        final Element root = newElement(doc, reader);
+        Node current = root;
+        while (current != null) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    current = current.appendChild(newElement(doc, reader));
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    current = current == root ? null : current.getParentNode();
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    current.appendChild(doc.createTextNode(reader.getText()));
+                    break;
+
+                default:
+            }
+        }
+
+        return root;
+    }
+
+    private static Element newElement(final Document doc, final XMLStreamReader reader) {
+        final Element element = doc.createElementNS(reader.getNamespaceURI(), qualifiedName(
+                reader.getPrefix(), reader.getLocalName()));
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.setAttributeNS(reader.getAttributeNamespace(i), qualifiedName(
+                    reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), reader.getAttributeValue(i));
+        }
+
+        return element;
+    }
+
+    private static String qualifiedName(final String prefix, final String localName) {
+        return StringUtils.isBlank(prefix) ? localName : prefix + ':' + localName;
+    }
+
+    private static ODataEntitySet readFeed(final XMLStreamReader2 reader, final URI defaultBaseURI,
+            final boolean lazyProperties, final int heapLimit, final SymbolTable symbols) throws XMLStreamException {
+
+        final FeedSource source = new FeedSource(reader, defaultBaseURI, lazyProperties, symbols, null);
+
+        final ODataEntitySet entitySet = ODataFactory.newEntitySet(null, heapLimit);
+        final DistinctEntityAppender appender = new DistinctEntityAppender(entitySet);
+        ODataEntity entity;
+        while ((entity = source.readNext()) != null) {
+            appender.add(entity);
+        }
+
+        return source.complete(entitySet);
+    }
+
+    private static ODataEntity readEntry(final XMLStreamReader2 reader, final URI defaultBaseURI,
+            final boolean lazyProperties, final SymbolTable symbols) throws XMLStreamException {
+
+        final URI base = baseURI(reader, defaultBaseURI);
+        final String etag = reader.getAttributeValue(ODataConstants.NS_METADATA, ATTR_ETAG);
+
+        String type = null;
+        String selfLink = null;
+        String editLink = null;
+        final List<ODataLink> links = new ArrayList<ODataLink>();
+        final List<ODataOperation> operations = new ArrayList<ODataOperation>();
+
+        boolean hasContent = false;
+        String mediaContentSource = null;
+        String mediaContentType = null;
+        BufferedPropertySource properties = null;
+        BufferedPropertySource mediaEntryProperties = null;
+
+        while (nextElement(reader)) {
+            if (isAtom(reader, ODataConstants.ATOM_ELEM_CATEGORY) && type == null) {
+                type = symbols.intern(attribute(reader, null, ODataConstants.ATOM_ATTR_TERM));
+                skipElement(reader);
+            } else if (isAtom(reader, ODataConstants.ATOM_ELEM_LINK)) {
+                final String rel = attribute(reader, null, ODataConstants.ATTR_REL);
+                final String title = symbols.intern(attribute(reader, null, ODataConstants.ATTR_TITLE));
+                final String href = attribute(reader, null, ODataConstants.ATTR_HREF);
+
+                if (ODataConstants.SELF_LINK_REL.equals(rel)) {
+                    selfLink = href;
+                    skipElement(reader);
+                } else if (ODataConstants.EDIT_LINK_REL.equals(rel)) {
+                    editLink = href;
+                    skipElement(reader);
+                } else if (rel.startsWith(ODataConstants.NAVIGATION_LINK_REL)) {
+                    links.add(readNavigationLink(reader, title, base, href, lazyProperties, symbols));
+                } else {
+                    if (rel.startsWith(ODataConstants.ASSOCIATION_LINK_REL)) {
+                        links.add(ODataFactory.newAssociationLink(title, base, href));
+                    } else if (rel.startsWith(ODataConstants.MEDIA_EDIT_LINK_REL)) {
+                        links.add(ODataFactory.newMediaEditLink(title, base, href));
+                    }
+                    skipElement(reader);
+                }
+            } else if (isMetadata(reader, ELEM_ACTION)) {
+                final ODataOperation operation = new ODataOperation();
+                operation.setMetadataAnchor(symbols.intern(attribute(reader, null, ODataConstants.ATTR_METADATA)));
+                operation.setTitle(symbols.intern(attribute(reader, null, ODataConstants.ATTR_TITLE)));
+                operation.setTarget(URIUtils.getURI(base, attribute(reader, null, ODataConstants.ATTR_TARGET)));
+                operations.add(operation);
+                skipElement(reader);
+            } else if (isAtom(reader, ODataConstants.ATOM_ELEM_CONTENT) && !hasContent) {
+                hasContent = true;
+                mediaContentSource = attribute(reader, null, ODataConstants.ATOM_ATTR_SRC);
+                mediaContentType = symbols.intern(attribute(reader, null, ODataConstants.ATTR_TYPE));
+
+                while (nextElement(reader)) {
+                    if (isMetadata(reader, ELEM_PROPERTIES) && properties == null) {
+                        properties = readProperties(reader, lazyProperties, symbols);
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+            } else if (isMetadata(reader, ELEM_PROPERTIES) && mediaEntryProperties == null) {
+                mediaEntryProperties = readProperties(reader, lazyProperties, symbols);
+            } else {
+                skipElement(reader);
+            }
+        }
+
+        final ODataEntity entity = selfLink == null
+                ? ODataFactory.newEntity(type)
+                : ODataFactory.newEntity(type, URIUtils.getURI(base, selfLink));
+
+        if (StringUtils.isNotBlank(etag)) {
+            entity.setETag(etag);
+        }
+
+        if (editLink != null) {
+            entity.setEditLink(URIUtils.getURI(base, editLink));
+        }
+
+        for (ODataLink link : links) {
+            entity.addLink(link);
+        }
+
+        for (ODataOperation operation : operations) {
+            entity.addOperation(operation);
+        }
+
+        if (hasContent && properties == null) {
+            if (mediaEntryProperties != null || StringUtils.isNotBlank(mediaContentSource)) {
+                entity.setMediaEntity(true);
+                entity.setMediaContentSource(mediaContentSource);
+                entity.setMediaContentType(mediaContentType);
+                properties = mediaEntryProperties;
+            }
+        }
+
+        if (properties != null) {
+            if (lazyProperties) {
+                entity.setPropertySource(properties);
+            } else {
+                for (ODataProperty property : properties.getProperties()) {
+                    entity.addProperty(property);
+                }
+            }
+        }
+
+        return entity;
+    }
+
+    private static ODataLink readNavigationLink(final XMLStreamReader2 reader, final String title, final URI base,
+            final String href, final boolean lazyProperties, final SymbolTable symbols) throws XMLStreamException {
+
+        ODataEntity inlineEntity = null;
+        ODataEntitySet inlineEntitySet = null;
+
+        boolean inlineFound = false;
+        while (nextElement(reader)) {
+            if (isMetadata(reader, ELEM_INLINE) && !inlineFound) {
+                inlineFound = true;
+
+                while (nextElement(reader)) {
+                    if (isAtom(reader, ODataConstants.ATOM_ELEM_ENTRY) && inlineEntity == null) {
+                        inlineEntity = readEntry(reader, base, lazyProperties, symbols);
+                    } else if (isAtom(reader, ODataConstants.ATOM_ELEM_FEED) && inlineEntitySet == null) {
+                        inlineEntitySet = readFeed(reader, base, lazyProperties, 0, symbols);
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+            } else {
+                skipElement(reader);
+            }
+        }
+
+        final ODataLink link;
+        if (inlineEntitySet != null) {
+            link = ODataFactory.newInlineEntitySet(title, base, href, inlineEntitySet);
+        } else if (inlineEntity != null) {
+            link = ODataFactory.newInlineEntity(title, base, href, inlineEntity);
+        } else {
+            link = ODataFactory.newEntityNavigationLink(title, base, href);
+        }
+        return link;
+    }
+
+    /**
+     * Reads all properties of the current <tt>m:properties</tt> element; properties that cannot be read are skipped.
+     * <br/>
+     * When reading with lazy properties, parsing of primitive values with a declared type is deferred, and any other
+     * non-null value is buffered as XML, to be parsed on first access.
+     */
+    private static BufferedPropertySource readProperties(final XMLStreamReader2 reader, final boolean lazyProperties,
+            final SymbolTable symbols) throws XMLStreamException {
+
+        final BufferedPropertySource properties = new BufferedPropertySource(symbols);
+
+        while (nextElement(reader)) {
+            final String name = reader.getLocalName();
+            final int depth = reader.getDepth();
+            try {
+                final EdmType deferredType = lazyProperties ? deferrableType(reader, symbols) : null;
+                if (deferredType != null) {
+                    properties.add(name, deferredType, readText(reader));
+                } else if (lazyProperties && reader.getAttributeValue(ODataConstants.NS_METADATA, ATTR_NULL) == null) {
+                    properties.add(name, readElement(reader, depth));
+                } else {
+                    properties.add(readProperty(reader, symbols));
+                }
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Failure retrieving EdmType for {}", name, e);
+
+                while (reader.getEventType() != XMLStreamConstants.END_ELEMENT || reader.getDepth() > depth) {
+                    reader.next();
+                }
+            }
+        }
+
+        return properties;
+    }
+
+    /**
+     * Gets the declared type of the current property element, if its value is primitive and can be parsed later out
+     * of the element text only.
+     *
+     * @return declared simple type; null if the value has to be read right away.
+     */
+    private static EdmType deferrableType(final XMLStreamReader reader, final SymbolTable symbols) {
+        if (reader.getAttributeValue(ODataConstants.NS_METADATA, ATTR_NULL) != null) {
+            return null;
+        }
+
+        final EdmType edmType =
+                symbols.getType(reader.getAttributeValue(ODataConstants.NS_METADATA, ODataConstants.ATTR_TYPE));
+        return edmType != null && !edmType.isCollection() && edmType.isSimpleType() && !isGeospatial(edmType)
+                ? edmType
+                : null;
+    }
+
+    /**
+     * Copies the current element, up to its end, as a standalone XML fragment.
+     */
+    private static String readElement(final XMLStreamReader2 reader, final int depth) throws XMLStreamException {
+        final StringWriter xml = new StringWriter();
+        final XMLStreamWriter2 writer = (XMLStreamWriter2) OUTPUT_FACTORY.createXMLStreamWriter(xml);
+
+        writer.copyEventFromReader(reader, false);
+        do {
+            reader.next();
+            writer.copyEventFromReader(reader, false);
+        } while (reader.getEventType() != XMLStreamConstants.END_ELEMENT || reader.getDepth() > depth);
+        writer.close();
+
+        return xml.toString();
+    }
+
+    private static ODataProperty readProperty(final XMLStreamReader reader, final SymbolTable symbols)
+            throws XMLStreamException {
+
+        final String name = reader.getLocalName();
+
+        if (reader.getAttributeValue(ODataConstants.NS_METADATA, ATTR_NULL) != null) {
+            skipElement(reader);
+            return ODataFactory.newPrimitiveProperty(name, null);
+        }
+
+        final EdmType edmType =
+                symbols.getType(reader.getAttributeValue(ODataConstants.NS_METADATA, ODataConstants.ATTR_TYPE));
+
+        final ODataProperty property;
+        if (edmType == null) {
+            final ODataValue value = readValue(reader, null, true, symbols);
+            if (value instanceof ODataCollectionValue) {
+                property = ODataFactory.newCollectionProperty(name, (ODataCollectionValue) value);
+            } else if (value instanceof ODataComplexValue) {
+                property = ODataFactory.newComplexProperty(name, (ODataComplexValue) value);
+            } else {
+                property = ODataFactory.newPrimitiveProperty(name, (ODataPrimitiveValue) value);
+            }
+        } else if (edmType.isCollection()) {
+            final ODataCollectionValue value = new ODataCollectionValue(edmType.getTypeExpression());
+            readCollectionItems(reader, value, symbols.getItemType(edmType), symbols);
+            property = ODataFactory.newCollectionProperty(name, value);
+        } else if (edmType.isSimpleType()) {
+            property = ODataFactory.newPrimitiveProperty(name, readPrimitiveValue(reader, edmType));
+        } else {
+            final ODataComplexValue value = new ODataComplexValue(edmType.getTypeExpression());
+            readComplexFields(reader, value, symbols);
+            property = ODataFactory.newComplexProperty(name, value);
+        }
+
+        return property;
+    }
+
+    private static void readComplexFields(final XMLStreamReader reader, final ODataComplexValue value,
+            final SymbolTable symbols) throws XMLStreamException {
+
+        while (nextElement(reader)) {
+            value.add(readProperty(reader, symbols));
+        }
+    }
+
+    private static void readCollectionItems(
+            final XMLStreamReader reader, final ODataCollectionValue value, final EdmType itemType,
+            final SymbolTable symbols) throws XMLStreamException {
+
+        while (nextElement(reader)) {
+            readCollectionItem(reader, value, itemType, symbols);
+        }
+    }
+
+    private static void readCollectionItem(
+            final XMLStreamReader reader, final ODataCollectionValue value, final EdmType itemType,
+            final SymbolTable symbols) throws XMLStreamException {
+
+        final ODataValue item = readValue(reader, itemType, false, symbols);
+        // do not add null or empty values
+        if (item != null) {
+            value.add(item);
+        }
+    }
+
+    /**
+     * Reads the value of the current element, guessing its kind from content: complex (or collection, if allowed)
+     * when a non-GML child element is found, primitive otherwise.
+     *
+     * @return read value; null if the element is empty.
+     */
+    private static ODataValue readValue(final XMLStreamReader reader, final EdmType type,
+            final boolean collectionAllowed, final SymbolTable symbols) throws XMLStreamException {
+
+        final boolean geospatial = isGeospatial(type);
+        final StringBuilder text = new StringBuilder();
+        Element tree = null;
+        boolean empty = true;
+
+        int event;
+        while ((event = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    empty = false;
+                    if (ODataConstants.NS_GML.equals(reader.getNamespaceURI())) {
+                        if (geospatial && tree == null) {
+                            tree = readTree(reader);
+                        } else {
+                            text.append(readText(reader));
+                        }
+                    } else if (collectionAllowed && ODataConstants.ELEM_ELEMENT.equals(reader.getLocalName())) {
+                        final ODataCollectionValue value = new ODataCollectionValue(null);
+                        readCollectionItem(reader, value, null, symbols);
+                        readCollectionItems(reader, value, null, symbols);
+                        return value;
+                    } else {
+                        final ODataComplexValue value =
+                                new ODataComplexValue(type == null ? null : type.getTypeExpression());
+                        value.add(readProperty(reader, symbols));
+                        readComplexFields(reader, value, symbols);
+                        return value;
+                    }
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    empty = false;
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+
+                default:
+                    empty = false;
+            }
+        }
+
+        return empty ? null : newPrimitiveValue(type, text.toString(), tree);
+    }
+
+    private static ODataPrimitiveValue readPrimitiveValue(final XMLStreamReader reader, final EdmType type)
+            throws XMLStreamException {
+
+        String text = null;
+        Element tree = null;
+        if (isGeospatial(type)) {
+            while (nextElement(reader)) {
+                if (tree == null) {
+                    tree = readTree(reader);
+                } else {
+                    skipElement(reader);
+                }
+            }
+        } else {
+            text = readText(reader);
+        }
+
+        return newPrimitiveValue(type, text, tree);
+    }
+
+    private static boolean isGeospatial(final EdmType type) {
+        return type != null && type.isSimpleType() && type.getSimpleType().isGeospatial();
+    }
+
+    private static ODataPrimitiveValue newPrimitiveValue(final EdmType type, final String text, final Element tree) {
+        final ODataPrimitiveValue value;
+        if (isGeospatial(type)) {
+            if (tree == null) {
+                throw new IllegalArgumentException("No geospatial value found for " + type.getTypeExpression());
+            }
+            value = new ODataGeospatialValue.Builder().setType(type.getSimpleType()).setTree(tree).build();
+        } else {
+            value = new ODataPrimitiveValue.Builder().
+                    setType(type == null ? null : type.getSimpleType()).setText(text).build();
+        }
+        return value;
+    }
+
+    /**
+     * Entries of the feed the reader is positioned on, read one at a time; feed information is gathered on the way.
+     */
+    private static class FeedSource implements ODataEntitySource {
+
+        private final XMLStreamReader2 reader;
+
+        private final URI base;
+
+        private final boolean lazyProperties;
+
+        private final SymbolTable symbols;
+
+        /**
+         * Stream to be closed, together with the reader, at the end of the feed; null for inline feeds.
+         */
+        private final InputStream input;
+
+        private String next = null;
+
+        private Integer count = null;
+
+        private boolean ended = false;
+
+        FeedSource(final XMLStreamReader2 reader, final URI defaultBaseURI, final boolean lazyProperties,
+                final SymbolTable symbols, final InputStream input) {
+
+            this.reader = reader;
+            this.base = baseURI(reader, defaultBaseURI);
+            this.lazyProperties = lazyProperties;
+            this.symbols = symbols;
+            this.input = input;
+        }
+
+        /**
+         * Reads the next entry, leaving the reader on the feed end element after the last one.
+         */
+        ODataEntity readNext() throws XMLStreamException {
+            while (!ended) {
+                if (!nextElement(reader)) {
+                    ended = true;
+                } else if (isAtom(reader, ODataConstants.ATOM_ELEM_ENTRY)) {
+                    return readEntry(reader, null, lazyProperties, symbols);
+                } else if (isAtom(reader, ODataConstants.ATOM_ELEM_LINK)) {
+                    if (ODataConstants.NEXT_LINK_REL.equals(
+                            reader.getAttributeValue(null, ODataConstants.ATTR_REL))) {
+
+                        next = attribute(reader, null, ODataConstants.ATTR_HREF);
+                    }
+                    skipElement(reader);
+                } else if (isMetadata(reader, ELEM_COUNT) && count == null) {
+                    final String text = readText(reader);
+                    try {
+                        count = Integer.parseInt(text);
+                    } catch (Exception e) {
+                        LOG.error("Could not parse $inlinecount {}", text, e);
+                    }
+                } else {
+                    skipElement(reader);
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public ODataEntity next() {
+            try {
+                final ODataEntity entity = readNext();
+                if (entity == null) {
+                    close();
+                }
+                return entity;
+            } catch (XMLStreamException e) {
+                close();
+                throw new IllegalArgumentException("While deserializing Atom feed", e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public ODataEntitySet getEntitySet() {
+            return complete(ODataFactory.newEntitySet());
+        }
+
+        /**
+         * Sets next link and in-line count of the given entity set, once all entities are read.
+         */
+        ODataEntitySet complete(final ODataEntitySet entitySet) {
+            if (!ended) {
+                throw new IllegalStateException("Entity set information is available once all entities are read");
+            }
+
+            if (next != null) {
+                entitySet.setNext(URIUtils.getURI(base, next));
+            }
+            if (count != null) {
+                entitySet.setCount(count);
+            }
+
+            return entitySet;
+        }
+
+        @Override
+        public void close() {
+            if (input != null) {
+                AtomStreamReader.close(reader);
+                IOUtils.closeQuietly(input);
+            }
+        }
+    }
+
+    /**
+     * Properties of an entry, in document order: either already decoded or still pending, as raw text (primitive
+     * values with a declared type) or XML element (any other value) to be parsed on first access.
+     */
+    private static class BufferedPropertySource implements ODataPropertySource {
+
+        private final SymbolTable symbols;
+
+        /**
+         * Decoded properties and pending ones; null for properties that could not be decoded.
+         */
+        private final List<Object> items = new ArrayList<Object>();
+
+        /**
+         * Position of the last item for each property name.
+         */
+        private final Map<String, Integer> byName = new HashMap<String, Integer>();
+
+        BufferedPropertySource(final SymbolTable symbols) {
+            this.symbols = symbols;
+        }
+
+        void add(final ODataProperty property) {
+            byName.put(property.getName(), items.size());
+            items.add(property);
+        }
+
+        void add(final String name, final EdmType type, final String text) {
+            byName.put(name, items.size());
+            items.add(new PendingPrimitive(name, type, text));
+        }
+
+        void add(final String name, final String xml) {
+            byName.put(name, items.size());
+            items.add(new PendingElement(name, xml));
+        }
+
+        @Override
+        public synchronized ODataProperty getProperty(final String name) {
+            final Integer position = byName.get(name);
+            return position == null ? null : decode(position);
+        }
+
+        @Override
+        public synchronized List<ODataProperty> getProperties() {
+            final List<ODataProperty> properties = new ArrayList<ODataProperty>(items.size());
+
+            for (int i = 0; i < items.size(); i++) {
+                final ODataProperty property = decode(i);
+                if (property != null) {
+                    properties.add(property);
+                }
+            }
+
+            return properties;
+        }
+
+        /**
+         * Decodes the item at the given position, if pending, replacing it with the decoded property.
+         */
+        private ODataProperty decode(final int position) {
+            final Object item = items.get(position);
+            if (!(item instanceof PendingProperty)) {
+                return (ODataProperty) item;
+            }
+
+            final PendingProperty pending = (PendingProperty) item;
+            ODataProperty property = null;
+            try {
+                property = pending.decode(symbols);
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Failure retrieving EdmType for {}", pending.name, e);
+            }
+            items.set(position, property);
+            return property;
+        }
+    }
+
+    private abstract static class PendingProperty {
+
+        protected final String name;
+
+        PendingProperty(final String name) {
+            this.name = name;
+        }
+
+        abstract ODataProperty decode(SymbolTable symbols);
+    }
+
+    private static class PendingPrimitive extends PendingProperty {
+
+        private final EdmType type;
+
+        private final String text;
+
+        PendingPrimitive(final String name, final EdmType type, final String text) {
+            super(name);
+            this.type = type;
+            this.text = text;
+        }
+
+        @Override
+        ODataProperty decode(final SymbolTable symbols) {
+            return ODataFactory.newPrimitiveProperty(name, newPrimitiveValue(type, text, null));
+        }
+    }
+
+    private static class PendingElement extends PendingProperty {
+
+        private final String xml;
+
+        PendingElement(final String name, final String xml) {
+            super(name);
+            this.xml = xml;
+        }
+
+        @Override
+        ODataProperty decode(final SymbolTable symbols) {
+            XMLStreamReader2 reader = null;
+            try {
+                reader = (XMLStreamReader2) FACTORY.createXMLStreamReader(new StringReader(xml));
+                reader.nextTag();
+                return readProperty(reader, symbols);
+            } catch (XMLStreamException e) {
+                throw new IllegalArgumentException("While decoding buffered Atom property " + name, e);
+            } finally {
+                close(reader);
+            }
+        }
+    }
+}
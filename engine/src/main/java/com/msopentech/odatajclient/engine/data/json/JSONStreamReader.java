@@ -0,0 +1,999 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.msopentech.odatajclient.engine.data.DistinctEntityAppender;
+import com.msopentech.odatajclient.engine.data.ODataCollectionValue;
+import com.msopentech.odatajclient.engine.data.ODataComplexValue;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataEntitySet;
+import com.msopentech.odatajclient.engine.data.ODataEntitySource;
+import com.msopentech.odatajclient.engine.data.ODataFactory;
+import com.msopentech.odatajclient.engine.data.ODataGeospatialValue;
+import com.msopentech.odatajclient.engine.data.ODataOperation;
+import com.msopentech.odatajclient.engine.data.ODataPrimitiveValue;
+import com.msopentech.odatajclient.engine.data.ODataProperty;
+import com.msopentech.odatajclient.engine.data.ODataPropertySource;
+import com.msopentech.odatajclient.engine.data.metadata.EdmType;
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
+import com.msopentech.odatajclient.engine.uri.SegmentType;
+import com.msopentech.odatajclient.engine.utils.ODataConstants;
+import com.msopentech.odatajclient.engine.utils.SymbolTable;
+import com.msopentech.odatajclient.engine.utils.URIUtils;
+import com.msopentech.odatajclient.engine.utils.XMLUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.parsers.ParserConfigurationException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * JSON reader, binding <tt>ODataEntity</tt> and <tt>ODataEntitySet</tt> objects straight from parser tokens, without
+ * building any intermediate <tt>JsonNode</tt> tree, DOM or <tt>JSONEntry</tt> / <tt>JSONFeed</tt> representation.
+ * <br/>
+ * Bound objects are the same as the ones obtained via <tt>JSONEntryDeserializer</tt> and <tt>ODataBinder</tt>, for
+ * full, minimal and no metadata; the only trees built are the ones of geospatial values.
+ * <br/>
+ * As required by the JSON light format, annotations (as <tt>odata.type</tt> or <tt>odata.navigationLinkUrl</tt>) are
+ * expected to precede the value they refer to.
+ * <br/>
+ * When reading with lazy properties, the tokens of each entry's properties are buffered as they are, and decoded only
+ * when first accessed via <tt>ODataEntity.getProperty()</tt> or <tt>ODataEntity.getProperties()</tt>.
+ *
+ * @see com.msopentech.odatajclient.engine.data.ODataReader
+ */
+public final class JSONStreamReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JSONStreamReader.class);
+
+    private static final MappingJsonFactory FACTORY = new MappingJsonFactory();
+
+    private static final String JSON_COUNT = "odata.count";
+
+    private static final String JSON_NEXT_LINK = "odata.nextLink";
+
+    private static final String TYPE_SUFFIX = "@" + ODataConstants.JSON_TYPE;
+
+    private JSONStreamReader() {
+        // Empty private constructor for static utility classes
+    }
+
+    /**
+     * Reads an OData entity set from the given JSON feed.
+     *
+     * @param input stream to be de-serialized.
+     * @return OData entity set.
+     */
+    public static ODataEntitySet readEntitySet(final InputStream input) {
+        return readEntitySet(input, false);
+    }
+
+    /**
+     * Reads an OData entity set from the given JSON feed.
+     *
+     * @param input stream to be de-serialized.
+     * @param lazyProperties whether entity properties shall be decoded only when first accessed.
+     * @return OData entity set.
+     */
+    public static ODataEntitySet readEntitySet(final InputStream input, final boolean lazyProperties) {
+        return readEntitySet(input, lazyProperties, 0);
+    }
+
+    /**
+     * Reads an OData entity set from the given JSON feed.
+     *
+     * @param input stream to be de-serialized.
+     * @param lazyProperties whether entity properties shall be decoded only when first accessed.
+     * @param heapLimit maximum number of entities kept on heap by the returned entity set; 0 to keep all entities on
+     * heap.
+     * @return OData entity set.
+     */
+    public static ODataEntitySet readEntitySet(
+            final InputStream input, final boolean lazyProperties, final int heapLimit) {
+
+        JsonParser parser = null;
+        try {
+            parser = FACTORY.createParser(input);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("JSON object expected, found " + parser.getCurrentToken());
+            }
+            return readFeed(parser, lazyProperties, heapLimit, new SymbolTable());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("While deserializing JSON feed", e);
+        } finally {
+            close(parser);
+        }
+    }
+
+    /**
+     * Opens the given JSON feed, for its entries to be read one at a time.
+     *
+     * @param input stream to be de-serialized; closed when the end of the feed is reached or the returned source
+     * is closed.
+     * @param lazyProperties whether entity properties shall be decoded only when first accessed.
+     * @return source of the feed entities.
+     */
+    public static ODataEntitySource openEntitySet(final InputStream input, final boolean lazyProperties) {
+        JsonParser parser = null;
+        try {
+            parser = FACTORY.createParser(input);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("JSON object expected, found " + parser.getCurrentToken());
+            }
+            return new FeedSource(parser, lazyProperties, new SymbolTable());
+        } catch (IOException e) {
+            close(parser);
+            IOUtils.closeQuietly(input);
+            throw new IllegalArgumentException("While deserializing JSON feed", e);
+        } catch (RuntimeException e) {
+            close(parser);
+            IOUtils.closeQuietly(input);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads an OData entity from the given JSON entry.
+     *
+     * @param input stream to be de-serialized.
+     * @return OData entity.
+     */
+    public static ODataEntity readEntity(final InputStream input) {
+        return readEntity(input, false);
+    }
+
+    /**
+     * Reads an OData entity from the given JSON entry.
+     *
+     * @param input stream to be de-serialized.
+     * @param lazyProperties whether entity properties shall be decoded only when first accessed.
+     * @return OData entity.
+     */
+    public static ODataEntity readEntity(final InputStream input, final boolean lazyProperties) {
+        JsonParser parser = null;
+        try {
+            parser = FACTORY.createParser(input);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("JSON object expected, found " + parser.getCurrentToken());
+            }
+            return readEntry(parser, null, lazyProperties, new SymbolTable());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("While deserializing JSON entry", e);
+        } finally {
+            close(parser);
+        }
+    }
+
+    private static void close(final JsonParser parser) {
+        if (parser != null) {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                LOG.warn("While closing JSON parser", e);
+            }
+        }
+    }
+
+    /**
+     * Gets the text of the current value, if string; skips the value and returns null otherwise.
+     */
+    private static String textValue(final JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static URI baseURI(final String metadata) {
+        return metadata == null
+                ? null
+                : URI.create(metadata.substring(0, metadata.indexOf(SegmentType.METADATA.getValue())));
+    }
+
+    private static String title(final String name, final SymbolTable symbols) {
+        return symbols.intern(name.substring(0, name.indexOf('@')));
+    }
+
+    private static ODataEntitySet readFeed(final JsonParser parser, final boolean lazyProperties,
+            final int heapLimit, final SymbolTable symbols) throws IOException {
+
+        final FeedSource source = new FeedSource(parser, lazyProperties, symbols);
+
+        final ODataEntitySet entitySet = ODataFactory.newEntitySet(null, heapLimit);
+        final DistinctEntityAppender appender = new DistinctEntityAppender(entitySet);
+        ODataEntity entity;
+        while ((entity = source.readNext()) != null) {
+            appender.add(entity);
+        }
+
+        return source.complete(entitySet);
+    }
+
+    /**
+     * Reads the entry starting at the current token.
+     *
+     * @param parser JSON parser, positioned on <tt>START_OBJECT</tt>.
+     * @param defaultBaseURI base URI to be used if the entry does not provide its own metadata URI.
+     * @param lazyProperties whether properties shall be buffered rather than decoded.
+     * @param symbols symbols shared by all entities of the same payload.
+     * @return OData entity.
+     */
+    private static ODataEntity readEntry(final JsonParser parser, final URI defaultBaseURI,
+            final boolean lazyProperties, final SymbolTable symbols) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("JSON object expected, found " + parser.getCurrentToken());
+        }
+
+        String metadata = null;
+        String type = null;
+        String etag = null;
+        String readLink = null;
+        String editLink = null;
+        String mediaReadLink = null;
+        String mediaEditLink = null;
+        String mediaContentType = null;
+
+        final List<String[]> associationLinks = new ArrayList<String[]>();
+        final List<String[]> navigationLinks = new ArrayList<String[]>();
+        final List<String[]> mediaEditLinks = new ArrayList<String[]>();
+        final List<ODataOperation> operations = new ArrayList<ODataOperation>();
+        final Map<String, Object> inlines = new HashMap<String, Object>();
+        final Set<String> removed = new HashSet<String>();
+        final Map<String, String> types = new HashMap<String, String>();
+        final List<ODataProperty> properties = new ArrayList<ODataProperty>();
+        final BufferedPropertySource propertySource =
+                lazyProperties ? new BufferedPropertySource(parser, symbols) : null;
+
+        final JsonStreamContext context = parser.getParsingContext();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+
+            if (token == JsonToken.VALUE_STRING && ODataConstants.JSON_METADATA.equals(name)) {
+                metadata = parser.getText();
+            } else if (token == JsonToken.VALUE_STRING && ODataConstants.JSON_TYPE.equals(name)) {
+                type = symbols.intern(parser.getText());
+            } else if (token == JsonToken.VALUE_STRING && ODataConstants.JSON_ETAG.equals(name)) {
+                etag = parser.getText();
+            } else if (token == JsonToken.VALUE_STRING
+                    && (ODataConstants.JSON_ID.equals(name) || ODataConstants.JSON_MEDIA_ETAG.equals(name))) {
+                // not bound
+            } else if (token == JsonToken.VALUE_STRING && ODataConstants.JSON_READ_LINK.equals(name)) {
+                readLink = parser.getText();
+            } else if (token == JsonToken.VALUE_STRING && ODataConstants.JSON_EDIT_LINK.equals(name)) {
+                editLink = parser.getText();
+            } else if (token == JsonToken.VALUE_STRING && ODataConstants.JSON_MEDIAREAD_LINK.equals(name)) {
+                mediaReadLink = parser.getText();
+            } else if (token == JsonToken.VALUE_STRING && ODataConstants.JSON_MEDIAEDIT_LINK.equals(name)) {
+                mediaEditLink = parser.getText();
+            } else if (token == JsonToken.VALUE_STRING && ODataConstants.JSON_MEDIA_CONTENT_TYPE.equals(name)) {
+                mediaContentType = symbols.intern(parser.getText());
+            } else if (token == JsonToken.START_ARRAY && ODataConstants.JSON_VALUE.equals(name)) {
+                throw new IllegalArgumentException("Expected OData Entity, found EntitySet");
+            } else if (name.endsWith(ODataConstants.JSON_NAVIGATION_LINK_SUFFIX)) {
+                final String[] link = new String[] {title(name, symbols), textValue(parser)};
+                navigationLinks.add(link);
+                inlines.put(name.substring(0, name.indexOf(ODataConstants.JSON_NAVIGATION_LINK_SUFFIX)), link);
+            } else if (name.endsWith(ODataConstants.JSON_ASSOCIATION_LINK_SUFFIX)) {
+                associationLinks.add(new String[] {title(name, symbols), textValue(parser)});
+            } else if (name.endsWith(ODataConstants.JSON_MEDIAEDIT_LINK_SUFFIX)) {
+                mediaEditLinks.add(new String[] {title(name, symbols), textValue(parser)});
+                removed.add(name.substring(0, name.indexOf(ODataConstants.JSON_MEDIAEDIT_LINK_SUFFIX)));
+            } else if (name.charAt(0) == '#') {
+                operations.add(readOperation(parser, name, symbols));
+            } else if (inlines.containsKey(name)) {
+                if (token == JsonToken.START_OBJECT) {
+                    final URI metadataBaseURI = baseURI(metadata);
+                    inlines.put(name, readEntry(parser, metadataBaseURI == null ? defaultBaseURI : metadataBaseURI,
+                            lazyProperties, symbols));
+                } else if (token == JsonToken.START_ARRAY) {
+                    final List<ODataEntity> entities = new ArrayList<ODataEntity>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        entities.add(readEntry(parser, null, lazyProperties, symbols));
+                    }
+                    inlines.put(name, entities);
+                } else {
+                    parser.skipChildren();
+                }
+            } else if (removed.contains(name) || name.contains("@") || ODataConstants.JSON_TYPE.equals(name)) {
+                if (name.endsWith(TYPE_SUFFIX) && token == JsonToken.VALUE_STRING) {
+                    types.put(name.substring(0, name.length() - TYPE_SUFFIX.length()),
+                            symbols.intern(parser.getText()));
+                }
+                parser.skipChildren();
+            } else if (propertySource == null) {
+                addProperty(parser, name, types.get(name), context, properties, symbols);
+            } else {
+                propertySource.add(parser, name, types.get(name));
+            }
+        }
+
+        final URI metadataBaseURI = baseURI(metadata);
+        final URI base = metadataBaseURI == null ? defaultBaseURI : metadataBaseURI;
+
+        final ODataEntity entity = readLink == null
+                ? ODataFactory.newEntity(type)
+                : ODataFactory.newEntity(type, URIUtils.getURI(base, readLink));
+
+        if (StringUtils.isNotBlank(etag)) {
+            entity.setETag(etag);
+        }
+
+        if (editLink != null) {
+            entity.setEditLink(URIUtils.getURI(base, editLink));
+        }
+
+        for (String[] link : associationLinks) {
+            entity.addLink(ODataFactory.newAssociationLink(link[0], base, link[1]));
+        }
+
+        for (String[] link : navigationLinks) {
+            final Object inline = inlines.get(link[0]);
+
+            if (inline instanceof ODataEntity) {
+                entity.addLink(ODataFactory.newInlineEntity(link[0], base, link[1], (ODataEntity) inline));
+            } else if (inline instanceof List) {
+                final ODataEntitySet entitySet = ODataFactory.newEntitySet();
+                final DistinctEntityAppender appender = new DistinctEntityAppender(entitySet);
+                for (Object inlineEntity : (List<?>) inline) {
+                    appender.add((ODataEntity) inlineEntity);
+                }
+                entity.addLink(ODataFactory.newInlineEntitySet(link[0], base, link[1], entitySet));
+            } else {
+                entity.addLink(ODataFactory.newEntityNavigationLink(link[0], base, link[1]));
+            }
+        }
+
+        if (mediaEditLink != null) {
+            entity.addLink(ODataFactory.newMediaEditLink(null, base, mediaEditLink));
+        }
+        for (String[] link : mediaEditLinks) {
+            entity.addLink(ODataFactory.newMediaEditLink(link[0], base, link[1]));
+        }
+
+        for (ODataOperation operation : operations) {
+            operation.setTarget(URIUtils.getURI(base, operation.getTarget()));
+            entity.addOperation(operation);
+        }
+
+        final boolean mediaEntry = mediaReadLink != null && mediaContentType != null;
+        if (mediaEntry || StringUtils.isNotBlank(mediaReadLink)) {
+            entity.setMediaEntity(true);
+            entity.setMediaContentSource(mediaReadLink);
+            entity.setMediaContentType(mediaContentType);
+        }
+        if (mediaEntry || !entity.isMediaEntity()) {
+            if (propertySource == null) {
+                for (ODataProperty property : properties) {
+                    entity.addProperty(property);
+                }
+            } else if (!propertySource.isEmpty()) {
+                entity.setPropertySource(propertySource);
+            }
+        }
+
+        return entity;
+    }
+
+    /**
+     * Reads the property starting at the current token, logging and skipping it on failure.
+     *
+     * @param parser JSON parser, positioned on the property value.
+     * @param name property name.
+     * @param type property type, as annotated; might be null.
+     * @param context parsing context of the object containing the property.
+     * @param properties list the property is added to.
+     * @param symbols symbols shared by all entities of the same payload.
+     */
+    private static void addProperty(final JsonParser parser, final String name, final String type,
+            final JsonStreamContext context, final List<ODataProperty> properties, final SymbolTable symbols)
+            throws IOException {
+
+        try {
+            properties.add(readProperty(parser, name, type, true, symbols));
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Failure retrieving EdmType for {}", name, e);
+
+            while (parser.getParsingContext() != context) {
+                parser.nextToken();
+            }
+        }
+    }
+
+    private static ODataOperation readOperation(final JsonParser parser, final String name,
+            final SymbolTable symbols) throws IOException {
+
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Invalid operation " + name);
+        }
+
+        final ODataOperation operation = new ODataOperation();
+        operation.setMetadataAnchor(name);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+
+            if (token.isScalarValue() && ODataConstants.ATTR_TITLE.equals(field)) {
+                operation.setTitle(symbols.intern(scalarText(parser)));
+            } else if (token.isScalarValue() && ODataConstants.ATTR_TARGET.equals(field)) {
+                operation.setTarget(URI.create(scalarText(parser)));
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return operation;
+    }
+
+    /**
+     * Gets the text of the current scalar value, as <tt>JsonNode.asText()</tt> would.
+     */
+    private static String scalarText(final JsonParser parser) throws IOException {
+        final String text;
+        switch (parser.getCurrentToken()) {
+            case VALUE_NUMBER_INT:
+                switch (parser.getNumberType()) {
+                    case INT:
+                        text = Integer.toString(parser.getIntValue());
+                        break;
+
+                    case LONG:
+                        text = Long.toString(parser.getLongValue());
+                        break;
+
+                    default:
+                        text = parser.getBigIntegerValue().toString();
+                }
+                break;
+
+            case VALUE_NUMBER_FLOAT:
+                text = Double.toString(parser.getDoubleValue());
+                break;
+
+            case VALUE_NULL:
+                text = "null";
+                break;
+
+            default:
+                text = parser.getText();
+        }
+        return text;
+    }
+
+    /**
+     * Guesses the type of the current scalar value, when no <tt>odata.type</tt> annotation is available.
+     */
+    private static String scalarType(final JsonParser parser) throws IOException {
+        final EdmSimpleType type;
+        switch (parser.getCurrentToken()) {
+            case VALUE_NUMBER_INT:
+                type = parser.getNumberType() == JsonParser.NumberType.INT
+                        ? EdmSimpleType.Int32
+                        : parser.getNumberType() == JsonParser.NumberType.LONG
+                        ? EdmSimpleType.Int64
+                        : null;
+                break;
+
+            case VALUE_NUMBER_FLOAT:
+                type = EdmSimpleType.Double;
+                break;
+
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                type = EdmSimpleType.Boolean;
+                break;
+
+            case VALUE_STRING:
+                type = EdmSimpleType.String;
+                break;
+
+            default:
+                type = null;
+        }
+        return type == null ? null : type.toString();
+    }
+
+    /**
+     * Reads the property whose value starts at the current token.
+     *
+     * @param parser JSON parser.
+     * @param name property name.
+     * @param typeExpression type provided by <tt>odata.type</tt> annotation, if any.
+     * @param typed whether types can be guessed from values (false for collection items).
+     * @param symbols symbols shared by all entities of the same payload.
+     * @return OData property.
+     */
+    private static ODataProperty readProperty(final JsonParser parser, final String name,
+            final String typeExpression, final boolean typed, final SymbolTable symbols) throws IOException {
+
+        final JsonToken token = parser.getCurrentToken();
+
+        final ODataProperty property;
+        if (token == JsonToken.VALUE_NULL) {
+            property = ODataFactory.newPrimitiveProperty(name, null);
+        } else if (token.isScalarValue()) {
+            final String text = scalarText(parser);
+            final EdmType edmType =
+                    symbols.getType(typeExpression == null && typed ? scalarType(parser) : typeExpression);
+
+            if (edmType == null || edmType.isCollection() || edmType.isSimpleType()) {
+                property = ODataFactory.newPrimitiveProperty(name, newPrimitiveValue(edmType, text));
+            } else {
+                property = ODataFactory.newComplexProperty(name, new ODataComplexValue(edmType.getTypeExpression()));
+            }
+        } else if (token == JsonToken.START_ARRAY) {
+            property = readArrayProperty(parser, name, symbols.getType(typeExpression), symbols);
+        } else {
+            String type = typeExpression;
+
+            JsonToken next = parser.nextToken();
+            if (type == null && typed && next == JsonToken.FIELD_NAME
+                    && ODataConstants.JSON_TYPE.equals(parser.getCurrentName())) {
+
+                parser.nextToken();
+                type = symbols.intern(textValue(parser));
+                next = parser.nextToken();
+            }
+
+            if (EdmSimpleType.isGeospatial(type)) {
+                property = readGeospatialProperty(parser, next, name, type, symbols);
+            } else {
+                final List<ODataProperty> fields = new ArrayList<ODataProperty>();
+                final String objectType = readFields(parser, next, fields, symbols);
+                final EdmType edmType = symbols.getType(type == null && typed ? objectType : type);
+
+                if (edmType == null) {
+                    if (fields.isEmpty()) {
+                        property = ODataFactory.newPrimitiveProperty(name, null);
+                    } else {
+                        property = ODataFactory.newComplexProperty(name, newComplexValue(null, fields));
+                    }
+                } else if (edmType.isCollection() || edmType.isSimpleType()) {
+                    throw new IllegalArgumentException("Unexpected JSON object for " + edmType.getTypeExpression());
+                } else {
+                    property = ODataFactory.newComplexProperty(name, newComplexValue(edmType, fields));
+                }
+            }
+        }
+
+        return property;
+    }
+
+    /**
+     * Reads the fields of the current JSON object, starting from the given token.
+     *
+     * @return value of the <tt>odata.type</tt> field, if any.
+     */
+    private static String readFields(final JsonParser parser, final JsonToken first,
+            final List<ODataProperty> fields, final SymbolTable symbols) throws IOException {
+
+        String objectType = null;
+        final Map<String, String> types = new HashMap<String, String>();
+
+        for (JsonToken token = first; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            final String name = parser.getCurrentName();
+            parser.nextToken();
+
+            if (ODataConstants.JSON_TYPE.equals(name)) {
+                objectType = symbols.intern(textValue(parser));
+            } else if (name.contains("@")) {
+                if (name.endsWith(TYPE_SUFFIX)) {
+                    types.put(name.substring(0, name.length() - TYPE_SUFFIX.length()),
+                            symbols.intern(textValue(parser)));
+                } else {
+                    parser.skipChildren();
+                }
+            } else {
+                fields.add(readProperty(parser, name, types.get(name), true, symbols));
+            }
+        }
+
+        return objectType;
+    }
+
+    private static ODataComplexValue newComplexValue(final EdmType type, final List<ODataProperty> fields) {
+        final ODataComplexValue value = new ODataComplexValue(type == null ? null : type.getTypeExpression());
+        for (ODataProperty field : fields) {
+            value.add(field);
+        }
+        return value;
+    }
+
+    private static ODataProperty readArrayProperty(final JsonParser parser, final String name, final EdmType type,
+            final SymbolTable symbols) throws IOException {
+
+        final ODataProperty property;
+        if (type == null) {
+            final ODataCollectionValue value = new ODataCollectionValue(null);
+            property = readCollectionItems(parser, value, null, symbols) == 0
+                    ? ODataFactory.newPrimitiveProperty(name, null)
+                    : ODataFactory.newCollectionProperty(name, value);
+        } else if (type.isCollection()) {
+            final ODataCollectionValue value = new ODataCollectionValue(type.getTypeExpression());
+            readCollectionItems(parser, value, symbols.getItemType(type), symbols);
+            property = ODataFactory.newCollectionProperty(name, value);
+        } else if (type.isSimpleType()) {
+            throw new IllegalArgumentException("Unexpected JSON array for " + type.getTypeExpression());
+        } else {
+            final ODataComplexValue value = new ODataComplexValue(type.getTypeExpression());
+            readElements(parser, value, symbols);
+            property = ODataFactory.newComplexProperty(name, value);
+        }
+
+        return property;
+    }
+
+    /**
+     * Reads the items of the current JSON array into the given collection; null, empty or collection items are not
+     * added.
+     *
+     * @return number of items found.
+     */
+    private static int readCollectionItems(final JsonParser parser, final ODataCollectionValue value,
+            final EdmType itemType, final SymbolTable symbols) throws IOException {
+
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            count++;
+
+            if (token == JsonToken.START_OBJECT) {
+                final List<ODataProperty> fields = new ArrayList<ODataProperty>();
+                readFields(parser, parser.nextToken(), fields, symbols);
+                if (!fields.isEmpty()) {
+                    value.add(newComplexValue(itemType, fields));
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                // nested collections are not supported
+                parser.skipChildren();
+            } else if (token != JsonToken.VALUE_NULL) {
+                value.add(newPrimitiveValue(itemType, scalarText(parser)));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads the items of the current JSON array as <tt>element</tt> properties of the given complex value.
+     *
+     * @return number of items found.
+     */
+    private static int readElements(final JsonParser parser, final ODataComplexValue value,
+            final SymbolTable symbols) throws IOException {
+
+        int count = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            count++;
+            value.add(readProperty(parser, ODataConstants.ELEM_ELEMENT, null, false, symbols));
+        }
+        return count;
+    }
+
+    private static ODataPrimitiveValue newPrimitiveValue(final EdmType type, final String text) {
+        if (type != null && (type.isCollection() || !type.isSimpleType() || type.getSimpleType().isGeospatial())) {
+            throw new IllegalArgumentException("Unexpected primitive value for " + type.getTypeExpression());
+        }
+        return new ODataPrimitiveValue.Builder().
+                setType(type == null ? null : type.getSimpleType()).setText(text).build();
+    }
+
+    /**
+     * Reads a geospatial value: this is the only case requiring the JSON object to be fully read before binding,
+     * since the actual type and coordinates might come in any order.
+     */
+    private static ODataProperty readGeospatialProperty(final JsonParser parser, final JsonToken first,
+            final String name, final String type, final SymbolTable symbols) throws IOException {
+
+        final ObjectNode node = JsonNodeFactory.instance.objectNode();
+        for (JsonToken token = first; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+            final JsonNode value = parser.readValueAsTree();
+            node.put(field, value);
+        }
+
+        String geoType = type;
+        if (EdmSimpleType.Geography.toString().equals(type) || EdmSimpleType.Geometry.toString().equals(type)) {
+            final String itemType = node.path(ODataConstants.ATTR_TYPE).textValue();
+            if (itemType == null) {
+                throw new IllegalArgumentException("No geospatial type found for " + name);
+            }
+            geoType = itemType.startsWith("Geo")
+                    ? EdmSimpleType.namespace() + "." + itemType
+                    : type + itemType;
+        }
+
+        Element tree = null;
+        if (node.has(ODataConstants.JSON_COORDINATES) || node.has(ODataConstants.JSON_GEOMETRIES)) {
+            try {
+                final Element parent = ODataConstants.DOC_BUILDER_FACTORY.newDocumentBuilder().newDocument().
+                        createElementNS(ODataConstants.NS_DATASERVICES, ODataConstants.PREFIX_DATASERVICES + name);
+                GeospatialJSONHandler.deserialize(node, parent, geoType);
+
+                final List<Node> children = XMLUtils.getChildNodes(parent, Node.ELEMENT_NODE);
+                if (!children.isEmpty()) {
+                    tree = (Element) children.get(0);
+                }
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException("Cannot build geospatial value", e);
+            }
+        }
+        if (tree == null) {
+            throw new IllegalArgumentException("No geospatial value found for " + geoType);
+        }
+
+        return ODataFactory.newPrimitiveProperty(name, new ODataGeospatialValue.Builder().
+                setType(symbols.getType(geoType).getSimpleType()).setTree(tree).build());
+    }
+
+    /**
+     * Entries of the feed object the parser is positioned on, read one at a time; feed information is gathered on
+     * the way, whether found before or after entries.
+     */
+    private static class FeedSource implements ODataEntitySource {
+
+        private final JsonParser parser;
+
+        private final boolean lazyProperties;
+
+        private final SymbolTable symbols;
+
+        private String metadata = null;
+
+        private Integer count = null;
+
+        private String next = null;
+
+        private boolean inEntries = false;
+
+        private boolean ended = false;
+
+        FeedSource(final JsonParser parser, final boolean lazyProperties, final SymbolTable symbols) {
+            this.parser = parser;
+            this.lazyProperties = lazyProperties;
+            this.symbols = symbols;
+        }
+
+        /**
+         * Reads the next entry, leaving the parser on the feed <tt>END_OBJECT</tt> after the last one.
+         */
+        ODataEntity readNext() throws IOException {
+            while (!ended) {
+                if (inEntries) {
+                    if (parser.nextToken() != JsonToken.END_ARRAY) {
+                        return readEntry(parser, null, lazyProperties, symbols);
+                    }
+                    inEntries = false;
+                } else if (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String name = parser.getCurrentName();
+                    final JsonToken token = parser.nextToken();
+
+                    if (ODataConstants.JSON_METADATA.equals(name)) {
+                        metadata = textValue(parser);
+                    } else if (JSON_COUNT.equals(name) && token != JsonToken.VALUE_NULL) {
+                        count = parser.getValueAsInt();
+                    } else if (JSON_NEXT_LINK.equals(name)) {
+                        next = textValue(parser);
+                    } else if (ODataConstants.JSON_VALUE.equals(name) && token == JsonToken.START_ARRAY) {
+                        inEntries = true;
+                    } else {
+                        parser.skipChildren();
+                    }
+                } else {
+                    ended = true;
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public ODataEntity next() {
+            try {
+                final ODataEntity entity = readNext();
+                if (entity == null) {
+                    close();
+                }
+                return entity;
+            } catch (IOException e) {
+                close();
+                throw new IllegalArgumentException("While deserializing JSON feed", e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public ODataEntitySet getEntitySet() {
+            return complete(ODataFactory.newEntitySet());
+        }
+
+        /**
+         * Sets next link and in-line count of the given entity set, once all entities are read.
+         */
+        ODataEntitySet complete(final ODataEntitySet entitySet) {
+            if (!ended) {
+                throw new IllegalStateException("Entity set information is available once all entities are read");
+            }
+
+            if (next != null) {
+                entitySet.setNext(URIUtils.getURI(baseURI(metadata), next));
+            }
+            if (count != null) {
+                entitySet.setCount(count);
+            }
+
+            return entitySet;
+        }
+
+        @Override
+        public void close() {
+            JSONStreamReader.close(parser);
+        }
+    }
+
+    /**
+     * Entry properties kept as buffered tokens, decoded on first access.
+     */
+    private static class BufferedPropertySource implements ODataPropertySource {
+
+        private final TokenBuffer buffer;
+
+        private final List<String> names = new ArrayList<String>();
+
+        private final List<String> types = new ArrayList<String>();
+
+        /**
+         * Position of the last buffered property for each name.
+         */
+        private final Map<String, Integer> byName = new HashMap<String, Integer>();
+
+        /**
+         * Properties decoded so far, by position; allocated upon first decoding.
+         */
+        private ODataProperty[] decoded;
+
+        private final SymbolTable symbols;
+
+        BufferedPropertySource(final JsonParser parser, final SymbolTable symbols) throws IOException {
+            this.symbols = symbols;
+            buffer = new TokenBuffer(parser.getCodec());
+            buffer.writeStartObject();
+        }
+
+        /**
+         * Buffers the property starting at the current token.
+         */
+        void add(final JsonParser parser, final String name, final String type) throws IOException {
+            buffer.writeFieldName(name);
+            buffer.copyCurrentStructure(parser);
+            byName.put(name, names.size());
+            names.add(name);
+            types.add(type);
+        }
+
+        boolean isEmpty() {
+            return types.isEmpty();
+        }
+
+        @Override
+        public synchronized ODataProperty getProperty(final String name) {
+            final Integer position = byName.get(name);
+            if (position == null) {
+                return null;
+            }
+            if (decoded != null && decoded[position] != null) {
+                return decoded[position];
+            }
+
+            final JsonParser parser = buffer.asParser();
+            try {
+                parser.nextToken();
+                final JsonStreamContext context = parser.getParsingContext();
+                // preceding properties are skipped, without decoding
+                for (int i = 0; i < position; i++) {
+                    parser.nextToken();
+                    parser.nextToken();
+                    parser.skipChildren();
+                }
+                parser.nextToken();
+                parser.nextToken();
+                return decode(parser, position, context);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("While decoding buffered JSON property " + name, e);
+            } finally {
+                close(parser);
+            }
+        }
+
+        @Override
+        public synchronized List<ODataProperty> getProperties() {
+            final List<ODataProperty> properties = new ArrayList<ODataProperty>(types.size());
+
+            final JsonParser parser = buffer.asParser();
+            try {
+                parser.nextToken();
+                final JsonStreamContext context = parser.getParsingContext();
+                for (int i = 0; i < names.size(); i++) {
+                    parser.nextToken();
+                    parser.nextToken();
+                    if (decoded != null && decoded[i] != null) {
+                        parser.skipChildren();
+                        properties.add(decoded[i]);
+                    } else {
+                        final ODataProperty property = decode(parser, i, context);
+                        if (property != null) {
+                            properties.add(property);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException("While decoding buffered JSON properties", e);
+            } finally {
+                close(parser);
+            }
+
+            return properties;
+        }
+
+        /**
+         * Decodes the property at the given position, the parser being positioned on its value.
+         *
+         * @return decoded property; null if it could not be decoded.
+         */
+        private ODataProperty decode(final JsonParser parser, final int position, final JsonStreamContext context)
+                throws IOException {
+
+            final List<ODataProperty> read = new ArrayList<ODataProperty>(1);
+            addProperty(parser, names.get(position), types.get(position), context, read, symbols);
+            if (read.isEmpty()) {
+                return null;
+            }
+
+            if (decoded == null) {
+                decoded = new ODataProperty[names.size()];
+            }
+            decoded[position] = read.get(0);
+            return decoded[position];
+        }
+    }
+}
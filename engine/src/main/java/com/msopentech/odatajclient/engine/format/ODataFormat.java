@@ -95,4 +95,34 @@ public enum ODataFormat {
 
         return result;
     }
+
+    /**
+     * Gets the OData format matching the given AtomPub format.
+     *
+     * @param pubFormat AtomPub format.
+     * @return OData format.
+     */
+    public static ODataFormat fromPubFormat(final ODataPubFormat pubFormat) {
+        ODataFormat format;
+
+        switch (pubFormat) {
+            case ATOM:
+                format = ODataFormat.XML;
+                break;
+
+            case JSON_FULL_METADATA:
+                format = ODataFormat.JSON_FULL_METADATA;
+                break;
+
+            case JSON_NO_METADATA:
+                format = ODataFormat.JSON_NO_METADATA;
+                break;
+
+            case JSON:
+            default:
+                format = ODataFormat.JSON;
+        }
+
+        return format;
+    }
 }
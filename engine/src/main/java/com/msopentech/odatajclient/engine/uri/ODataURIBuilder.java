@@ -59,6 +59,11 @@ public class ODataURIBuilder implements Serializable {
 
     private final List<Segment> segments;
 
+    /**
+     * Whether entity keys are to be represented as URI segments.
+     */
+    private final boolean keyAsSegment;
+
     /**
      * Case-insensitive map of query options.
      */
@@ -71,6 +76,18 @@ public class ODataURIBuilder implements Serializable {
      * data service.
      */
     public ODataURIBuilder(final String serviceRoot) {
+        this(serviceRoot, Configuration.isKeyAsSegment());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param serviceRoot absolute URL (schema, host and port included) representing the location of the root of the
+     * data service.
+     * @param keyAsSegment whether entity keys are to be represented as URI segments.
+     */
+    public ODataURIBuilder(final String serviceRoot, final boolean keyAsSegment) {
+        this.keyAsSegment = keyAsSegment;
         segments = new ArrayList<Segment>();
         segments.add(new Segment(SegmentType.SERVICEROOT, serviceRoot));
     }
@@ -129,7 +146,7 @@ public class ODataURIBuilder implements Serializable {
     public ODataURIBuilder appendKeySegment(final Object val) {
         final String segValue = URIUtils.escape(val);
 
-        segments.add(Configuration.isKeyAsSegment()
+        segments.add(keyAsSegment
                 ? new Segment(SegmentType.KEY_AS_SEGMENT, segValue)
                 : new Segment(SegmentType.KEY, "(" + segValue + ")"));
         return this;
@@ -142,7 +159,7 @@ public class ODataURIBuilder implements Serializable {
      * @return current ODataURIBuilder object.
      */
     public ODataURIBuilder appendKeySegment(final Map<String, Object> segmentValues) {
-        if (!Configuration.isKeyAsSegment()) {
+        if (!keyAsSegment) {
             final StringBuilder keyBuilder = new StringBuilder().append('(');
             for (Map.Entry<String, Object> entry : segmentValues.entrySet()) {
                 keyBuilder.append(entry.getKey()).append('=').append(URIUtils.escape(entry.getValue()));
@@ -0,0 +1,204 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.utils;
+
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+import com.msopentech.javax.xml.stream.XMLInputFactory;
+import com.msopentech.javax.xml.stream.XMLStreamConstants;
+import com.msopentech.javax.xml.stream.XMLStreamException;
+import com.msopentech.javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.Writer;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.bootstrap.DOMImplementationRegistry;
+import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSOutput;
+import org.w3c.dom.ls.LSSerializer;
+
+/**
+ * DOM parser building trees out of Aalto StAX events; document builders and DOM serializers are created once per
+ * thread and reused afterwards.
+ * <br/>
+ * This is the implementation selected by <tt>XMLUtils</tt> unless another one is registered via
+ * <tt>META-INF/services</tt>.
+ *
+ * @see DefaultDOMParserImpl
+ */
+public class AaltoDOMParserImpl extends AbstractDOMParser {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AaltoDOMParserImpl.class);
+
+    private static final XMLInputFactory FACTORY;
+
+    static {
+        FACTORY = new InputFactoryImpl();
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    private static final ThreadLocal<DocumentBuilder> BUILDER = new ThreadLocal<DocumentBuilder>() {
+
+        @Override
+        protected DocumentBuilder initialValue() {
+            try {
+                return ODataConstants.DOC_BUILDER_FACTORY.newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException("While creating document builder", e);
+            }
+        }
+    };
+
+    private static final ThreadLocal<LSSerializer> SERIALIZER = new ThreadLocal<LSSerializer>() {
+
+        @Override
+        protected LSSerializer initialValue() {
+            return LoadSave.IMPL.createLSSerializer();
+        }
+    };
+
+    @Override
+    public Element parse(final InputStream input) {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(input);
+            reader.nextTag();
+
+            final Document doc = BUILDER.get().newDocument();
+            doc.appendChild(readTree(doc, reader));
+            return doc.getDocumentElement();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Could not parse DOM", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    LOG.debug("Error closing XML stream reader", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds a DOM tree out of the current element, leaving the reader on its end element.
+     */
+    private Element readTree(final Document doc, final XMLStreamReader reader) throws XMLStreamException {
+        final Element root = newElement(doc, reader);
+        Node current = root;
+        while (current != null) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    current = current.appendChild(newElement(doc, reader));
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    current = current == root ? null : current.getParentNode();
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    current.appendChild(doc.createTextNode(reader.getText()));
+                    break;
+
+                case XMLStreamConstants.CDATA:
+                    current.appendChild(doc.createCDATASection(reader.getText()));
+                    break;
+
+                case XMLStreamConstants.COMMENT:
+                    current.appendChild(doc.createComment(reader.getText()));
+                    break;
+
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    current.appendChild(doc.createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+                    break;
+
+                default:
+            }
+        }
+
+        return root;
+    }
+
+    private Element newElement(final Document doc, final XMLStreamReader reader) {
+        final Element element = doc.createElementNS(StringUtils.defaultIfEmpty(reader.getNamespaceURI(), null),
+                qualifiedName(reader.getPrefix(), reader.getLocalName()));
+
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            final String prefix = reader.getNamespacePrefix(i);
+            element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                    StringUtils.isEmpty(prefix)
+                    ? XMLConstants.XMLNS_ATTRIBUTE
+                    : XMLConstants.XMLNS_ATTRIBUTE + ':' + prefix,
+                    StringUtils.defaultString(reader.getNamespaceURI(i)));
+        }
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.setAttributeNS(StringUtils.defaultIfEmpty(reader.getAttributeNamespace(i), null),
+                    qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                    reader.getAttributeValue(i));
+        }
+
+        return element;
+    }
+
+    private String qualifiedName(final String prefix, final String localName) {
+        return StringUtils.isEmpty(prefix) ? localName : prefix + ':' + localName;
+    }
+
+    @Override
+    public void serialize(final Node content, final Writer writer) {
+        try {
+            final LSOutput lso = LoadSave.IMPL.createLSOutput();
+            lso.setCharacterStream(writer);
+            SERIALIZER.get().write(content, lso);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("While serializing DOM element", e);
+        }
+    }
+
+    /**
+     * DOM Load and Save implementation, looked up on first serialization only.
+     */
+    private static final class LoadSave {
+
+        private static final DOMImplementationLS IMPL;
+
+        static {
+            try {
+                IMPL = (DOMImplementationLS) DOMImplementationRegistry.newInstance().getDOMImplementation("LS");
+            } catch (Exception e) {
+                throw new IllegalStateException("No DOM Load and Save implementation available", e);
+            }
+        }
+
+        private LoadSave() {
+            // Empty private constructor for static holder classes
+        }
+    }
+}
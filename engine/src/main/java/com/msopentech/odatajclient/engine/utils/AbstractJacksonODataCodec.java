@@ -0,0 +1,107 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Jackson based codec, caching an <tt>ObjectReader</tt> and an <tt>ObjectWriter</tt> per resource class, so that
+ * (de)serializers are looked up once.
+ */
+public abstract class AbstractJacksonODataCodec extends AbstractODataCodec {
+
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<Class<?>, ObjectReader>();
+
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<Class<?>, ObjectWriter>();
+
+    /**
+     * Gets the mapper to be used for the given resource class.
+     *
+     * @param reference resource class.
+     * @return mapper.
+     */
+    protected abstract ObjectMapper getMapper(Class<?> reference);
+
+    /**
+     * Gets the resource classes to be prepared on warm-up.
+     *
+     * @return known resource classes.
+     */
+    protected abstract Class<?>[] getResourceClasses();
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void warmUp() {
+        for (Class<?> reference : getResourceClasses()) {
+            getReader(reference);
+            getWriter(reference);
+            getMapper(reference).canSerialize(reference);
+        }
+    }
+
+    protected ObjectReader getReader(final Class<?> reference) {
+        ObjectReader reader = readers.get(reference);
+        if (reader == null) {
+            reader = getMapper(reference).reader(reference);
+            final ObjectReader existing = readers.putIfAbsent(reference, reader);
+            if (existing != null) {
+                reader = existing;
+            }
+        }
+        return reader;
+    }
+
+    protected ObjectWriter getWriter(final Class<?> reference) {
+        ObjectWriter writer = writers.get(reference);
+        if (writer == null) {
+            writer = getMapper(reference).writerWithType(reference);
+            final ObjectWriter existing = writers.putIfAbsent(reference, writer);
+            if (existing != null) {
+                writer = existing;
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected <T> T doRead(final InputStream input, final Class<T> reference) throws IOException {
+        return getReader(reference).<T>readValue(input);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected void doWrite(final Writer writer, final Object obj) throws IOException {
+        getWriter(obj.getClass()).writeValue(writer, obj);
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Codec, reading and writing resources in the formats it supports.
+ * <br/>
+ * Implementations must be thread-safe, since a single instance is shared by all readers and writers; additional codecs
+ * can be provided via <tt>java.util.ServiceLoader</tt>, taking precedence over the default ones.
+ *
+ * @see ODataCodecs
+ */
+public abstract class AbstractODataCodec {
+
+    private final AtomicLong readCount = new AtomicLong();
+
+    private final AtomicLong readNanos = new AtomicLong();
+
+    private final AtomicLong writeCount = new AtomicLong();
+
+    private final AtomicLong writeNanos = new AtomicLong();
+
+    private final AtomicLong failureCount = new AtomicLong();
+
+    /**
+     * Checks whether the given format is supported.
+     *
+     * @param format format, as string representation of <tt>ODataFormat</tt> or <tt>ODataPubFormat</tt>.
+     * @return 'TRUE' if supported; 'FALSE' otherwise.
+     */
+    public abstract boolean isSupported(String format);
+
+    /**
+     * Prepares everything needed to read and write known resources, so that first invocations do not pay for it.
+     */
+    public void warmUp() {
+        // nothing to prepare by default
+    }
+
+    /**
+     * Reads a resource from the given stream.
+     *
+     * @param <T> resource type.
+     * @param input stream to be de-serialized.
+     * @param reference resource class.
+     * @return de-serialized resource.
+     * @throws IOException in case of read error.
+     */
+    public final <T> T read(final InputStream input, final Class<T> reference) throws IOException {
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            final T result = doRead(input, reference);
+            failed = false;
+            return result;
+        } finally {
+            readNanos.addAndGet(System.nanoTime() - start);
+            readCount.incrementAndGet();
+            if (failed) {
+                failureCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Writes the given resource.
+     *
+     * @param writer writer.
+     * @param obj resource to be serialized.
+     * @throws IOException in case of write error.
+     */
+    public final void write(final Writer writer, final Object obj) throws IOException {
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            doWrite(writer, obj);
+            failed = false;
+        } finally {
+            writeNanos.addAndGet(System.nanoTime() - start);
+            writeCount.incrementAndGet();
+            if (failed) {
+                failureCount.incrementAndGet();
+            }
+        }
+    }
+
+    protected abstract <T> T doRead(InputStream input, Class<T> reference) throws IOException;
+
+    protected abstract void doWrite(Writer writer, Object obj) throws IOException;
+
+    public long getReadCount() {
+        return readCount.get();
+    }
+
+    public long getReadTime(final TimeUnit unit) {
+        return unit.convert(readNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getWriteCount() {
+        return writeCount.get();
+    }
+
+    public long getWriteTime(final TimeUnit unit) {
+        return unit.convert(writeNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the number of reads and writes failed so far.
+     *
+     * @return number of failures.
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * Resets all counters.
+     */
+    public void resetCounters() {
+        readCount.set(0);
+        readNanos.set(0);
+        writeCount.set(0);
+        writeNanos.set(0);
+        failureCount.set(0);
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.utils;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor creating daemon threads on demand, up to a maximum, and releasing them once idle.
+ * <p>
+ * Tasks submitted while all threads are busy are queued, up to a maximum; further tasks are rejected with
+ * <tt>RejectedExecutionException</tt> instead of waiting indefinitely.
+ *
+ * @see ODataExecutors#newBoundedElasticExecutor(int, int)
+ */
+public class BoundedElasticExecutor extends ThreadPoolExecutor {
+
+    private final int maxQueued;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param maxThreads maximum number of threads.
+     * @param maxQueued maximum number of tasks waiting for a thread.
+     * @param keepAlive milliseconds after which an idle thread is released.
+     */
+    public BoundedElasticExecutor(final int maxThreads, final int maxQueued, final long keepAlive) {
+        super(maxThreads, maxThreads, keepAlive, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(maxQueued), new ElasticThreadFactory());
+
+        this.maxQueued = maxQueued;
+        allowCoreThreadTimeOut(true);
+        setRejectedExecutionHandler(new RejectedExecutionHandler() {
+
+            @Override
+            public void rejectedExecution(final Runnable runnable, final ThreadPoolExecutor executor) {
+                rejected.incrementAndGet();
+                throw new RejectedExecutionException(
+                        "Executor saturated: " + getActiveCount() + " running, " + getQueueSize() + " queued");
+            }
+        });
+    }
+
+    /**
+     * Gets the number of tasks waiting for a thread.
+     *
+     * @return number of queued tasks.
+     */
+    public int getQueueSize() {
+        return getQueue().size();
+    }
+
+    /**
+     * Gets the maximum number of tasks waiting for a thread.
+     *
+     * @return queue capacity.
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * Gets the number of tasks rejected because both threads and queue were exhausted.
+     *
+     * @return number of rejected tasks.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    private static class ElasticThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+        private final int poolNumber = POOL_NUMBER.incrementAndGet();
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable,
+                    "odatajclient-elastic-" + poolNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
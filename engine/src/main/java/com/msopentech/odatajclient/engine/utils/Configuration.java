@@ -19,21 +19,33 @@
  */
 package com.msopentech.odatajclient.engine.utils;
 
+import com.msopentech.odatajclient.engine.client.http.AdaptiveConcurrencyLimiter;
 import com.msopentech.odatajclient.engine.client.http.DefaultHttpClientFactory;
 import com.msopentech.odatajclient.engine.client.http.DefaultHttpUriRequestFactory;
+import com.msopentech.odatajclient.engine.client.http.HistogramRequestTimingListener;
 import com.msopentech.odatajclient.engine.client.http.HttpClientFactory;
+import com.msopentech.odatajclient.engine.client.http.HttpRequestCoalescer;
 import com.msopentech.odatajclient.engine.client.http.HttpUriRequestFactory;
+import com.msopentech.odatajclient.engine.client.http.NoOpRequestTimingListener;
+import com.msopentech.odatajclient.engine.client.http.RequestCompression;
+import com.msopentech.odatajclient.engine.client.http.RequestTimingListener;
+import com.msopentech.odatajclient.engine.communication.request.retrieve.ODataResponseCache;
 import com.msopentech.odatajclient.engine.format.ODataFormat;
 import com.msopentech.odatajclient.engine.format.ODataMediaFormat;
 import com.msopentech.odatajclient.engine.format.ODataPubFormat;
 import com.msopentech.odatajclient.engine.format.ODataValueFormat;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Configuration wrapper.
+ * <p>
+ * Global configuration, used by static request factories; settings are snapshot by
+ * <tt>ODataClient.fromConfiguration()</tt>.
+ *
+ * @see com.msopentech.odatajclient.engine.client.ODataClient
  */
 public final class Configuration {
 
@@ -41,7 +53,7 @@ public final class Configuration {
 
     private static final String DEFAULT_VALUE_FORMAT = "valueFormat";
 
-    private static final String DEFAULT_MEDIA_FORMAT = "valueFormat";
+    private static final String DEFAULT_MEDIA_FORMAT = "mediaFormat";
 
     private static final String HTTP_CLIENT_FACTORY = "httpClientFactory";
 
@@ -53,9 +65,38 @@ public final class Configuration {
 
     private static final String GZIP_COMPRESSION = "gzipCompression";
 
-    private static final Map<String, Object> CONF = new HashMap<String, Object>();
+    private static final String REQUEST_COALESCER = "requestCoalescer";
+
+    private static final String RESPONSE_CACHE = "responseCache";
+
+    private static final String CONCURRENCY_LIMITER = "concurrencyLimiter";
+
+    private static final String REQUEST_COMPRESSION = "requestCompression";
+
+    private static final String REQUEST_TIMING_LISTENER = "requestTimingListener";
+
+    private static final String LAZY_PROPERTIES = "lazyProperties";
+
+    private static final String PARALLEL_READ_THRESHOLD = "parallelReadThreshold";
+
+    private static final String PARALLEL_READ_PARALLELISM = "parallelReadParallelism";
 
-    private static ExecutorService EXECUTOR = Executors.newFixedThreadPool(10);
+    private static final String PAGE_PREFETCH_DEPTH = "pagePrefetchDepth";
+
+    private static final String ENTITY_SET_HEAP_LIMIT = "entitySetHeapLimit";
+
+    private static final Map<String, Object> CONF = new ConcurrentHashMap<String, Object>();
+
+    private static final HttpClientFactory DEFAULT_HTTP_CLIENT_FACTORY = new DefaultHttpClientFactory();
+
+    private static final HttpUriRequestFactory DEFAULT_HTTP_URI_REQUEST_FACTORY = new DefaultHttpUriRequestFactory();
+
+    private static volatile ExecutorService EXECUTOR = ODataExecutors.newBoundedElasticExecutor();
+
+    /**
+     * Number of changes applied so far, bumped after each change.
+     */
+    private static final AtomicLong VERSION = new AtomicLong();
 
     private Configuration() {
         // Empty private constructor for static utility classes
@@ -69,18 +110,31 @@ public final class Configuration {
      * @return property value if exists; default value if does not exist.
      */
     private static Object getProperty(final String key, final Object defaultValue) {
-        return CONF.containsKey(key) ? CONF.get(key) : defaultValue;
+        final Object value = CONF.get(key);
+        return value == null ? defaultValue : value;
     }
 
     /**
      * Sets new configuration property.
      *
      * @param key configuration property key.
-     * @param value configuration property value.
-     * @return given value.
+     * @param value configuration property value; null to remove the property.
+     * @return previous value.
      */
     private static Object setProperty(final String key, final Object value) {
-        return CONF.put(key, value);
+        final Object previous = value == null ? CONF.remove(key) : CONF.put(key, value);
+        VERSION.incrementAndGet();
+        return previous;
+    }
+
+    /**
+     * Gets the configuration version, changing whenever a setting is changed: snapshots taken at the same version
+     * are equivalent.
+     *
+     * @return configuration version.
+     */
+    public static long getVersion() {
+        return VERSION.get();
     }
 
     /**
@@ -112,27 +166,7 @@ public final class Configuration {
      * @see #getDefaultPubFormat()
      */
     public static ODataFormat getDefaultFormat() {
-        ODataFormat format;
-
-        switch (getDefaultPubFormat()) {
-            case ATOM:
-                format = ODataFormat.XML;
-                break;
-
-            case JSON_FULL_METADATA:
-                format = ODataFormat.JSON_FULL_METADATA;
-                break;
-
-            case JSON_NO_METADATA:
-                format = ODataFormat.JSON_NO_METADATA;
-                break;
-
-            case JSON:
-            default:
-                format = ODataFormat.JSON;
-        }
-
-        return format;
+        return ODataFormat.fromPubFormat(getDefaultPubFormat());
     }
 
     /**
@@ -165,7 +199,7 @@ public final class Configuration {
      */
     public static ODataMediaFormat getDefaultMediaFormat() {
         return ODataMediaFormat.valueOf(
-                getProperty(DEFAULT_VALUE_FORMAT, ODataMediaFormat.APPLICATION_OCTET_STREAM.name()).toString());
+                getProperty(DEFAULT_MEDIA_FORMAT, ODataMediaFormat.APPLICATION_OCTET_STREAM.name()).toString());
     }
 
     /**
@@ -184,7 +218,7 @@ public final class Configuration {
      * @see DefaultHttpClientFactory
      */
     public static HttpClientFactory getHttpClientFactory() {
-        return (HttpClientFactory) getProperty(HTTP_CLIENT_FACTORY, new DefaultHttpClientFactory());
+        return (HttpClientFactory) getProperty(HTTP_CLIENT_FACTORY, DEFAULT_HTTP_CLIENT_FACTORY);
     }
 
     /**
@@ -204,7 +238,7 @@ public final class Configuration {
      * @see DefaultHttpUriRequestFactory
      */
     public static HttpUriRequestFactory getHttpUriRequestFactory() {
-        return (HttpUriRequestFactory) getProperty(HTTP_URI_REQUEST_FACTORY, new DefaultHttpUriRequestFactory());
+        return (HttpUriRequestFactory) getProperty(HTTP_URI_REQUEST_FACTORY, DEFAULT_HTTP_URI_REQUEST_FACTORY);
     }
 
     /**
@@ -263,10 +297,212 @@ public final class Configuration {
         setProperty(GZIP_COMPRESSION, value);
     }
 
+    /**
+     * Gets the compression policy for request payloads, if enabled.
+     *
+     * @return request compression policy if configured via <tt>setRequestCompression</tt>; null (payloads sent
+     * uncompressed) otherwise.
+     */
+    public static RequestCompression getRequestCompression() {
+        return (RequestCompression) getProperty(REQUEST_COMPRESSION, null);
+    }
+
+    /**
+     * Sets the compression policy for request payloads.
+     * <br/>
+     * Please note that this is independent of <tt>setGzipCompression()</tt>, about response payloads.
+     *
+     * @param compression request compression policy; null to send payloads uncompressed.
+     * @see RequestCompression
+     */
+    public static void setRequestCompression(final RequestCompression compression) {
+        setProperty(REQUEST_COMPRESSION, compression);
+    }
+
+    /**
+     * Gets the coalescer sharing identical in-flight <tt>GET</tt> requests, if enabled.
+     *
+     * @return request coalescer if configured via <tt>setRequestCoalescer</tt>; null (coalescing disabled) otherwise.
+     */
+    public static HttpRequestCoalescer getRequestCoalescer() {
+        return (HttpRequestCoalescer) getProperty(REQUEST_COALESCER, null);
+    }
+
+    /**
+     * Sets the coalescer sharing identical in-flight <tt>GET</tt> requests.
+     *
+     * @param coalescer request coalescer; null to disable coalescing.
+     * @see HttpRequestCoalescer
+     */
+    public static void setRequestCoalescer(final HttpRequestCoalescer coalescer) {
+        setProperty(REQUEST_COALESCER, coalescer);
+    }
+
+    /**
+     * Gets the client-side cache of retrieve responses, if enabled.
+     *
+     * @return response cache if configured via <tt>setResponseCache</tt>; null (caching disabled) otherwise.
+     */
+    public static ODataResponseCache getResponseCache() {
+        return (ODataResponseCache) getProperty(RESPONSE_CACHE, null);
+    }
+
+    /**
+     * Sets the client-side cache of retrieve responses.
+     *
+     * @param cache response cache; null to disable caching.
+     * @see ODataResponseCache
+     */
+    public static void setResponseCache(final ODataResponseCache cache) {
+        setProperty(RESPONSE_CACHE, cache);
+    }
+
+    /**
+     * Gets the limiter of in-flight requests per service root, if enabled.
+     *
+     * @return concurrency limiter if configured via <tt>setConcurrencyLimiter</tt>; null (no limit) otherwise.
+     */
+    public static AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return (AdaptiveConcurrencyLimiter) getProperty(CONCURRENCY_LIMITER, null);
+    }
+
+    /**
+     * Sets the limiter of in-flight requests per service root.
+     *
+     * @param limiter concurrency limiter; null to disable limiting.
+     * @see AdaptiveConcurrencyLimiter
+     */
+    public static void setConcurrencyLimiter(final AdaptiveConcurrencyLimiter limiter) {
+        setProperty(CONCURRENCY_LIMITER, limiter);
+    }
+
+    /**
+     * Gets the listener receiving request lifecycle timings.
+     *
+     * @return request timing listener if configured via <tt>setRequestTimingListener</tt>;
+     * <tt>NoOpRequestTimingListener</tt> (no timing collected) otherwise.
+     */
+    public static RequestTimingListener getRequestTimingListener() {
+        return (RequestTimingListener) getProperty(REQUEST_TIMING_LISTENER, NoOpRequestTimingListener.INSTANCE);
+    }
+
+    /**
+     * Sets the listener receiving request lifecycle timings.
+     *
+     * @param listener request timing listener; null to disable timing.
+     * @see HistogramRequestTimingListener
+     */
+    public static void setRequestTimingListener(final RequestTimingListener listener) {
+        setProperty(REQUEST_TIMING_LISTENER, listener);
+    }
+
+    /**
+     * Checks whether properties of read entities are decoded only when first accessed.
+     *
+     * @return whether lazy entity properties are enabled.
+     */
+    public static boolean isLazyProperties() {
+        return (Boolean) getProperty(LAZY_PROPERTIES, false);
+    }
+
+    /**
+     * Sets whether properties of read entities are decoded only when first accessed, via
+     * <tt>ODataEntity.getProperty()</tt> or <tt>ODataEntity.getProperties()</tt>, rather than while reading.
+     *
+     * @param value whether lazy entity properties are enabled.
+     */
+    public static void setLazyProperties(final boolean value) {
+        setProperty(LAZY_PROPERTIES, value);
+    }
+
+    /**
+     * Gets the minimum size (in bytes) of entity set payloads to be read in parallel.
+     *
+     * @return parallel read threshold if configured via <tt>setParallelReadThreshold</tt>; 0 (entity sets always
+     * read sequentially) otherwise.
+     */
+    public static int getParallelReadThreshold() {
+        return (Integer) getProperty(PARALLEL_READ_THRESHOLD, 0);
+    }
+
+    /**
+     * Sets the minimum size (in bytes) of entity set payloads to be read in parallel: entries of such payloads are
+     * decoded by the calling thread together with tasks submitted to the executor returned by <tt>getExecutor()</tt>.
+     * <br/>
+     * Please note that, when enabled, payloads reaching the threshold are fully buffered before being read, unless
+     * entity sets spill entities beyond a heap limit.
+     *
+     * @param threshold parallel read threshold; 0 to always read entity sets sequentially.
+     * @see #setParallelReadParallelism(int)
+     */
+    public static void setParallelReadThreshold(final int threshold) {
+        setProperty(PARALLEL_READ_THRESHOLD, threshold);
+    }
+
+    /**
+     * Gets the maximum number of threads decoding entries of an entity set read in parallel.
+     *
+     * @return parallelism if configured via <tt>setParallelReadParallelism</tt>; the number of available processors
+     * otherwise.
+     */
+    public static int getParallelReadParallelism() {
+        return (Integer) getProperty(PARALLEL_READ_PARALLELISM, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Sets the maximum number of threads decoding entries of an entity set read in parallel, including the calling
+     * one.
+     *
+     * @param parallelism parallelism.
+     * @see #setParallelReadThreshold(int)
+     */
+    public static void setParallelReadParallelism(final int parallelism) {
+        setProperty(PARALLEL_READ_PARALLELISM, parallelism);
+    }
+
+    /**
+     * Gets the number of pages fetched ahead of the one being iterated, when following server-driven paging.
+     *
+     * @return prefetch depth if configured via <tt>setPagePrefetchDepth</tt>; 1 otherwise.
+     */
+    public static int getPagePrefetchDepth() {
+        return (Integer) getProperty(PAGE_PREFETCH_DEPTH, 1);
+    }
+
+    /**
+     * Sets the number of pages fetched ahead of the one being iterated, when following server-driven paging.
+     *
+     * @param prefetchDepth prefetch depth; must be positive.
+     */
+    public static void setPagePrefetchDepth(final int prefetchDepth) {
+        setProperty(PAGE_PREFETCH_DEPTH, prefetchDepth);
+    }
+
+    /**
+     * Gets the maximum number of entities kept on heap by each entity set.
+     *
+     * @return heap limit if configured via <tt>setEntitySetHeapLimit</tt>; 0 (all entities kept on heap) otherwise.
+     */
+    public static int getEntitySetHeapLimit() {
+        return (Integer) getProperty(ENTITY_SET_HEAP_LIMIT, 0);
+    }
+
+    /**
+     * Sets the maximum number of entities kept on heap by each entity set read afterwards: further entities are
+     * spilled to a memory-mapped temporary file, and deserialized upon each access.
+     *
+     * @param heapLimit heap limit; 0 to keep all entities on heap.
+     */
+    public static void setEntitySetHeapLimit(final int heapLimit) {
+        setProperty(ENTITY_SET_HEAP_LIMIT, heapLimit);
+    }
+
     /**
      * Retrieves request executor service.
+     * If not configured via <tt>setExecutor</tt>, a bounded elastic executor will be used as default.
      *
      * @return request executor service.
+     * @see ODataExecutors
      */
     public static ExecutorService getExecutor() {
         return EXECUTOR;
@@ -276,8 +512,11 @@ public final class Configuration {
      * Sets request executor service.
      *
      * @param executorService new executor services.
+     * @see ODataExecutors#newVirtualThreadExecutor()
+     * @see ODataExecutors#newBoundedElasticExecutor(int, int)
      */
     public static void setExecutor(final ExecutorService executorService) {
         EXECUTOR = executorService;
+        VERSION.incrementAndGet();
     }
 }
@@ -0,0 +1,64 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.utils;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.msopentech.odatajclient.engine.data.json.JSONEntry;
+import com.msopentech.odatajclient.engine.data.json.JSONFeed;
+import com.msopentech.odatajclient.engine.data.json.JSONLinkCollection;
+import com.msopentech.odatajclient.engine.data.json.JSONProperty;
+import com.msopentech.odatajclient.engine.data.json.JSONServiceDocument;
+import com.msopentech.odatajclient.engine.data.json.error.JSONODataErrorBundle;
+import org.apache.http.entity.ContentType;
+
+/**
+ * Default JSON codec.
+ */
+public class JSONODataCodecImpl extends AbstractJacksonODataCodec {
+
+    private final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isSupported(final String format) {
+        return format != null && format.startsWith(ContentType.APPLICATION_JSON.getMimeType());
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected ObjectMapper getMapper(final Class<?> reference) {
+        return mapper;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected Class<?>[] getResourceClasses() {
+        return new Class<?>[] {JSONEntry.class, JSONFeed.class, JSONProperty.class, JSONServiceDocument.class,
+            JSONLinkCollection.class, JSONODataErrorBundle.class, ObjectNode.class};
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.utils;
+
+import com.msopentech.odatajclient.engine.format.ODataFormat;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the codecs shared by all readers and writers.
+ * <br/>
+ * Codecs provided via <tt>java.util.ServiceLoader</tt> are looked up first, then default JSON and XML codecs.
+ *
+ * @see AbstractODataCodec
+ */
+public final class ODataCodecs {
+
+    private static final List<AbstractODataCodec> CODECS;
+
+    private static final ConcurrentMap<String, AbstractODataCodec> BY_FORMAT =
+            new ConcurrentHashMap<String, AbstractODataCodec>();
+
+    static {
+        final List<AbstractODataCodec> codecs = new ArrayList<AbstractODataCodec>();
+        final Iterator<AbstractODataCodec> itor =
+                ServiceLoader.load(AbstractODataCodec.class, Thread.currentThread().getContextClassLoader()).iterator();
+        while (itor.hasNext()) {
+            codecs.add(itor.next());
+        }
+        codecs.add(new JSONODataCodecImpl());
+        codecs.add(new XMLODataCodecImpl());
+
+        CODECS = Collections.unmodifiableList(codecs);
+    }
+
+    private ODataCodecs() {
+        // Empty private constructor for static utility classes
+    }
+
+    /**
+     * Gets the codec for the given format.
+     *
+     * @param format format, as string representation of <tt>ODataFormat</tt> or <tt>ODataPubFormat</tt>.
+     * @return codec.
+     * @throws IllegalArgumentException if no codec supports the given format.
+     */
+    public static AbstractODataCodec get(final String format) {
+        AbstractODataCodec codec = BY_FORMAT.get(format);
+        if (codec == null) {
+            for (Iterator<AbstractODataCodec> itor = CODECS.iterator(); codec == null && itor.hasNext();) {
+                final AbstractODataCodec candidate = itor.next();
+                if (candidate.isSupported(format)) {
+                    codec = candidate;
+                }
+            }
+            if (codec == null) {
+                throw new IllegalArgumentException("No codec found for " + format);
+            }
+            BY_FORMAT.putIfAbsent(format, codec);
+        }
+        return codec;
+    }
+
+    /**
+     * Gets the codec for the given format.
+     *
+     * @param format format.
+     * @return codec.
+     */
+    public static AbstractODataCodec get(final ODataFormat format) {
+        return get(format.toString());
+    }
+
+    /**
+     * Gets the codec for the given format.
+     *
+     * @param format format.
+     * @return codec.
+     */
+    public static AbstractODataCodec get(final ODataPubFormat format) {
+        return get(format.toString());
+    }
+
+    /**
+     * Gets all registered codecs, e.g. for collecting their counters.
+     *
+     * @return registered codecs.
+     */
+    public static List<AbstractODataCodec> getCodecs() {
+        return CODECS;
+    }
+
+    /**
+     * Warms up all registered codecs; to be invoked on application startup.
+     */
+    public static void warmUp() {
+        for (AbstractODataCodec codec : CODECS) {
+            codec.warmUp();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Factory of executor services suitable for running requests asynchronously.
+ *
+ * @see Configuration#setExecutor(ExecutorService)
+ */
+public final class ODataExecutors {
+
+    public static final int DEFAULT_MAX_THREADS = 10 * Runtime.getRuntime().availableProcessors();
+
+    public static final int DEFAULT_MAX_QUEUED = 100000;
+
+    public static final long DEFAULT_KEEP_ALIVE = 60000L;
+
+    /**
+     * <tt>Executors.newVirtualThreadPerTaskExecutor()</tt>, if available (JDK 21 or later).
+     */
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR;
+
+    static {
+        Method method;
+        try {
+            method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            method = null;
+        }
+        NEW_VIRTUAL_THREAD_EXECUTOR = method;
+    }
+
+    private ODataExecutors() {
+        // Empty private constructor for static utility classes
+    }
+
+    /**
+     * Checks whether virtual threads are supported by the running JVM.
+     *
+     * @return whether virtual threads are supported.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * Gets an executor starting a new virtual thread for each task.
+     *
+     * @return new executor service.
+     * @throws UnsupportedOperationException if virtual threads are not supported by the running JVM.
+     * @see #isVirtualThreadSupported()
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads require JDK 21 or later");
+        }
+
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (Exception e) {
+            throw new UnsupportedOperationException("Could not create virtual thread executor", e);
+        }
+    }
+
+    /**
+     * Gets a bounded elastic executor with default limits.
+     *
+     * @return new executor service.
+     */
+    public static BoundedElasticExecutor newBoundedElasticExecutor() {
+        return newBoundedElasticExecutor(DEFAULT_MAX_THREADS, DEFAULT_MAX_QUEUED);
+    }
+
+    /**
+     * Gets a bounded elastic executor.
+     *
+     * @param maxThreads maximum number of threads.
+     * @param maxQueued maximum number of tasks waiting for a thread.
+     * @return new executor service.
+     * @see BoundedElasticExecutor
+     */
+    public static BoundedElasticExecutor newBoundedElasticExecutor(final int maxThreads, final int maxQueued) {
+        return new BoundedElasticExecutor(maxThreads, maxQueued, DEFAULT_KEEP_ALIVE);
+    }
+
+    /**
+     * Gets an executor with virtual threads if supported by the running JVM; a bounded elastic executor otherwise.
+     *
+     * @return new executor service.
+     */
+    public static ExecutorService newPreferredExecutor() {
+        return isVirtualThreadSupported() ? newVirtualThreadExecutor() : newBoundedElasticExecutor();
+    }
+}
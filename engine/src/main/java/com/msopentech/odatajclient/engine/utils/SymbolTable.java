@@ -0,0 +1,119 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.utils;
+
+import com.msopentech.odatajclient.engine.data.metadata.EdmType;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Canonical instances of the names and type expressions repeated all over a payload (entity type names, property
+ * types, link titles, ...), so that all entities read from the same payload share them.
+ * <br/>
+ * Once the given maximum number of symbols is reached, values are returned as provided. Instances are thread-safe.
+ */
+public class SymbolTable {
+
+    /**
+     * Default maximum number of symbols (and of types).
+     */
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    private final int maxSize;
+
+    private final ConcurrentMap<String, String> symbols = new ConcurrentHashMap<String, String>();
+
+    private final ConcurrentMap<String, EdmType> types = new ConcurrentHashMap<String, EdmType>();
+
+    /**
+     * Constructor.
+     */
+    public SymbolTable() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize maximum number of symbols (and of types) to be kept.
+     */
+    public SymbolTable(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the canonical instance of the given symbol.
+     *
+     * @param symbol symbol; might be null.
+     * @return canonical instance, equal to the given symbol.
+     */
+    public String intern(final String symbol) {
+        if (symbol == null) {
+            return null;
+        }
+
+        String canonical = symbols.get(symbol);
+        if (canonical == null) {
+            if (symbols.size() < maxSize) {
+                canonical = symbols.putIfAbsent(symbol, symbol);
+            }
+            if (canonical == null) {
+                canonical = symbol;
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Gets the type described by the given expression; types are parsed once per distinct expression.
+     *
+     * @param typeExpression type expression; might be null or blank.
+     * @return type; null if the given expression is null or blank.
+     * @throws IllegalArgumentException if the given expression is not a valid type expression.
+     */
+    public EdmType getType(final String typeExpression) {
+        if (StringUtils.isBlank(typeExpression)) {
+            return null;
+        }
+
+        EdmType type = types.get(typeExpression);
+        if (type == null) {
+            type = new EdmType(intern(typeExpression));
+            if (types.size() < maxSize) {
+                final EdmType previous = types.putIfAbsent(type.getTypeExpression(), type);
+                if (previous != null) {
+                    type = previous;
+                }
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Gets the type of the items of the given collection type.
+     *
+     * @param collectionType collection type.
+     * @return item type.
+     */
+    public EdmType getItemType(final EdmType collectionType) {
+        return getType(collectionType.getBaseType());
+    }
+}
@@ -20,6 +20,7 @@
 package com.msopentech.odatajclient.engine.utils;
 
 import com.msopentech.odatajclient.engine.data.ODataDuration;
+import com.msopentech.odatajclient.engine.data.ODataLiteralCodec;
 import com.msopentech.odatajclient.engine.data.ODataTimestamp;
 import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
 import com.msopentech.odatajclient.engine.uri.ODataURIBuilder;
@@ -28,7 +29,6 @@ import com.msopentech.odatajclient.engine.data.metadata.edm.FunctionImport;
 import java.math.BigDecimal;
 import java.net.URI;
 import java.net.URLEncoder;
-import java.text.DecimalFormat;
 import java.util.UUID;
 import org.apache.commons.codec.binary.Hex;
 import org.slf4j.Logger;
@@ -110,6 +110,17 @@ public final class URIUtils {
         return uri.normalize();
     }
 
+    /**
+     * Gets scheme, host and port of the given URI, identifying the HTTP route to the service.
+     *
+     * @param uri request URI.
+     * @return <tt>scheme://host:port</tt> string.
+     */
+    public static String getServiceHost(final URI uri) {
+        return new StringBuilder().append(uri.getScheme()).append("://").
+                append(uri.getHost()).append(':').append(uri.getPort()).toString();
+    }
+
     /**
      * Gets function import URI segment.
      *
@@ -151,11 +162,11 @@ public final class URIUtils {
                     : (obj instanceof ODataDuration)
                     ? "time'" + ((ODataDuration) obj).toString() + "'"
                     : (obj instanceof BigDecimal)
-                    ? new DecimalFormat(EdmSimpleType.Decimal.pattern()).format((BigDecimal) obj) + "M"
+                    ? ODataLiteralCodec.format(EdmSimpleType.Decimal, obj) + "M"
                     : (obj instanceof Double)
-                    ? new DecimalFormat(EdmSimpleType.Double.pattern()).format((Double) obj) + "D"
+                    ? ODataLiteralCodec.format(EdmSimpleType.Double, obj) + "D"
                     : (obj instanceof Float)
-                    ? new DecimalFormat(EdmSimpleType.Single.pattern()).format((Float) obj) + "f"
+                    ? ODataLiteralCodec.format(EdmSimpleType.Single, obj) + "f"
                     : (obj instanceof Long)
                     ? ((Long) obj).toString() + "L"
                     : (obj instanceof String)
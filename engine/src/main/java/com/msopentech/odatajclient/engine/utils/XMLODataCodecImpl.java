@@ -0,0 +1,107 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.utils;
+
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+import com.fasterxml.aalto.stax.OutputFactoryImpl;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.DeserializationProblemHandler;
+import com.fasterxml.jackson.dataformat.xml.JacksonXmlModule;
+import com.fasterxml.jackson.dataformat.xml.XmlFactory;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractAnnotatedEdm;
+import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractAnnotatedEdmUtils;
+import com.msopentech.odatajclient.engine.data.metadata.edm.Edmx;
+import com.msopentech.odatajclient.engine.data.xml.XMLODataError;
+import java.io.IOException;
+import org.apache.http.entity.ContentType;
+
+/**
+ * Default XML codec.
+ * <br/>
+ * Metadata documents are read by a dedicated mapper, taking care of annotations and skipping any unknown element.
+ */
+public class XMLODataCodecImpl extends AbstractJacksonODataCodec {
+
+    private final XmlMapper mapper = newXmlMapper();
+
+    private final XmlMapper metadataMapper = newXmlMapper();
+
+    /**
+     * Constructor.
+     */
+    public XMLODataCodecImpl() {
+        super();
+
+        metadataMapper.addHandler(new DeserializationProblemHandler() {
+
+            @Override
+            public boolean handleUnknownProperty(final DeserializationContext ctxt, final JsonParser jp,
+                    final JsonDeserializer<?> deserializer, final Object beanOrClass, final String propertyName)
+                    throws IOException, JsonProcessingException {
+
+                // 1. special handling of AbstractAnnotatedEdm's fields
+                if (beanOrClass instanceof AbstractAnnotatedEdm
+                        && AbstractAnnotatedEdmUtils.isAbstractAnnotatedProperty(propertyName)) {
+
+                    AbstractAnnotatedEdmUtils.parseAnnotatedEdm((AbstractAnnotatedEdm) beanOrClass, jp);
+                } // 2. skip any other unknown property
+                else {
+                    ctxt.getParser().skipChildren();
+                }
+
+                return true;
+            }
+        });
+    }
+
+    private static XmlMapper newXmlMapper() {
+        return new XmlMapper(new XmlFactory(new InputFactoryImpl(), new OutputFactoryImpl()), new JacksonXmlModule());
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isSupported(final String format) {
+        return format != null && (format.startsWith(ContentType.APPLICATION_XML.getMimeType())
+                || format.startsWith(ContentType.APPLICATION_ATOM_XML.getMimeType()));
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected ObjectMapper getMapper(final Class<?> reference) {
+        return Edmx.class.equals(reference) ? metadataMapper : mapper;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected Class<?>[] getResourceClasses() {
+        return new Class<?>[] {Edmx.class, XMLODataError.class};
+    }
+}
@@ -38,9 +38,14 @@ public final class XMLUtils {
     public static final AbstractDOMParser PARSER;
 
     static {
+        // AaltoDOMParserImpl is registered by this library: any other registered implementation takes precedence
+        AbstractDOMParser parser = null;
         final Iterator<AbstractDOMParser> itor =
                 ServiceLoader.load(AbstractDOMParser.class, Thread.currentThread().getContextClassLoader()).iterator();
-        PARSER = itor.hasNext() ? itor.next() : new DefaultDOMParserImpl();
+        while (itor.hasNext() && (parser == null || parser instanceof AaltoDOMParserImpl)) {
+            parser = itor.next();
+        }
+        PARSER = parser == null ? new DefaultDOMParserImpl() : parser;
     }
 
     private XMLUtils() {
@@ -21,10 +21,17 @@ package com.msopentech.odatajclient.engine;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.data.Deserializer;
 import com.msopentech.odatajclient.engine.data.ODataBinder;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
 import com.msopentech.odatajclient.engine.data.ODataEntitySet;
+import com.msopentech.odatajclient.engine.data.ODataEntitySetIterator;
+import com.msopentech.odatajclient.engine.data.ODataReader;
 import com.msopentech.odatajclient.engine.data.ResourceFactory;
 import com.msopentech.odatajclient.engine.format.ODataPubFormat;
 import java.io.IOException;
@@ -56,4 +63,167 @@ public class EntitySetTest extends AbstractTest {
     public void fromJSON() throws IOException {
         read(ODataPubFormat.JSON);
     }
+
+    private void sharedSymbols(final ODataPubFormat format) {
+        final ODataEntitySet entitySet = ODataReader.readEntitySet(
+                getClass().getResourceAsStream("Customer." + getSuffix(format)), format);
+
+        final ODataEntity first = entitySet.getEntities().get(0);
+        final ODataEntity second = entitySet.getEntities().get(1);
+
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getNavigationLinks().get(0).getName(), second.getNavigationLinks().get(0).getName());
+        assertSame(first.getProperty("PrimaryContactInfo").getComplexValue().getTypeName(),
+                second.getProperty("PrimaryContactInfo").getComplexValue().getTypeName());
+    }
+
+    @Test
+    public void sharedSymbolsFromAtom() {
+        sharedSymbols(ODataPubFormat.ATOM);
+    }
+
+    @Test
+    public void sharedSymbolsFromJSON() {
+        sharedSymbols(ODataPubFormat.JSON);
+    }
+
+    private void parallelRead(final ODataPubFormat format) {
+        final ODataEntitySet sequential = ODataReader.readEntitySet(
+                getClass().getResourceAsStream("Customer." + getSuffix(format)), format);
+
+        final ODataClient client = new ODataClient.Builder().
+                setParallelReadThreshold(1).setParallelReadParallelism(2).build();
+        final ODataEntitySet parallel = ODataReader.readEntitySet(
+                getClass().getResourceAsStream("Customer." + getSuffix(format)), format, client);
+
+        assertEquals(sequential.getEntities().size(), parallel.getEntities().size());
+        assertEquals(sequential.getNext(), parallel.getNext());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void parallelReadFromAtom() {
+        parallelRead(ODataPubFormat.ATOM);
+    }
+
+    @Test
+    public void parallelReadFromJSON() {
+        parallelRead(ODataPubFormat.JSON);
+    }
+
+    private void lazyRead(final ODataPubFormat format) {
+        final ODataEntitySet eager = ODataReader.readEntitySet(
+                getClass().getResourceAsStream("Customer." + getSuffix(format)), format);
+
+        final ODataEntitySet lazy = ODataReader.readEntitySet(
+                getClass().getResourceAsStream("Customer." + getSuffix(format)), format,
+                new ODataClient.Builder().setLazyProperties(true).build());
+
+        final ODataEntity first = lazy.getEntities().get(0);
+        assertEquals(eager.getEntities().get(0).getProperty("PrimaryContactInfo"),
+                first.getProperty("PrimaryContactInfo"));
+        assertFalse(first.isPropertiesLoaded());
+        assertEquals(eager, lazy);
+    }
+
+    @Test
+    public void lazyReadFromAtom() {
+        lazyRead(ODataPubFormat.ATOM);
+    }
+
+    @Test
+    public void lazyReadFromJSON() {
+        lazyRead(ODataPubFormat.JSON);
+    }
+
+    private void duplicates(final ODataPubFormat format) throws IOException {
+        final ODataEntitySet bound = ODataBinder.getODataEntitySet(Deserializer.toFeed(
+                getClass().getResourceAsStream("Customer_duplicates." + getSuffix(format)),
+                ResourceFactory.feedClassForFormat(format)));
+        assertEquals(2, bound.getEntities().size());
+
+        for (ODataClient client : new ODataClient[] {
+            new ODataClient.Builder().build(),
+            new ODataClient.Builder().setLazyProperties(true).build(),
+            new ODataClient.Builder().setParallelReadThreshold(1).setParallelReadParallelism(2).build()}) {
+
+            final ODataEntitySet read = ODataReader.readEntitySet(
+                    getClass().getResourceAsStream("Customer_duplicates." + getSuffix(format)), format, client);
+            assertEquals(bound.getEntities().size(), read.getEntities().size());
+            assertEquals(bound, read);
+        }
+    }
+
+    @Test
+    public void duplicatesFromAtom() throws IOException {
+        duplicates(ODataPubFormat.ATOM);
+    }
+
+    @Test
+    public void duplicatesFromJSON() throws IOException {
+        duplicates(ODataPubFormat.JSON);
+    }
+
+    private void spill(final ODataPubFormat format) {
+        final ODataEntitySet onHeap = ODataReader.readEntitySet(
+                getClass().getResourceAsStream("Customer." + getSuffix(format)), format);
+
+        final ODataClient client = new ODataClient.Builder().setEntitySetHeapLimit(1).build();
+        final ODataEntitySet spilled = ODataReader.readEntitySet(
+                getClass().getResourceAsStream("Customer." + getSuffix(format)), format, client);
+
+        assertEquals(onHeap.getEntities().size(), spilled.getEntities().size());
+        assertEquals(onHeap, spilled);
+
+        final ODataEntity last = onHeap.getEntities().get(1);
+        assertTrue(spilled.getEntities().contains(last));
+        assertFalse(spilled.addEntity(last));
+
+        // replaced records are left behind in the spill file until compacted
+        for (int i = 0; i < 100; i++) {
+            spilled.getEntities().set(1, last);
+        }
+        assertEquals(onHeap, spilled);
+
+        assertTrue(spilled.removeEntity(last));
+        assertEquals(1, spilled.getEntities().size());
+
+        spilled.close();
+        assertTrue(spilled.getEntities().isEmpty());
+    }
+
+    @Test
+    public void spillFromAtom() {
+        spill(ODataPubFormat.ATOM);
+    }
+
+    @Test
+    public void spillFromJSON() {
+        spill(ODataPubFormat.JSON);
+    }
+
+    private void iterate(final ODataPubFormat format) {
+        final ODataEntitySet entitySet = ODataReader.readEntitySet(
+                getClass().getResourceAsStream("Customer." + getSuffix(format)), format);
+
+        final ODataEntitySetIterator iterator = new ODataEntitySetIterator(
+                getClass().getResourceAsStream("Customer." + getSuffix(format)), format);
+        for (ODataEntity entity : entitySet.getEntities()) {
+            assertEquals(entity, iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+
+        assertEquals(entitySet.getNext(), iterator.getNext());
+        assertEquals(entitySet.getCount(), iterator.getCount());
+    }
+
+    @Test
+    public void iteratorFromAtom() {
+        iterate(ODataPubFormat.ATOM);
+    }
+
+    @Test
+    public void iteratorFromJSON() {
+        iterate(ODataPubFormat.JSON);
+    }
 }
@@ -20,15 +20,19 @@
 package com.msopentech.odatajclient.engine;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.data.Deserializer;
 import com.msopentech.odatajclient.engine.data.ODataBinder;
 import com.msopentech.odatajclient.engine.data.ODataEntity;
 import com.msopentech.odatajclient.engine.data.ODataLink;
 import com.msopentech.odatajclient.engine.data.ODataOperation;
 import com.msopentech.odatajclient.engine.data.ODataProperty;
+import com.msopentech.odatajclient.engine.data.ODataReader;
 import com.msopentech.odatajclient.engine.data.ResourceFactory;
 import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
 import com.msopentech.odatajclient.engine.data.metadata.edm.geospatial.Geospatial;
@@ -76,6 +80,37 @@ public class EntityTest extends AbstractTest {
         readAndWrite(ODataPubFormat.JSON_FULL_METADATA);
     }
 
+    private void readLazily(final ODataPubFormat format) {
+        final ODataEntity eager = ODataReader.readEntity(
+                getClass().getResourceAsStream("AllGeoTypesSet_-8." + getSuffix(format)), format);
+
+        final ODataEntity lazy = ODataReader.readEntity(
+                getClass().getResourceAsStream("AllGeoTypesSet_-8." + getSuffix(format)), format,
+                new ODataClient.Builder().setLazyProperties(true).build());
+        assertNotNull(lazy);
+        assertFalse(lazy.isPropertiesLoaded());
+
+        // single properties are decoded without loading the others
+        assertEquals(eager.getProperty("Id"), lazy.getProperty("Id"));
+        assertEquals(eager.getProperty("GeogPoint"), lazy.getProperty("GeogPoint"));
+        assertNull(lazy.getProperty("Missing"));
+        assertFalse(lazy.isPropertiesLoaded());
+
+        assertEquals(eager.getProperties().size(), lazy.getProperties().size());
+        assertTrue(lazy.isPropertiesLoaded());
+        assertEquals(eager, lazy);
+    }
+
+    @Test
+    public void lazyFromAtom() {
+        readLazily(ODataPubFormat.ATOM);
+    }
+
+    @Test
+    public void lazyFromJSON() {
+        readLazily(ODataPubFormat.JSON_FULL_METADATA);
+    }
+
     private void readGeospatial(final ODataPubFormat format) {
         final InputStream input = getClass().getResourceAsStream("AllGeoTypesSet_-8." + getSuffix(format));
         final ODataEntity entity = ODataBinder.getODataEntity(
@@ -0,0 +1,228 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.msopentech.odatajclient.engine.data.NamedItemList;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataFactory;
+import com.msopentech.odatajclient.engine.data.ODataLink;
+import com.msopentech.odatajclient.engine.data.ODataPrimitiveValue;
+import com.msopentech.odatajclient.engine.data.ODataProperty;
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+import org.junit.Test;
+
+public class NamedItemListTest extends AbstractTest {
+
+    private static final String[] NAMES = {"CustomerId", "Name", "Orders", "Logins"};
+
+    private static ODataProperty property(final String name, final int value) {
+        return ODataFactory.newPrimitiveProperty(name, new ODataPrimitiveValue.Builder().
+                setType(EdmSimpleType.Int32).setText(String.valueOf(value)).build());
+    }
+
+    /**
+     * Checks name lookup and <tt>contains()</tt> against a plain list holding the same items.
+     */
+    private static void assertIndexed(final List<ODataProperty> expected, final NamedItemList<ODataProperty> actual) {
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), actual.size());
+
+        for (String name : NAMES) {
+            ODataProperty last = null;
+            for (ODataProperty item : expected) {
+                if (name.equals(item.getName())) {
+                    last = item;
+                }
+            }
+            assertEquals(name, last, actual.getByName(name));
+        }
+        for (int value = 0; value < 3; value++) {
+            for (String name : NAMES) {
+                final ODataProperty probe = property(name, value);
+                assertEquals(probe.toString(), expected.contains(probe), actual.contains(probe));
+            }
+        }
+    }
+
+    @Test
+    public void lastWins() {
+        final NamedItemList<ODataProperty> properties = NamedItemList.newPropertyList();
+        final ODataProperty first = property("Name", 1);
+        final ODataProperty second = property("Name", 2);
+
+        assertTrue(properties.add(first));
+        assertSame(first, properties.getByName("Name"));
+        assertTrue(properties.add(second));
+        assertSame(second, properties.getByName("Name"));
+        assertNull(properties.getByName("CustomerId"));
+
+        assertTrue(properties.contains(first));
+        assertTrue(properties.contains(property("Name", 1)));
+        assertTrue(properties.contains(second));
+        assertFalse(properties.contains(property("Name", 3)));
+        assertFalse(properties.contains("Name"));
+        assertFalse(properties.contains(null));
+    }
+
+    @Test
+    public void setRemoveAndInsert() {
+        final NamedItemList<ODataProperty> properties = NamedItemList.newPropertyList();
+        final List<ODataProperty> expected = new ArrayList<ODataProperty>();
+        for (ODataProperty property : new ODataProperty[] {
+            property("CustomerId", 0), property("Name", 0), property("Name", 1), property("Orders", 0)}) {
+
+            properties.add(property);
+            expected.add(property);
+        }
+        assertIndexed(expected, properties);
+
+        // replacing the last "Name" makes the first one visible by name again
+        assertEquals(expected.set(2, property("Logins", 1)), properties.set(2, property("Logins", 1)));
+        assertIndexed(expected, properties);
+
+        // inserting before an item with the same name does not hide it
+        expected.add(0, property("Logins", 2));
+        properties.add(0, property("Logins", 2));
+        assertIndexed(expected, properties);
+
+        assertEquals(expected.remove(3), properties.remove(3));
+        assertIndexed(expected, properties);
+
+        assertTrue(expected.remove(property("CustomerId", 0)));
+        assertTrue(properties.remove(property("CustomerId", 0)));
+        assertFalse(properties.remove(property("CustomerId", 0)));
+        assertIndexed(expected, properties);
+
+        expected.subList(0, 1).clear();
+        properties.subList(0, 1).clear();
+        assertIndexed(expected, properties);
+
+        properties.clear();
+        assertTrue(properties.isEmpty());
+        assertIndexed(new ArrayList<ODataProperty>(), properties);
+    }
+
+    @Test
+    public void iterators() {
+        final NamedItemList<ODataProperty> properties = NamedItemList.newPropertyList();
+        final List<ODataProperty> expected = new ArrayList<ODataProperty>();
+        for (int i = 0; i < NAMES.length * 2; i++) {
+            properties.add(property(NAMES[i % NAMES.length], i / NAMES.length));
+            expected.add(property(NAMES[i % NAMES.length], i / NAMES.length));
+        }
+
+        for (Iterator<ODataProperty> itor = properties.iterator(); itor.hasNext();) {
+            if ("Name".equals(itor.next().getName())) {
+                itor.remove();
+            }
+        }
+        for (Iterator<ODataProperty> itor = expected.iterator(); itor.hasNext();) {
+            if ("Name".equals(itor.next().getName())) {
+                itor.remove();
+            }
+        }
+        assertIndexed(expected, properties);
+
+        final ListIterator<ODataProperty> itor = properties.listIterator();
+        itor.next();
+        itor.set(property("Name", 2));
+        itor.add(property("Orders", 2));
+        expected.set(0, property("Name", 2));
+        expected.add(1, property("Orders", 2));
+        assertIndexed(expected, properties);
+    }
+
+    @Test
+    public void randomOperations() {
+        final Random random = new Random(42);
+        final NamedItemList<ODataProperty> properties = NamedItemList.newPropertyList();
+        final List<ODataProperty> expected = new ArrayList<ODataProperty>();
+
+        for (int i = 0; i < 500; i++) {
+            final ODataProperty property = property(NAMES[random.nextInt(NAMES.length)], random.nextInt(3));
+            final int index = expected.isEmpty() ? 0 : random.nextInt(expected.size());
+            switch (expected.isEmpty() ? 0 : random.nextInt(5)) {
+                case 0:
+                    expected.add(property);
+                    properties.add(property);
+                    break;
+
+                case 1:
+                    expected.add(index, property);
+                    properties.add(index, property);
+                    break;
+
+                case 2:
+                    assertSame(expected.set(index, property), properties.set(index, property));
+                    break;
+
+                case 3:
+                    assertSame(expected.remove(index), properties.remove(index));
+                    break;
+
+                default:
+                    assertEquals(expected.remove(property), properties.remove(property));
+            }
+            assertIndexed(expected, properties);
+        }
+    }
+
+    @Test
+    public void entityDuplicates() {
+        final ODataEntity entity =
+                ODataFactory.newEntity("Microsoft.Test.OData.Services.AstoriaDefaultService.Customer");
+
+        assertTrue(entity.addProperty(property("Name", 1)));
+        assertFalse(entity.addProperty(property("Name", 1)));
+        // same name, different value: not a duplicate
+        assertTrue(entity.addProperty(property("Name", 2)));
+        assertEquals(2, entity.getProperties().size());
+        assertEquals("2", entity.getProperty("Name").getValue().toString());
+
+        assertTrue(entity.removeProperty(property("Name", 2)));
+        assertEquals("1", entity.getProperty("Name").getValue().toString());
+
+        final URI orders = URI.create("http://localhost/Service.svc/Customer(-10)/Orders");
+        assertTrue(entity.addLink(ODataFactory.newFeedNavigationLink("Orders", orders)));
+        assertFalse(entity.addLink(ODataFactory.newFeedNavigationLink("Orders", orders)));
+        assertTrue(entity.addLink(ODataFactory.newAssociationLink("Orders", orders)));
+        assertTrue(entity.addLink(ODataFactory.newFeedNavigationLink("Logins", orders)));
+        assertEquals(2, entity.getNavigationLinks().size());
+        assertEquals(1, entity.getAssociationLinks().size());
+
+        final ODataLink orderLink = ODataFactory.newFeedNavigationLink("Orders", orders);
+        assertTrue(entity.removeLink(orderLink));
+        assertFalse(entity.removeLink(orderLink));
+        assertEquals(1, entity.getNavigationLinks().size());
+        assertEquals("Logins", entity.getNavigationLinks().get(0).getName());
+    }
+}
@@ -22,9 +22,11 @@ package com.msopentech.odatajclient.engine;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import com.msopentech.odatajclient.engine.data.ODataFactory;
 import com.msopentech.odatajclient.engine.data.ODataGeospatialValue;
+import com.msopentech.odatajclient.engine.data.ODataLiteralCodec;
 import com.msopentech.odatajclient.engine.data.ODataPrimitiveValue;
 import com.msopentech.odatajclient.engine.data.ODataProperty;
 import com.msopentech.odatajclient.engine.data.ODataReader;
@@ -44,6 +46,7 @@ import com.msopentech.odatajclient.engine.utils.ODataConstants;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
@@ -558,4 +561,104 @@ public class PrimitiveValueTest extends AbstractTest {
     public void geogCollectionFromJSON() {
         geogCollection(ODataFormat.JSON);
     }
+
+    private void literal(final EdmSimpleType type, final String literal) {
+        final Object value = ODataLiteralCodec.parse(type, literal);
+        assertEquals(type.javaType(), value.getClass());
+        assertEquals(literal, ODataLiteralCodec.format(type, value));
+
+        final char[] chars = ("[" + literal + "]").toCharArray();
+        assertEquals(value, ODataLiteralCodec.parse(type, chars, 1, literal.length()));
+    }
+
+    @Test
+    public void literals() {
+        literal(EdmSimpleType.Boolean, "true");
+        literal(EdmSimpleType.SByte, "-128");
+        literal(EdmSimpleType.Int16, "32767");
+        literal(EdmSimpleType.Int32, "-2147483648");
+        literal(EdmSimpleType.Int64, "9223372036854775807");
+        literal(EdmSimpleType.Decimal, "-79228162514264337593543950335");
+        literal(EdmSimpleType.Decimal, "0.0000123");
+        literal(EdmSimpleType.Double, "1.7976931348623157E308");
+        literal(EdmSimpleType.Double, "-INF");
+        literal(EdmSimpleType.Single, "NaN");
+        literal(EdmSimpleType.Guid, "1126a28b-a4af-4bbd-bf0a-2b2c22635565");
+        literal(EdmSimpleType.DateTime, "2013-01-10T06:27:51.1667673");
+        literal(EdmSimpleType.DateTime, "0001-01-01T00:00:00");
+        literal(EdmSimpleType.DateTimeOffset, "2013-08-14T13:33:46.05+02:00");
+        literal(EdmSimpleType.DateTimeOffset, "2013-08-14T13:33:46-05:30");
+        literal(EdmSimpleType.DateTimeOffset, "2013-08-14T13:33:46.05Z");
+        literal(EdmSimpleType.Time, "-P9DT51M10.5063807S");
+
+        final byte[] binary = new byte[256];
+        for (int i = 0; i < binary.length; i++) {
+            binary[i] = (byte) i;
+        }
+        for (int length = 0; length < 4; length++) {
+            final byte[] value = new byte[binary.length - length];
+            System.arraycopy(binary, 0, value, 0, value.length);
+            final String literal = ODataLiteralCodec.format(EdmSimpleType.Binary, value);
+            assertEquals(Base64.encodeBase64String(value), literal);
+            assertTrue(Arrays.equals(value, (byte[]) ODataLiteralCodec.parse(EdmSimpleType.Binary, literal)));
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void int32Overflow() {
+        ODataLiteralCodec.parse(EdmSimpleType.Int32, "2147483648");
+    }
+
+    @Test
+    public void invalidTimestamps() {
+        final String[] invalid = new String[] {
+            "2013-01-10T06:27:51xyz",
+            "2013-01-10T06:27:51Zulu",
+            "2013-01-10T06:27:51+0200",
+            "2013-01-10T06:27:51+02:00:00",
+            "2013-01-10T06:27:51+24:00",
+            "2013-13-10T06:27:51",
+            "2013-02-30T06:27:51",
+            "2013-01-10T25:27:51",
+            "2013-01-10T06:60:51"};
+
+        for (String literal : invalid) {
+            try {
+                ODataLiteralCodec.parse(EdmSimpleType.DateTimeOffset, literal);
+                fail(literal);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().startsWith("Cannot parse timestamp"));
+            }
+        }
+    }
+
+    @Test
+    public void textAndValueForms() {
+        final Object[][] samples = new Object[][] {
+            {EdmSimpleType.Boolean, "true", Boolean.TRUE},
+            {EdmSimpleType.SByte, "-12", (byte) -12},
+            {EdmSimpleType.Int16, "-32768", Short.MIN_VALUE},
+            {EdmSimpleType.Int32, "2147483647", Integer.MAX_VALUE},
+            {EdmSimpleType.Int64, "-9223372036854775808", Long.MIN_VALUE},
+            {EdmSimpleType.Single, "1.5", 1.5F},
+            {EdmSimpleType.Double, "-INF", Double.NEGATIVE_INFINITY},
+            {EdmSimpleType.Decimal, "79228162514264337593543950335",
+                new BigDecimal("79228162514264337593543950335")},
+            {EdmSimpleType.Guid, "4ba6ee3a-8cf8-4b0c-9a55-b18ab0ad0c29",
+                UUID.fromString("4ba6ee3a-8cf8-4b0c-9a55-b18ab0ad0c29")}};
+
+        for (Object[] sample : samples) {
+            final EdmSimpleType type = (EdmSimpleType) sample[0];
+
+            final ODataPrimitiveValue fromText = new ODataPrimitiveValue.Builder().
+                    setType(type).setText((String) sample[1]).build();
+            final ODataPrimitiveValue fromValue = new ODataPrimitiveValue.Builder().
+                    setType(type).setValue(sample[2]).build();
+
+            assertEquals(sample[2], fromText.toValue());
+            assertEquals(sample[1], fromValue.toString());
+            assertEquals(fromText, fromValue);
+            assertEquals(fromText.hashCode(), fromValue.hashCode());
+        }
+    }
 }
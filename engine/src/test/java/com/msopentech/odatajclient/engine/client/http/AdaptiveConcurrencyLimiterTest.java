@@ -0,0 +1,315 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.junit.Test;
+
+/**
+ * Offline tests for the adaptive concurrency limiter and for permits held by response entities.
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final URI URI_A = URI.create("http://localhost/Service.svc/Customer(-10)");
+
+    private static final URI URI_B = URI.create("http://remotehost/Service.svc/Customer(-10)");
+
+    private static AdaptiveConcurrencyLimiter limiter(final int initial, final long latencyThreshold,
+            final long maxWait) {
+
+        return new AdaptiveConcurrencyLimiter(initial, 1, 4 * initial, 0.5, latencyThreshold, maxWait);
+    }
+
+    private static void roundTrip(final AdaptiveConcurrencyLimiter limiter, final int statusCode) {
+        final AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(URI_A);
+        permit.responseReceived(statusCode);
+        permit.release();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBounds() {
+        new AdaptiveConcurrencyLimiter(1, 2, 4, 0.5, 1000, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBackoffRatio() {
+        new AdaptiveConcurrencyLimiter(2, 1, 4, 1, 1000, 0);
+    }
+
+    @Test
+    public void additiveIncrease() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 3, 0.5, 1000, 0);
+
+        // about one more slot per round trip: 2 -> 2.5 -> 2.9 -> 3.24
+        roundTrip(limiter, HttpStatus.SC_OK);
+        roundTrip(limiter, HttpStatus.SC_OK);
+        assertEquals(2, limiter.getLimit(URI_A));
+        roundTrip(limiter, HttpStatus.SC_NOT_FOUND);
+        assertEquals(3, limiter.getLimit(URI_A));
+
+        // bounded by maxLimit
+        for (int i = 0; i < 10; i++) {
+            roundTrip(limiter, HttpStatus.SC_OK);
+        }
+        assertEquals(3, limiter.getLimit(URI_A));
+        assertEquals(0, limiter.getInFlight(URI_A));
+    }
+
+    @Test
+    public void multiplicativeDecrease() {
+        final AdaptiveConcurrencyLimiter limiter = limiter(16, 1000, 0);
+
+        roundTrip(limiter, HttpStatus.SC_SERVICE_UNAVAILABLE);
+        assertEquals(8, limiter.getLimit(URI_A));
+        roundTrip(limiter, 429);
+        assertEquals(4, limiter.getLimit(URI_A));
+
+        final AdaptiveConcurrencyLimiter.Permit failed = limiter.acquire(URI_A);
+        failed.fail();
+        assertEquals(2, limiter.getLimit(URI_A));
+
+        // bounded by minLimit
+        for (int i = 0; i < 4; i++) {
+            roundTrip(limiter, HttpStatus.SC_SERVICE_UNAVAILABLE);
+        }
+        assertEquals(1, limiter.getLimit(URI_A));
+
+        // other service roots are not affected
+        assertEquals(16, limiter.getLimit(URI_B));
+    }
+
+    @Test
+    public void decreaseOnLatency() throws InterruptedException {
+        final AdaptiveConcurrencyLimiter limiter = limiter(16, 20, 0);
+
+        final AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(URI_A);
+        Thread.sleep(50);
+        permit.responseReceived(HttpStatus.SC_OK);
+        permit.release();
+
+        assertEquals(8, limiter.getLimit(URI_A));
+    }
+
+    @Test
+    public void oneDecreasePerRoundTrip() {
+        final AdaptiveConcurrencyLimiter limiter = limiter(16, 1000, 0);
+
+        final AdaptiveConcurrencyLimiter.Permit first = limiter.acquire(URI_A);
+        final AdaptiveConcurrencyLimiter.Permit second = limiter.acquire(URI_A);
+        first.responseReceived(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        second.responseReceived(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        first.release();
+        second.release();
+
+        // the second overload was sent before the first decrease
+        assertEquals(8, limiter.getLimit(URI_A));
+
+        roundTrip(limiter, HttpStatus.SC_SERVICE_UNAVAILABLE);
+        assertEquals(4, limiter.getLimit(URI_A));
+    }
+
+    @Test
+    public void idempotentRelease() {
+        final AdaptiveConcurrencyLimiter limiter = limiter(16, 1000, 0);
+
+        final AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(URI_A);
+        assertEquals(1, limiter.getInFlight(URI_A));
+        permit.responseReceived(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        permit.release();
+        permit.release();
+        permit.fail();
+
+        assertEquals(0, limiter.getInFlight(URI_A));
+        assertEquals(8, limiter.getLimit(URI_A));
+    }
+
+    @Test
+    public void failFast() {
+        final AdaptiveConcurrencyLimiter limiter = limiter(1, 1000, 0);
+
+        limiter.acquire(URI_A);
+        // other service roots have their own slots
+        limiter.acquire(URI_B);
+
+        final long start = System.currentTimeMillis();
+        try {
+            limiter.acquire(URI_A);
+            fail();
+        } catch (HttpClientException e) {
+            assertTrue(System.currentTimeMillis() - start < 1000);
+        }
+        assertEquals(1, limiter.getInFlight(URI_A));
+    }
+
+    @Test
+    public void boundedWait() {
+        final AdaptiveConcurrencyLimiter limiter = limiter(1, 1000, 100);
+
+        limiter.acquire(URI_A);
+
+        final long start = System.currentTimeMillis();
+        try {
+            limiter.acquire(URI_A);
+            fail();
+        } catch (HttpClientException e) {
+            assertTrue(System.currentTimeMillis() - start >= 90);
+        }
+    }
+
+    @Test
+    public void waitForRelease() throws InterruptedException {
+        final AdaptiveConcurrencyLimiter limiter = limiter(1, 1000, 10000);
+
+        final AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(URI_A);
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final Thread waiting = new Thread() {
+
+            @Override
+            public void run() {
+                limiter.acquire(URI_A);
+                acquired.countDown();
+            }
+        };
+        waiting.start();
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        permit.release();
+        assertTrue(acquired.await(10, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getInFlight(URI_A));
+    }
+
+    @Test
+    public void releaseOnBodyConsumed() throws IOException {
+        final AdaptiveConcurrencyLimiter limiter = limiter(16, 1000, 0);
+
+        final PermitHttpEntity entity =
+                new PermitHttpEntity(new ByteArrayEntity("payload".getBytes()), limiter.acquire(URI_A));
+        final InputStream content = entity.getContent();
+        assertEquals('p', content.read());
+        assertEquals(1, limiter.getInFlight(URI_A));
+
+        IOUtils.toByteArray(content);
+        assertEquals(0, limiter.getInFlight(URI_A));
+    }
+
+    @Test
+    public void releaseOnClose() throws IOException {
+        final AdaptiveConcurrencyLimiter limiter = limiter(16, 1000, 0);
+
+        final PermitHttpEntity entity = new PermitHttpEntity(
+                new InputStreamEntity(new ByteArrayInputStream("payload".getBytes()), -1), limiter.acquire(URI_A));
+        entity.getContent().close();
+        assertEquals(0, limiter.getInFlight(URI_A));
+    }
+
+    @Test
+    public void releaseOnReadFailure() {
+        final AdaptiveConcurrencyLimiter limiter = limiter(16, 1000, 0);
+
+        final InputStream failing = new FilterInputStream(new ByteArrayInputStream("payload".getBytes())) {
+
+            @Override
+            public int read(final byte[] bytes, final int off, final int len) throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+        final PermitHttpEntity entity = new PermitHttpEntity(new InputStreamEntity(failing, -1),
+                limiter.acquire(URI_A));
+
+        InputStream content = null;
+        try {
+            content = entity.getContent();
+            IOUtils.toByteArray(content);
+            fail();
+        } catch (IOException e) {
+            assertEquals(1, limiter.getInFlight(URI_A));
+        } finally {
+            IOUtils.closeQuietly(content);
+        }
+        assertEquals(0, limiter.getInFlight(URI_A));
+    }
+
+    private static ODataClient client(final AdaptiveConcurrencyLimiter limiter,
+            final CannedHttpClientFactory.Handler handler) {
+
+        return new ODataClient.Builder().setHttpClientFactory(new CannedHttpClientFactory(handler)).
+                setConcurrencyLimiter(limiter).setRequestCoalescer(null).setResponseCache(null).
+                setDefaultPubFormat(ODataPubFormat.ATOM).build();
+    }
+
+    @Test
+    public void requestReleasesPermit() throws IOException {
+        final byte[] payload = IOUtils.toByteArray(
+                getClass().getResourceAsStream("/com/msopentech/odatajclient/engine/Customer_-10.xml"));
+        final AdaptiveConcurrencyLimiter limiter = limiter(16, 1000, 0);
+        final ODataClient client = client(limiter, new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) {
+                assertEquals(1, limiter.getInFlight(URI_A));
+                return CannedHttpClientFactory.response(HttpStatus.SC_OK, "application/atom+xml", payload);
+            }
+        });
+
+        client.getRetrieveRequestFactory().getEntityRequest(URI_A).execute().getBody();
+        assertEquals(0, limiter.getInFlight(URI_A));
+        assertEquals(16, limiter.getLimit(URI_A));
+    }
+
+    @Test
+    public void requestFailureReleasesPermit() {
+        final AdaptiveConcurrencyLimiter limiter = limiter(16, 1000, 0);
+        final ODataClient client = client(limiter, new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) throws IOException {
+                throw new IOException("Connection refused");
+            }
+        });
+
+        try {
+            client.getRetrieveRequestFactory().getEntityRequest(URI_A).execute();
+            fail();
+        } catch (HttpClientException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(0, limiter.getInFlight(URI_A));
+        assertEquals(8, limiter.getLimit(URI_A));
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.conn.BasicClientConnectionManager;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * HTTP client factory serving canned responses, for offline tests: every request sent is recorded, then handed
+ * to the given handler.
+ */
+public class CannedHttpClientFactory implements HttpClientFactory {
+
+    /**
+     * Builds the response to a request.
+     */
+    public interface Handler {
+
+        HttpResponse handle(HttpUriRequest request) throws IOException;
+    }
+
+    private final Handler handler;
+
+    private final List<HttpUriRequest> requests = Collections.synchronizedList(new ArrayList<HttpUriRequest>());
+
+    public CannedHttpClientFactory(final Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Builds a response.
+     *
+     * @param status status code.
+     * @param contentType content type of the payload, if any.
+     * @param payload payload; null for no entity.
+     * @param headers header names and values, in turn.
+     * @return response.
+     */
+    public static HttpResponse response(final int status, final String contentType, final byte[] payload,
+            final String... headers) {
+
+        final HttpResponse res = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, "Status " + status);
+        for (int i = 0; i < headers.length; i += 2) {
+            res.addHeader(headers[i], headers[i + 1]);
+        }
+        if (contentType != null) {
+            res.addHeader(HttpHeaders.CONTENT_TYPE, contentType);
+        }
+        if (payload != null) {
+            final HttpEntity entity = contentType == null
+                    ? new ByteArrayEntity(payload) : new ByteArrayEntity(payload, ContentType.create(contentType));
+            res.setEntity(entity);
+        }
+        return res;
+    }
+
+    /**
+     * Gets the requests sent so far.
+     *
+     * @return sent requests.
+     */
+    public List<HttpUriRequest> getRequests() {
+        synchronized (requests) {
+            return new ArrayList<HttpUriRequest>(requests);
+        }
+    }
+
+    @Override
+    public HttpClient createHttpClient(final HttpMethod method, final URI uri) {
+        return new CannedHttpClient();
+    }
+
+    private class CannedHttpClient implements HttpClient {
+
+        private final HttpParams params = new BasicHttpParams();
+
+        private final ClientConnectionManager connectionManager = new BasicClientConnectionManager();
+
+        @Override
+        public HttpParams getParams() {
+            return params;
+        }
+
+        @Override
+        public ClientConnectionManager getConnectionManager() {
+            return connectionManager;
+        }
+
+        @Override
+        public HttpResponse execute(final HttpUriRequest request) throws IOException {
+            requests.add(request);
+            return handler.handle(request);
+        }
+
+        @Override
+        public HttpResponse execute(final HttpUriRequest request, final HttpContext context) throws IOException {
+            return execute(request);
+        }
+
+        @Override
+        public HttpResponse execute(final HttpHost target, final HttpRequest request) throws IOException {
+            if (request instanceof HttpUriRequest) {
+                return execute((HttpUriRequest) request);
+            }
+            throw new ClientProtocolException("Unsupported request " + request);
+        }
+
+        @Override
+        public HttpResponse execute(final HttpHost target, final HttpRequest request, final HttpContext context)
+                throws IOException {
+
+            return execute(target, request);
+        }
+
+        @Override
+        public <T> T execute(final HttpUriRequest request, final ResponseHandler<? extends T> responseHandler)
+                throws IOException {
+
+            return responseHandler.handleResponse(execute(request));
+        }
+
+        @Override
+        public <T> T execute(final HttpUriRequest request, final ResponseHandler<? extends T> responseHandler,
+                final HttpContext context) throws IOException {
+
+            return execute(request, responseHandler);
+        }
+
+        @Override
+        public <T> T execute(final HttpHost target, final HttpRequest request,
+                final ResponseHandler<? extends T> responseHandler) throws IOException {
+
+            return responseHandler.handleResponse(execute(target, request));
+        }
+
+        @Override
+        public <T> T execute(final HttpHost target, final HttpRequest request,
+                final ResponseHandler<? extends T> responseHandler, final HttpContext context) throws IOException {
+
+            return execute(target, request, responseHandler);
+        }
+    }
+}
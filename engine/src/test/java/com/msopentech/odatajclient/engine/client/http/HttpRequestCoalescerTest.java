@@ -0,0 +1,218 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Offline tests for single-flight execution of identical requests.
+ */
+public class HttpRequestCoalescerTest {
+
+    private static final URI ENTITY_URI = URI.create("http://localhost/Service.svc/Customer(-10)");
+
+    private static final byte[] PAYLOAD = "<entry/>".getBytes();
+
+    private static final int CALLERS = 8;
+
+    private ExecutorService executor;
+
+    private final HttpRequestCoalescer coalescer = new HttpRequestCoalescer();
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /**
+     * Blocks the first execution until released, so that identical requests pile up meanwhile.
+     */
+    private final CannedHttpClientFactory.Handler blocking = new CannedHttpClientFactory.Handler() {
+
+        @Override
+        public HttpResponse handle(final HttpUriRequest request) throws IOException {
+            executions.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return CannedHttpClientFactory.response(HttpStatus.SC_OK, "application/atom+xml", PAYLOAD,
+                    "DataServiceVersion", "3.0");
+        }
+    };
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    private Future<HttpResponse> submit(final HttpClientFactory factory) {
+        return executor.submit(new Callable<HttpResponse>() {
+
+            @Override
+            public HttpResponse call() throws Exception {
+                final HttpClient client = factory.createHttpClient(HttpMethod.GET, ENTITY_URI);
+                final HttpGet request = new HttpGet(ENTITY_URI);
+                request.addHeader("Accept", "application/atom+xml");
+                return coalescer.execute(factory, client, request);
+            }
+        });
+    }
+
+    private void awaitCoalesced(final long expected) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (coalescer.getCoalescedCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void sharedExecution() throws Exception {
+        final CannedHttpClientFactory factory = new CannedHttpClientFactory(blocking);
+
+        final List<Future<HttpResponse>> responses = new ArrayList<Future<HttpResponse>>();
+        responses.add(submit(factory));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i < CALLERS; i++) {
+            responses.add(submit(factory));
+        }
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        final Set<HttpResponse> distinct = new HashSet<HttpResponse>();
+        for (Future<HttpResponse> future : responses) {
+            final HttpResponse res = future.get(10, TimeUnit.SECONDS);
+            assertEquals(HttpStatus.SC_OK, res.getStatusLine().getStatusCode());
+            assertEquals("3.0", res.getFirstHeader("DataServiceVersion").getValue());
+            assertEquals("application/atom+xml", res.getEntity().getContentType().getValue());
+            // every caller gets its own response, whose payload can be read independently
+            assertArrayEquals(PAYLOAD, EntityUtils.toByteArray(res.getEntity()));
+            distinct.add(res);
+        }
+        assertEquals(CALLERS, distinct.size());
+
+        assertEquals(1, executions.get());
+        assertEquals(1, factory.getRequests().size());
+        assertEquals(1, coalescer.getExecutedCount());
+        assertEquals(CALLERS - 1, coalescer.getCoalescedCount());
+
+        // completed requests are not cached
+        submit(factory).get(10, TimeUnit.SECONDS);
+        assertEquals(2, executions.get());
+        assertEquals(2, coalescer.getExecutedCount());
+
+        coalescer.resetStats();
+        assertEquals(0, coalescer.getExecutedCount());
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void perFactory() throws Exception {
+        final CannedHttpClientFactory factory = new CannedHttpClientFactory(blocking);
+        final CannedHttpClientFactory other = new CannedHttpClientFactory(new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) {
+                return CannedHttpClientFactory.response(HttpStatus.SC_OK, "application/atom+xml", PAYLOAD);
+            }
+        });
+
+        final Future<HttpResponse> first = submit(factory);
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        // an identical request issued via another factory (e.g. other credentials) is not shared
+        final HttpResponse second = submit(other).get(10, TimeUnit.SECONDS);
+        release.countDown();
+
+        assertNotSame(second, first.get(10, TimeUnit.SECONDS));
+        assertEquals(1, factory.getRequests().size());
+        assertEquals(1, other.getRequests().size());
+        assertEquals(2, coalescer.getExecutedCount());
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void sharedFailure() throws Exception {
+        final CannedHttpClientFactory factory = new CannedHttpClientFactory(new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) throws IOException {
+                blocking.handle(request);
+                throw new IOException("Connection reset");
+            }
+        });
+
+        final List<Future<HttpResponse>> responses = new ArrayList<Future<HttpResponse>>();
+        responses.add(submit(factory));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        responses.add(submit(factory));
+        awaitCoalesced(1);
+        release.countDown();
+
+        for (Future<HttpResponse> future : responses) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+                assertEquals("Connection reset", e.getCause().getMessage());
+            }
+        }
+        assertEquals(1, executions.get());
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.communication.request.cud.ODataEntityCreateRequest;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataReader;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import com.msopentech.odatajclient.engine.utils.ODataConstants;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.junit.Test;
+
+/**
+ * Tests for request payload compression.
+ */
+public class RequestCompressionTest {
+
+    private static final int THRESHOLD = 512;
+
+    private static byte[] payload(final int length) {
+        // compressible, but not trivially
+        final byte[] payload = new byte[length];
+        final Random random = new Random(length);
+        for (int i = 0; i < length; i++) {
+            payload[i] = (byte) ('a' + random.nextInt(8));
+        }
+        return payload;
+    }
+
+    private static HttpEntity unknownLength(final byte[] payload) {
+        final InputStreamEntity entity = new InputStreamEntity(new ByteArrayInputStream(payload), -1);
+        entity.setContentType(ContentType.APPLICATION_XML.toString());
+        return entity;
+    }
+
+    private static byte[] written(final HttpEntity entity) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        entity.writeTo(bytes);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] decompress(final byte[] compressed, final RequestCompression.Encoding encoding)
+            throws IOException {
+
+        final InputStream input = encoding == RequestCompression.Encoding.GZIP
+                ? new GZIPInputStream(new ByteArrayInputStream(compressed))
+                : new InflaterInputStream(new ByteArrayInputStream(compressed));
+        return IOUtils.toByteArray(input);
+    }
+
+    @Test
+    public void belowThreshold() throws IOException {
+        final RequestCompression compression = new RequestCompression(RequestCompression.Encoding.GZIP, THRESHOLD);
+
+        // known length: not even read
+        final ByteArrayEntity known = new ByteArrayEntity(payload(THRESHOLD - 1));
+        assertSame(known, compression.compress(known, RequestCompression.Encoding.GZIP));
+
+        // unknown length: buffered, then sent as it is
+        final byte[] payload = payload(THRESHOLD - 1);
+        final HttpEntity raw = compression.compress(unknownLength(payload), RequestCompression.Encoding.GZIP);
+        assertNull(raw.getContentEncoding());
+        assertEquals(payload.length, raw.getContentLength());
+        assertEquals(ContentType.APPLICATION_XML.toString(), raw.getContentType().getValue());
+        assertArrayEquals(payload, written(raw));
+    }
+
+    @Test
+    public void alreadyEncoded() throws IOException {
+        final ByteArrayEntity encoded = new ByteArrayEntity(payload(4 * THRESHOLD));
+        encoded.setContentEncoding("identity");
+        assertSame(encoded, new RequestCompression().compress(encoded, RequestCompression.Encoding.DEFLATE));
+    }
+
+    private void roundTrip(final RequestCompression.Encoding encoding) throws IOException {
+        final RequestCompression compression = new RequestCompression(encoding, THRESHOLD);
+
+        for (int length : new int[] {THRESHOLD, THRESHOLD + 1, 100 * THRESHOLD}) {
+            final byte[] payload = payload(length);
+
+            final List<HttpEntity> entities = new ArrayList<HttpEntity>();
+            entities.add(compression.compress(new ByteArrayEntity(payload), encoding));
+            entities.add(compression.compress(unknownLength(payload), encoding));
+            for (HttpEntity entity : entities) {
+                assertTrue(entity instanceof CompressingHttpEntity);
+                assertEquals(encoding.toString(), entity.getContentEncoding().getValue());
+                assertEquals(-1, entity.getContentLength());
+                assertTrue(entity.isChunked());
+            }
+
+            // written while being sent...
+            final byte[] written = written(entities.get(0));
+            assertArrayEquals(payload, decompress(written, encoding));
+            assertEquals(ContentType.APPLICATION_XML.toString(), entities.get(1).getContentType().getValue());
+
+            // ... or read, e.g. when counting request bytes; both with the same format
+            final byte[] read = IOUtils.toByteArray(entities.get(1).getContent());
+            assertArrayEquals(payload, decompress(read, encoding));
+            assertTrue(length < 100 * THRESHOLD || read.length < length / 2);
+        }
+    }
+
+    @Test
+    public void gzip() throws IOException {
+        roundTrip(RequestCompression.Encoding.GZIP);
+    }
+
+    @Test
+    public void deflate() throws IOException {
+        roundTrip(RequestCompression.Encoding.DEFLATE);
+    }
+
+    @Test
+    public void encodingByServiceRoot() {
+        final RequestCompression compression = new RequestCompression(RequestCompression.Encoding.GZIP, THRESHOLD).
+                setEncoding("http://localhost/Service.svc", RequestCompression.Encoding.DEFLATE).
+                setEncoding("http://localhost/Service.svc/Legacy", null);
+
+        assertEquals(RequestCompression.Encoding.GZIP,
+                compression.getEncoding(URI.create("http://remotehost/Service.svc/Customer")));
+        assertEquals(RequestCompression.Encoding.DEFLATE,
+                compression.getEncoding(URI.create("http://localhost/Service.svc/Customer")));
+        assertNull(compression.getEncoding(URI.create("http://localhost/Service.svc/Legacy/Customer")));
+
+        assertNull(new RequestCompression(null, THRESHOLD).getEncoding(URI.create("http://localhost/Service.svc")));
+    }
+
+    @Test
+    public void compressedRequest() throws IOException {
+        final byte[] entry = IOUtils.toByteArray(
+                getClass().getResourceAsStream("/com/msopentech/odatajclient/engine/Customer_-10.xml"));
+        final List<HttpEntity> sent = new ArrayList<HttpEntity>();
+        final List<byte[]> payloads = new ArrayList<byte[]>();
+
+        final ODataClient client = new ODataClient.Builder().
+                setHttpClientFactory(new CannedHttpClientFactory(new CannedHttpClientFactory.Handler() {
+
+                    @Override
+                    public HttpResponse handle(final HttpUriRequest request) throws IOException {
+                        final HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+                        sent.add(entity);
+                        payloads.add(written(entity));
+                        return CannedHttpClientFactory.response(HttpStatus.SC_CREATED, "application/atom+xml", entry);
+                    }
+                })).
+                setRequestCompression(new RequestCompression(RequestCompression.Encoding.GZIP, THRESHOLD)).
+                setConcurrencyLimiter(null).setDefaultPubFormat(ODataPubFormat.ATOM).build();
+
+        final ODataEntity customer = ODataReader.readEntity(new ByteArrayInputStream(entry), ODataPubFormat.ATOM);
+        final URI customers = URI.create("http://localhost/Service.svc/Customer");
+
+        assertEquals(HttpStatus.SC_CREATED,
+                client.getCUDRequestFactory().getEntityCreateRequest(customers, customer).execute().getStatusCode());
+
+        final ODataEntityCreateRequest uncompressed =
+                client.getCUDRequestFactory().getEntityCreateRequest(customers, customer);
+        uncompressed.setPayloadCompression(null);
+        uncompressed.execute();
+
+        assertEquals(2, sent.size());
+        assertEquals(RequestCompression.Encoding.GZIP.toString(), sent.get(0).getContentEncoding().getValue());
+        assertNull(sent.get(1).getContentEncoding());
+        assertArrayEquals(payloads.get(1), decompress(payloads.get(0), RequestCompression.Encoding.GZIP));
+        assertTrue(new String(payloads.get(1), ODataConstants.UTF8).contains("<entry"));
+    }
+}
@@ -0,0 +1,313 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.InputStreamEntity;
+import org.junit.Test;
+
+/**
+ * Tests for request phase accounting and timing reports.
+ */
+public class RequestTimingTest {
+
+    /**
+     * Sample line of the Prometheus exposition format: metric name, optional labels and value.
+     */
+    private static final String SAMPLE = "[a-z_]+(\\{[a-z_]+=\"[^\"]+\"(,[a-z_]+=\"[^\"]+\")*\\})? [0-9.E-]+";
+
+    private static final URI ENTITY_URI = URI.create("http://localhost/Service.svc/Customer(-10)");
+
+    /**
+     * Listener recording notified timings.
+     */
+    private static class Recorder implements RequestTimingListener {
+
+        private final List<RequestTiming> completed = Collections.synchronizedList(new ArrayList<RequestTiming>());
+
+        @Override
+        public void requestCompleted(final RequestTiming timing) {
+            completed.add(timing);
+        }
+    }
+
+    private static long millis(final RequestTiming timing, final RequestTiming.Phase phase) {
+        return timing.getDuration(phase, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void waitsExcludedFromTimeToFirstByte() throws InterruptedException {
+        final Recorder recorder = new Recorder();
+        final RequestTiming timing = new RequestTiming(recorder, HttpMethod.GET, ENTITY_URI);
+
+        timing.add(RequestTiming.Phase.CONCURRENCY_LIMIT, TimeUnit.MILLISECONDS.toNanos(30));
+        timing.add(RequestTiming.Phase.COALESCING, TimeUnit.MILLISECONDS.toNanos(20));
+        timing.add(RequestTiming.Phase.CONCURRENCY_LIMIT, TimeUnit.MILLISECONDS.toNanos(10));
+        final long start = System.nanoTime();
+        Thread.sleep(100);
+        timing.responseReceived(HttpStatus.SC_OK, 42);
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(40, millis(timing, RequestTiming.Phase.CONCURRENCY_LIMIT));
+        assertEquals(20, millis(timing, RequestTiming.Phase.COALESCING));
+        final long firstByte = millis(timing, RequestTiming.Phase.TIME_TO_FIRST_BYTE);
+        assertTrue(firstByte >= 100 - 60 - 1);
+        assertTrue(firstByte <= elapsed - 60 + 1);
+        assertEquals(HttpStatus.SC_OK, timing.getStatusCode());
+        assertEquals(42, timing.getRequestBytes());
+        assertTrue(recorder.completed.isEmpty());
+    }
+
+    @Test
+    public void bodyDownloadAndDeserialization() throws IOException, InterruptedException {
+        final Recorder recorder = new Recorder();
+        final RequestTiming timing = new RequestTiming(recorder, HttpMethod.GET, ENTITY_URI);
+        timing.responseReceived(HttpStatus.SC_OK, 0);
+
+        // every read takes 10 ms from the network, and every chunk read takes 20 ms to be processed
+        final InputStream slow = new FilterInputStream(new ByteArrayInputStream(new byte[4 * 1024])) {
+
+            @Override
+            public int read(final byte[] bytes, final int off, final int len) throws IOException {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return super.read(bytes, off, Math.min(len, 1024));
+            }
+        };
+        final TimingHttpEntity entity = new TimingHttpEntity(new InputStreamEntity(slow, -1), timing);
+
+        final InputStream content = entity.getContent();
+        final byte[] chunk = new byte[1024];
+        while (content.read(chunk) >= 0) {
+            Thread.sleep(20);
+        }
+        assertTrue(recorder.completed.isEmpty());
+        content.close();
+        content.close();
+        entity.complete();
+
+        assertEquals(1, recorder.completed.size());
+        assertSame(timing, recorder.completed.get(0));
+        assertEquals(4 * 1024, timing.getResponseBytes());
+
+        // 5 reads (the last one at EOF), 4 chunks processed
+        final long download = millis(timing, RequestTiming.Phase.BODY_DOWNLOAD);
+        final long deserialization = millis(timing, RequestTiming.Phase.DESERIALIZATION);
+        assertTrue(download >= 5 * 10 - 1 && download < 5 * 10 + 4 * 20);
+        assertTrue(deserialization >= 4 * 20 - 1);
+        assertTrue(millis(timing, RequestTiming.Phase.TOTAL) >= download + deserialization - 1);
+    }
+
+    @Test
+    public void failure() {
+        final Recorder recorder = new Recorder();
+        final RequestTiming timing = new RequestTiming(recorder, HttpMethod.GET, ENTITY_URI);
+
+        final IOException failure = new IOException("Connection refused");
+        timing.failed(failure);
+        timing.complete(10, 0, -1);
+
+        assertEquals(1, recorder.completed.size());
+        assertSame(failure, timing.getFailure());
+        assertEquals(-1, timing.getStatusCode());
+        assertEquals(0, timing.getResponseBytes());
+    }
+
+    @Test
+    public void failingListener() {
+        final RequestTiming timing = new RequestTiming(new RequestTimingListener() {
+
+            @Override
+            public void requestCompleted(final RequestTiming timing) {
+                throw new IllegalStateException();
+            }
+        }, HttpMethod.GET, ENTITY_URI);
+
+        timing.complete(0, 0, -1);
+    }
+
+    @Test
+    public void currentTiming() {
+        final RequestTiming timing = new RequestTiming(NoOpRequestTimingListener.INSTANCE, HttpMethod.GET, ENTITY_URI);
+        assertNull(RequestTiming.current());
+        RequestTiming.setCurrent(timing);
+        assertSame(timing, RequestTiming.current());
+        RequestTiming.setCurrent(null);
+        assertNull(RequestTiming.current());
+    }
+
+    private static RequestTiming timing(final int statusCode, final long limitMillis, final long requestBytes) {
+        final RequestTiming timing = new RequestTiming(NoOpRequestTimingListener.INSTANCE, HttpMethod.GET, ENTITY_URI);
+        timing.add(RequestTiming.Phase.CONCURRENCY_LIMIT, TimeUnit.MILLISECONDS.toNanos(limitMillis));
+        if (statusCode > 0) {
+            timing.responseReceived(statusCode, requestBytes);
+        }
+        return timing;
+    }
+
+    @Test
+    public void histograms() {
+        final HistogramRequestTimingListener listener = new HistogramRequestTimingListener();
+
+        listener.requestCompleted(timing(HttpStatus.SC_OK, 3, 100));
+        listener.requestCompleted(timing(HttpStatus.SC_NOT_FOUND, 4, 0));
+        listener.requestCompleted(timing(HttpStatus.SC_SERVICE_UNAVAILABLE, 150, 0));
+        final RequestTiming failed = timing(-1, 40000, 0);
+        failed.failed(new IOException());
+        listener.requestCompleted(failed);
+
+        assertEquals(4, listener.getRequestCount());
+        assertEquals(1, listener.getFailureCount());
+        assertEquals(1, listener.getClientErrorCount());
+        assertEquals(1, listener.getServerErrorCount());
+        assertEquals(100, listener.getRequestBytes());
+
+        final HistogramRequestTimingListener.Histogram limit =
+                listener.getHistogram(RequestTiming.Phase.CONCURRENCY_LIMIT);
+        assertEquals(4, limit.getCount());
+        assertEquals(3 + 4 + 150 + 40000, limit.getSum(TimeUnit.MILLISECONDS));
+        assertEquals(40000, limit.getMax(TimeUnit.MILLISECONDS));
+        // 3 and 4 ms in (2, 5], 150 ms in (100, 200], 40 s beyond all bounds
+        assertEquals(2, limit.getBucketCount(2));
+        assertEquals(1, limit.getBucketCount(7));
+        assertEquals(1, limit.getBucketCount(HistogramRequestTimingListener.BUCKET_BOUNDS.length));
+        assertEquals(5, limit.getPercentile(50, TimeUnit.MILLISECONDS));
+        assertEquals(200, limit.getPercentile(75, TimeUnit.MILLISECONDS));
+        assertEquals(40000, limit.getPercentile(100, TimeUnit.MILLISECONDS));
+
+        listener.reset();
+        assertEquals(0, listener.getRequestCount());
+        assertEquals(0, limit.getCount());
+        assertEquals(0, limit.getMax(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void prometheusReport() {
+        final HistogramRequestTimingListener listener = new HistogramRequestTimingListener();
+        listener.requestCompleted(timing(HttpStatus.SC_OK, 3, 100));
+        listener.requestCompleted(timing(HttpStatus.SC_OK, 40000, 0));
+
+        final String report = listener.scrape();
+        assertTrue(report.startsWith("# TYPE odata_request_phase_seconds histogram\n"));
+        assertTrue(report.contains("odata_request_phase_seconds_bucket{phase=\"concurrency_limit\",le=\"0.002\"} 0\n"));
+        assertTrue(report.contains("odata_request_phase_seconds_bucket{phase=\"concurrency_limit\",le=\"0.005\"} 1\n"));
+        assertTrue(report.contains("odata_request_phase_seconds_bucket{phase=\"concurrency_limit\",le=\"30.0\"} 1\n"));
+        assertTrue(report.contains("odata_request_phase_seconds_bucket{phase=\"concurrency_limit\",le=\"+Inf\"} 2\n"));
+        assertTrue(report.contains("odata_request_phase_seconds_sum{phase=\"concurrency_limit\"} 40.003\n"));
+        assertTrue(report.contains("odata_request_phase_seconds_count{phase=\"concurrency_limit\"} 2\n"));
+        assertTrue(report.contains("odata_request_phase_seconds_count{phase=\"total\"} 2\n"));
+        assertTrue(report.contains("# TYPE odata_requests_total counter\nodata_requests_total 2\n"));
+        assertTrue(report.contains("odata_request_bytes_total 100\n"));
+
+        // every phase is reported, with cumulative buckets
+        int phases = 0;
+        long previous = -1;
+        for (String line : report.split("\n")) {
+            assertTrue(line, line.startsWith("# TYPE ") || line.matches(SAMPLE));
+            if (line.contains("_bucket{")) {
+                final long cumulative = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+                assertTrue(line, line.contains("le=\"0.001\"") || cumulative >= previous);
+                previous = cumulative;
+            }
+            if (line.contains("le=\"+Inf\"")) {
+                phases++;
+            }
+        }
+        assertEquals(RequestTiming.Phase.values().length, phases);
+    }
+
+    private static ODataClient client(final RequestTimingListener listener,
+            final CannedHttpClientFactory.Handler handler) {
+
+        return new ODataClient.Builder().setHttpClientFactory(new CannedHttpClientFactory(handler)).
+                setRequestTimingListener(listener).setConcurrencyLimiter(new AdaptiveConcurrencyLimiter()).
+                setRequestCoalescer(null).setResponseCache(null).setDefaultPubFormat(ODataPubFormat.ATOM).build();
+    }
+
+    @Test
+    public void timedRequest() throws IOException {
+        final byte[] payload = IOUtils.toByteArray(
+                getClass().getResourceAsStream("/com/msopentech/odatajclient/engine/Customer_-10.xml"));
+        final Recorder recorder = new Recorder();
+        final ODataClient client = client(recorder, new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) {
+                assertTrue(RequestTiming.current() != null);
+                return CannedHttpClientFactory.response(HttpStatus.SC_OK, "application/atom+xml", payload);
+            }
+        });
+
+        client.getRetrieveRequestFactory().getEntityRequest(ENTITY_URI).execute().getBody();
+
+        assertNull(RequestTiming.current());
+        assertEquals(1, recorder.completed.size());
+        final RequestTiming timing = recorder.completed.get(0);
+        assertEquals(HttpMethod.GET, timing.getMethod());
+        assertEquals(ENTITY_URI, timing.getURI());
+        assertEquals(HttpStatus.SC_OK, timing.getStatusCode());
+        assertEquals(payload.length, timing.getResponseBytes());
+        assertNull(timing.getFailure());
+    }
+
+    @Test
+    public void timedFailure() {
+        final Recorder recorder = new Recorder();
+        final ODataClient client = client(recorder, new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) throws IOException {
+                throw new IOException("Connection refused");
+            }
+        });
+
+        try {
+            client.getRetrieveRequestFactory().getEntityRequest(ENTITY_URI).execute();
+            fail();
+        } catch (HttpClientException e) {
+            assertEquals(1, recorder.completed.size());
+            assertEquals(-1, recorder.completed.get(0).getStatusCode());
+            assertSame(e, recorder.completed.get(0).getFailure());
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.client.http.CannedHttpClientFactory;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchRequest;
+import com.msopentech.odatajclient.engine.communication.response.ODataBatchResponse;
+import com.msopentech.odatajclient.engine.utils.ODataConstants;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for composable futures about asynchronous requests.
+ */
+public class ODataFutureTest {
+
+    private static final String SERVICE_ROOT = "http://localhost/Service.svc";
+
+    private static final String EXECUTOR_THREAD = "odata-future-test";
+
+    private ExecutorService executor;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(runnable, EXECUTOR_THREAD);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Task completing once released.
+     */
+    private <V> Callable<V> blocking(final V result, final Exception failure) {
+        return new Callable<V>() {
+
+            @Override
+            public V call() throws Exception {
+                assertTrue(release.await(10, TimeUnit.SECONDS));
+                if (failure != null) {
+                    throw failure;
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Callback recording the outcome and the thread it has been invoked by.
+     */
+    private static class Recorder<V> implements ODataFuture.Callback<V> {
+
+        private final CountDownLatch invoked = new CountDownLatch(1);
+
+        private final List<Object> outcomes = Collections.synchronizedList(new ArrayList<Object>());
+
+        private volatile String thread;
+
+        @Override
+        public void onSuccess(final V result) {
+            outcomes.add(result);
+            thread = Thread.currentThread().getName();
+            invoked.countDown();
+        }
+
+        @Override
+        public void onFailure(final Throwable cause) {
+            outcomes.add(cause);
+            thread = Thread.currentThread().getName();
+            invoked.countDown();
+        }
+
+        Object await() throws InterruptedException {
+            assertTrue(invoked.await(10, TimeUnit.SECONDS));
+            assertEquals(1, outcomes.size());
+            return outcomes.get(0);
+        }
+    }
+
+    @Test
+    public void addCallback() throws Exception {
+        final ODataFuture<String> future = ODataFuture.submit(blocking("done", null), executor);
+
+        final Recorder<String> before = new Recorder<String>();
+        future.addCallback(before);
+        assertEquals(0, before.outcomes.size());
+
+        release.countDown();
+        // invoked by the thread completing the future
+        assertEquals("done", before.await());
+        assertEquals(EXECUTOR_THREAD, before.thread);
+
+        // invoked immediately, once completed
+        final Recorder<String> after = new Recorder<String>();
+        assertSame(future, future.addCallback(after));
+        assertEquals("done", after.outcomes.get(0));
+        assertEquals(Thread.currentThread().getName(), after.thread);
+    }
+
+    @Test
+    public void addCallbackOnFailure() throws Exception {
+        final IOException failure = new IOException("Connection reset");
+        final ODataFuture<String> future = ODataFuture.submit(this.<String>blocking(null, failure), executor);
+
+        // failing callbacks do not prevent others from being invoked
+        future.addCallback(new ODataFuture.Callback<String>() {
+
+            @Override
+            public void onSuccess(final String result) {
+                throw new IllegalStateException();
+            }
+
+            @Override
+            public void onFailure(final Throwable cause) {
+                throw new IllegalStateException();
+            }
+        });
+        final Recorder<String> recorder = new Recorder<String>();
+        future.addCallback(recorder);
+
+        release.countDown();
+        assertSame(failure, recorder.await());
+    }
+
+    @Test
+    public void then() throws Exception {
+        final ODataFuture<String> future = ODataFuture.submit(blocking("42", null), executor);
+        final ODataFuture<Integer> derived = future.then(new ODataFuture.Transformer<String, Integer>() {
+
+            @Override
+            public Integer transform(final String result) {
+                return Integer.valueOf(result);
+            }
+        });
+        final ODataFuture<Integer> failing = future.then(new ODataFuture.Transformer<String, Integer>() {
+
+            @Override
+            public Integer transform(final String result) {
+                throw new NumberFormatException(result);
+            }
+        });
+        assertFalse(derived.isDone());
+
+        release.countDown();
+        assertEquals(Integer.valueOf(42), derived.get(10, TimeUnit.SECONDS));
+        try {
+            failing.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NumberFormatException);
+        }
+    }
+
+    @Test
+    public void thenOnFailure() throws Exception {
+        final IOException failure = new IOException("Connection reset");
+        final ODataFuture<String> future = ODataFuture.submit(this.<String>blocking(null, failure), executor);
+        final ODataFuture<Integer> derived = future.then(new ODataFuture.Transformer<String, Integer>() {
+
+            @Override
+            public Integer transform(final String result) {
+                fail();
+                return null;
+            }
+        });
+
+        release.countDown();
+        try {
+            derived.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void thenOnCancellation() throws Exception {
+        final ODataFuture<String> future = ODataFuture.submit(blocking("done", null), executor);
+        final ODataFuture<String> derived = future.then(new ODataFuture.Transformer<String, String>() {
+
+            @Override
+            public String transform(final String result) {
+                return result;
+            }
+        });
+        final Recorder<String> recorder = new Recorder<String>();
+        derived.addCallback(recorder);
+
+        assertTrue(future.cancel(true));
+        assertTrue(derived.isCancelled());
+        assertTrue(recorder.await() instanceof CancellationException);
+    }
+
+    private static ODataClient client(final CannedHttpClientFactory.Handler handler, final ExecutorService executor) {
+        return new ODataClient.Builder().setHttpClientFactory(new CannedHttpClientFactory(handler)).
+                setExecutor(executor).setConcurrencyLimiter(null).build();
+    }
+
+    private static final String BATCH_RESPONSE_BOUNDARY = "batchresponse_2f8e5a4e-c2a5-4bfb-9ab4-c2d0c2e0e4a5";
+
+    private static HttpResponse batchResponse() {
+        return CannedHttpClientFactory.response(202, "multipart/mixed; boundary=" + BATCH_RESPONSE_BOUNDARY,
+                ("--" + BATCH_RESPONSE_BOUNDARY + "--\r\n").getBytes());
+    }
+
+    @Test
+    public void idempotentBatchFinalization() throws Exception {
+        final List<String> payloads = Collections.synchronizedList(new ArrayList<String>());
+        final ODataClient client = client(new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) throws IOException {
+                payloads.add(EntityUtils.toString(
+                        ((HttpEntityEnclosingRequest) request).getEntity(), ODataConstants.UTF8));
+                return batchResponse();
+            }
+        }, executor);
+
+        final ODataBatchRequest request = client.getBatchRequestFactory().getBatchRequest(SERVICE_ROOT);
+        final ODataBatchRequest.BatchStreamManager streamManager = request.execute();
+        streamManager.addRetrieve().setRequest(
+                client.getRetrieveRequestFactory().getEntityRequest(URI.create(SERVICE_ROOT + "/Customer(-10)")));
+
+        streamManager.finalizeBody();
+        streamManager.finalizeBody();
+        final ODataBatchResponse response = streamManager.getAsyncResponse().get(10, TimeUnit.SECONDS);
+        assertEquals(202, response.getStatusCode());
+        streamManager.finalizeBody();
+
+        assertEquals(1, payloads.size());
+        final String payload = payloads.get(0);
+        final String boundary = StringUtils.substringAfter(request.getContentType(), "boundary=");
+        assertEquals(2, StringUtils.countMatches(payload, "--" + boundary));
+        assertTrue(payload.trim().endsWith("--" + boundary + "--"));
+        assertTrue(payload.contains("GET " + SERVICE_ROOT + "/Customer(-10)"));
+    }
+
+    @Test
+    public void cancelBatch() throws Exception {
+        final CountDownLatch sent = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final ODataClient client = client(new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) throws IOException {
+                EntityUtils.consume(((HttpEntityEnclosingRequest) request).getEntity());
+                sent.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw new IOException(e);
+                }
+                return batchResponse();
+            }
+        }, executor);
+
+        final ODataBatchRequest.BatchStreamManager streamManager =
+                client.getBatchRequestFactory().getBatchRequest(SERVICE_ROOT).execute();
+        final ODataFuture<ODataBatchResponse> future = streamManager.getAsyncResponse();
+        assertTrue(sent.await(10, TimeUnit.SECONDS));
+
+        // cancelling the response future interrupts the HTTP execution
+        assertTrue(future.cancel(true));
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void asyncExecute() throws Exception {
+        final ODataClient client = client(new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) {
+                return CannedHttpClientFactory.response(204, null, null);
+            }
+        }, executor);
+
+        final Recorder<Object> recorder = new Recorder<Object>();
+        client.getCUDRequestFactory().getDeleteRequest(URI.create(SERVICE_ROOT + "/Customer(-10)")).
+                asyncExecute().addCallback(recorder);
+        recorder.await();
+        assertEquals(EXECUTOR_THREAD, recorder.thread);
+        assertFalse(recorder.outcomes.get(0) instanceof Throwable);
+    }
+}
@@ -0,0 +1,330 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.msopentech.odatajclient.engine.communication.header.ODataHeaders;
+import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
+import com.msopentech.odatajclient.engine.communication.response.ODataResponseImpl;
+import com.msopentech.odatajclient.engine.utils.ODataConstants;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Offline tests for multipart parsing: canned bodies are fed in small chunks, so that delimiters and lines are split
+ * across buffer refills.
+ */
+public class ODataMultipartReaderTest {
+
+    private static final String BOUNDARY = "batch_36522ad7-fc75-4b56-8c71-56071383e77b";
+
+    private static final String CHANGESET = "changeset_77162fcd-b8da-41ac-a9f8-9357efbbd621";
+
+    private static final int[] CHUNKS = {1, 2, 7, 8192};
+
+    /**
+     * Returns at most <tt>chunk</tt> bytes per read.
+     */
+    private static InputStream chunked(final String body, final int chunk) throws IOException {
+        return new FilterInputStream(new ByteArrayInputStream(body.getBytes(ODataConstants.UTF8))) {
+
+            @Override
+            public int read(final byte[] bytes, final int off, final int len) throws IOException {
+                return super.read(bytes, off, Math.min(len, chunk));
+            }
+        };
+    }
+
+    private static String lines(final String terminator, final String... lines) {
+        final StringBuilder body = new StringBuilder();
+        for (String line : lines) {
+            body.append(line).append(terminator);
+        }
+        return body.toString();
+    }
+
+    private static String toString(final InputStream part) throws IOException {
+        return IOUtils.toString(part, ODataConstants.UTF8);
+    }
+
+    private static String header(final Map<String, Collection<String>> headers, final String name) {
+        final Collection<String> values = headers.get(name);
+        assertNotNull(name, values);
+        assertEquals(1, values.size());
+        return values.iterator().next();
+    }
+
+    private static String retrieveBody(final String terminator) {
+        return lines(terminator,
+                "This is the preamble, to be ignored.",
+                "--" + BOUNDARY + "  \t",
+                "Content-Type: application/http",
+                "Content-Transfer-Encoding: binary",
+                "",
+                "HTTP/1.1 200 OK",
+                "Content-Type: text/plain",
+                "DataServiceVersion:  3.0 ",
+                "",
+                "first line",
+                "second line with --" + BOUNDARY.substring(0, 10),
+                "--" + BOUNDARY,
+                "Content-Type: application/http",
+                "",
+                "HTTP/1.1 404 Not Found",
+                "",
+                "",
+                "--" + BOUNDARY + "--",
+                "This is the epilogue, to be ignored.");
+    }
+
+    private void retrieve(final String terminator) throws IOException {
+        for (int chunk : CHUNKS) {
+            final ODataMultipartReader reader = new ODataMultipartReader(chunked(retrieveBody(terminator), chunk),
+                    BOUNDARY);
+
+            final ODataMultipartReader.Part first = reader.nextPart();
+            assertNotNull(first);
+            assertEquals("application/http", header(first.getHeaders(), "content-type"));
+            assertEquals("binary", header(first.getHeaders(), "Content-Transfer-Encoding"));
+
+            final Map.Entry<Integer, String> firstLine = first.readResponseLine();
+            assertEquals(200, firstLine.getKey().intValue());
+            assertEquals("OK", firstLine.getValue());
+
+            final Map<String, Collection<String>> firstHeaders = first.readHeaders();
+            assertEquals("text/plain", header(firstHeaders, "Content-Type"));
+            assertEquals("3.0", header(firstHeaders, "dataserviceversion"));
+
+            assertEquals(lines(terminator, "first line") + "second line with --" + BOUNDARY.substring(0, 10),
+                    toString(first));
+            assertEquals(-1, first.read());
+
+            final ODataMultipartReader.Part second = reader.nextPart();
+            assertNotNull(second);
+            final Map.Entry<Integer, String> secondLine = second.readResponseLine();
+            assertEquals(404, secondLine.getKey().intValue());
+            assertEquals("Not Found", secondLine.getValue());
+            assertTrue(second.readHeaders().isEmpty());
+            assertEquals("", toString(second));
+
+            // the close delimiter ends the body, the epilogue is never returned
+            assertNull(reader.nextPart());
+            assertNull(reader.nextPart());
+        }
+    }
+
+    @Test
+    public void retrieveWithCRLF() throws IOException {
+        retrieve("\r\n");
+    }
+
+    @Test
+    public void retrieveWithLF() throws IOException {
+        retrieve("\n");
+    }
+
+    @Test
+    public void singleByteReads() throws IOException {
+        for (int chunk : CHUNKS) {
+            final ODataMultipartReader reader = new ODataMultipartReader(chunked(retrieveBody("\r\n"), chunk),
+                    "--" + BOUNDARY);
+
+            final ODataMultipartReader.Part part = reader.nextPart();
+            part.readResponseLine();
+            part.readHeaders();
+
+            final StringBuilder body = new StringBuilder();
+            for (int read = part.read(); read >= 0; read = part.read()) {
+                body.append((char) read);
+            }
+            assertEquals("first line\r\nsecond line with --" + BOUNDARY.substring(0, 10), body.toString());
+        }
+    }
+
+    @Test
+    public void skipUnreadParts() throws IOException {
+        for (int chunk : CHUNKS) {
+            final ODataMultipartReader reader = new ODataMultipartReader(chunked(retrieveBody("\r\n"), chunk),
+                    BOUNDARY);
+
+            final ODataMultipartReader.Part first = reader.nextPart();
+            first.readResponseLine();
+
+            final ODataMultipartReader.Part second = reader.nextPart();
+            assertEquals(-1, first.read());
+            assertEquals(404, second.readResponseLine().getKey().intValue());
+            assertNull(reader.nextPart());
+        }
+    }
+
+    @Test
+    public void bufferedPart() throws IOException {
+        for (int chunk : CHUNKS) {
+            final ODataMultipartReader reader = new ODataMultipartReader(chunked(retrieveBody("\n"), chunk),
+                    BOUNDARY);
+
+            final ODataMultipartReader.Part first = reader.nextPart();
+            first.readResponseLine();
+            first.readHeaders();
+            assertEquals('f', first.read());
+            first.buffer();
+
+            final ODataMultipartReader.Part second = reader.nextPart();
+            assertEquals(404, second.readResponseLine().getKey().intValue());
+            assertNull(reader.nextPart());
+
+            assertEquals("irst line\nsecond line with --" + BOUNDARY.substring(0, 10), toString(first));
+        }
+    }
+
+    @Test
+    public void emptyBody() throws IOException {
+        for (int chunk : CHUNKS) {
+            final ODataMultipartReader reader = new ODataMultipartReader(
+                    chunked(lines("\r\n", "--" + BOUNDARY + "--"), chunk), BOUNDARY);
+            assertNull(reader.nextPart());
+        }
+    }
+
+    private static String changesetBody(final String terminator) {
+        return lines(terminator,
+                "--" + BOUNDARY,
+                "Content-Type: multipart/mixed; boundary=" + CHANGESET,
+                "",
+                "--" + CHANGESET,
+                "Content-Type: application/http",
+                "Content-Transfer-Encoding: binary",
+                "Content-ID: 1",
+                "",
+                "HTTP/1.1 201 Created",
+                "Content-Type: text/plain",
+                "",
+                "created",
+                "--" + CHANGESET,
+                "Content-Type: application/http",
+                "Content-Transfer-Encoding: binary",
+                "",
+                "HTTP/1.1 204 No Content",
+                "Content-ID: 2",
+                "",
+                "",
+                "--" + CHANGESET + "--",
+                "",
+                "--" + BOUNDARY,
+                "Content-Type: application/http",
+                "",
+                "HTTP/1.1 200 OK",
+                "",
+                "retrieved",
+                "--" + BOUNDARY + "--");
+    }
+
+    @Test
+    public void nestedChangeset() throws IOException {
+        for (String terminator : Arrays.asList("\r\n", "\n")) {
+            for (int chunk : CHUNKS) {
+                final ODataMultipartReader reader =
+                        new ODataMultipartReader(chunked(changesetBody(terminator), chunk), BOUNDARY);
+
+                final ODataMultipartReader.Part changesetPart = reader.nextPart();
+                assertEquals(ODataBatchUtilities.BatchItemType.CHANGESET,
+                        ODataBatchUtilities.getItemType(changesetPart.getHeaders()));
+
+                final ODataMultipartReader changeset = new ODataMultipartReader(changesetPart,
+                        ODataBatchUtilities.getBoundaryFromHeader(
+                                changesetPart.getHeaders().get(ODataHeaders.HeaderName.contentType.toString())));
+
+                final ODataMultipartReader.Part created = changeset.nextPart();
+                assertEquals("1", created.getContentId());
+                assertEquals(201, created.readResponseLine().getKey().intValue());
+                assertEquals("text/plain", header(created.readHeaders(), "Content-Type"));
+                assertEquals("created", toString(created));
+
+                final ODataMultipartReader.Part updated = changeset.nextPart();
+                assertNull(updated.getContentId());
+                assertEquals(204, updated.readResponseLine().getKey().intValue());
+                assertEquals("2", header(updated.readHeaders(), "Content-ID"));
+
+                assertNull(changeset.nextPart());
+
+                final ODataMultipartReader.Part retrieved = reader.nextPart();
+                assertEquals(ODataBatchUtilities.BatchItemType.RETRIEVE,
+                        ODataBatchUtilities.getItemType(retrieved.getHeaders()));
+                assertEquals(200, retrieved.readResponseLine().getKey().intValue());
+                retrieved.readHeaders();
+                assertEquals("retrieved", toString(retrieved));
+
+                assertNull(reader.nextPart());
+            }
+        }
+    }
+
+    @Test
+    public void changesetResponseByContentId() throws IOException {
+        for (int chunk : CHUNKS) {
+            final ODataMultipartReader reader =
+                    new ODataMultipartReader(chunked(changesetBody("\r\n"), chunk), BOUNDARY);
+
+            final ODataResponse created = new ODataResponseImpl() {
+            };
+            final ODataResponse updated = new ODataResponseImpl() {
+            };
+
+            final ODataChangesetResponseItem item = new ODataChangesetResponseItem();
+            item.addResponse("1", created);
+            item.addResponse("2", updated);
+            item.initFromBatch(reader.nextPart());
+
+            // reading ahead the second response buffers the first one
+            assertSame(updated, item.getResponse("2"));
+            assertEquals(204, updated.getStatusCode());
+            assertEquals(201, created.getStatusCode());
+            assertSame(created, item.getResponse("1"));
+            assertNull(item.getResponse("3"));
+
+            // responses are still returned in order, the first one with its body
+            assertTrue(item.hasNext());
+            assertSame(created, item.next());
+            assertEquals("created", toString(created.getRawResponse()));
+            assertSame(updated, item.next());
+            assertFalse(item.hasNext());
+            item.close();
+
+            final ODataMultipartReader.Part retrieved = reader.nextPart();
+            assertEquals(200, retrieved.readResponseLine().getKey().intValue());
+            retrieved.readHeaders();
+            assertEquals("retrieved", toString(retrieved));
+            assertNull(reader.nextPart());
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request.retrieve;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.communication.request.ODataFlow;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Offline tests for demand-driven publishing of paged entity sets.
+ */
+public class ODataEntitySetPublisherTest extends AbstractTest {
+
+    private ExecutorService executor;
+
+    /**
+     * Records received signals.
+     */
+    private static class RecordingSubscriber implements ODataFlow.Subscriber<ODataEntity> {
+
+        private final List<ODataEntity> entities = Collections.synchronizedList(new ArrayList<ODataEntity>());
+
+        private final CountDownLatch terminated = new CountDownLatch(1);
+
+        private volatile ODataFlow.Subscription subscription;
+
+        private volatile Throwable error;
+
+        private volatile boolean completed = false;
+
+        @Override
+        public void onSubscribe(final ODataFlow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(final ODataEntity item) {
+            entities.add(item);
+        }
+
+        @Override
+        public void onError(final Throwable cause) {
+            error = cause;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+
+        void awaitEntities(final int count) throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + 10000;
+            while (entities.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(count, entities.size());
+        }
+
+        boolean awaitTermination() throws InterruptedException {
+            return terminated.await(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private RecordingSubscriber subscribe(final PagedFeedHandler handler) {
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        PagedFeedHandler.client(handler, executor).getRetrieveRequestFactory().
+                getEntitySetPublisher(PagedFeedHandler.FIRST_PAGE).subscribe(subscriber);
+        assertNotNull(subscriber.subscription);
+        return subscriber;
+    }
+
+    @Test
+    public void demand() throws Exception {
+        final PagedFeedHandler handler = new PagedFeedHandler(2);
+        final RecordingSubscriber subscriber = subscribe(handler);
+
+        // nothing is requested until there is demand
+        Thread.sleep(100);
+        assertTrue(handler.getRequested().isEmpty());
+        assertTrue(subscriber.entities.isEmpty());
+
+        subscriber.subscription.request(1);
+        subscriber.awaitEntities(1);
+        Thread.sleep(100);
+        assertEquals(1, subscriber.entities.size());
+        assertEquals(Arrays.asList(0), handler.getRequested());
+
+        // the next page is requested only once the first one has been read
+        final int perPage = PagedFeedHandler.getEntitiesPerPage();
+        subscriber.subscription.request(perPage - 1);
+        subscriber.awaitEntities(perPage);
+        Thread.sleep(100);
+        assertEquals(perPage, subscriber.entities.size());
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(perPage);
+        subscriber.awaitEntities(2 * perPage);
+        assertEquals(Arrays.asList(0, 1), handler.getRequested());
+
+        // the end of the last page is found, and completion signalled, upon further demand
+        Thread.sleep(100);
+        assertFalse(subscriber.completed);
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.awaitTermination());
+        assertEquals(2 * perPage, subscriber.entities.size());
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void paging() throws Exception {
+        final PagedFeedHandler handler = new PagedFeedHandler(3);
+        final RecordingSubscriber subscriber = subscribe(handler);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.awaitTermination());
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+
+        assertEquals(3 * PagedFeedHandler.getEntitiesPerPage(), subscriber.entities.size());
+        for (ODataEntity entity : subscriber.entities) {
+            assertTrue(entity.getName().endsWith(".Customer"));
+        }
+        assertEquals(Arrays.asList(0, 1, 2), handler.getRequested());
+    }
+
+    private void invalidRequest(final long n) throws Exception {
+        final PagedFeedHandler handler = new PagedFeedHandler(2);
+        final RecordingSubscriber subscriber = subscribe(handler);
+
+        subscriber.subscription.request(n);
+        assertTrue(subscriber.awaitTermination());
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertFalse(subscriber.completed);
+        assertTrue(subscriber.entities.isEmpty());
+
+        // no further signal is emitted
+        subscriber.subscription.request(1);
+        Thread.sleep(100);
+        assertTrue(subscriber.entities.isEmpty());
+        assertTrue(handler.getRequested().isEmpty());
+    }
+
+    @Test
+    public void zeroRequest() throws Exception {
+        invalidRequest(0);
+    }
+
+    @Test
+    public void negativeRequest() throws Exception {
+        invalidRequest(-1);
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        final PagedFeedHandler handler = new PagedFeedHandler(3);
+        final RecordingSubscriber subscriber = subscribe(handler);
+
+        subscriber.subscription.request(1);
+        subscriber.awaitEntities(1);
+        assertFalse(handler.getRequests().get(0).isAborted());
+
+        // the page being read is aborted, releasing its connection
+        subscriber.subscription.cancel();
+        assertTrue(handler.getRequests().get(0).isAborted());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        Thread.sleep(100);
+        assertEquals(1, subscriber.entities.size());
+        assertEquals(Arrays.asList(0), handler.getRequested());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request.retrieve;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.communication.ODataServerErrorException;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Offline tests for paged iteration with background prefetching.
+ */
+public class ODataPagedEntitySetIteratorTest extends AbstractTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static int consume(final ODataPagedEntitySetIterator itor, final int count) {
+        int consumed = 0;
+        while (consumed < count && itor.hasNext()) {
+            final ODataEntity entity = itor.next();
+            assertTrue(entity.getName().endsWith(".Customer"));
+            consumed++;
+        }
+        return consumed;
+    }
+
+    @Test
+    public void allPages() throws Exception {
+        final PagedFeedHandler handler = new PagedFeedHandler(4);
+        final ODataPagedEntitySetIterator itor = PagedFeedHandler.client(handler, executor).
+                getRetrieveRequestFactory().getPagedEntitySetIterator(PagedFeedHandler.FIRST_PAGE, 2);
+
+        assertEquals(4 * PagedFeedHandler.getEntitiesPerPage(), consume(itor, Integer.MAX_VALUE));
+        assertFalse(itor.hasNext());
+        assertEquals(Arrays.asList(0, 1, 2, 3), handler.getRequested());
+        itor.close();
+    }
+
+    @Test
+    public void prefetchDepth() throws Exception {
+        final PagedFeedHandler handler = new PagedFeedHandler(10);
+        final ODataPagedEntitySetIterator itor = PagedFeedHandler.client(handler, executor).
+                getRetrieveRequestFactory().getPagedEntitySetIterator(PagedFeedHandler.FIRST_PAGE, 2);
+
+        // no more than prefetchDepth pages ahead of the one being iterated
+        handler.awaitRequested(2);
+        Thread.sleep(100);
+        assertEquals(Arrays.asList(0, 1), handler.getRequested());
+
+        consume(itor, 1);
+        handler.awaitRequested(3);
+        Thread.sleep(100);
+        assertEquals(Arrays.asList(0, 1, 2), handler.getRequested());
+
+        consume(itor, 2 * PagedFeedHandler.getEntitiesPerPage());
+        handler.awaitRequested(5);
+        Thread.sleep(100);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), handler.getRequested());
+
+        itor.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPrefetchDepth() throws Exception {
+        PagedFeedHandler.client(new PagedFeedHandler(1), executor).
+                getRetrieveRequestFactory().getPagedEntitySetIterator(PagedFeedHandler.FIRST_PAGE, 0);
+    }
+
+    @Test
+    public void rejectedFetching() throws Exception {
+        // every task is rejected
+        executor.shutdown();
+
+        final PagedFeedHandler handler = new PagedFeedHandler(3);
+        final ODataPagedEntitySetIterator itor = PagedFeedHandler.client(handler, executor).
+                getRetrieveRequestFactory().getPagedEntitySetIterator(PagedFeedHandler.FIRST_PAGE, 2);
+        assertTrue(handler.getRequested().isEmpty());
+
+        // pages are fetched by the iterating thread instead
+        assertEquals(3 * PagedFeedHandler.getEntitiesPerPage(), consume(itor, Integer.MAX_VALUE));
+        assertEquals(Arrays.asList(0, 1, 2), handler.getRequested());
+        for (String thread : handler.getThreads()) {
+            assertEquals(Thread.currentThread().getName(), thread);
+        }
+    }
+
+    @Test
+    public void errorPropagation() throws Exception {
+        final PagedFeedHandler handler = new PagedFeedHandler(4).failing(2);
+        final ODataPagedEntitySetIterator itor = PagedFeedHandler.client(handler, executor).
+                getRetrieveRequestFactory().getPagedEntitySetIterator(PagedFeedHandler.FIRST_PAGE, 1);
+
+        // entities of the pages before the failing one are delivered
+        final int delivered = 2 * PagedFeedHandler.getEntitiesPerPage();
+        assertEquals(delivered, consume(itor, delivered));
+        try {
+            itor.hasNext();
+            fail();
+        } catch (ODataServerErrorException e) {
+            assertTrue(e.getMessage().contains("500"));
+        }
+        assertFalse(itor.hasNext());
+        assertEquals(Arrays.asList(0, 1, 2), handler.getRequested());
+    }
+
+    @Test
+    public void closeWhileIterating() throws Exception {
+        final PagedFeedHandler handler = new PagedFeedHandler(10).blocking(2);
+        final ODataPagedEntitySetIterator itor = PagedFeedHandler.client(handler, executor).
+                getRetrieveRequestFactory().getPagedEntitySetIterator(PagedFeedHandler.FIRST_PAGE, 1);
+
+        consume(itor, PagedFeedHandler.getEntitiesPerPage() + 1);
+        assertTrue(handler.awaitBlocked());
+
+        // the page being fetched is cancelled, and no further page is requested
+        itor.close();
+        assertTrue(handler.awaitInterrupted());
+        Thread.sleep(100);
+        assertEquals(Arrays.asList(0, 1, 2), handler.getRequested());
+
+        try {
+            itor.hasNext();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Iterator closed", e.getMessage());
+        }
+        itor.close();
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request.retrieve;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.client.http.CannedHttpClientFactory;
+import com.msopentech.odatajclient.engine.communication.header.ODataHeaders;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Offline tests for the response cache, served with canned entity payloads.
+ */
+public class ODataResponseCacheTest extends AbstractTest {
+
+    private static final String SERVICE_ROOT = "http://localhost/Service.svc";
+
+    private static final String ATOM = "application/atom+xml";
+
+    private static byte[] payload;
+
+    @BeforeClass
+    public static void readPayload() throws IOException {
+        payload = IOUtils.toByteArray(ODataResponseCacheTest.class.getResourceAsStream(
+                "/com/msopentech/odatajclient/engine/Customer_-10.xml"));
+    }
+
+    private static ODataClient client(final CannedHttpClientFactory factory, final ODataResponseCache cache) {
+        return new ODataClient.Builder().setHttpClientFactory(factory).setResponseCache(cache).
+                setRequestCoalescer(null).setConcurrencyLimiter(null).
+                setDefaultPubFormat(ODataPubFormat.ATOM).build();
+    }
+
+    private static ODataEntity retrieve(final ODataClient client, final String path) {
+        return client.getRetrieveRequestFactory().getEntityRequest(URI.create(SERVICE_ROOT + path)).
+                execute().getBody();
+    }
+
+    @Test
+    public void freshHit() {
+        final CannedHttpClientFactory factory = new CannedHttpClientFactory(new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) {
+                return CannedHttpClientFactory.response(HttpStatus.SC_OK, ATOM, payload,
+                        HttpHeaders.CACHE_CONTROL, "max-age=60");
+            }
+        });
+        final ODataResponseCache cache = new ODataResponseCache();
+        final ODataClient client = client(factory, cache);
+
+        final ODataEntity first = retrieve(client, "/Customer(-10)");
+        final ODataEntity second = retrieve(client, "/Customer(-10)");
+
+        assertEquals(1, factory.getRequests().size());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getSize());
+
+        // every response gets its own copy
+        assertEquals(first, second);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void staleRevalidation() {
+        final String etag = "W/\"X'0001'\"";
+        final CannedHttpClientFactory factory = new CannedHttpClientFactory(new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) {
+                return request.containsHeader(ODataHeaders.HeaderName.ifNoneMatch.toString())
+                        ? CannedHttpClientFactory.response(HttpStatus.SC_NOT_MODIFIED, null, null)
+                        : CannedHttpClientFactory.response(HttpStatus.SC_OK, ATOM, payload,
+                                ODataHeaders.HeaderName.etag.toString(), etag);
+            }
+        });
+        final ODataResponseCache cache = new ODataResponseCache();
+        final ODataClient client = client(factory, cache);
+
+        final ODataEntity first = retrieve(client, "/Customer(-10)");
+        final ODataEntity second = retrieve(client, "/Customer(-10)");
+
+        assertEquals(2, factory.getRequests().size());
+        assertNull(factory.getRequests().get(0).getFirstHeader(ODataHeaders.HeaderName.ifNoneMatch.toString()));
+        assertEquals(etag, factory.getRequests().get(1).
+                getFirstHeader(ODataHeaders.HeaderName.ifNoneMatch.toString()).getValue());
+        assertEquals(1, cache.getRevalidationCount());
+        assertEquals(0, cache.getHitCount());
+
+        // the cached payload is given back after 304 Not Modified
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void noStore() {
+        final CannedHttpClientFactory factory = new CannedHttpClientFactory(new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) {
+                return CannedHttpClientFactory.response(HttpStatus.SC_OK, ATOM, payload,
+                        HttpHeaders.CACHE_CONTROL, "no-store", ODataHeaders.HeaderName.etag.toString(), "\"1\"");
+            }
+        });
+        final ODataResponseCache cache = new ODataResponseCache();
+        final ODataClient client = client(factory, cache);
+
+        assertEquals(retrieve(client, "/Customer(-10)"), retrieve(client, "/Customer(-10)"));
+
+        assertEquals(2, factory.getRequests().size());
+        assertNull(factory.getRequests().get(1).getFirstHeader(ODataHeaders.HeaderName.ifNoneMatch.toString()));
+        assertEquals(0, cache.getSize());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    private static CannedHttpClientFactory freshFactory() {
+        return new CannedHttpClientFactory(new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) {
+                return CannedHttpClientFactory.response(HttpStatus.SC_OK, ATOM, payload,
+                        HttpHeaders.CACHE_CONTROL, "max-age=60");
+            }
+        });
+    }
+
+    @Test
+    public void entryEviction() {
+        final CannedHttpClientFactory factory = freshFactory();
+        final ODataResponseCache cache = new ODataResponseCache(2, ODataResponseCache.DEFAULT_MAX_SIZE);
+        final ODataClient client = client(factory, cache);
+
+        retrieve(client, "/Customer(-10)");
+        retrieve(client, "/Customer(-9)");
+        // least recently used is now -9
+        retrieve(client, "/Customer(-10)");
+        retrieve(client, "/Customer(-8)");
+        assertEquals(3, factory.getRequests().size());
+        assertEquals(2, cache.getSize());
+
+        retrieve(client, "/Customer(-10)");
+        retrieve(client, "/Customer(-8)");
+        assertEquals(3, factory.getRequests().size());
+
+        retrieve(client, "/Customer(-9)");
+        assertEquals(4, factory.getRequests().size());
+    }
+
+    @Test
+    public void sizeEviction() {
+        final CannedHttpClientFactory factory = freshFactory();
+        final ODataResponseCache cache = new ODataResponseCache(ODataResponseCache.DEFAULT_MAX_ENTRIES,
+                payload.length * 3 / 2);
+        final ODataClient client = client(factory, cache);
+
+        retrieve(client, "/Customer(-10)");
+        retrieve(client, "/Customer(-9)");
+        assertEquals(1, cache.getSize());
+
+        retrieve(client, "/Customer(-9)");
+        assertEquals(2, factory.getRequests().size());
+        retrieve(client, "/Customer(-10)");
+        assertEquals(3, factory.getRequests().size());
+    }
+
+    @Test
+    public void oversizedPassThrough() {
+        final AtomicInteger chunked = new AtomicInteger();
+        final CannedHttpClientFactory factory = new CannedHttpClientFactory(new CannedHttpClientFactory.Handler() {
+
+            @Override
+            public HttpResponse handle(final HttpUriRequest request) {
+                final HttpResponse res = CannedHttpClientFactory.response(HttpStatus.SC_OK, ATOM, payload,
+                        HttpHeaders.CACHE_CONTROL, "max-age=60");
+                if (chunked.getAndIncrement() % 2 == 1) {
+                    // no Content-Length: the payload is found to be too large only while being read
+                    final InputStreamEntity entity = new InputStreamEntity(new ByteArrayInputStream(payload), -1);
+                    entity.setContentType(ContentType.create(ATOM).toString());
+                    res.setEntity(entity);
+                }
+                return res;
+            }
+        });
+        final ODataResponseCache cache = new ODataResponseCache(ODataResponseCache.DEFAULT_MAX_ENTRIES,
+                payload.length / 2);
+        final ODataClient client = client(factory, cache);
+
+        final ODataEntity expected = retrieve(client, "/Customer(-10)");
+        assertEquals("Customer", expected.getName().substring(expected.getName().lastIndexOf('.') + 1));
+        assertEquals(expected, retrieve(client, "/Customer(-10)"));
+
+        assertEquals(2, factory.getRequests().size());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void perTransport() {
+        final ODataResponseCache cache = new ODataResponseCache();
+        final CannedHttpClientFactory factory = freshFactory();
+        final CannedHttpClientFactory other = freshFactory();
+
+        retrieve(client(factory, cache), "/Customer(-10)");
+        retrieve(client(other, cache), "/Customer(-10)");
+        retrieve(client(factory, cache), "/Customer(-10)");
+
+        assertEquals(1, factory.getRequests().size());
+        assertEquals(1, other.getRequests().size());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void perRequestHeaders() {
+        final CannedHttpClientFactory factory = freshFactory();
+        final ODataClient client = client(factory, new ODataResponseCache());
+
+        retrieve(client, "/Customer(-10)");
+
+        final ODataEntityRequest req =
+                client.getRetrieveRequestFactory().getEntityRequest(URI.create(SERVICE_ROOT + "/Customer(-10)"));
+        req.addCustomHeader("Accept-Language", "it");
+        req.execute().getBody();
+        assertEquals(2, factory.getRequests().size());
+
+        retrieve(client, "/Customer(-10)");
+        assertEquals(2, factory.getRequests().size());
+    }
+}
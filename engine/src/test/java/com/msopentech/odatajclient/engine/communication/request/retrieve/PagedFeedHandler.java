@@ -0,0 +1,183 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.communication.request.retrieve;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.client.http.CannedHttpClientFactory;
+import com.msopentech.odatajclient.engine.data.ODataReader;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import com.msopentech.odatajclient.engine.utils.ODataConstants;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * Serves a canned feed split into the given number of pages, linked via next links.
+ */
+class PagedFeedHandler implements CannedHttpClientFactory.Handler {
+
+    static final URI FIRST_PAGE = URI.create("http://localhost/Service.svc/Customer");
+
+    private static final String NEXT_LINK = "<link rel=\"next\" href=\"[^\"]*\" />";
+
+    private static String feed;
+
+    private static int entitiesPerPage;
+
+    private final int pages;
+
+    private final List<Integer> requested = Collections.synchronizedList(new ArrayList<Integer>());
+
+    private final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+
+    private final List<HttpUriRequest> requests = Collections.synchronizedList(new ArrayList<HttpUriRequest>());
+
+    private int failing = -1;
+
+    private int blocking = -1;
+
+    private final CountDownLatch blocked = new CountDownLatch(1);
+
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+
+    PagedFeedHandler(final int pages) throws IOException {
+        synchronized (PagedFeedHandler.class) {
+            if (feed == null) {
+                feed = IOUtils.toString(PagedFeedHandler.class.getResourceAsStream(
+                        "/com/msopentech/odatajclient/engine/Customer.xml"), ODataConstants.UTF8);
+                entitiesPerPage = ODataReader.readEntitySet(
+                        new ByteArrayInputStream(feed.getBytes(ODataConstants.UTF8)), ODataPubFormat.ATOM).
+                        getEntities().size();
+            }
+        }
+        this.pages = pages;
+    }
+
+    static URI page(final int page) {
+        return page == 0 ? FIRST_PAGE : URI.create(FIRST_PAGE + "?$skiptoken=" + page);
+    }
+
+    static int getEntitiesPerPage() {
+        return entitiesPerPage;
+    }
+
+    static ODataClient client(final PagedFeedHandler handler, final ExecutorService executor) {
+        return new ODataClient.Builder().setHttpClientFactory(new CannedHttpClientFactory(handler)).
+                setExecutor(executor).setDefaultPubFormat(ODataPubFormat.ATOM).
+                setConcurrencyLimiter(null).setRequestCoalescer(null).setResponseCache(null).build();
+    }
+
+    /**
+     * Makes the given page fail with <tt>500 Internal Server Error</tt>.
+     */
+    PagedFeedHandler failing(final int page) {
+        this.failing = page;
+        return this;
+    }
+
+    /**
+     * Makes the request for the given page block until interrupted.
+     */
+    PagedFeedHandler blocking(final int page) {
+        this.blocking = page;
+        return this;
+    }
+
+    @Override
+    public HttpResponse handle(final HttpUriRequest request) throws IOException {
+        final String query = request.getURI().getRawQuery();
+        final int page = query == null ? 0 : Integer.parseInt(query.substring(query.indexOf('=') + 1));
+        requested.add(page);
+        threads.add(Thread.currentThread().getName());
+        requests.add(request);
+
+        if (page == blocking) {
+            blocked.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new IOException(e);
+            }
+        }
+        if (page == failing) {
+            return CannedHttpClientFactory.response(HttpStatus.SC_INTERNAL_SERVER_ERROR, null, null);
+        }
+
+        final String body = feed.replaceFirst(NEXT_LINK, page + 1 < pages
+                ? Matcher.quoteReplacement("<link rel=\"next\" href=\"" + page(page + 1).toASCIIString() + "\" />")
+                : "");
+        return CannedHttpClientFactory.response(
+                HttpStatus.SC_OK, "application/atom+xml", body.getBytes(ODataConstants.UTF8));
+    }
+
+    /**
+     * Gets the pages requested so far, in order.
+     */
+    List<Integer> getRequested() {
+        synchronized (requested) {
+            return new ArrayList<Integer>(requested);
+        }
+    }
+
+    /**
+     * Gets the HTTP requests received so far, in order.
+     */
+    List<HttpUriRequest> getRequests() {
+        synchronized (requests) {
+            return new ArrayList<HttpUriRequest>(requests);
+        }
+    }
+
+    List<String> getThreads() {
+        synchronized (threads) {
+            return new ArrayList<String>(threads);
+        }
+    }
+
+    /**
+     * Waits until the given number of pages has been requested.
+     */
+    void awaitRequested(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (requested.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    boolean awaitBlocked() throws InterruptedException {
+        return blocked.await(10, TimeUnit.SECONDS);
+    }
+
+    boolean awaitInterrupted() throws InterruptedException {
+        return interrupted.await(10, TimeUnit.SECONDS);
+    }
+}
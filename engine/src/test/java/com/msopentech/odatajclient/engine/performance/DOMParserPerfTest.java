@@ -0,0 +1,103 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.utils.AaltoDOMParserImpl;
+import com.msopentech.odatajclient.engine.utils.AbstractDOMParser;
+import com.msopentech.odatajclient.engine.utils.DefaultDOMParserImpl;
+import java.io.StringWriter;
+import org.apache.commons.io.IOUtils;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+import org.w3c.dom.Element;
+
+@BenchmarkOptions(warmupRounds = 25, benchmarkRounds = 50)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class DOMParserPerfTest {
+
+    private static final int ITERATIONS = 100;
+
+    private static final AbstractDOMParser DEFAULT = new DefaultDOMParserImpl();
+
+    private static final AbstractDOMParser AALTO = new AaltoDOMParserImpl();
+
+    private static String property;
+
+    private static Element tree;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setInput() {
+        try {
+            property = IOUtils.toString(
+                    DOMParserPerfTest.class.getResourceAsStream("../Customer_-10_BackupContactInfo.xml"));
+        } catch (Exception e) {
+            fail("Could not load sample file");
+        }
+        tree = DEFAULT.parse(IOUtils.toInputStream(property));
+    }
+
+    private void parse(final AbstractDOMParser parser) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            final Element element = parser.parse(IOUtils.toInputStream(property));
+            assertEquals(tree.getTagName(), element.getTagName());
+        }
+    }
+
+    private void serialize(final AbstractDOMParser parser) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            final StringWriter writer = new StringWriter();
+            parser.serialize(tree, writer);
+            assertFalse(writer.toString().isEmpty());
+        }
+    }
+
+    @Test
+    public void parseViaAalto() {
+        parse(AALTO);
+    }
+
+    @Test
+    public void parseViaDefault() {
+        parse(DEFAULT);
+    }
+
+    @Test
+    public void serializeViaAalto() {
+        serialize(AALTO);
+    }
+
+    @Test
+    public void serializeViaDefault() {
+        serialize(DEFAULT);
+    }
+}
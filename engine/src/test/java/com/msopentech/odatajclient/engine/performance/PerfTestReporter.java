@@ -84,7 +84,10 @@ public final class PerfTestReporter {
 
 
         for (Map.Entry<String, Map<String, Double>> entry : testData.entrySet()) {
-            final Sheet sheet = workbook.getSheet(entry.getKey());
+            Sheet sheet = workbook.getSheet(entry.getKey());
+            if (sheet == null) {
+                sheet = workbook.createSheet(entry.getKey());
+            }
 
             int rows = 0;
 
@@ -0,0 +1,174 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.client.http.CannedHttpClientFactory;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for the executors running asynchronous requests.
+ */
+public class ODataExecutorsTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final Runnable blocking = new Runnable() {
+
+        @Override
+        public void run() {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    };
+
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void defaultExecutor() {
+        assertTrue(Configuration.getExecutor() instanceof BoundedElasticExecutor);
+    }
+
+    @Test
+    public void rejection() throws Exception {
+        final BoundedElasticExecutor elastic = ODataExecutors.newBoundedElasticExecutor(2, 1);
+        executor = elastic;
+
+        final Future<?> first = elastic.submit(blocking);
+        final Future<?> second = elastic.submit(blocking);
+        final Future<?> queued = elastic.submit(blocking);
+        assertEquals(1, elastic.getQueueSize());
+        assertEquals(1, elastic.getMaxQueued());
+        assertEquals(0, elastic.getRejectedCount());
+
+        for (int i = 1; i <= 2; i++) {
+            try {
+                elastic.submit(blocking);
+                fail();
+            } catch (RejectedExecutionException e) {
+                assertTrue(e.getMessage().contains("1 queued"));
+            }
+            assertEquals(i, elastic.getRejectedCount());
+        }
+
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        queued.get(10, TimeUnit.SECONDS);
+        assertEquals(0, elastic.getQueueSize());
+
+        // accepting tasks again, once threads are available
+        elastic.submit(blocking).get(10, TimeUnit.SECONDS);
+        assertEquals(2, elastic.getRejectedCount());
+    }
+
+    @Test
+    public void elasticThreads() throws Exception {
+        final BoundedElasticExecutor elastic = new BoundedElasticExecutor(4, 10, 50);
+        executor = elastic;
+        assertEquals(0, elastic.getPoolSize());
+
+        final Thread[] thread = new Thread[1];
+        elastic.submit(new Runnable() {
+
+            @Override
+            public void run() {
+                thread[0] = Thread.currentThread();
+            }
+        }).get(10, TimeUnit.SECONDS);
+        assertEquals(1, elastic.getPoolSize());
+        assertTrue(thread[0].isDaemon());
+        assertTrue(thread[0].getName().startsWith("odatajclient-elastic-"));
+
+        // idle threads are released
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (elastic.getPoolSize() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, elastic.getPoolSize());
+    }
+
+    @Test
+    public void preferredExecutor() {
+        executor = ODataExecutors.newPreferredExecutor();
+        if (ODataExecutors.isVirtualThreadSupported()) {
+            assertFalse(executor instanceof BoundedElasticExecutor);
+        } else {
+            assertTrue(executor instanceof BoundedElasticExecutor);
+            try {
+                ODataExecutors.newVirtualThreadExecutor();
+                fail();
+            } catch (UnsupportedOperationException e) {
+                // expected on JDK before 21
+            }
+        }
+    }
+
+    @Test
+    public void saturatedAsyncRequest() {
+        final BoundedElasticExecutor elastic = ODataExecutors.newBoundedElasticExecutor(1, 1);
+        executor = elastic;
+        elastic.execute(blocking);
+        elastic.execute(blocking);
+
+        final ODataClient client = new ODataClient.Builder().setExecutor(elastic).setConcurrencyLimiter(null).
+                setHttpClientFactory(new CannedHttpClientFactory(new CannedHttpClientFactory.Handler() {
+
+                    @Override
+                    public HttpResponse handle(final HttpUriRequest request) {
+                        return CannedHttpClientFactory.response(204, null, null);
+                    }
+                })).build();
+
+        // fails fast rather than waiting for a thread
+        try {
+            client.getCUDRequestFactory().getDeleteRequest(URI.create("http://localhost/Service.svc/Customer(-10)")).
+                    asyncExecute();
+            fail();
+        } catch (RejectedExecutionException e) {
+            assertEquals(1, elastic.getRejectedCount());
+        }
+    }
+}
@@ -19,7 +19,7 @@
  */
 package com.msopentech.odatajclient.proxy.api;
 
-import com.msopentech.odatajclient.engine.utils.Configuration;
+import com.msopentech.odatajclient.engine.communication.request.ODataFuture;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -28,10 +28,10 @@ import java.util.concurrent.TimeoutException;
 
 public abstract class AsyncCall<V> implements Future<V> {
 
-    private final Future<V> future;
+    private final ODataFuture<V> future;
 
     public AsyncCall() {
-        this.future = Configuration.getExecutor().submit(new Callable<V>() {
+        this.future = ODataFuture.submit(new Callable<V>() {
 
             @Override
             public V call() throws Exception {
@@ -42,6 +42,17 @@ public abstract class AsyncCall<V> implements Future<V> {
 
     public abstract V call();
 
+    /**
+     * Registers a completion callback, invoked without blocking the caller.
+     *
+     * @param callback callback to be invoked once completed.
+     * @return the current call.
+     */
+    public AsyncCall<V> addCallback(final ODataFuture.Callback<? super V> callback) {
+        this.future.addCallback(callback);
+        return this;
+    }
+
     @Override
     public boolean cancel(final boolean mayInterruptIfRunning) {
         return this.future.cancel(mayInterruptIfRunning);
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.proxy.api.impl;
 
+import com.msopentech.odatajclient.engine.communication.request.retrieve.ODataPagedEntitySetIterator;
 import com.msopentech.odatajclient.engine.communication.request.retrieve.ODataRetrieveRequestFactory;
 import com.msopentech.odatajclient.engine.communication.request.retrieve.ODataValueRequest;
 import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
@@ -279,7 +280,6 @@ class EntitySetInvocationHandler<
                 handler);
     }
 
-    @SuppressWarnings("unchecked")
     public <S extends T> Map.Entry<List<S>, URI> fetchPartialEntitySet(final URI uri, final Class<S> typeRef) {
         final ODataRetrieveResponse<ODataEntitySet> res =
                 ODataRetrieveRequestFactory.getEntitySetRequest(uri).execute();
@@ -288,31 +288,39 @@ class EntitySetInvocationHandler<
 
         final List<S> items = new ArrayList<S>(entitySet.getEntities().size());
         for (ODataEntity entity : entitySet.getEntities()) {
-            final EntityTypeInvocationHandler handler = EntityTypeInvocationHandler.getInstance(entity, this, typeRef);
-
-            final EntityTypeInvocationHandler handlerInTheContext =
-                    EntityContainerFactory.getContext().entityContext().getEntity(handler.getUUID());
-
-            items.add((S) Proxy.newProxyInstance(
-                    Thread.currentThread().getContextClassLoader(),
-                    new Class<?>[] {typeRef},
-                    handlerInTheContext == null ? handler : handlerInTheContext));
+            items.add(getEntityProxy(entity, typeRef));
         }
 
         return new AbstractMap.SimpleEntry<List<S>, URI>(items, entitySet.getNext());
     }
 
+    @SuppressWarnings("unchecked")
+    private <S extends T> S getEntityProxy(final ODataEntity entity, final Class<S> typeRef) {
+        final EntityTypeInvocationHandler handler = EntityTypeInvocationHandler.getInstance(entity, this, typeRef);
+
+        final EntityTypeInvocationHandler handlerInTheContext =
+                EntityContainerFactory.getContext().entityContext().getEntity(handler.getUUID());
+
+        return (S) Proxy.newProxyInstance(
+                Thread.currentThread().getContextClassLoader(),
+                new Class<?>[] {typeRef},
+                handlerInTheContext == null ? handler : handlerInTheContext);
+    }
+
     @SuppressWarnings("unchecked")
     public <S extends T, SEC extends AbstractEntityCollection<S>> SEC fetchWholeEntitySet(
             final URI entitySetURI, final Class<S> typeRef, final Class<SEC> collTypeRef) {
 
         final List<S> items = new ArrayList<S>();
 
-        URI nextURI = entitySetURI;
-        while (nextURI != null) {
-            final Map.Entry<List<S>, URI> entitySet = fetchPartialEntitySet(nextURI, typeRef);
-            nextURI = entitySet.getValue();
-            items.addAll(entitySet.getKey());
+        final ODataPagedEntitySetIterator entities =
+                ODataRetrieveRequestFactory.getPagedEntitySetIterator(entitySetURI);
+        try {
+            while (entities.hasNext()) {
+                items.add(getEntityProxy(entities.next(), typeRef));
+            }
+        } finally {
+            entities.close();
         }
 
         return (SEC) Proxy.newProxyInstance(